@@ -14,6 +14,7 @@ import com.strongkey.crypto.interfaces.initCryptoModule;
 import com.strongkey.crypto.utility.CryptoException;
 import com.strongkey.crypto.utility.cryptoCommon;
 import com.strongkey.skce.utilities.skceCommon;
+import com.strongkey.skce.utilities.skceMetrics;
 import java.util.logging.Level;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -60,6 +61,18 @@ public class authenticateRestRequestBean implements authenticateRestRequestBeanL
             Long did,
             HttpServletRequest request,
             Object requestbody) {
+        long start = System.nanoTime();
+        try {
+            return authenticate(did, request, requestbody);
+        } finally {
+            skceMetrics.PHASE_AUTH.recordSince(start);
+        }
+    }
+
+    private boolean authenticate(
+            Long did,
+            HttpServletRequest request,
+            Object requestbody) {
 
         strongkeyLogger.logp(applianceConstants.APPLIANCE_LOGGER, Level.FINE, classname, "execute", "APPL-MSG-1051",
                 "\n EJB name=" + classname +
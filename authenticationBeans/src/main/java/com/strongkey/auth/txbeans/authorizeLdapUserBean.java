@@ -25,18 +25,18 @@ import com.strongkey.appliance.utilities.applianceCommon;
 import com.strongkey.appliance.utilities.applianceConstants;
 import com.strongkey.appliance.utilities.applianceInputChecks;
 import com.strongkey.appliance.utilities.strongkeyLogger;
+import com.strongkey.auth.utilities.LdapAuthorizationCache;
 import com.strongkey.skce.utilities.SKCEException;
 import com.strongkey.skce.utilities.skceCommon;
 import com.strongkey.skce.utilities.skceConstants;
+import com.strongkey.skce.utilities.skceMetrics;
+import java.util.Locale;
+import java.util.Set;
 import java.util.logging.Level;
 import javax.ejb.Stateless;
 import javax.naming.AuthenticationException;
 import javax.naming.Context;
-import javax.naming.NamingEnumeration;
 import javax.naming.NamingException;
-import javax.naming.directory.Attribute;
-import javax.naming.directory.Attributes;
-import javax.naming.ldap.LdapContext;
 
 
 /**
@@ -84,6 +84,20 @@ public class authorizeLdapUserBean implements authorizeLdapUserBeanLocal, author
             String username,
             String password,
             String operation) throws SKCEException
+    {
+        long start = System.nanoTime();
+        try {
+            return authorize(did, username, password, operation);
+        } finally {
+            skceMetrics.PHASE_AUTH.recordSince(start);
+        }
+    }
+
+    private boolean authorize(
+            Long did,
+            String username,
+            String password,
+            String operation) throws SKCEException
     {
         strongkeyLogger.entering(applianceConstants.APPLIANCE_LOGGER,classname, "execute");
         strongkeyLogger.logp(applianceConstants.APPLIANCE_LOGGER,Level.FINE, classname, "execute", applianceCommon.getMessageProperty("APPL-MSG-1000"),
@@ -101,6 +115,20 @@ public class authorizeLdapUserBean implements authorizeLdapUserBeanLocal, author
          }
 
 
+        // A recent decision for the same credential and operation is reused
+        String cachekey = LdapAuthorizationCache.getKey(did, username, password, operation);
+        LdapAuthorizationCache.Decision decision = LdapAuthorizationCache.getDecision(cachekey);
+        if (decision != null) {
+            strongkeyLogger.log(applianceConstants.APPLIANCE_LOGGER,Level.FINE, "APPL-MSG-1000", "cached decision: " + username + "-" + operation + "=" + decision.isAuthorized());
+            if (decision.isAuthorized()) {
+                return true;
+            }
+            if (decision.getMessage() != null) {
+                throw new SKCEException(decision.getMessage());
+            }
+            return false;
+        }
+
         // Get configured parameters for this domain
         String ldapurl = skceCommon.getConfigurationProperty(did, "ldape.cfg.property.service.ce.ldap.ldapurl");
         String dnprefix = skceCommon.getConfigurationProperty(did, "ldape.cfg.property.service.ce.ldap.ldapdnprefix");
@@ -184,52 +212,32 @@ public class authorizeLdapUserBean implements authorizeLdapUserBeanLocal, author
                 return false;
             }
             strongkeyLogger.log(applianceConstants.APPLIANCE_LOGGER,Level.FINE, "APPL-MSG-1000", group);
-            LdapContext lc = (LdapContext) ctx.lookup(group);
-            // If return value is not null, credentials are valid
-            if (lc != null) {
-                /**
-                 * Now check if user is in the group as a uniqueMember. *
-                 * Unfortunately, AD doesn't use standard LDAP * objectclasses,
-                 * so we have to test for "member" instead * of "uniqueMember"
-                 * when testing against AD.
-                 */
-                Attributes attrs ;
-                if (ldaptype.equalsIgnoreCase("AD")) {
-                    String[] attrIDs = {"member"};
-                    attrs = lc.getAttributes("", attrIDs);
-                } else{
-                    String[] attrIDs = {"uniqueMember"};
-                    attrs = lc.getAttributes("", attrIDs);
-                }
-                // Check attributes of the group object
-                for (NamingEnumeration<?> ne = attrs.getAll(); ne.hasMore();) {
-                    Attribute attr = (Attribute) ne.next();
-                    NamingEnumeration<?> e = attr.getAll();
-
-                    while (e.hasMore()) {
-                        String unqmem = (String) e.next();
-                        strongkeyLogger.log(applianceConstants.APPLIANCE_LOGGER,Level.FINE, "APPL-MSG-1000", unqmem);
-                        if (unqmem.equalsIgnoreCase(principal)) {
-                            strongkeyLogger.log(applianceConstants.APPLIANCE_LOGGER,Level.INFO, "APPL-MSG-1000", "request user: "+group + " (" + principal + ")");
-                            ctx.close();
-                            lc.close();
-                            return true;
-                        }
-                    }
-                    // User is not in the d group
-                    strongkeyLogger.log(applianceConstants.APPLIANCE_LOGGER,Level.INFO, "APPL-MSG-1000", group + " (" + principal + ")");
-                    ctx.close();
-                    lc.close();
-
-                    //return false;
-                    throw new SKCEException("Invalid User : " + principal);
+            Set<String> members;
+            try {
+                members = LdapAuthorizationCache.getMembers(did, group, ldaptype, ctx);
+            } finally {
+                ctx.close();
+            }
+            if (members != null) {
+                if (members.contains(principal.toLowerCase(Locale.ROOT))) {
+                    strongkeyLogger.log(applianceConstants.APPLIANCE_LOGGER,Level.INFO, "APPL-MSG-1000", "request user: "+group + " (" + principal + ")");
+                    LdapAuthorizationCache.putDecision(did, cachekey, true, null);
+                    return true;
                 }
+                // User is not in the d group
+                strongkeyLogger.log(applianceConstants.APPLIANCE_LOGGER,Level.INFO, "APPL-MSG-1000", group + " (" + principal + ")");
+                String message = "Invalid User : " + principal;
+                LdapAuthorizationCache.putDecision(did, cachekey, false, message);
+                throw new SKCEException(message);
             }
+            LdapAuthorizationCache.putDecision(did, cachekey, false, null);
             // Failed authentication with supplied credentials;
         } catch (AuthenticationException  ex) {
             ex.printStackTrace();
             strongkeyLogger.log(applianceConstants.APPLIANCE_LOGGER,Level.SEVERE, "APPL-ERR-1000", username + ex.getLocalizedMessage());
-            throw new SKCEException(skceCommon.getMessageProperty("SKCEWS-ERR-3055").replace("{0}", "") + username);
+            String message = skceCommon.getMessageProperty("SKCEWS-ERR-3055").replace("{0}", "") + username;
+            LdapAuthorizationCache.putDecision(did, cachekey, false, message);
+            throw new SKCEException(message);
         } catch (NamingException ex) {
             ex.printStackTrace();
             strongkeyLogger.log(applianceConstants.APPLIANCE_LOGGER,Level.SEVERE, "APPL-ERR-1000", username + ex.getLocalizedMessage());
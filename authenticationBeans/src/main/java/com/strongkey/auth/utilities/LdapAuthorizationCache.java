@@ -0,0 +1,263 @@
+/**
+* Copyright StrongAuth, Inc. All Rights Reserved.
+*
+* Use of this source code is governed by the GNU Lesser General Public License v2.1
+* The license can be found at https://github.com/StrongKey/fido2/blob/master/LICENSE
+*/
+
+package com.strongkey.auth.utilities;
+
+import com.strongkey.appliance.utilities.applianceConstants;
+import com.strongkey.appliance.utilities.strongkeyLogger;
+import com.strongkey.skce.utilities.CacheStatistics;
+import com.strongkey.skce.utilities.skceCommon;
+import com.strongkey.skce.utilities.skceMetrics;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import javax.naming.Context;
+import javax.naming.NamingEnumeration;
+import javax.naming.NamingException;
+import javax.naming.directory.Attribute;
+import javax.naming.directory.Attributes;
+import javax.naming.ldap.LdapContext;
+
+/**
+ * Short-lived cache of the decisions of authorizeLdapUserBean, and of the
+ * members of the LDAP groups the decisions are made against.
+ *
+ * A decision is keyed by did, username, operation and a salted SHA-256 of the
+ * password, so a cached decision is only returned for the password it was
+ * made with; the salt is random per process and the password itself is never
+ * kept. Denials are cached for a shorter time than grants. Bind failures other
+ * than bad credentials are never cached.
+ *
+ * The members of a group are kept as a set of lowercased DNs. Once a set is
+ * older than the refresh interval, the next request reloads it while the
+ * other requests keep using the old set; a set older than three refresh
+ * intervals is reloaded before it is used.
+ */
+public final class LdapAuthorizationCache {
+
+    private static final String classname = "LdapAuthorizationCache";
+
+    private static final byte[] salt = new byte[32];
+
+    static {
+        new SecureRandom().nextBytes(salt);
+    }
+
+    // did|username|operation|hash(password) -> decision
+    private static final Map<String, Decision> decisions = new ConcurrentHashMap<>();
+
+    // did|lowercased group DN -> members of the group
+    private static final Map<String, Group> groups = new ConcurrentHashMap<>();
+
+    private static final CacheStatistics decisionstats = skceMetrics.cache("ldapauthorization");
+    private static final CacheStatistics groupstats = skceMetrics.cache("ldapgroup");
+
+    private LdapAuthorizationCache() {
+    }
+
+    /**
+     * Builds the key of the decision for a credential and operation.
+     *
+     * @param did - domain of the credential
+     * @param username - username of the credential
+     * @param password - password of the credential
+     * @param operation - operation being authorized
+     * @return String key of the decision
+     */
+    public static String getKey(Long did, String username, String password, String operation) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            md.update(salt);
+            md.update(password.getBytes(StandardCharsets.UTF_8));
+            return did + "|" + username + "|" + operation.toUpperCase(Locale.ROOT) + "|"
+                    + Base64.getEncoder().encodeToString(md.digest());
+        } catch (NoSuchAlgorithmException ex) {
+            // Every JRE provides SHA-256
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * @param key - key built by getKey
+     * @return the cached decision, or null if there is none or it expired
+     */
+    public static Decision getDecision(String key) {
+        Decision d = decisions.get(key);
+        if (d == null) {
+            decisionstats.miss();
+            return null;
+        }
+        if (d.expiry < System.currentTimeMillis()) {
+            decisions.remove(key, d);
+            decisionstats.miss();
+            return null;
+        }
+        decisionstats.hit();
+        return d;
+    }
+
+    /**
+     * Caches a decision.
+     *
+     * @param did - domain of the credential
+     * @param key - key built by getKey
+     * @param authorized - true if the operation was authorized
+     * @param message - message of the SKCEException thrown for a denial, or
+     * null if the denial returned false
+     */
+    public static void putDecision(Long did, String key, boolean authorized, String message) {
+        long ttl = getMillis(did, authorized
+                ? "ldape.cfg.property.service.ce.ldap.authz.cache.ttl.seconds"
+                : "ldape.cfg.property.service.ce.ldap.authz.cache.negative.ttl.seconds");
+        if (ttl <= 0) {
+            return;
+        }
+        int maxsize = Integer.parseInt(skceCommon.getConfigurationProperty("ldape.cfg.property.service.ce.ldap.authz.cache.maxsize"));
+        if (decisions.size() >= maxsize) {
+            purge();
+            if (decisions.size() >= maxsize) {
+                decisions.clear();
+            }
+        }
+        decisions.put(key, new Decision(authorized, message, System.currentTimeMillis() + ttl));
+    }
+
+    /**
+     * Returns the members of a group, loading them with the given context if
+     * they are not cached or are too old to be used.
+     *
+     * @param did - domain of the group
+     * @param group - DN of the group
+     * @param ldaptype - LDAP or AD
+     * @param ctx - context bound with the credential being authorized
+     * @return Set of the lowercased DNs of the members, or null if the group
+     * has no member attribute
+     * @throws NamingException if the group cannot be read
+     */
+    public static Set<String> getMembers(Long did, String group, String ldaptype, Context ctx) throws NamingException {
+        String groupkey = did + "|" + group.toLowerCase(Locale.ROOT);
+        long refresh = getMillis(did, "ldape.cfg.property.service.ce.ldap.group.refresh.seconds");
+        long now = System.currentTimeMillis();
+        Group g = groups.get(groupkey);
+        if (g == null || now - g.loaded > 3 * refresh) {
+            groupstats.miss();
+            g = new Group(load(ctx, group, ldaptype));
+            groups.put(groupkey, g);
+            return g.members;
+        }
+        groupstats.hit();
+        if (now - g.loaded > refresh && g.refreshing.compareAndSet(false, true)) {
+            try {
+                Group fresh = new Group(load(ctx, group, ldaptype));
+                groups.replace(groupkey, g, fresh);
+                return fresh.members;
+            } catch (NamingException | RuntimeException ex) {
+                // Keep the stale members; the next request retries
+                strongkeyLogger.logp(applianceConstants.APPLIANCE_LOGGER, Level.WARNING, classname, "getMembers", "APPL-ERR-1000", group + " " + ex.getLocalizedMessage());
+                g.refreshing.set(false);
+            }
+        }
+        return g.members;
+    }
+
+    /**
+     * Drops the decisions and group members of a domain, e.g. after service
+     * credentials or groups were changed in LDAP.
+     *
+     * @param did - the domain
+     */
+    public static void invalidate(Long did) {
+        String prefix = did + "|";
+        decisions.keySet().removeIf(k -> k.startsWith(prefix));
+        groups.keySet().removeIf(k -> k.startsWith(prefix));
+        strongkeyLogger.logp(applianceConstants.APPLIANCE_LOGGER, Level.INFO, classname, "invalidate", "APPL-MSG-1000", "LDAP authorization cache cleared [DID=" + did + "]");
+    }
+
+    /**
+     * Unfortunately, AD doesn't use standard LDAP objectclasses, so we have
+     * to read "member" instead of "uniqueMember" from AD.
+     */
+    private static Set<String> load(Context ctx, String group, String ldaptype) throws NamingException {
+        LdapContext lc = (LdapContext) ctx.lookup(group);
+        if (lc == null) {
+            return null;
+        }
+        try {
+            String[] attrIDs = {ldaptype.equalsIgnoreCase("AD") ? "member" : "uniqueMember"};
+            Attributes attrs = lc.getAttributes("", attrIDs);
+            Set<String> members = null;
+            for (NamingEnumeration<?> ne = attrs.getAll(); ne.hasMore();) {
+                Attribute attr = (Attribute) ne.next();
+                if (members == null) {
+                    members = new HashSet<>(attr.size() * 2);
+                }
+                for (NamingEnumeration<?> e = attr.getAll(); e.hasMore();) {
+                    members.add(((String) e.next()).toLowerCase(Locale.ROOT));
+                }
+            }
+            strongkeyLogger.logp(applianceConstants.APPLIANCE_LOGGER, Level.FINE, classname, "load", "APPL-MSG-1000", group + " members=" + ((members == null) ? 0 : members.size()));
+            return (members == null) ? null : Collections.unmodifiableSet(members);
+        } finally {
+            lc.close();
+        }
+    }
+
+    private static void purge() {
+        long now = System.currentTimeMillis();
+        decisions.values().removeIf(d -> d.expiry < now);
+    }
+
+    private static long getMillis(Long did, String key) {
+        return Long.parseLong(skceCommon.getConfigurationProperty(did, key)) * 1000;
+    }
+
+    public static final class Decision {
+
+        private final boolean authorized;
+        private final String message;
+        private final long expiry;
+
+        Decision(boolean authorized, String message, long expiry) {
+            this.authorized = authorized;
+            this.message = message;
+            this.expiry = expiry;
+        }
+
+        public boolean isAuthorized() {
+            return authorized;
+        }
+
+        /**
+         * @return message of the SKCEException to throw for a denial, or null
+         * if the denial returns false
+         */
+        public String getMessage() {
+            return message;
+        }
+    }
+
+    private static final class Group {
+
+        private final Set<String> members;
+        private final long loaded = System.currentTimeMillis();
+        private final AtomicBoolean refreshing = new AtomicBoolean(false);
+
+        Group(Set<String> members) {
+            this.members = members;
+        }
+    }
+}
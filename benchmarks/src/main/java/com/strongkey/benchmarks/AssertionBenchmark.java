@@ -0,0 +1,102 @@
+/**
+* Copyright StrongAuth, Inc. All Rights Reserved.
+*
+* Use of this source code is governed by the GNU Lesser General Public License v2.1
+* The license can be found at https://github.com/StrongKey/fido2/blob/master/LICENSE
+*/
+
+package com.strongkey.benchmarks;
+
+import com.strongkey.crypto.utility.cryptoCommon;
+import com.strongkey.skfs.utilities.SKFSCommon;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.PublicKey;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+import javax.json.Json;
+import javax.json.JsonObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Verification of an assertion signature as FIDO2AuthenticateBean does it:
+ * with the user's public key already decoded, decoded from its stored form,
+ * and looked up in the user public key cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AssertionBenchmark {
+
+    @Param({"ES256", "RS256"})
+    public String alg;
+
+    private byte[] authData;
+    private byte[] clientData;
+    private byte[] signature;
+    private PublicKey publickey;
+    private String encodedpublickey;
+    private String keytype;
+    private String sigalg;
+
+    @Setup
+    public void setup() throws Exception {
+        if (alg.equals("ES256")) {
+            JsonObject registration = Fixtures.register("self");
+            publickey = Fixtures.decodeAttestation(registration).getAuthData().getAttCredData().getPublicKey();
+            JsonObject response = Fixtures.authenticate(registration, 1).getJsonObject("response");
+            authData = Base64.getUrlDecoder().decode(response.getString("authenticatorData"));
+            clientData = Base64.getUrlDecoder().decode(response.getString("clientDataJSON"));
+            signature = Base64.getUrlDecoder().decode(response.getString("signature"));
+            keytype = "EC";
+            sigalg = SKFSCommon.getAlgFromIANACOSEAlg(-7);
+        } else {
+            // The simulator only signs with ES256
+            KeyPair keypair = Fixtures.generateRSAKeyPair();
+            publickey = keypair.getPublic();
+            authData = Fixtures.assertionAuthData(1);
+            clientData = Json.createObjectBuilder()
+                    .add("type", "webauthn.get")
+                    .add("challenge", Fixtures.newChallenge())
+                    .add("origin", Fixtures.ORIGIN)
+                    .build().toString().getBytes(StandardCharsets.UTF_8);
+            keytype = "RSA";
+            sigalg = SKFSCommon.getAlgFromIANACOSEAlg(-257);
+            signature = Fixtures.sign(keypair.getPrivate(), sigalg, Fixtures.signedBytes(authData, clientData));
+        }
+        encodedpublickey = Base64.getUrlEncoder().withoutPadding().encodeToString(publickey.getEncoded());
+        if (!verify()) {
+            throw new IllegalStateException("Fixture signature does not verify");
+        }
+    }
+
+    @Benchmark
+    public boolean verify() throws Exception {
+        return cryptoCommon.verifySignature(signature, publickey, Fixtures.signedBytes(authData, clientData), sigalg);
+    }
+
+    @Benchmark
+    public boolean verifyDecodingKey() throws Exception {
+        PublicKey pub = cryptoCommon.generatePublicKey(Base64.getUrlDecoder().decode(encodedpublickey), keytype);
+        return cryptoCommon.verifySignature(signature, pub, Fixtures.signedBytes(authData, clientData), sigalg);
+    }
+
+    @Benchmark
+    public boolean verifyCachedKey() throws Exception {
+        PublicKey pub = SKFSCommon.getUserPublicKey("1-1-1", encodedpublickey, keytype);
+        return cryptoCommon.verifySignature(signature, pub, Fixtures.signedBytes(authData, clientData), sigalg);
+    }
+}
@@ -0,0 +1,65 @@
+/**
+* Copyright StrongAuth, Inc. All Rights Reserved.
+*
+* Use of this source code is governed by the GNU Lesser General Public License v2.1
+* The license can be found at https://github.com/StrongKey/fido2/blob/master/LICENSE
+*/
+
+package com.strongkey.benchmarks;
+
+import com.strongkey.skfs.fido2.FIDO2AttestationObject;
+import com.strongkey.skfs.fido2.FIDO2AuthenticatorData;
+import java.util.concurrent.TimeUnit;
+import javax.json.JsonObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Decoding of the attestation object of a registration response, and of the
+ * authenticator data (with attested credential data) in it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AttestationBenchmark {
+
+    // Attestation types of the packed format
+    @Param({"self", "basic"})
+    public String attestationType;
+
+    private String attestationObject;
+    private byte[] authData;
+
+    @Setup
+    public void setup() throws Exception {
+        JsonObject registration = Fixtures.register(attestationType);
+        attestationObject = registration.getJsonObject("response").getString("attestationObject");
+        authData = Fixtures.decodeAttestation(registration).getAuthData().getAuthDataDecoded();
+    }
+
+    @Benchmark
+    public FIDO2AttestationObject decodeAttestationObject() throws Exception {
+        FIDO2AttestationObject attObject = new FIDO2AttestationObject();
+        attObject.decodeAttestationObject(attestationObject);
+        return attObject;
+    }
+
+    @Benchmark
+    public FIDO2AuthenticatorData decodeAuthData() throws Exception {
+        FIDO2AuthenticatorData authenticatorData = new FIDO2AuthenticatorData();
+        authenticatorData.decodeAuthData(authData);
+        return authenticatorData;
+    }
+}
@@ -0,0 +1,164 @@
+/**
+* Copyright StrongAuth, Inc. All Rights Reserved.
+*
+* Use of this source code is governed by the GNU Lesser General Public License v2.1
+* The license can be found at https://github.com/StrongKey/fido2/blob/master/LICENSE
+*/
+
+package com.strongkey.benchmarks;
+
+import com.strongauth.skfs.fido2.simulator.FIDO2AuthenticatorSimulator;
+import com.strongkey.skfs.fido2.FIDO2AttestationObject;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.MessageDigest;
+import java.security.PrivateKey;
+import java.security.SecureRandom;
+import java.security.Security;
+import java.security.Signature;
+import java.util.Base64;
+import javax.json.Json;
+import javax.json.JsonObject;
+import org.bouncycastle.jcajce.provider.BouncyCastleFipsProvider;
+
+/**
+ * Registration and authentication responses for the benchmarks, made with
+ * the FIDO2Simulator the same way the FIDO2 server receives them.
+ *
+ * The benchmarks are run from the shaded jar, with the BC FIPS jars (copied
+ * to target/lib, since they cannot be shaded) on the class path:
+ *
+ *     java -cp target/benchmarks.jar:target/lib/* org.openjdk.jmh.Main [regexp]
+ *
+ * Configuration is read as by the server, so an installed SKFS/CRYPTO home
+ * applies its overrides to the benchmarks.
+ */
+public final class Fixtures {
+
+    public static final String RPID = "strongkey.com";
+    public static final String ORIGIN = "https://" + RPID;
+
+    private static final SecureRandom random = new SecureRandom();
+
+    static {
+        if (Security.getProvider("BCFIPS") == null) {
+            Security.addProvider(new BouncyCastleFipsProvider());
+        }
+    }
+
+    private Fixtures() {
+    }
+
+    public static String newChallenge() {
+        byte[] challenge = new byte[16];
+        random.nextBytes(challenge);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(challenge);
+    }
+
+    /**
+     * @param attestationType - self or basic
+     * @return a registration response with a packed attestation object, the
+     * only format the simulator makes
+     */
+    public static JsonObject register(String attestationType) throws Exception {
+        String request = Json.createObjectBuilder()
+                .add("challenge", newChallenge())
+                .add("rp", Json.createObjectBuilder().add("id", RPID))
+                .build().toString();
+        return FIDO2AuthenticatorSimulator.generateFIDO2RegistrationResponse(
+                ORIGIN, request, ORIGIN, "packed", attestationType, true, false);
+    }
+
+    /**
+     * @param registration - a response from register
+     * @param counter - signature counter of the assertion
+     * @return an ES256 authentication response for the registered key
+     */
+    public static JsonObject authenticate(JsonObject registration, int counter) throws Exception {
+        String challenge = Json.createObjectBuilder()
+                .add("challenge", newChallenge())
+                .add("rpId", RPID)
+                .build().toString();
+        return FIDO2AuthenticatorSimulator.generateFIDO2AuthenticationResponse(
+                registration.getString("id"), challenge, ORIGIN, "packed", counter, true, false);
+    }
+
+    /**
+     * @param registration - a response from register
+     * @return the attestation object of the response, decoded by the server
+     */
+    public static FIDO2AttestationObject decodeAttestation(JsonObject registration) throws Exception {
+        FIDO2AttestationObject attObject = new FIDO2AttestationObject();
+        attObject.decodeAttestationObject(registration.getJsonObject("response").getString("attestationObject"));
+        return attObject;
+    }
+
+    public static KeyPair generateRSAKeyPair() throws Exception {
+        KeyPairGenerator kpg = KeyPairGenerator.getInstance("RSA", "BCFIPS");
+        kpg.initialize(2048, random);
+        return kpg.generateKeyPair();
+    }
+
+    /**
+     * Makes an authenticator data without attested credential data, as in an
+     * assertion; used for the algorithms the simulator does not sign with.
+     */
+    public static byte[] assertionAuthData(int counter) throws Exception {
+        return ByteBuffer.allocate(37)
+                .put(MessageDigest.getInstance("SHA-256").digest(RPID.getBytes(StandardCharsets.UTF_8)))
+                .put((byte) 0x01)
+                .putInt(counter)
+                .array();
+    }
+
+    /**
+     * @return authenticator data followed by the SHA-256 of the client data,
+     * the bytes an assertion signature covers
+     */
+    public static byte[] signedBytes(byte[] authData, byte[] clientData) throws Exception {
+        byte[] cdhash = MessageDigest.getInstance("SHA-256").digest(clientData);
+        byte[] tbs = new byte[authData.length + cdhash.length];
+        System.arraycopy(authData, 0, tbs, 0, authData.length);
+        System.arraycopy(cdhash, 0, tbs, authData.length, cdhash.length);
+        return tbs;
+    }
+
+    public static byte[] sign(PrivateKey key, String algorithm, byte[] tbs) throws Exception {
+        Signature sig = Signature.getInstance(algorithm, "BCFIPS");
+        sig.initSign(key, random);
+        sig.update(tbs);
+        return sig.sign();
+    }
+
+    /**
+     * @param resource - name of a resource of this module
+     * @return the UTF-8 content of the resource
+     */
+    public static String resource(String resource) throws IOException {
+        try (InputStream is = Fixtures.class.getResourceAsStream(resource)) {
+            if (is == null) {
+                throw new IOException("Missing resource " + resource);
+            }
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            byte[] buf = new byte[4096];
+            int n;
+            while ((n = is.read(buf)) > 0) {
+                baos.write(buf, 0, n);
+            }
+            return new String(baos.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * @return the string base64url encoded, as policies and registration
+     * settings are stored
+     */
+    public static String base64Url(String s) {
+        return Base64.getUrlEncoder().encodeToString(s.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,95 @@
+/**
+* Copyright StrongAuth, Inc. All Rights Reserved.
+*
+* Use of this source code is governed by the GNU Lesser General Public License v2.1
+* The license can be found at https://github.com/StrongKey/fido2/blob/master/LICENSE
+*/
+
+package com.strongkey.benchmarks;
+
+import com.strongkey.crypto.bcfips.GenericCryptoModule;
+import com.strongkey.crypto.interfaces.initCryptoModule;
+import com.strongkey.crypto.utility.cryptoCommon;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * HMAC of a REST request as authenticateRestRequestBean checks it.
+ *
+ * hmacRequest uses the access-keys of the hmac keystore configured by
+ * crypto.cfg.property.hmac.keystorelocation, so it needs an installed
+ * keystore and its password and access-key, given with
+ * -Dbenchmarks.hmac.password and -Dbenchmarks.hmac.accesskey (passed to the
+ * forked JVM with -jvmArgs). hmacSecretKey measures the Mac alone, with a
+ * generated secret-key.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HmacBenchmark {
+
+    private String request;
+    private SecretKey secretkey;
+
+    @Setup
+    public void setup() throws Exception {
+        String body = "{\"svcinfo\":{\"did\":1,\"protocol\":\"FIDO2_0\",\"authtype\":\"HMAC\"},\"payload\":{\"username\":\"johndoe\"}}";
+        String sha = Base64.getEncoder().encodeToString(
+                MessageDigest.getInstance("SHA-256").digest(body.getBytes(StandardCharsets.UTF_8)));
+        request = "POST\n"
+                + sha + "\n"
+                + "application/json\n"
+                + "Mon, 12 Oct 2020 17:12:40 GMT\n"
+                + "SK3_0\n"
+                + "/skfs/rest/preauthenticate";
+
+        KeyGenerator kg = KeyGenerator.getInstance("HmacSHA256", "BCFIPS");
+        kg.init(256);
+        secretkey = kg.generateKey();
+    }
+
+    @Benchmark
+    public byte[] hmacSecretKey() {
+        return cryptoCommon.calculateHmac(secretkey, request.getBytes(), "HmacSHA256");
+    }
+
+    @Benchmark
+    public String hmacRequest(Keystore keystore) throws Exception {
+        return keystore.cryptomodule.hmacRequest(keystore.password, keystore.accesskey, request);
+    }
+
+    @State(Scope.Benchmark)
+    public static class Keystore {
+
+        private GenericCryptoModule cryptomodule;
+        private String password;
+        private String accesskey;
+
+        @Setup
+        public void setup() {
+            password = System.getProperty("benchmarks.hmac.password");
+            accesskey = System.getProperty("benchmarks.hmac.accesskey");
+            if (password == null || accesskey == null) {
+                throw new IllegalStateException("hmacRequest needs -Dbenchmarks.hmac.password and -Dbenchmarks.hmac.accesskey");
+            }
+            cryptomodule = initCryptoModule.getCryptoModule();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/**
+* Copyright StrongAuth, Inc. All Rights Reserved.
+*
+* Use of this source code is governed by the GNU Lesser General Public License v2.1
+* The license can be found at https://github.com/StrongKey/fido2/blob/master/LICENSE
+*/
+
+package com.strongkey.benchmarks;
+
+import com.strongkey.skfs.fido.policyobjects.FidoPolicyObject;
+import com.strongkey.skfs.pojos.FidoPolicyMDSObject;
+import com.strongkey.skfs.pojos.RegistrationSettings;
+import com.strongkey.skfs.utilities.FidoPolicyCache;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import javax.json.Json;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parsing of the registration settings of a key and of a FIDO policy, and the
+ * lookups getCachedFidoPolicyMDSObject makes in the policy cache: the newest
+ * active policy, for a user without keys, and the policy active when a key
+ * was registered.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PolicyBenchmark {
+
+    private static final long DAY = TimeUnit.DAYS.toMillis(1);
+    private static final String STARTDATE = "\"startDate\":\"1577836800000\"";
+
+    @Param({"100"})
+    public int domains;
+
+    @Param({"1", "16"})
+    public int policiesPerDomain;
+
+    private String registrationSettings;
+    private String policy;
+    private Long did;
+    private Date keyCreateDate;
+
+    @Setup
+    public void setup() throws Exception {
+        registrationSettings = Fixtures.base64Url(Json.createObjectBuilder()
+                .add("ALG", -7)
+                .add("KTY", 2)
+                .add("CRV", 1)
+                .add("UP", true)
+                .add("UV", false)
+                .add("attestationFormat", "packed")
+                .add("attestationType", "self")
+                .build().toString());
+
+        String policyjson = Fixtures.resource("policy.json");
+        policy = Fixtures.base64Url(policyjson);
+
+        // Each domain has its policies starting a day apart
+        long start = 1577836800000L;
+        for (long d = 1; d <= domains; d++) {
+            for (long p = 1; p <= policiesPerDomain; p++) {
+                String json = policyjson.replace(STARTDATE, "\"startDate\":\"" + (start + p * DAY) + "\"");
+                FidoPolicyObject fp = FidoPolicyObject.parse(Fixtures.base64Url(json), d, 1L, p);
+                FidoPolicyCache.put("1-" + d + "-" + p, new FidoPolicyMDSObject(fp, null));
+            }
+        }
+        did = (long) (domains / 2 + 1);
+        keyCreateDate = new Date(start + policiesPerDomain * DAY / 2 + DAY / 2);
+    }
+
+    @Benchmark
+    public RegistrationSettings parseRegistrationSettings() {
+        return RegistrationSettings.parse(registrationSettings, 1);
+    }
+
+    @Benchmark
+    public FidoPolicyObject parsePolicy() throws Exception {
+        return FidoPolicyObject.parse(policy, 1L, 1L, 1L);
+    }
+
+    @Benchmark
+    public FidoPolicyObject newestActivePolicy() {
+        return FidoPolicyCache.getNewestActivePolicy(did, new Date());
+    }
+
+    @Benchmark
+    public FidoPolicyObject policyActiveAtKeyCreation() {
+        return FidoPolicyCache.getPolicyActiveAt(did, keyCreateDate, new Date());
+    }
+}
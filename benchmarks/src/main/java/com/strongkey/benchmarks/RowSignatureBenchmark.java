@@ -0,0 +1,106 @@
+/**
+* Copyright StrongAuth, Inc. All Rights Reserved.
+*
+* Use of this source code is governed by the GNU Lesser General Public License v2.1
+* The license can be found at https://github.com/StrongKey/fido2/blob/master/LICENSE
+*/
+
+package com.strongkey.benchmarks;
+
+import com.strongkey.crypto.utility.cryptoCommon;
+import com.strongkey.skfe.entitybeans.FidoKeys;
+import com.strongkey.skfs.utilities.SKFSCommon;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Base64;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Row-level signature verification of a FIDO key read by getFidoKeys, with
+ * an EC signing key: verifying the signature over the JSON form of the row,
+ * as GenericCryptoModule.verifyDBRow does, and finding the row among the
+ * already verified ones by its digest.
+ *
+ * getFidoKeys is an EJB that gets the signing key from the domain and the
+ * keystore, so the benchmark signs the row with a generated key and repeats
+ * the steps of its verification.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RowSignatureBenchmark {
+
+    private FidoKeys fk;
+    private PublicKey signingkey;
+    private String sigalg;
+    private String documentid;
+
+    @Setup
+    public void setup() throws Exception {
+        fk = new FidoKeys((short) 1, (short) 1, "johndoe", 1L);
+        fk.setUserid("am9obmRvZQ");
+        fk.setKeyhandle(Fixtures.newChallenge() + Fixtures.newChallenge() + Fixtures.newChallenge());
+        fk.setAppid(Fixtures.ORIGIN);
+        fk.setPublickey(Fixtures.newChallenge() + Fixtures.newChallenge() + Fixtures.newChallenge() + Fixtures.newChallenge());
+        fk.setTransports((short) 1);
+        fk.setAttsid((short) 1);
+        fk.setAttdid((short) 1);
+        fk.setAttcid(1);
+        fk.setCounter(1);
+        fk.setFidoVersion("FIDO2_0");
+        fk.setFidoProtocol("FIDO2_0");
+        fk.setAaguid("00000000-0000-0000-0000-000000000000");
+        fk.setRegistrationSettings(Fixtures.base64Url("{\"ALG\":-7,\"KTY\":2,\"CRV\":1,\"UP\":true,\"UV\":false,\"attestationFormat\":\"packed\",\"attestationType\":\"self\"}"));
+        fk.setRegistrationSettingsVersion(1);
+        fk.setCreateDate(new Date());
+        fk.setCreateLocation("localhost");
+        fk.setStatus("Active");
+        fk.setSignatureKeytype("EC");
+        documentid = "1-1-johndoe-1";
+        fk.setId(documentid);
+
+        KeyPairGenerator kpg = KeyPairGenerator.getInstance("EC", "BCFIPS");
+        kpg.initialize(new ECGenParameterSpec("secp256r1"));
+        KeyPair keypair = kpg.generateKeyPair();
+        signingkey = keypair.getPublic();
+        sigalg = cryptoCommon.getConfigurationProperty("crypto.cfg.property.signing.ec.signaturealgorithm");
+        fk.setSignature(Base64.getEncoder().encodeToString(
+                Fixtures.sign(keypair.getPrivate(), sigalg, fk.toJsonObject().getBytes(StandardCharsets.UTF_8))));
+
+        if (!verify()) {
+            throw new IllegalStateException("Fixture row signature does not verify");
+        }
+        SKFSCommon.setVerifiedRowSignature(documentid, SKFSCommon.getRowDigest(fk, fk.toJsonObject()));
+    }
+
+    @Benchmark
+    public boolean verify() throws Exception {
+        Signature signature = Signature.getInstance(sigalg);
+        signature.initVerify(signingkey);
+        signature.update(fk.toJsonObject().getBytes("UTF-8"));
+        return signature.verify(Base64.getDecoder().decode(fk.getSignature()));
+    }
+
+    @Benchmark
+    public boolean alreadyVerified() throws Exception {
+        return SKFSCommon.isVerifiedRowSignature(documentid, SKFSCommon.getRowDigest(fk, fk.toJsonObject()));
+    }
+}
@@ -822,6 +822,8 @@ Y8P          Y8P 888
         entitynames.put(applianceConstants.ENTITY_TYPE_FIDO_POLICIES, "ENTITY_TYPE_FIDO_POLICIES");
         entitynames.put(applianceConstants.ENTITY_TYPE_ATTESTATION_CERTIFICATES, "ENTITY_TYPE_ATTESTATION_CERTIFICATES");
         entitynames.put(applianceConstants.ENTITY_TYPE_FIDO_CONFIGURATIONS, "ENTITY_TYPE_FIDO_CONFIGURATIONS");
+        entitynames.put(applianceConstants.ENTITY_TYPE_MAP_USER_SESSION_INFO_BATCH, "ENTITY_TYPE_MAP_USER_SESSION_INFO_BATCH");
+        entitynames.put(applianceConstants.ENTITY_TYPE_FIDO_KEYS_COUNTER, "ENTITY_TYPE_FIDO_KEYS_COUNTER");
 
         repops.put(applianceConstants.REPLICATION_OPERATION_ADD, "REPLICATION_OPERATION_ADD");
         repops.put(applianceConstants.REPLICATION_OPERATION_DELETE, "REPLICATION_OPERATION_DELETE");
@@ -473,6 +473,16 @@ public class applianceConstants {
      * Parameter for Fido CONFIGURATIONS entity bean
      */
     public static final int ENTITY_TYPE_FIDO_CONFIGURATIONS = 106;
+    /**
+     * Parameter for a batch of User Session Info SKCE Hashmap entries that
+     * are replicated (and applied) as a single unit
+     */
+    public static final int ENTITY_TYPE_MAP_USER_SESSION_INFO_BATCH = 107;
+    /**
+     * Parameter for the signature counter of a FIDO KEYS entity bean; only
+     * the counter, modify date and modify location are replicated
+     */
+    public static final int ENTITY_TYPE_FIDO_KEYS_COUNTER = 108;
 
 //    /**
 //     * Lower limit for CDO Entity Types
@@ -0,0 +1,509 @@
+/**
+* Copyright StrongAuth, Inc. All Rights Reserved.
+*
+* Use of this source code is governed by the GNU Lesser General Public License v2.1
+* The license can be found at https://github.com/StrongKey/fido2/blob/master/LICENSE
+*/
+
+package com.strongkey.cbor;
+
+import static com.strongkey.cbor.jacob.CborConstants.*;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A cursor over CBOR encoded data held in a byte array, for decoding WebAuthn
+ * structures (attestation objects, authenticator data, COSE keys and
+ * extensions) in place.
+ *
+ * Unlike the stream based jacob CborDecoder, the reader works on the array
+ * directly: items are read at the cursor, integers are returned as
+ * primitives, and structures can be walked or skipped without building maps
+ * of them. Authenticator data mixes raw fields with CBOR items, so the reader
+ * also reads raw bytes; the position of the cursor tells callers how many
+ * bytes an item took.
+ *
+ * Only the values callers keep (strings, byte strings) are copied out of the
+ * array. A reader is not thread-safe.
+ */
+public final class CborReader {
+
+    // Deepest nesting of arrays, maps and tags read or skipped
+    private static final int MAX_DEPTH = 32;
+
+    private final byte[] data;
+    private final int limit;
+    private int position;
+
+    public CborReader(byte[] data) {
+        this(data, 0, data.length);
+    }
+
+    /**
+     * @param data - array holding the CBOR data
+     * @param offset - index of the first byte to read
+     * @param length - number of bytes that may be read
+     */
+    public CborReader(byte[] data, int offset, int length) {
+        if (offset < 0 || length < 0 || offset + length > data.length) {
+            throw new IndexOutOfBoundsException("offset=" + offset + " length=" + length);
+        }
+        this.data = data;
+        this.position = offset;
+        this.limit = offset + length;
+    }
+
+    /**
+     * Reads the remaining bytes of a buffer. Heap buffers are read in place;
+     * the remaining bytes of direct buffers are copied once.
+     *
+     * @param buffer - the buffer; its position is not changed
+     */
+    public CborReader(ByteBuffer buffer) {
+        if (buffer.hasArray()) {
+            this.data = buffer.array();
+            this.position = buffer.arrayOffset() + buffer.position();
+        } else {
+            this.data = new byte[buffer.remaining()];
+            buffer.duplicate().get(this.data);
+            this.position = 0;
+        }
+        this.limit = this.position + buffer.remaining();
+    }
+
+    /**
+     * @return a reader over the same data with the same cursor, which can be
+     * moved without moving this one
+     */
+    public CborReader duplicate() {
+        return new CborReader(data, position, limit - position);
+    }
+
+    /**
+     * @return index of the cursor in the underlying array
+     */
+    public int position() {
+        return position;
+    }
+
+    public int remaining() {
+        return limit - position;
+    }
+
+    public boolean hasRemaining() {
+        return position < limit;
+    }
+
+    /*
+     ************************************************************************
+     *                             Raw bytes
+     ************************************************************************
+     */
+
+    public int readRawByte() throws IOException {
+        require(1);
+        return data[position++] & 0xFF;
+    }
+
+    /**
+     * @return big-endian unsigned 16-bit integer
+     */
+    public int readRawUInt16() throws IOException {
+        require(2);
+        int value = ((data[position] & 0xFF) << 8) | (data[position + 1] & 0xFF);
+        position += 2;
+        return value;
+    }
+
+    /**
+     * @param length - number of bytes
+     * @return copy of the bytes
+     */
+    public byte[] readRawBytes(int length) throws IOException {
+        require(length);
+        byte[] bytes = Arrays.copyOfRange(data, position, position + length);
+        position += length;
+        return bytes;
+    }
+
+    /*
+     ************************************************************************
+     *                             CBOR items
+     ************************************************************************
+     */
+
+    /**
+     * @return major type of the next item, or -1 at the end of the data
+     */
+    public int peekMajorType() {
+        return hasRemaining() ? (data[position] & 0xFF) >>> 5 : -1;
+    }
+
+    /**
+     * @return true if the next item is the "break" stop code of an
+     * indefinite-length array or map
+     */
+    public boolean isBreak() {
+        return hasRemaining() && (data[position] & 0xFF) == 0xFF;
+    }
+
+    public void readBreak() throws IOException {
+        if (!isBreak()) {
+            throw new IOException("Expected break at " + position);
+        }
+        position++;
+    }
+
+    /**
+     * @return number of entries in the map, or -1 if it is of indefinite
+     * length and ends with a break
+     */
+    public long readMapLength() throws IOException {
+        return readLength(TYPE_MAP);
+    }
+
+    /**
+     * @return number of items in the array, or -1 if it is of indefinite
+     * length and ends with a break
+     */
+    public long readArrayLength() throws IOException {
+        return readLength(TYPE_ARRAY);
+    }
+
+    /**
+     * @return signed or unsigned integer; unsigned integers above
+     * Long.MAX_VALUE are rejected
+     */
+    public long readInt() throws IOException {
+        int mt = peekMajorType();
+        if (mt != TYPE_UNSIGNED_INTEGER && mt != TYPE_NEGATIVE_INTEGER) {
+            throw unexpected("integer");
+        }
+        long value = readArgument(data[position++] & 0x1F);
+        if (value < 0) {
+            throw new IOException("Integer too large at " + position);
+        }
+        return (mt == TYPE_NEGATIVE_INTEGER) ? -1 - value : value;
+    }
+
+    public boolean readBoolean() throws IOException {
+        require(1);
+        int ib = data[position] & 0xFF;
+        if (ib != ((TYPE_FLOAT_SIMPLE << 5) | FALSE) && ib != ((TYPE_FLOAT_SIMPLE << 5) | TRUE)) {
+            throw unexpected("boolean");
+        }
+        position++;
+        return ib == ((TYPE_FLOAT_SIMPLE << 5) | TRUE);
+    }
+
+    public String readTextString() throws IOException {
+        if (peekMajorType() != TYPE_TEXT_STRING) {
+            throw unexpected("text string");
+        }
+        int start = position;
+        long len = readArgumentOrIndefinite(data[position++] & 0x1F);
+        if (len < 0) {
+            position = start;
+            return new String(readChunks(TYPE_TEXT_STRING), StandardCharsets.UTF_8);
+        }
+        String s = new String(data, position, length(len), StandardCharsets.UTF_8);
+        position += (int) len;
+        return s;
+    }
+
+    /**
+     * @return copy of the bytes of a byte string
+     */
+    public byte[] readByteString() throws IOException {
+        if (peekMajorType() != TYPE_BYTE_STRING) {
+            throw unexpected("byte string");
+        }
+        int start = position;
+        long len = readArgumentOrIndefinite(data[position++] & 0x1F);
+        if (len < 0) {
+            position = start;
+            return readChunks(TYPE_BYTE_STRING);
+        }
+        return readRawBytes(length(len));
+    }
+
+    /**
+     * Reads a definite-length byte string without copying it.
+     *
+     * @return read-only buffer over the bytes of the string
+     */
+    public ByteBuffer readByteStringSlice() throws IOException {
+        if (peekMajorType() != TYPE_BYTE_STRING) {
+            throw unexpected("byte string");
+        }
+        long len = readArgument(data[position++] & 0x1F);
+        int n = length(len);
+        ByteBuffer slice = ByteBuffer.wrap(data, position, n).slice().asReadOnlyBuffer();
+        position += n;
+        return slice;
+    }
+
+    /**
+     * Skips the next item, with everything nested in it.
+     */
+    public void skip() throws IOException {
+        skip(0);
+    }
+
+    /**
+     * Reads the next item into the objects SKFSCommon.readGenericItem builds
+     * with the jacob decoder: Long, byte[], String, ArrayList, HashMap,
+     * Boolean, Float, Double, Byte for simple values, and null for null and
+     * undefined. Tags are read as the item they tag. Use it for structures
+     * whose layout depends on the attestation format; the typed methods are
+     * cheaper for the rest.
+     *
+     * @return the item
+     */
+    public Object readGenericItem() throws IOException {
+        return readGenericItem(0);
+    }
+
+    private Object readGenericItem(int depth) throws IOException {
+        if (depth > MAX_DEPTH) {
+            throw new IOException("CBOR nested too deeply at " + position);
+        }
+        require(1);
+        switch (peekMajorType()) {
+            case TYPE_UNSIGNED_INTEGER:
+            case TYPE_NEGATIVE_INTEGER:
+                return readInt();
+            case TYPE_BYTE_STRING:
+                return readByteString();
+            case TYPE_TEXT_STRING:
+                return readTextString();
+            case TYPE_ARRAY: {
+                long len = readArrayLength();
+                List<Object> result = new ArrayList<>((len < 0) ? 10 : (int) Math.min(len, remaining()));
+                for (long i = 0; (len < 0) ? !isBreak() : i < len; i++) {
+                    result.add(readGenericItem(depth + 1));
+                }
+                if (len < 0) {
+                    readBreak();
+                }
+                return result;
+            }
+            case TYPE_MAP: {
+                long len = readMapLength();
+                Map<Object, Object> result = new HashMap<>();
+                for (long i = 0; (len < 0) ? !isBreak() : i < len; i++) {
+                    Object key = readGenericItem(depth + 1);
+                    result.put(key, readGenericItem(depth + 1));
+                }
+                if (len < 0) {
+                    readBreak();
+                }
+                return result;
+            }
+            case TYPE_TAG:
+                readArgument(data[position++] & 0x1F);
+                return readGenericItem(depth + 1);
+            default:
+                return readSimple();
+        }
+    }
+
+    private Object readSimple() throws IOException {
+        int ai = data[position] & 0x1F;
+        switch (ai) {
+            case FALSE:
+            case TRUE:
+                return readBoolean();
+            case NULL:
+            case UNDEFINED:
+                position++;
+                return null;
+            case ONE_BYTE:
+                position++;
+                return (byte) readRawByte();
+            case HALF_PRECISION_FLOAT: {
+                position++;
+                int half = readRawUInt16();
+                int exp = (half >> 10) & 0x1f;
+                int mant = half & 0x3ff;
+                double val;
+                if (exp == 0) {
+                    val = mant * Math.pow(2, -24);
+                } else if (exp != 31) {
+                    val = (mant + 1024) * Math.pow(2, exp - 25);
+                } else if (mant != 0) {
+                    val = Double.NaN;
+                } else {
+                    val = Double.POSITIVE_INFINITY;
+                }
+                return ((half & 0x8000) == 0) ? val : -val;
+            }
+            case SINGLE_PRECISION_FLOAT:
+                position++;
+                return Float.intBitsToFloat((int) readFixed(4));
+            case DOUBLE_PRECISION_FLOAT:
+                position++;
+                return Double.longBitsToDouble(readFixed(8));
+            default:
+                if (ai < FALSE) {
+                    position++;
+                    return (byte) ai;
+                }
+                throw unexpected("item");
+        }
+    }
+
+    private void skip(int depth) throws IOException {
+        if (depth > MAX_DEPTH) {
+            throw new IOException("CBOR nested too deeply at " + position);
+        }
+        require(1);
+        int mt = peekMajorType();
+        int ai = data[position] & 0x1F;
+        switch (mt) {
+            case TYPE_UNSIGNED_INTEGER:
+            case TYPE_NEGATIVE_INTEGER:
+                position++;
+                readArgument(ai);
+                return;
+            case TYPE_BYTE_STRING:
+            case TYPE_TEXT_STRING: {
+                position++;
+                long len = readArgumentOrIndefinite(ai);
+                if (len < 0) {
+                    while (!isBreak()) {
+                        skip(depth + 1);
+                    }
+                    readBreak();
+                } else {
+                    require(length(len));
+                    position += (int) len;
+                }
+                return;
+            }
+            case TYPE_ARRAY:
+            case TYPE_MAP: {
+                position++;
+                long len = readArgumentOrIndefinite(ai);
+                if (len < 0) {
+                    while (!isBreak()) {
+                        skip(depth + 1);
+                    }
+                    readBreak();
+                } else {
+                    for (long i = 0; i < len; i++) {
+                        skip(depth + 1);
+                        if (mt == TYPE_MAP) {
+                            skip(depth + 1);
+                        }
+                    }
+                }
+                return;
+            }
+            case TYPE_TAG:
+                position++;
+                readArgument(ai);
+                skip(depth + 1);
+                return;
+            default:
+                readSimple();
+        }
+    }
+
+    /*
+     * Concatenates the chunks of an indefinite-length string.
+     */
+    private byte[] readChunks(int majorType) throws IOException {
+        position++;
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        while (!isBreak()) {
+            if (peekMajorType() != majorType) {
+                throw unexpected("string chunk");
+            }
+            int n = length(readArgument(data[position++] & 0x1F));
+            require(n);
+            baos.write(data, position, n);
+            position += n;
+        }
+        readBreak();
+        return baos.toByteArray();
+    }
+
+    private long readLength(int majorType) throws IOException {
+        if (peekMajorType() != majorType) {
+            throw unexpected((majorType == TYPE_MAP) ? "map" : "array");
+        }
+        return readArgumentOrIndefinite(data[position++] & 0x1F);
+    }
+
+    /*
+     * Reads the length of a string, array or map whose initial byte was read;
+     * -1 means indefinite length.
+     */
+    private long readArgumentOrIndefinite(int ai) throws IOException {
+        if (ai == BREAK) {
+            return -1;
+        }
+        long len = readArgument(ai);
+        if (len < 0) {
+            throw new IOException("CBOR length too large at " + position);
+        }
+        return len;
+    }
+
+    /*
+     * Reads the argument of an item whose initial byte was read; a value
+     * above Long.MAX_VALUE is returned negative.
+     */
+    private long readArgument(int ai) throws IOException {
+        if (ai < ONE_BYTE) {
+            return ai;
+        }
+        switch (ai) {
+            case ONE_BYTE:
+                return readFixed(1);
+            case TWO_BYTES:
+                return readFixed(2);
+            case FOUR_BYTES:
+                return readFixed(4);
+            case EIGHT_BYTES:
+                return readFixed(8);
+            default:
+                throw new IOException("Invalid additional information " + ai + " at " + (position - 1));
+        }
+    }
+
+    private long readFixed(int n) throws IOException {
+        require(n);
+        long value = 0;
+        for (int i = 0; i < n; i++) {
+            value = (value << 8) | (data[position++] & 0xFF);
+        }
+        return value;
+    }
+
+    private int length(long len) throws IOException {
+        if (len < 0 || len > remaining()) {
+            throw new IOException("CBOR length " + len + " exceeds data at " + position);
+        }
+        return (int) len;
+    }
+
+    private void require(int n) throws IOException {
+        if (n < 0 || n > limit - position) {
+            throw new IOException("Unexpected end of CBOR data at " + position);
+        }
+    }
+
+    private IOException unexpected(String expected) {
+        return new IOException("Expected " + expected + " at " + position
+                + (hasRemaining() ? ", found major type " + peekMajorType() : ", found end of data"));
+    }
+}
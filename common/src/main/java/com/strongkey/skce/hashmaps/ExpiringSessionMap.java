@@ -0,0 +1,243 @@
+/**
+* Copyright StrongAuth, Inc. All Rights Reserved.
+*
+* Use of this source code is governed by the GNU Lesser General Public License v2.1
+* The license can be found at https://github.com/StrongKey/fido2/blob/master/LICENSE
+*/
+
+package com.strongkey.skce.hashmaps;
+
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded store for short lived entries such as FIDO challenges (user
+ * sessions) and recently used FIDO keys.
+ *
+ * Entries are kept in a hash map for lookups and, in insertion order, in a
+ * queue. Since every entry of a store lives for the same amount of time, the
+ * queue is also ordered by expiry, so expiring entries only touches the
+ * entries that actually expired instead of every entry in the store. When the
+ * store is full, the oldest entries are evicted.
+ *
+ * Entries replaced or removed before they expire leave their queue node
+ * behind. Such nodes are discarded when they reach the head of the queue, or
+ * when they outnumber the entries of the store, so a store whose keys are
+ * removed and put again does not grow its queue.
+ *
+ * @param <V> type of the values stored
+ */
+public class ExpiringSessionMap<V> {
+
+    // Queue nodes that may be dead before the queue is purged of them
+    private static final int PURGE_SLACK = 64;
+
+    private final ConcurrentHashMap<String, Node<V>> map = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Node<V>> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final int capacity;
+
+    private final AtomicLong expirations = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public ExpiringSessionMap(int capacity) {
+        this.capacity = (capacity > 0) ? capacity : Integer.MAX_VALUE;
+    }
+
+    public V put(String key, V value) {
+        Node<V> node = new Node<>(key, value, System.currentTimeMillis());
+        Node<V> old = map.put(key, node);
+        queued.incrementAndGet();
+        queue.offer(node);
+        if (map.size() > capacity) {
+            evict();
+        } else if (old != null) {
+            purgeIfNeeded();
+        }
+        return (old == null) ? null : old.value;
+    }
+
+    public V get(String key) {
+        Node<V> node = map.get(key);
+        if (node == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return node.value;
+    }
+
+    public boolean containsKey(String key) {
+        return map.containsKey(key);
+    }
+
+    public V remove(String key) {
+        Node<V> node = map.remove(key);
+        if (node == null) {
+            return null;
+        }
+        purgeIfNeeded();
+        return node.value;
+    }
+
+    public int size() {
+        return map.size();
+    }
+
+    public void clear() {
+        synchronized (queue) {
+            map.clear();
+            while (queue.poll() != null) {
+                queued.decrementAndGet();
+            }
+        }
+    }
+
+    public Set<String> keySet() {
+        return map.keySet();
+    }
+
+    public Collection<V> values() {
+        return new AbstractCollection<V>() {
+            @Override
+            public Iterator<V> iterator() {
+                Iterator<Node<V>> it = map.values().iterator();
+                return new Iterator<V>() {
+                    @Override
+                    public boolean hasNext() {
+                        return it.hasNext();
+                    }
+
+                    @Override
+                    public V next() {
+                        return it.next().value;
+                    }
+
+                    @Override
+                    public void remove() {
+                        it.remove();
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return map.size();
+            }
+        };
+    }
+
+    /**
+     * Removes the entries that were put at least agelimit milliseconds ago.
+     *
+     * @param agelimit - age in milliseconds at which entries expire
+     * @return the number of entries removed
+     */
+    public int expire(long agelimit) {
+        long cutoff = System.currentTimeMillis() - agelimit;
+        int removed = 0;
+        synchronized (queue) {
+            Node<V> node;
+            while ((node = queue.peek()) != null && node.created <= cutoff) {
+                queue.poll();
+                queued.decrementAndGet();
+                if (map.remove(node.key, node)) {
+                    removed++;
+                }
+            }
+        }
+        expirations.addAndGet(removed);
+        return removed;
+    }
+
+    /**
+     * Evicts the oldest entries until the store is back within its capacity.
+     */
+    private void evict() {
+        synchronized (queue) {
+            Node<V> node;
+            while (map.size() > capacity && (node = queue.poll()) != null) {
+                queued.decrementAndGet();
+                if (map.remove(node.key, node)) {
+                    evictions.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    /**
+     * Drops the queue nodes of replaced and removed entries once they
+     * outnumber the entries of the store.
+     */
+    private void purgeIfNeeded() {
+        if (queued.get() <= 2 * map.size() + PURGE_SLACK) {
+            return;
+        }
+        synchronized (queue) {
+            if (queued.get() <= 2 * map.size() + PURGE_SLACK) {
+                return;
+            }
+            Iterator<Node<V>> it = queue.iterator();
+            while (it.hasNext()) {
+                Node<V> node = it.next();
+                if (map.get(node.key) != node) {
+                    it.remove();
+                    queued.decrementAndGet();
+                }
+            }
+        }
+    }
+
+    /**
+     * @return number of nodes in the queue, including those of replaced and
+     * removed entries
+     */
+    int getQueueSize() {
+        return queued.get();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public long getExpirations() {
+        return expirations.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    /**
+     * @return number of calls to get that found an entry
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    private static final class Node<V> {
+
+        private final String key;
+        private final V value;
+        private final long created;
+
+        Node(String key, V value, long created) {
+            this.key = key;
+            this.value = value;
+            this.created = created;
+        }
+    }
+}
@@ -21,6 +21,10 @@ public class SAConcurrentHashMapImpl implements SAHashmap {
 
     private static SAConcurrentHashMapImpl mapObj = null;
 
+    // Age (in seconds) at which user sessions and fido keys are cleaned
+    private static final long sessionagelimit = getAgeLimit("skfe.cfg.property.usersession.flush.cutofftime.seconds");
+    private static final long fidokeysagelimit = getAgeLimit("skfe.cfg.property.fidokeys.flush.cutofftime.seconds");
+
     protected SAConcurrentHashMapImpl() {
         System.out.println("Initiating SACHMImpl");
     }
@@ -212,125 +216,42 @@ public class SAConcurrentHashMapImpl implements SAHashmap {
         }
         if (type == skceConstants.MAP_USER_SESSION_INFO) {
             //clean based on time
-            Set<String> sessionids = null;
-            if (skceMaps.sessionMap != null) {
-                sessionids = skceMaps.sessionMap.keySet();
-            }
-
-            String agelimit = skceCommon.getConfigurationProperty("skfe.cfg.property.usersession.flush.cutofftime.seconds");
-
-            long sessionagelimit;
-            if (agelimit == null || agelimit.trim().isEmpty()) {
-                //  if not configured, set it to 30 seconds as default.
-                sessionagelimit = 30L;
-            } else {
-                try {
-                    sessionagelimit = Long.parseLong(agelimit);
-                    //  if the configured time is < 5 seconds, set it to 5 seconds
-                    if (sessionagelimit < 5L) {
-                        sessionagelimit = 5L;
-                    } //  if the configured time is > 5 minutes, set it to 5 min
-                    else if (sessionagelimit > 300L) {
-                        sessionagelimit = 300L;
-                    }
-                } catch (NumberFormatException ex) {
-                    //  any exception, default it to 30 seconds.
-                    sessionagelimit = 30L;
-                }
-            }
-
-            if (sessionids != null) {
-                for (String k : sessionids) {
-                    UserSessionInfo user = skceMaps.sessionMap.get(k);
-                    long usersessionage = user.getSessionAge();
-                    //  If a session is expired, remove it from the map
-                    if (usersessionage >= sessionagelimit) {
-                        skceMaps.sessionMap.remove(k);
-                    }
-                }
-            }
-
-        }
-//        else if (type == Constants.MAP_USER_KEY_POINTERS) {
-//            Set<String> usernames = null;
-//            if (Common.userkeysMap != null) {
-//                usernames = Common.userkeysMap.keySet();
-//            }
-//
-//            String agelimit = Common.getConfigurationProperty("skce.cfg.property.userkeypointers.flush.cutofftime.seconds");
-//            long ukp_entry_agelimit;
-//
-//            if (agelimit == null || agelimit.trim().isEmpty()) {
-//                //  if not configured, set it to 300 seconds (5 minutes) as default.
-//                ukp_entry_agelimit = 300L;
-//            } else {
-//                try {
-//                    ukp_entry_agelimit = Long.parseLong(agelimit);
-//                    //  if the configured time is < 15 seconds, set it to 15 seconds
-//                    if (ukp_entry_agelimit < 15L) {
-//                        ukp_entry_agelimit = 15L;
-//                    } //  if the configured time is > 15 minutes, set it to 15 min
-//                    else if (ukp_entry_agelimit > 900L) {
-//                        ukp_entry_agelimit = 900L;
-//                    }
-//                } catch (NumberFormatException ex) {
-//                    //  any exception, default it to 300 seconds (5 min).
-//                    ukp_entry_agelimit = 300L;
-//                }
-//            }
-//
-//            if (usernames != null) {
-//                for (String k : usernames) {
-//                    UserKeyPointers ukp = Common.userkeysMap.get(k);
-//                    long ukp_age = ukp.getUserKeyPointersAge();
-//                    //  If a user key pointer is expired, remove it from the map
-//                    if (ukp_age >= ukp_entry_agelimit) {
-//                        Common.userkeysMap.remove(k);
-//                    }
-//                }
-//            }
-//        }
-        else if (type == skceConstants.MAP_FIDO_KEYS) {
+            skceMaps.sessionMap.expire(sessionagelimit * 1000L);
+        } else if (type == skceConstants.MAP_FIDO_KEYS) {
             //clean based on time
-            Set<String> fkids = null;
-            if (skceMaps.FIDOkeysmap != null) {
-                fkids = skceMaps.FIDOkeysmap.keySet();
-            }
-            String agelimit = skceCommon.getConfigurationProperty("skfe.cfg.property.fidokeys.flush.cutofftime.seconds");
+            skceMaps.FIDOkeysmap.expire(fidokeysagelimit * 1000L);
+        } else {
+            throw new IllegalArgumentException("Invalid map type");
+        }
+    }
 
-            long sessionagelimit;
-            if (agelimit == null || agelimit.trim().isEmpty()) {
-                //  if not configured, set it to 30 seconds as default.
-                sessionagelimit = 30L;
-            } else {
-                try {
-                    sessionagelimit = Long.parseLong(agelimit);
-                    //  if the configured time is < 5 seconds, set it to 5 seconds
-                    if (sessionagelimit < 5L) {
-                        sessionagelimit = 5L;
-                    } //  if the configured time is > 5 minutes, set it to 5 min
-                    else if (sessionagelimit > 300L) {
-                        sessionagelimit = 300L;
-                    }
-                } catch (NumberFormatException ex) {
-                    //  any exception, default it to 30 seconds.
-                    sessionagelimit = 30L;
-                }
-            }
+    /**
+     * Reads the age (in seconds) at which entries of a map are cleaned.
+     * Defaults to 30 seconds and is kept between 5 seconds and 5 minutes.
+     */
+    private static long getAgeLimit(String property) {
+        String agelimit = skceCommon.getConfigurationProperty(property);
 
-            if (fkids != null) {
-                for (String k : fkids) {
-                    FidoKeysInfo fkinfo = skceMaps.FIDOkeysmap.get(k);
-                    long usersessionage = fkinfo.getFidoKeysInfoAge();
-                    //  If a session is expired, remove it from the map
-                    if (usersessionage >= sessionagelimit) {
-                        skceMaps.FIDOkeysmap.remove(k);
-                    }
+        long sessionagelimit;
+        if (agelimit == null || agelimit.trim().isEmpty()) {
+            //  if not configured, set it to 30 seconds as default.
+            sessionagelimit = 30L;
+        } else {
+            try {
+                sessionagelimit = Long.parseLong(agelimit);
+                //  if the configured time is < 5 seconds, set it to 5 seconds
+                if (sessionagelimit < 5L) {
+                    sessionagelimit = 5L;
+                } //  if the configured time is > 5 minutes, set it to 5 min
+                else if (sessionagelimit > 300L) {
+                    sessionagelimit = 300L;
                 }
+            } catch (NumberFormatException ex) {
+                //  any exception, default it to 30 seconds.
+                sessionagelimit = 30L;
             }
-        } else {
-            throw new IllegalArgumentException("Invalid map type");
         }
+        return sessionagelimit;
     }
 
 }
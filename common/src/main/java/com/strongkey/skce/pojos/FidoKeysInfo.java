@@ -11,7 +11,8 @@ import java.util.Date;
 
 public class FidoKeysInfo {
 
-    private Date creationdate;
+    // Creation time in milliseconds since the epoch; 0 if not set
+    private long creationdate = 0L;
     private FidoKeys fk;
 
     public FidoKeysInfo(){
@@ -20,15 +21,18 @@ public class FidoKeysInfo {
 
     public FidoKeysInfo(FidoKeys fk) {
         this.fk = fk;
-        this.creationdate = new Date();
+        this.creationdate = System.currentTimeMillis();
     }
 
     public Date getCreationdate() {
-        return creationdate;
+        if (creationdate == 0L) {
+            return null;
+        }
+        return new Date(creationdate);
     }
 
     public void setCreationdate(Date creationdate) {
-        this.creationdate = creationdate;
+        this.creationdate = (creationdate == null) ? 0L : creationdate.getTime();
     }
 
     public FidoKeys getFk() {
@@ -40,8 +44,7 @@ public class FidoKeysInfo {
     }
 
     public long getFidoKeysInfoAge() {
-        Date rightnow = new Date();
-        long age = (rightnow.getTime() / 1000) - (creationdate.getTime() / 1000);
+        long age = (System.currentTimeMillis() / 1000) - (creationdate / 1000);
         return age;
     }
 }
@@ -24,7 +24,8 @@ public class UserSessionInfo implements Serializable {
     private String userId = null;
     private String appid = null;
     private String sessiontype = null;
-    private Date creationdate = null;
+    // Creation time in milliseconds since the epoch; 0 if not set
+    private long creationdate = 0L;
     private String userPublicKey = null;
     //fido key id
     private long fkid = 0;
@@ -56,14 +57,14 @@ public class UserSessionInfo implements Serializable {
         this.nonce = nonce;
         this.appid = appid;
         this.sessiontype = sessiontype;
-        this.creationdate = new Date();
+        this.creationdate = System.currentTimeMillis();
         this.userPublicKey = userPublicKey;
         this.sessionid = sessionID;
     }
 
     //Empty Constructor
     public UserSessionInfo(){
-        this.creationdate = new Date();
+        this.creationdate = System.currentTimeMillis();
     }
 
     public void setSessionid(String sessionid) {
@@ -108,23 +109,22 @@ public class UserSessionInfo implements Serializable {
 
     
     public Date getCreationdate() {
-        if(creationdate == null){
+        if(creationdate == 0L){
             return null;
         }
-        return new Date(creationdate.getTime());
+        return new Date(creationdate);
     }
 
     public void setCreationdate(Date creationdate) {
         if(creationdate == null){
-            this.creationdate = null;
+            this.creationdate = 0L;
         }else{
-            this.creationdate = new Date(creationdate.getTime());    
+            this.creationdate = creationdate.getTime();
         }
     }
 
     public long getSessionAge() {
-        Date rightnow = new Date();
-        long age = (rightnow.getTime() / 1000) - (creationdate.getTime() / 1000);
+        long age = (System.currentTimeMillis() / 1000) - (creationdate / 1000);
         return age;
     }
 
@@ -0,0 +1,83 @@
+/**
+* Copyright StrongAuth, Inc. All Rights Reserved.
+*
+* Use of this source code is governed by the GNU Lesser General Public License v2.1
+* The license can be found at https://github.com/StrongKey/fido2/blob/master/LICENSE
+*/
+
+package com.strongkey.skce.utilities;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Distribution of latencies over fixed buckets, from 100 microseconds to 10
+ * seconds. Recording increments a LongAdder without taking a lock, so it can
+ * be called on every request; the buckets are only summed when the
+ * histogram is read.
+ */
+public class LatencyHistogram {
+
+    /**
+     * Upper bounds of the buckets, in nanoseconds; a last bucket counts the
+     * latencies above 10 seconds.
+     */
+    static final long[] BOUNDS = {
+        100_000L, 250_000L, 500_000L,
+        1_000_000L, 2_500_000L, 5_000_000L,
+        10_000_000L, 25_000_000L, 50_000_000L,
+        100_000_000L, 250_000_000L, 500_000_000L,
+        1_000_000_000L, 2_500_000_000L, 5_000_000_000L,
+        10_000_000_000L
+    };
+
+    private final LongAdder[] buckets = new LongAdder[BOUNDS.length + 1];
+    private final LongAdder sum = new LongAdder();
+
+    public LatencyHistogram() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * @param nanos - latency in nanoseconds
+     */
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        int i = 0;
+        while (i < BOUNDS.length && nanos > BOUNDS[i]) {
+            i++;
+        }
+        buckets[i].increment();
+        sum.add(nanos);
+    }
+
+    /**
+     * Records the time elapsed since start.
+     *
+     * @param start - value of System.nanoTime() when the operation started
+     */
+    public void recordSince(long start) {
+        record(System.nanoTime() - start);
+    }
+
+    /**
+     * @return number of latencies recorded in each bucket, not cumulative
+     */
+    public long[] getBucketCounts() {
+        long[] counts = new long[buckets.length];
+        for (int i = 0; i < buckets.length; i++) {
+            counts[i] = buckets[i].sum();
+        }
+        return counts;
+    }
+
+    /**
+     * @return sum of the latencies recorded, in nanoseconds
+     */
+    public long getSum() {
+        return sum.sum();
+    }
+}
@@ -7,16 +7,27 @@
 package com.strongkey.skce.utilities;
 
 import java.security.InvalidAlgorithmParameterException;
+import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.cert.CertPath;
 import java.security.cert.CertPathValidator;
 import java.security.cert.CertPathValidatorException;
 import java.security.cert.CertPathValidatorResult;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateEncodingException;
 import java.security.cert.PKIXParameters;
 import java.security.cert.PKIXRevocationChecker;
 import java.security.cert.TrustAnchor;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
 import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -32,8 +43,54 @@ public class PKIXChainValidation {
         System.out.println("OCSP is enabled:" + USE_OCSP);
     }
 
+    /*
+     * Certificate paths validated successfully, keyed by a digest of the
+     * path, the trust anchors and the validation options; the value is the
+     * time the result expires at. Attestation paths are shared by whole
+     * batches of authenticators, so the same few paths are validated by
+     * almost every registration. Failed validations are not remembered.
+     */
+    private static final Map<String, Long> validatedpaths = new ConcurrentHashMap<>();
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+
     public static boolean pkixvalidate(CertPath cp, Set<TrustAnchor> trustAnchorSet,
             boolean isRevocationChecked, boolean isPolicyQualifiersRejected) {
+        String key = getKey(cp, trustAnchorSet, isRevocationChecked, isPolicyQualifiersRejected);
+        if (key != null) {
+            Long expiry = validatedpaths.get(key);
+            if (expiry != null) {
+                if (expiry > System.currentTimeMillis()) {
+                    hits.incrementAndGet();
+                    return true;
+                }
+                validatedpaths.remove(key, expiry);
+            }
+            misses.incrementAndGet();
+        }
+        if (!validate(cp, trustAnchorSet, isRevocationChecked, isPolicyQualifiersRejected)) {
+            return false;
+        }
+        if (key != null) {
+            remember(key, cp, isRevocationChecked);
+        }
+        return true;
+    }
+
+    public static long getCacheHits() {
+        return hits.get();
+    }
+
+    public static long getCacheMisses() {
+        return misses.get();
+    }
+
+    public static int getCacheSize() {
+        return validatedpaths.size();
+    }
+
+    private static boolean validate(CertPath cp, Set<TrustAnchor> trustAnchorSet,
+            boolean isRevocationChecked, boolean isPolicyQualifiersRejected) {
         try {
             CertPathValidator cpv = CertPathValidator.getInstance("PKIX");  //TODO use BCFIPS when "Support for PKIXRevocationChecker
                                                                             //in the CertPath implementation" is added
@@ -64,4 +121,67 @@ public class PKIXChainValidation {
             return false;
         }
     }
+
+    /**
+     * Remembers a validated path until the earliest notAfter of its
+     * certificates, and for no longer than revocation.ttl.seconds if the
+     * revocation status of the certificates was checked.
+     */
+    private static void remember(String key, CertPath cp, boolean isRevocationChecked) {
+        long now = System.currentTimeMillis();
+        long expiry = Long.MAX_VALUE;
+        for (Certificate c : cp.getCertificates()) {
+            if (c instanceof X509Certificate) {
+                expiry = Math.min(expiry, ((X509Certificate) c).getNotAfter().getTime());
+            }
+        }
+        if (isRevocationChecked) {
+            expiry = Math.min(expiry, now + Long.parseLong(skceCommon.getConfigurationProperty("skce.cfg.property.pkix.cache.revocation.ttl.seconds")) * 1000);
+        }
+        if (expiry <= now) {
+            return;
+        }
+        int maxsize = Integer.parseInt(skceCommon.getConfigurationProperty("skce.cfg.property.pkix.cache.maxsize"));
+        if (validatedpaths.size() >= maxsize) {
+            validatedpaths.values().removeIf(e -> e <= now);
+            if (validatedpaths.size() >= maxsize) {
+                validatedpaths.clear();
+            }
+        }
+        validatedpaths.put(key, expiry);
+    }
+
+    /**
+     * Digests the certificates of the path in order, the trust anchors in
+     * any order and the validation options.
+     *
+     * @return String key of the validation, or null if a certificate cannot
+     * be encoded
+     */
+    private static String getKey(CertPath cp, Set<TrustAnchor> trustAnchorSet,
+            boolean isRevocationChecked, boolean isPolicyQualifiersRejected) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            List<String> anchors = new ArrayList<>(trustAnchorSet.size());
+            for (TrustAnchor ta : trustAnchorSet) {
+                byte[] encoded = (ta.getTrustedCert() != null)
+                        ? ta.getTrustedCert().getEncoded()
+                        : (ta.getCAName() + ta.getCAPublicKey()).getBytes("UTF-8");
+                anchors.add(Base64.getEncoder().encodeToString(md.digest(encoded)));
+            }
+            Collections.sort(anchors);
+            for (Certificate c : cp.getCertificates()) {
+                md.update(md.digest(c.getEncoded()));
+            }
+            for (String anchor : anchors) {
+                md.update(anchor.getBytes("UTF-8"));
+            }
+            md.update((byte) (isRevocationChecked ? 1 : 0));
+            md.update((byte) (isPolicyQualifiersRejected ? 1 : 0));
+            return Base64.getEncoder().encodeToString(md.digest());
+        } catch (NoSuchAlgorithmException | CertificateEncodingException | java.io.UnsupportedEncodingException ex) {
+            Logger.getLogger(PKIXChainValidation.class.getName()).log(Level.WARNING, null, ex);
+            return null;
+        }
+    }
 }
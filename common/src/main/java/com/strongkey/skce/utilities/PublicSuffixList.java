@@ -0,0 +1,205 @@
+/**
+* Copyright StrongAuth, Inc. All Rights Reserved.
+*
+* Use of this source code is governed by the GNU Lesser General Public License v2.1
+* The license can be found at https://github.com/StrongKey/fido2/blob/master/LICENSE
+*/
+
+package com.strongkey.skce.utilities;
+
+/**
+ * The rules of the public suffix list (https://publicsuffix.org/list/)
+ * compiled into a trie of reversed domain labels, e.g. the rule "co.uk" is
+ * the path uk -> co.
+ *
+ * Normal, wildcard ("*.ck") and exception ("!www.ck") rules are supported;
+ * a domain no rule matches has the implicit "*" rule, so its public suffix is
+ * its last label. Lookups walk the labels of the domain from the right, so a
+ * query costs one hash probe per label, and labels are matched in place in
+ * the domain string without copying them. Labels are compared ignoring case.
+ *
+ * Rules are added while the list is loaded; the list must not be modified
+ * once it is shared between threads.
+ */
+public final class PublicSuffixList {
+
+    private final Node root = new Node(null);
+
+    private int size = 0;
+
+    /**
+     * Adds a rule in the format of the public suffix list. Comments, blank
+     * lines and anything after the first whitespace of a line are ignored.
+     *
+     * @param line - a line of the public suffix list
+     */
+    public void add(String line) {
+        String rule = line.trim();
+        int ws = 0;
+        while (ws < rule.length() && !Character.isWhitespace(rule.charAt(ws))) {
+            ws++;
+        }
+        rule = rule.substring(0, ws);
+        if (rule.isEmpty() || rule.startsWith("//")) {
+            return;
+        }
+        boolean exception = rule.startsWith("!");
+        if (exception) {
+            rule = rule.substring(1);
+        }
+        Node node = root;
+        int end = rule.length();
+        while (end > 0) {
+            int start = rule.lastIndexOf('.', end - 1) + 1;
+            node = node.getOrAdd(rule.substring(start, end));
+            end = start - 1;
+        }
+        if (exception) {
+            node.exception = true;
+        } else {
+            node.rule = true;
+        }
+        size++;
+    }
+
+    /**
+     * @return number of rules in the list
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param domain - a domain name
+     * @return true if the domain is a public suffix, e.g. "com", "co.uk" or
+     * any label under a wildcard rule
+     */
+    public boolean isPublicSuffix(String domain) {
+        return suffixStart(domain) == 0;
+    }
+
+    /**
+     * Returns the registrable domain of a domain name: its public suffix and
+     * the label in front of it, e.g. "example.co.uk" for "www.example.co.uk".
+     * A domain that is a public suffix itself is returned as is.
+     *
+     * @param domain - a domain name
+     * @return String with the registrable domain
+     */
+    public String getRegistrableDomain(String domain) {
+        int start = suffixStart(domain);
+        if (start <= 0) {
+            return domain;
+        }
+        int dot = domain.lastIndexOf('.', start - 2);
+        return (dot < 0) ? domain : domain.substring(dot + 1);
+    }
+
+    /**
+     * Finds the public suffix of a domain by the prevailing rule: an
+     * exception rule if one matches, otherwise the matching rule with the
+     * most labels.
+     *
+     * @return index of the first character of the public suffix in the domain
+     */
+    private int suffixStart(String domain) {
+        int end = domain.length();
+        // Implicit "*" rule: the last label
+        int suffix = domain.lastIndexOf('.') + 1;
+        Node node = root;
+        while (end > 0) {
+            int start = domain.lastIndexOf('.', end - 1) + 1;
+            Node wildcard = node.get("*", 0, 1);
+            if (wildcard != null && wildcard.rule) {
+                suffix = start;
+            }
+            node = node.get(domain, start, end);
+            if (node == null) {
+                break;
+            }
+            if (node.exception) {
+                // The public suffix is the rule without its leftmost label
+                return end + 1;
+            }
+            if (node.rule) {
+                suffix = start;
+            }
+            end = start - 1;
+        }
+        return suffix;
+    }
+
+    /**
+     * A label of a rule. Children are kept in an open-addressing table keyed
+     * by the case-insensitive hash of the label, so they can be looked up by
+     * a region of a string.
+     */
+    private static final class Node {
+
+        private final String label;
+        private boolean rule;
+        private boolean exception;
+
+        private Node[] children;
+        private int count;
+
+        Node(String label) {
+            this.label = label;
+        }
+
+        Node get(String s, int from, int to) {
+            if (children == null) {
+                return null;
+            }
+            int mask = children.length - 1;
+            for (int i = hash(s, from, to) & mask;; i = (i + 1) & mask) {
+                Node child = children[i];
+                if (child == null) {
+                    return null;
+                }
+                if (child.label.length() == to - from && child.label.regionMatches(true, 0, s, from, to - from)) {
+                    return child;
+                }
+            }
+        }
+
+        Node getOrAdd(String label) {
+            Node child = get(label, 0, label.length());
+            if (child != null) {
+                return child;
+            }
+            if (children == null) {
+                children = new Node[2];
+            } else if ((count + 1) * 2 > children.length) {
+                Node[] old = children;
+                children = new Node[old.length * 2];
+                for (Node n : old) {
+                    if (n != null) {
+                        insert(n);
+                    }
+                }
+            }
+            child = new Node(label);
+            insert(child);
+            count++;
+            return child;
+        }
+
+        private void insert(Node child) {
+            int mask = children.length - 1;
+            int i = hash(child.label, 0, child.label.length()) & mask;
+            while (children[i] != null) {
+                i = (i + 1) & mask;
+            }
+            children[i] = child;
+        }
+
+        private static int hash(String s, int from, int to) {
+            int h = 0;
+            for (int i = from; i < to; i++) {
+                h = 31 * h + Character.toLowerCase(s.charAt(i));
+            }
+            return h ^ (h >>> 16);
+        }
+    }
+}
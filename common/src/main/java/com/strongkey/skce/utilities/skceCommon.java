@@ -56,7 +56,8 @@ public class skceCommon {
     // Location where StrongKey CryproEngine  is installed on this machine
     private static String skcehome;
 
-    public static List<String> tldList = new ArrayList<>();
+    // Public suffix list; loaded by SKFSCommon when skfs.cfg.property.retrieve.tld is true
+    public static volatile PublicSuffixList tldList = new PublicSuffixList();
 
     /**
      * The Cron object has the actual tasks executed by the background threads;
@@ -7,6 +7,7 @@
 
 package com.strongkey.skce.utilities;
 
+import com.strongkey.skce.hashmaps.ExpiringSessionMap;
 import com.strongkey.skce.hashmaps.SAConcurrentHashMapImpl;
 import com.strongkey.skce.hashmaps.SAHashmap;
 import com.strongkey.skce.pojos.FIDOSecretKeyInfo;
@@ -14,9 +15,7 @@ import com.strongkey.skce.pojos.FidoKeysInfo;
 import com.strongkey.skce.pojos.FidoPolicyMDS;
 import com.strongkey.skce.pojos.UserSessionInfo;
 import java.util.Map;
-import java.util.SortedMap;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentSkipListMap;
 
 public class skceMaps {
 
@@ -24,8 +23,13 @@ public class skceMaps {
     /**
      * Map that stores the sessionid to a simple pojo (username and challenge)
      */
-    public final static Map<String, UserSessionInfo> sessionMap = new ConcurrentSkipListMap<>();
-    public final static SortedMap<String, FidoKeysInfo> FIDOkeysmap = new ConcurrentSkipListMap<>();
+    public final static ExpiringSessionMap<UserSessionInfo> sessionMap = new ExpiringSessionMap<>(
+            Integer.parseInt(skceCommon.getConfigurationProperty("skce.cfg.property.usersession.maxentries")));
+    /**
+     * Map that stores recently used FIDO keys
+     */
+    public final static ExpiringSessionMap<FidoKeysInfo> FIDOkeysmap = new ExpiringSessionMap<>(
+            Integer.parseInt(skceCommon.getConfigurationProperty("skce.cfg.property.fidokeys.maxentries")));
     /**
      * Map that stores the FIDO secret key
      */
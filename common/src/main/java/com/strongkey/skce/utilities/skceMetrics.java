@@ -0,0 +1,219 @@
+/**
+* Copyright StrongAuth, Inc. All Rights Reserved.
+*
+* Use of this source code is governed by the GNU Lesser General Public License v2.1
+* The license can be found at https://github.com/StrongKey/fido2/blob/master/LICENSE
+*/
+
+package com.strongkey.skce.utilities;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Registry of the metrics of the server, written out in the Prometheus text
+ * format by the metrics web service of SKFS.
+ *
+ * Latencies are recorded in LatencyHistograms and cache lookups in
+ * CacheStatistics, both lock-free; the code that records them keeps a
+ * reference to them in a static field, so the registry is only searched when
+ * they are created. Gauges and counters kept elsewhere, such as the size of
+ * a map, are registered as functions that are called when the metrics are
+ * read.
+ *
+ * Each metric is identified by its name and its labels, given as
+ * alternating label names and values. Registering a metric that already
+ * exists returns the existing one.
+ */
+public class skceMetrics {
+
+    private static final String TYPE_HISTOGRAM = "histogram";
+    private static final String TYPE_GAUGE = "gauge";
+    private static final String TYPE_COUNTER = "counter";
+
+    /**
+     * Upper bounds of the histogram buckets, in seconds
+     */
+    private static final String[] LE = new String[LatencyHistogram.BOUNDS.length];
+
+    static {
+        for (int i = 0; i < LE.length; i++) {
+            LE[i] = BigDecimal.valueOf(LatencyHistogram.BOUNDS[i], 9).stripTrailingZeros().toPlainString();
+        }
+    }
+
+    private static final SortedMap<String, Family> families = new ConcurrentSkipListMap<>();
+    private static final Map<String, CacheStatistics> caches = new ConcurrentHashMap<>();
+
+    /**
+     * Phases of the processing of a request, timed wherever they happen
+     */
+    private static final String PHASE = "skfs_phase_duration_seconds";
+    private static final String PHASE_HELP = "Time spent in each phase of the processing of web service requests";
+    public static final LatencyHistogram PHASE_AUTH = histogram(PHASE, PHASE_HELP, "phase", "auth");
+    public static final LatencyHistogram PHASE_DB = histogram(PHASE, PHASE_HELP, "phase", "db");
+    public static final LatencyHistogram PHASE_CRYPTO = histogram(PHASE, PHASE_HELP, "phase", "crypto");
+    public static final LatencyHistogram PHASE_REPLICATION = histogram(PHASE, PHASE_HELP, "phase", "replication");
+
+    public static LatencyHistogram histogram(String name, String help, String... labels) {
+        return (LatencyHistogram) family(name, help, TYPE_HISTOGRAM).samples
+                .computeIfAbsent(labels(labels), k -> new LatencyHistogram());
+    }
+
+    public static void gauge(String name, String help, DoubleSupplier value, String... labels) {
+        family(name, help, TYPE_GAUGE).samples.putIfAbsent(labels(labels), value);
+    }
+
+    /**
+     * @param value - function returning the current value of a counter that
+     * only goes up
+     */
+    public static void counter(String name, String help, DoubleSupplier value, String... labels) {
+        family(name, help, TYPE_COUNTER).samples.putIfAbsent(labels(labels), value);
+    }
+
+    /**
+     * Returns the hit and miss counters of a cache, exposed as
+     * skfs_cache_hits_total and skfs_cache_misses_total.
+     *
+     * @param cache - name of the cache
+     */
+    public static CacheStatistics cache(String cache) {
+        return caches.computeIfAbsent(cache, k -> {
+            CacheStatistics stats = new CacheStatistics();
+            counter("skfs_cache_hits_total", "Lookups answered by an in-memory cache", stats::getHits, "cache", cache);
+            counter("skfs_cache_misses_total", "Lookups not answered by an in-memory cache", stats::getMisses, "cache", cache);
+            return stats;
+        });
+    }
+
+    /**
+     * Removes a metric, for example a gauge of a server that is no longer
+     * replicated to.
+     */
+    public static void remove(String name, String... labels) {
+        Family f = families.get(name);
+        if (f != null) {
+            f.samples.remove(labels(labels));
+        }
+    }
+
+    /**
+     * @return all metrics in the Prometheus text exposition format, version
+     * 0.0.4
+     */
+    public static String scrape() {
+        StringBuilder sb = new StringBuilder(8192);
+        for (Family f : families.values()) {
+            if (f.samples.isEmpty()) {
+                continue;
+            }
+            sb.append("# HELP ").append(f.name).append(' ').append(f.help).append('\n');
+            sb.append("# TYPE ").append(f.name).append(' ').append(f.type).append('\n');
+            for (Map.Entry<String, Object> sample : f.samples.entrySet()) {
+                if (sample.getValue() instanceof LatencyHistogram) {
+                    writeHistogram(sb, f.name, sample.getKey(), (LatencyHistogram) sample.getValue());
+                } else {
+                    double value;
+                    try {
+                        value = ((DoubleSupplier) sample.getValue()).getAsDouble();
+                    } catch (RuntimeException ex) {
+                        continue;
+                    }
+                    sb.append(f.name);
+                    if (!sample.getKey().isEmpty()) {
+                        sb.append('{').append(sample.getKey()).append('}');
+                    }
+                    sb.append(' ').append(format(value)).append('\n');
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    private static void writeHistogram(StringBuilder sb, String name, String labels, LatencyHistogram h) {
+        String prefix = labels.isEmpty() ? "{" : "{" + labels + ",";
+        long[] counts = h.getBucketCounts();
+        long cumulative = 0;
+        for (int i = 0; i < counts.length; i++) {
+            cumulative += counts[i];
+            sb.append(name).append("_bucket").append(prefix)
+                    .append("le=\"").append(i < LE.length ? LE[i] : "+Inf").append("\"} ")
+                    .append(cumulative).append('\n');
+        }
+        String suffix = labels.isEmpty() ? " " : "{" + labels + "} ";
+        sb.append(name).append("_sum").append(suffix).append(format(h.getSum() / 1e9)).append('\n');
+        sb.append(name).append("_count").append(suffix).append(cumulative).append('\n');
+    }
+
+    private static Family family(String name, String help, String type) {
+        Family f = families.computeIfAbsent(name, k -> new Family(name, help, type));
+        if (!f.type.equals(type)) {
+            throw new IllegalArgumentException("Metric " + name + " is a " + f.type + ", not a " + type);
+        }
+        return f;
+    }
+
+    private static String labels(String... labels) {
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Labels must be name and value pairs");
+        }
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < labels.length; i += 2) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(labels[i]).append("=\"");
+            String value = String.valueOf(labels[i + 1]);
+            for (int j = 0; j < value.length(); j++) {
+                char c = value.charAt(j);
+                switch (c) {
+                    case '\\':
+                        sb.append("\\\\");
+                        break;
+                    case '"':
+                        sb.append("\\\"");
+                        break;
+                    case '\n':
+                        sb.append("\\n");
+                        break;
+                    default:
+                        sb.append(c);
+                }
+            }
+            sb.append('"');
+        }
+        return sb.toString();
+    }
+
+    private static String format(double value) {
+        if (Double.isNaN(value)) {
+            return "NaN";
+        }
+        if (Double.isInfinite(value)) {
+            return (value > 0) ? "+Inf" : "-Inf";
+        }
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+
+    private static final class Family {
+
+        private final String name;
+        private final String help;
+        private final String type;
+        private final SortedMap<String, Object> samples = new ConcurrentSkipListMap<>();
+
+        private Family(String name, String help, String type) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+        }
+    }
+}
@@ -102,6 +102,8 @@ import javax.xml.bind.annotation.XmlTransient;
 //    @NamedQuery(name = "FidoKeys.maxpk", query = "SELECT max(f.fidoKeysPK.fkid) FROM FidoKeys f where f.fidoKeysPK.sid = :sid "),
     @NamedQuery(name = "FidoKeys.maxpk", query = "SELECT max(f.fidoKeysPK.fkid) FROM FidoKeys f where f.fidoKeysPK.sid = :sid and f.fidoKeysPK.did = :did"),
     @NamedQuery(name = "FidoKeys.findNewestKeyByUsernameStatus", query = "SELECT f FROM FidoKeys f where f.fidoKeysPK.did = :did and f.fidoKeysPK.username = :username and f.status = :status ORDER BY f.createDate DESC"),
+    @NamedQuery(name = "FidoKeys.findByKeyhandleDigest", query = "SELECT f FROM FidoKeys f WHERE f.fidoKeysPK.did = :did and f.keyhandleDigest = :keyhandleDigest"),
+    @NamedQuery(name = "FidoKeys.findAllKeyhandleDigests", query = "SELECT f.fidoKeysPK, f.keyhandleDigest FROM FidoKeys f"),
     @NamedQuery(name = "FidoKeys.findByUsernameKH", query = "SELECT f FROM FidoKeys f WHERE f.fidoKeysPK.did = :did and f.fidoKeysPK.username = :username and f.keyhandle = :keyhandle")})
 
 public class FidoKeys implements Serializable {
@@ -178,6 +180,9 @@ public class FidoKeys implements Serializable {
     @Size(max = 2048)
     @Column(name = "signature")
     private String signature;
+    // Hex SHA-256 of the keyhandle, computed by the database
+    @Column(name = "keyhandle_digest", insertable = false, updatable = false)
+    private String keyhandleDigest;
 
     @Transient
     private String id;
@@ -207,6 +212,39 @@ public class FidoKeys implements Serializable {
         this.fidoKeysPK = new FidoKeysPK(sid, did, username, fkid);
     }
 
+    /**
+     * Copies a key row as it is stored: the keyhandle is not encrypted again.
+     *
+     * @param fk - the key to copy
+     */
+    public FidoKeys(FidoKeys fk) {
+        FidoKeysPK pk = fk.getFidoKeysPK();
+        this.fidoKeysPK = new FidoKeysPK(pk.getSid(), pk.getDid(), pk.getUsername(), pk.getFkid());
+        this.userid = fk.userid;
+        this.keyhandle = fk.keyhandle;
+        this.appid = fk.appid;
+        this.publickey = fk.publickey;
+        this.transports = fk.transports;
+        this.attsid = fk.attsid;
+        this.attdid = fk.attdid;
+        this.attcid = fk.attcid;
+        this.counter = fk.counter;
+        this.fidoVersion = fk.fidoVersion;
+        this.fidoProtocol = fk.fidoProtocol;
+        this.aaguid = fk.aaguid;
+        this.registrationSettings = fk.registrationSettings;
+        this.registrationSettingsVersion = fk.registrationSettingsVersion;
+        this.createDate = fk.getCreateDate();
+        this.createLocation = fk.createLocation;
+        this.modifyDate = fk.getModifyDate();
+        this.modifyLocation = fk.modifyLocation;
+        this.status = fk.status;
+        this.signatureKeytype = fk.signatureKeytype;
+        this.signature = fk.signature;
+        this.keyhandleDigest = fk.keyhandleDigest;
+        this.id = fk.id;
+    }
+
     public FidoKeysPK getFidoKeysPK() {
         return fidoKeysPK;
     }
@@ -435,6 +473,11 @@ public class FidoKeys implements Serializable {
         return signature;
     }
 
+    @XmlTransient
+    public String getKeyhandleDigest() {
+        return keyhandleDigest;
+    }
+
     public void setSignature(String signature) {
         this.signature = signature;
     }
@@ -0,0 +1,233 @@
+/**
+* Copyright StrongAuth, Inc. All Rights Reserved.
+*
+* Use of this source code is governed by the GNU Lesser General Public License v2.1
+* The license can be found at https://github.com/StrongKey/fido2/blob/master/LICENSE
+*/
+
+package com.strongkey.cbor;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import org.bouncycastle.util.encoders.Hex;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import org.junit.Test;
+
+/**
+ * Reads attestation objects the way FIDO2AttestationObject and
+ * FIDO2AuthenticatorData do, and checks that malformed CBOR fails with an
+ * IOException instead of a runtime exception or a huge allocation.
+ */
+public class CborReaderTest {
+
+    // SHA-256 of "localhost"
+    private static final String RPID_HASH = "49960de5880e8c687434170f6476605b8fe4aeb9a28632c7995cf3ba831d9763";
+    private static final String AAGUID = "00112233445566778899aabbccddeeff";
+    private static final String CREDENTIAL_ID = "0102030405060708090a0b0c0d0e0f10";
+    private static final String X = "1111111111111111111111111111111111111111111111111111111111111111";
+    private static final String Y = "2222222222222222222222222222222222222222222222222222222222222222";
+
+    // {1: 2, 3: -7, -1: 1, -2: x, -3: y}, an ES256 COSE key
+    private static final String COSE_KEY = "a5" + "0102" + "0326" + "2001" + "215820" + X + "225820" + Y;
+
+    // Stand-ins for the DER signature and certificate
+    private static final String SIG = "3006020101020101";
+    private static final String CERT = "3016" + "aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa";
+
+    // Attested credential data, counter 42
+    private static final String PACKED_AUTHDATA = RPID_HASH + "41" + "0000002a"
+            + AAGUID + "0010" + CREDENTIAL_ID + COSE_KEY;
+
+    // {"fmt": "packed", "attStmt": {"alg": -7, "sig": h'..', "x5c": [h'..']}, "authData": h'..'}
+    private static final String PACKED = "a3"
+            + "63666d74" + "667061636b6564"
+            + "6761747453746d74" + "a3" + "63616c67" + "26" + "63736967" + "48" + SIG + "63783563" + "81" + "5818" + CERT
+            + "686175746844617461" + "5894" + PACKED_AUTHDATA;
+
+    // Attested credential data with a zero AAGUID, counter 0
+    private static final String U2F_AUTHDATA = RPID_HASH + "41" + "00000000"
+            + "00000000000000000000000000000000" + "0010" + CREDENTIAL_ID + COSE_KEY;
+
+    // {"fmt": "fido-u2f", "attStmt": {"sig": h'..', "x5c": [h'..']}, "authData": h'..'}
+    private static final String FIDO_U2F = "a3"
+            + "63666d74" + "686669646f2d753266"
+            + "6761747453746d74" + "a2" + "63736967" + "48" + SIG + "63783563" + "81" + "5818" + CERT
+            + "686175746844617461" + "5894" + U2F_AUTHDATA;
+
+    @Test
+    public void readsPackedAttestationObject() throws IOException {
+        CborReader reader = new CborReader(Hex.decode(PACKED));
+        assertEquals(3, reader.readMapLength());
+        assertEquals("fmt", reader.readTextString());
+        assertEquals("packed", reader.readTextString());
+        assertEquals("attStmt", reader.readTextString());
+        Map<?, ?> attStmt = (Map<?, ?>) reader.readGenericItem();
+        assertEquals(3, attStmt.size());
+        assertEquals(-7L, attStmt.get("alg"));
+        assertArrayEquals(Hex.decode(SIG), (byte[]) attStmt.get("sig"));
+        List<?> x5c = (List<?>) attStmt.get("x5c");
+        assertEquals(1, x5c.size());
+        assertArrayEquals(Hex.decode(CERT), (byte[]) x5c.get(0));
+        assertEquals("authData", reader.readTextString());
+        byte[] authData = reader.readByteString();
+        assertFalse(reader.hasRemaining());
+
+        assertArrayEquals(Hex.decode(PACKED_AUTHDATA), authData);
+        readAuthData(authData, 42, AAGUID);
+    }
+
+    @Test
+    public void readsFidoU2FAttestationObject() throws IOException {
+        CborReader reader = new CborReader(Hex.decode(FIDO_U2F));
+        assertEquals(3, reader.readMapLength());
+        assertEquals("fmt", reader.readTextString());
+        assertEquals("fido-u2f", reader.readTextString());
+        assertEquals("attStmt", reader.readTextString());
+        Map<?, ?> attStmt = (Map<?, ?>) reader.readGenericItem();
+        assertEquals(2, attStmt.size());
+        assertArrayEquals(Hex.decode(SIG), (byte[]) attStmt.get("sig"));
+        assertArrayEquals(Hex.decode(CERT), (byte[]) ((List<?>) attStmt.get("x5c")).get(0));
+        assertEquals("authData", reader.readTextString());
+        byte[] authData = reader.readByteString();
+        assertFalse(reader.hasRemaining());
+
+        readAuthData(authData, 0, "00000000000000000000000000000000");
+    }
+
+    @Test
+    public void skipsAttestationStatement() throws IOException {
+        CborReader reader = new CborReader(Hex.decode(PACKED));
+        reader.readMapLength();
+        reader.skip();
+        reader.skip();
+        reader.skip();
+        reader.skip();
+        assertEquals("authData", reader.readTextString());
+        assertEquals(Hex.decode(PACKED_AUTHDATA).length, reader.readByteStringSlice().remaining());
+        assertFalse(reader.hasRemaining());
+    }
+
+    @Test
+    public void readsTaggedItemAsTaggedValue() throws IOException {
+        // 1(1600000000)
+        assertEquals(1600000000L, new CborReader(Hex.decode("c11a5f5e1000")).readGenericItem());
+        // 24(24(h'07'))
+        assertArrayEquals(new byte[]{7}, (byte[]) new CborReader(Hex.decode("d818d8184107")).readGenericItem());
+
+        // [1(0), "a"]
+        CborReader reader = new CborReader(Hex.decode("82c1006161"));
+        assertEquals(Arrays.asList(0L, "a"), reader.readGenericItem());
+        assertFalse(reader.hasRemaining());
+
+        reader = new CborReader(Hex.decode("c11a5f5e100001"));
+        reader.skip();
+        assertEquals(1, reader.readInt());
+    }
+
+    @Test
+    public void readsIndefiniteLengthItems() throws IOException {
+        // (_ h'0102', h'03')
+        assertArrayEquals(new byte[]{1, 2, 3}, new CborReader(Hex.decode("5f4201024103ff")).readByteString());
+        // [_ 1, 2]
+        assertEquals(Arrays.asList(1L, 2L), new CborReader(Hex.decode("9f0102ff")).readGenericItem());
+    }
+
+    @Test
+    public void rejectsTruncatedAttestationObject() {
+        byte[] packed = Hex.decode(PACKED);
+        assertThrows(IOException.class, () -> readAttestationObject(Arrays.copyOf(packed, packed.length - 1)));
+        // Cut in the middle of the certificate of the statement
+        int cut = PACKED.indexOf("5818" + CERT) / 2 + 10;
+        assertThrows(IOException.class, () -> readAttestationObject(Arrays.copyOf(packed, cut)));
+        // Cut in the middle of the COSE key of the authenticator data
+        byte[] authData = Hex.decode(PACKED_AUTHDATA);
+        assertThrows(IOException.class, () -> readAuthData(Arrays.copyOf(authData, authData.length - 20), 42, AAGUID));
+        // Cut in the argument of an item
+        assertThrows(IOException.class, () -> new CborReader(Hex.decode("1a0000")).readInt());
+        assertThrows(IOException.class, () -> new CborReader(Hex.decode("9f01")).readGenericItem());
+        assertThrows(IOException.class, () -> new CborReader(new byte[0]).skip());
+    }
+
+    @Test
+    public void rejectsOversizedLengths() {
+        // Byte and text strings longer than the data
+        assertThrows(IOException.class, () -> new CborReader(Hex.decode("5a7fffffff00")).readByteString());
+        assertThrows(IOException.class, () -> new CborReader(Hex.decode("7a7fffffff00")).readTextString());
+        assertThrows(IOException.class, () -> new CborReader(Hex.decode("5a7fffffff00")).readByteStringSlice());
+        assertThrows(IOException.class, () -> new CborReader(Hex.decode("5a7fffffff00")).skip());
+        // Lengths above Long.MAX_VALUE
+        assertThrows(IOException.class, () -> new CborReader(Hex.decode("5bffffffffffffffff00")).readByteString());
+        assertThrows(IOException.class, () -> new CborReader(Hex.decode("5bffffffffffffffff00")).skip());
+        assertThrows(IOException.class, () -> new CborReader(Hex.decode("1bffffffffffffffff")).readInt());
+        // Arrays and maps claiming more items than the data holds
+        assertThrows(IOException.class, () -> new CborReader(Hex.decode("9b7fffffffffffffff00")).readGenericItem());
+        assertThrows(IOException.class, () -> new CborReader(Hex.decode("bb7fffffffffffffff0000")).readGenericItem());
+        assertThrows(IOException.class, () -> new CborReader(Hex.decode("9a7fffffff00")).skip());
+        assertThrows(IOException.class, () -> new CborReader(Hex.decode("bb7fffffffffffffff0000")).skip());
+        assertThrows(IOException.class, () -> new CborReader(Hex.decode("9bffffffffffffffff")).readArrayLength());
+        // Reserved additional information
+        assertThrows(IOException.class, () -> new CborReader(Hex.decode("1c")).readInt());
+    }
+
+    @Test
+    public void rejectsDeepNesting() {
+        byte[] tags = new byte[64];
+        Arrays.fill(tags, (byte) 0xc1);
+        tags[tags.length - 1] = 0;
+        assertThrows(IOException.class, () -> new CborReader(tags).readGenericItem());
+        assertThrows(IOException.class, () -> new CborReader(tags).skip());
+    }
+
+    @Test
+    public void readsSlicesOfTheData() throws IOException {
+        byte[] data = Hex.decode("ff" + PACKED + "ff");
+        CborReader reader = new CborReader(data, 1, data.length - 2);
+        reader.skip();
+        assertFalse(reader.hasRemaining());
+        assertEquals(data.length - 1, reader.position());
+        assertThrows(IndexOutOfBoundsException.class, () -> new CborReader(data, 1, data.length));
+    }
+
+    private static void readAttestationObject(byte[] attestationObject) throws IOException {
+        CborReader reader = new CborReader(attestationObject);
+        long len = reader.readMapLength();
+        for (long i = 0; i < len; i++) {
+            reader.readTextString();
+            reader.readGenericItem();
+        }
+    }
+
+    /*
+     * Reads authenticator data with attested credential data and no
+     * extensions.
+     */
+    private static void readAuthData(byte[] authData, long counter, String aaguid) throws IOException {
+        CborReader reader = new CborReader(authData);
+        assertArrayEquals(Hex.decode(RPID_HASH), reader.readRawBytes(32));
+        assertEquals(0x41, reader.readRawByte());
+        assertEquals(counter, ((long) reader.readRawUInt16() << 16) | reader.readRawUInt16());
+        assertArrayEquals(Hex.decode(aaguid), reader.readRawBytes(16));
+        int idLength = reader.readRawUInt16();
+        assertArrayEquals(Hex.decode(CREDENTIAL_ID), reader.readRawBytes(idLength));
+
+        int start = reader.position();
+        assertEquals(5, reader.readMapLength());
+        assertEquals(1, reader.readInt());
+        assertEquals(2, reader.readInt());
+        assertEquals(3, reader.readInt());
+        assertEquals(-7, reader.readInt());
+        assertEquals(-1, reader.readInt());
+        assertEquals(1, reader.readInt());
+        assertEquals(-2, reader.readInt());
+        assertArrayEquals(Hex.decode(X), reader.readByteString());
+        assertEquals(-3, reader.readInt());
+        assertArrayEquals(Hex.decode(Y), reader.readByteString());
+        assertEquals(Hex.decode(COSE_KEY).length, reader.position() - start);
+        assertFalse(reader.hasRemaining());
+    }
+}
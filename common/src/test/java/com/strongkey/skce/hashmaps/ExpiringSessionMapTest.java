@@ -0,0 +1,92 @@
+/**
+* Copyright StrongAuth, Inc. All Rights Reserved.
+*
+* Use of this source code is governed by the GNU Lesser General Public License v2.1
+* The license can be found at https://github.com/StrongKey/fido2/blob/master/LICENSE
+*/
+
+package com.strongkey.skce.hashmaps;
+
+import java.util.AbstractMap.SimpleImmutableEntry;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Checks that entries removed or replaced before they expire do not grow the
+ * queue of a store that is never expired and never full.
+ */
+public class ExpiringSessionMapTest {
+
+    private static final int ROUNDS = 100000;
+
+    @Test
+    public void rowSignatureRemovedAndPutAgainKeepsQueueBounded() {
+        // As SKFSCommon.verifiedrowsignaturemap: a counter update removes the
+        // row, the next authentication verifies and puts it again
+        ExpiringSessionMap<String> map = new ExpiringSessionMap<>(10000);
+        putRows(map, 100);
+        for (int i = 0; i < ROUNDS; i++) {
+            map.remove("1-1-user-1");
+            map.put("1-1-user-1", "digest" + i);
+            assertBounded(map);
+        }
+        assertEquals(100, map.size());
+        assertEquals("digest" + (ROUNDS - 1), map.get("1-1-user-1"));
+        assertEquals(0, map.getEvictions());
+    }
+
+    @Test
+    public void publicKeyInvalidatedAndReadAgainKeepsQueueBounded() {
+        // As SKFSCommon.userpublickeymap: a key is invalidated when its row
+        // changes and decoded and put again on the next read
+        ExpiringSessionMap<SimpleImmutableEntry<String, Object>> map = new ExpiringSessionMap<>(10000);
+        for (int i = 0; i < 100; i++) {
+            map.put("1-1-" + i, new SimpleImmutableEntry<>("publickey" + i, new Object()));
+        }
+        for (int i = 0; i < ROUNDS; i++) {
+            map.remove("1-1-1");
+            if (map.get("1-1-1") == null) {
+                map.put("1-1-1", new SimpleImmutableEntry<>("publickey1", new Object()));
+            }
+            assertBounded(map);
+        }
+        assertEquals(100, map.size());
+        assertEquals("publickey1", map.get("1-1-1").getKey());
+    }
+
+    @Test
+    public void replacedEntriesKeepQueueBounded() {
+        ExpiringSessionMap<String> map = new ExpiringSessionMap<>(10000);
+        putRows(map, 10);
+        for (int i = 0; i < ROUNDS; i++) {
+            map.put("1-1-user-" + (i % 10), "digest" + i);
+            assertBounded(map);
+        }
+        assertEquals(10, map.size());
+    }
+
+    @Test
+    public void expiredAndEvictedNodesLeaveQueue() {
+        ExpiringSessionMap<String> map = new ExpiringSessionMap<>(10);
+        putRows(map, 25);
+        assertEquals(10, map.size());
+        assertEquals(15, map.getEvictions());
+        assertEquals(10, map.getQueueSize());
+
+        map.remove("1-1-user-20");
+        assertEquals(9, map.expire(-1));
+        assertEquals(0, map.getQueueSize());
+    }
+
+    private static void putRows(ExpiringSessionMap<String> map, int rows) {
+        for (int i = 0; i < rows; i++) {
+            map.put("1-1-user-" + i, "digest");
+        }
+    }
+
+    private static void assertBounded(ExpiringSessionMap<?> map) {
+        assertTrue("queue of " + map.getQueueSize() + " nodes for " + map.size() + " entries",
+                map.getQueueSize() <= 2 * map.size() + 64);
+    }
+}
@@ -15,7 +15,6 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
 import java.security.InvalidKeyException;
-import java.security.Key;
 import java.security.KeyStore;
 import java.security.KeyStoreException;
 import java.security.NoSuchAlgorithmException;
@@ -31,7 +30,6 @@ import java.security.cert.X509Certificate;
 import java.util.Enumeration;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import javax.crypto.SecretKey;
 import org.bouncycastle.asn1.x500.X500Name;
 import org.bouncycastle.crypto.CryptoServicesRegistrar;
 import org.bouncycastle.jcajce.provider.BouncyCastleFipsProvider;
@@ -164,49 +162,17 @@ public class GenericCryptoModule {
 //    }
 
     public String hmacRequest(String password, String accesskey, String request) throws CryptoException {
-        // Local variables
-        Key sk = null;
-        String keystoreurl;
-
-        // Keystore location
-        try {
-            if ((keystoreurl = cryptoCommon.getConfigurationProperty("crypto.cfg.property.hmac.keystorelocation")) == null) {
-                cryptoCommon.logp(Level.SEVERE, classname, "getHmacSignatureSigningKey", "CRYPTO-ERR-2505", "crypto.cfg.property.hmac.keystorelocation");
-                throw new CryptoException(cryptoCommon.getMessageWithParam("CRYPTO-ERR-2505", "crypto.cfg.property.hmac.truststorelocation"));
-            }
-        } catch (java.util.MissingResourceException e) {
-            cryptoCommon.logp(Level.SEVERE, classname, "getHmacSignatureSigningKey", "CRYPTO-ERR-2505", "crypto.cfg.property.hmac.keystorelocation");
-            throw new CryptoException(cryptoCommon.getMessageWithParam("CRYPTO-ERR-2505", "crypto.cfg.property.hmac.truststorelocation"));
-        }
-
-        InputStream is = null;
-        try {
-            KeyStore keystore = KeyStore.getInstance("BCFKS", BC_FIPS_PROVIDER);
-            is = new FileInputStream(keystoreurl);
-            keystore.load(is, password.toCharArray());
-
-            sk = keystore.getKey(accesskey, password.toCharArray());
-
-        } catch (KeyStoreException | UnrecoverableEntryException | CertificateException | NoSuchAlgorithmException | IOException ex) {
-            cryptoCommon.logp(Level.SEVERE, classname, "getHmacSignatureSigningKey", "CRYPTO-ERR-2506", ex.getLocalizedMessage());
-            throw new CryptoException(cryptoCommon.getMessageWithParam("CRYPTO-ERR-2506", ex.getLocalizedMessage()));
-        }
-        finally{
-            try {
-                if(is !=null)
-                    is.close();
-            } catch (IOException ex) {
-                Logger.getLogger(GenericCryptoModule.class.getName()).log(Level.SEVERE, null, ex);
-            }
-        }
-        if (sk == null) {
-            cryptoCommon.logp(Level.SEVERE, classname, "getHmacSignatureVerificationKey", "CRYPTO-ERR-2508");
-            throw new CryptoException(cryptoCommon.getMessageProperty("CRYPTO-ERR-2508"));
-        }
-
-        SecretKey key = (SecretKey) sk;
+        // The secret-keys are cached by cryptoCommon; the keystore is only
+        // read again when it changes on disk or the cache is invalidated
+        return Base64.toBase64String(cryptoCommon.calculateHmac(password, accesskey, request.getBytes(), "HmacSHA256"));
+    }
 
-        return Base64.toBase64String(cryptoCommon.calculateHmac(key, request.getBytes(), "HmacSHA256"));
+    /**
+     * Discards the cached hmac secret-keys so they are reloaded from the
+     * keystore on the next request.
+     */
+    public void reloadHmacKeys() {
+        cryptoCommon.invalidateHmacKeys();
     }
 
 //    public PrivateKey getXMLSignatureSigningKey(String secret, String signingdn) throws CryptoException {
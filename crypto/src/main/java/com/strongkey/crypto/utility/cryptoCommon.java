@@ -19,6 +19,7 @@ import java.net.InetAddress;
 import java.net.UnknownHostException;
 import java.security.AlgorithmParameters;
 import java.security.InvalidKeyException;
+import java.security.Key;
 import java.security.KeyFactory;
 import java.security.KeyStore;
 import java.security.KeyStoreException;
@@ -125,10 +126,30 @@ public final class cryptoCommon {
     private static ArrayList<PrivateKey> jwtpvkeylist ;
     private static ArrayList<X509Certificate> jwtcertlist;
     private static ArrayList<PublicKey> jwtpublickeylist = new ArrayList<>();
-    private static SortedMap<String,BlockingQueue<List>> jwtsignqMap = new ConcurrentSkipListMap<>();
+    // did -> JWT signers: lists of the Signature, X509Certificate and PrivateKey
+    private static SortedMap<String,List<List<Object>>> jwtsignersMap = new ConcurrentSkipListMap<>();
     private static SortedMap<String,BlockingQueue<Signature>> jwtverifyqMap =  new ConcurrentSkipListMap<>();  //new LinkedBlockingQueue<Signature>();
     private static SortedMap<String,X509Certificate> jwtCAcertMap =  new ConcurrentSkipListMap<>();
     private static SortedMap<BigInteger,String>jwtcertserialmap =  new ConcurrentSkipListMap<>();
+
+    /**
+     * HMAC secret-keys of the REST access-keys, loaded once from the hmac
+     * keystore and kept in memory along with a pool of initialized Mac objects
+     * for each access-key. The keystore is re-read only when its modification
+     * time changes or when invalidateHmacKeys() is called.
+     */
+    private static volatile SortedMap<String, HmacKeyEntry> hmackeymap = new ConcurrentSkipListMap<>();
+    private static volatile long hmackeystoremodified = -1L;
+    private static volatile long hmackeystorechecked = 0L;
+    private static volatile boolean hmackeysinvalid = true;
+
+    /**
+     * Pools of reusable Signature and KeyFactory objects, per algorithm, for
+     * the verification of FIDO assertions; getInstance of the FIPS provider
+     * is too expensive to be called for every assertion.
+     */
+    private static final SortedMap<String, BlockingQueue<Signature>> verifysigqMap = new ConcurrentSkipListMap<>();
+    private static final SortedMap<String, BlockingQueue<KeyFactory>> keyfactoryqMap = new ConcurrentSkipListMap<>();
     
     private static Integer jwtthreads;
     private static String jwtkeystorelocation;
@@ -379,12 +400,30 @@ public final class cryptoCommon {
         return false;
     }
 
+    /**
+     * Verifies a digital signature with a Signature object taken from the
+     * pool of the algorithm.
+     *
+     * @param signature byte[] with the digital signature
+     * @param publickey PublicKey of the signer
+     * @param signedobject byte[] with the data digitally signed
+     * @param algorithm the signature algorithm
+     * @return boolean indicator if the signature verifies or not
+     */
     public static boolean verifySignature(byte[] signature, PublicKey publickey, byte[] signedobject, String algorithm) {
+        BlockingQueue<Signature> sigq = verifysigqMap.computeIfAbsent(algorithm, k -> new LinkedBlockingQueue<>(getVerifyPoolsize()));
+        Signature sig = sigq.poll();
         try {
-            Signature sig = Signature.getInstance(algorithm, BC_FIPS_PROVIDER);
+            if (sig == null) {
+                sig = Signature.getInstance(algorithm, BC_FIPS_PROVIDER);
+            }
             sig.initVerify(publickey);
             sig.update(signedobject);
-            return sig.verify(signature);
+            boolean verified = sig.verify(signature);
+            // verify resets the Signature, so it may be reused as is; one
+            // that threw is dropped since its state is unknown
+            sigq.offer(sig);
+            return verified;
 
         } catch (NoSuchAlgorithmException | InvalidKeyException | SignatureException ex) {
             logp(Level.FINE, classname, "verifySignature", "CRYPTO-MSG-1000", "ex=" + printStackTrace(ex));
@@ -392,6 +431,38 @@ public final class cryptoCommon {
         return false;
     }
 
+    /**
+     * Decodes an X.509 encoded public key with a KeyFactory taken from the
+     * pool of the key algorithm.
+     *
+     * @param encodedkey byte[] with the X.509 (SubjectPublicKeyInfo) encoding
+     * @param keytype the key algorithm: EC, RSA, ...
+     * @return PublicKey
+     * @throws NoSuchAlgorithmException if the key algorithm is not supported
+     * @throws InvalidKeySpecException if the encoding is invalid
+     */
+    public static PublicKey generatePublicKey(byte[] encodedkey, String keytype) throws NoSuchAlgorithmException, InvalidKeySpecException {
+        BlockingQueue<KeyFactory> kfq = keyfactoryqMap.computeIfAbsent(keytype, k -> new LinkedBlockingQueue<>(getVerifyPoolsize()));
+        KeyFactory kf = kfq.poll();
+        if (kf == null) {
+            kf = KeyFactory.getInstance(keytype, BC_FIPS_PROVIDER);
+        }
+        try {
+            return kf.generatePublic(new X509EncodedKeySpec(encodedkey));
+        } finally {
+            // A KeyFactory keeps no state between keys
+            kfq.offer(kf);
+        }
+    }
+
+    private static int getVerifyPoolsize() {
+        try {
+            return Integer.parseInt(getConfigurationProperty("crypto.cfg.property.signature.verify.poolsize"));
+        } catch (NumberFormatException | java.util.MissingResourceException ex) {
+            return 32;
+        }
+    }
+
     public static byte[] calculateHmac(SecretKey key, byte[] data, String algorithm) {
         try {
             Mac mac = Mac.getInstance(algorithm, "BCFIPS");
@@ -403,6 +474,138 @@ public final class cryptoCommon {
         return null;
     }
 
+    /**
+     * Calculates the HMAC of the data with the secret-key of the specified
+     * access-key. The secret-keys are cached in memory and (re)loaded from the
+     * hmac keystore only if the cache was invalidated or the keystore changed
+     * on disk; initialized Mac objects are reused from a per-key pool.
+     *
+     * @param password - the password of the hmac keystore
+     * @param accesskey - the alias of the secret-key in the hmac keystore
+     * @param data - the data to HMAC
+     * @param algorithm - the Mac algorithm
+     * @return byte[] with the HMAC of the data
+     * @throws CryptoException if the keystore cannot be loaded or the
+     * access-key does not exist
+     */
+    public static byte[] calculateHmac(String password, String accesskey, byte[] data, String algorithm) throws CryptoException {
+        checkHmacKeystore(password);
+
+        HmacKeyEntry entry = hmackeymap.get(accesskey);
+        if (entry == null) {
+            logp(Level.SEVERE, classname, "calculateHmac", "CRYPTO-ERR-2508");
+            throw new CryptoException(getMessageProperty("CRYPTO-ERR-2508"));
+        }
+
+        Mac mac = entry.macq.poll();
+        if (mac == null || !mac.getAlgorithm().equals(algorithm)) {
+            try {
+                mac = Mac.getInstance(algorithm, "BCFIPS");
+                mac.init(entry.key);
+            } catch (NoSuchAlgorithmException | InvalidKeyException | NoSuchProviderException ex) {
+                logp(Level.SEVERE, classname, "calculateHmac", "CRYPTO-ERR-2506", ex.getLocalizedMessage());
+                throw new CryptoException(getMessageWithParam("CRYPTO-ERR-2506", ex.getLocalizedMessage()));
+            }
+        }
+        try {
+            return mac.doFinal(data);
+        } finally {
+            // doFinal resets the Mac, so it may be reused as is
+            entry.macq.offer(mac);
+        }
+    }
+
+    /**
+     * Forces the hmac secret-keys to be reloaded from the keystore on the next
+     * request; used by administrators after changing the access-keys.
+     */
+    public static void invalidateHmacKeys() {
+        hmackeysinvalid = true;
+        logp(Level.INFO, classname, "invalidateHmacKeys", "CRYPTO-MSG-2525", "reloading on next request");
+    }
+
+    /**
+     * Reloads the hmac secret-keys if the cache has been invalidated, or if the
+     * keystore's modification time has changed. The modification time is only
+     * looked at once every refresh interval, so that the per-request cost is
+     * a comparison of timestamps in the common case.
+     */
+    private static void checkHmacKeystore(String password) throws CryptoException {
+        if (!hmackeysinvalid) {
+            long now = System.currentTimeMillis();
+            long interval = Long.parseLong(getConfigurationProperty("crypto.cfg.property.hmac.keystore.refreshinterval.seconds")) * 1000;
+            if (now - hmackeystorechecked < interval) {
+                return;
+            }
+            hmackeystorechecked = now;
+            if (new File(getHmacKeystoreLocation()).lastModified() == hmackeystoremodified) {
+                return;
+            }
+        }
+        loadHmacKeys(password);
+    }
+
+    private static synchronized void loadHmacKeys(String password) throws CryptoException {
+        String keystoreurl = getHmacKeystoreLocation();
+        File keystorefile = new File(keystoreurl);
+        long modified = keystorefile.lastModified();
+        if (!hmackeysinvalid && modified == hmackeystoremodified) {
+            // Another thread got here first
+            return;
+        }
+
+        int poolsize = Integer.parseInt(getConfigurationProperty("crypto.cfg.property.hmac.poolsize"));
+        SortedMap<String, HmacKeyEntry> keymap = new ConcurrentSkipListMap<>();
+        InputStream is = null;
+        try {
+            KeyStore hmackeystore = KeyStore.getInstance("BCFKS", BC_FIPS_PROVIDER);
+            is = new FileInputStream(keystorefile);
+            hmackeystore.load(is, password.toCharArray());
+
+            // Only secret-keys are of interest; the keystore may hold signing keys too
+            for (Enumeration<String> e = hmackeystore.aliases(); e.hasMoreElements();) {
+                String alias = e.nextElement();
+                if (hmackeystore.isKeyEntry(alias)) {
+                    Key key = hmackeystore.getKey(alias, password.toCharArray());
+                    if (key instanceof SecretKey) {
+                        keymap.put(alias, new HmacKeyEntry((SecretKey) key, poolsize));
+                    }
+                }
+            }
+        } catch (KeyStoreException | UnrecoverableEntryException | CertificateException | NoSuchAlgorithmException | IOException ex) {
+            logp(Level.SEVERE, classname, "loadHmacKeys", "CRYPTO-ERR-2506", ex.getLocalizedMessage());
+            throw new CryptoException(getMessageWithParam("CRYPTO-ERR-2506", ex.getLocalizedMessage()));
+        } finally {
+            try {
+                if (is != null) {
+                    is.close();
+                }
+            } catch (IOException ex) {
+                Logger.getLogger(cryptoCommon.class.getName()).log(Level.SEVERE, null, ex);
+            }
+        }
+
+        hmackeymap = keymap;
+        hmackeystoremodified = modified;
+        hmackeystorechecked = System.currentTimeMillis();
+        hmackeysinvalid = false;
+        logp(Level.FINE, classname, "loadHmacKeys", "CRYPTO-MSG-2526", keymap.size() + " [" + keystoreurl + "]");
+    }
+
+    private static String getHmacKeystoreLocation() throws CryptoException {
+        String keystoreurl;
+        try {
+            if ((keystoreurl = getConfigurationProperty("crypto.cfg.property.hmac.keystorelocation")) == null) {
+                logp(Level.SEVERE, classname, "getHmacKeystoreLocation", "CRYPTO-ERR-2505", "crypto.cfg.property.hmac.keystorelocation");
+                throw new CryptoException(getMessageWithParam("CRYPTO-ERR-2505", "crypto.cfg.property.hmac.keystorelocation"));
+            }
+        } catch (java.util.MissingResourceException e) {
+            logp(Level.SEVERE, classname, "getHmacKeystoreLocation", "CRYPTO-ERR-2505", "crypto.cfg.property.hmac.keystorelocation");
+            throw new CryptoException(getMessageWithParam("CRYPTO-ERR-2505", "crypto.cfg.property.hmac.keystorelocation"));
+        }
+        return keystoreurl;
+    }
+
     public static void loadVerificationKey(String did, String secret, String signingdn) throws CryptoException {
         // Keystore location
         String truststorelocation;
@@ -706,7 +909,7 @@ public final class cryptoCommon {
               }
             // Setup signing instances
             int pvki = 0;
-            BlockingQueue<List> jwtsignq = new LinkedBlockingQueue<List>();
+            List<List<Object>> jwtsigners = new ArrayList<>();
             for (int i = 0; i < jwtthreads; i++) {
                 try {
                     Signature s = Signature.getInstance(jwtsigningalgorithm);
@@ -714,7 +917,8 @@ public final class cryptoCommon {
                     List<Object> list = new ArrayList<Object>();
                     list.add(s);
                     list.add(jwtcertlist.get(pvki));
-                    jwtsignq.put(list);
+                    list.add(jwtpvkeylist.get(pvki));
+                    jwtsigners.add(Collections.unmodifiableList(list));
 
                 } catch (NoSuchAlgorithmException | InvalidKeyException  ex) {
                     throw new CryptoException(cryptoCommon.getMessageWithParam("CRYPTO-ERR-2506", ex.getLocalizedMessage()));
@@ -724,8 +928,8 @@ public final class cryptoCommon {
                     pvki=0;
                 } 
              }
-             jwtsignqMap.put(did, jwtsignq);
-        } catch (KeyStoreException | InvalidKeySpecException | NoSuchAlgorithmException | UnrecoverableEntryException | IOException |  InterruptedException  ex) {
+             jwtsignersMap.put(did, Collections.unmodifiableList(jwtsigners));
+        } catch (KeyStoreException | InvalidKeySpecException | NoSuchAlgorithmException | UnrecoverableEntryException | IOException ex) {
             ex.printStackTrace();
             cryptoCommon.logp(Level.SEVERE, classname, "getJWTSignatureSigningKeys", "CRYPTO-ERR-2506", ex.getLocalizedMessage());
             throw new CryptoException(cryptoCommon.getMessageWithParam("CRYPTO-ERR-2506", ex.getLocalizedMessage()));
@@ -757,14 +961,18 @@ public final class cryptoCommon {
         return publickeymap.get(did);
     }
 
-    @SuppressWarnings("unchecked")
-    public static List<Object> takeJWTSignList(String did) throws InterruptedException
-    {
-        return jwtsignqMap.get(did).take();
-    }
-    public static void putJWTSignList(String did, List<Object> signer) throws InterruptedException
+    /**
+     * Returns the JWT signers of a domain, each a list of its Signature,
+     * X509Certificate and PrivateKey. The list is replaced when the signing
+     * keys are loaded again; a Signature must only be used by one thread at
+     * a time.
+     *
+     * @param did - the domain
+     * @return the signers, or null if the keys of the domain are not loaded
+     */
+    public static List<List<Object>> getJWTSigners(String did)
     {
-        jwtsignqMap.get(did).put(signer);
+        return jwtsignersMap.get(did);
     }
     public static String getJwtSignAlgorithm(){
         return jwtsigningalgorithm;
@@ -1231,7 +1439,20 @@ public final class cryptoCommon {
 
         logger.exiting(classname, "setupMaxLenMap");
     }
-    
-    
-    
+
+    /**
+     * A cached hmac secret-key and its pool of Mac objects; replaced as a unit
+     * whenever the keystore is reloaded so that a Mac is never returned to the
+     * pool of a different key.
+     */
+    private static final class HmacKeyEntry {
+
+        private final SecretKey key;
+        private final BlockingQueue<Mac> macq;
+
+        private HmacKeyEntry(SecretKey key, int poolsize) {
+            this.key = key;
+            this.macq = new LinkedBlockingQueue<>(poolsize);
+        }
+    }
 }
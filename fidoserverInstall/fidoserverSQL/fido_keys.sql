@@ -49,9 +49,11 @@ CREATE TABLE IF NOT EXISTS fido_keys (
         status                          ENUM('Active','Inactive') NOT NULL,
         signature_keytype               ENUM('RSA','EC','OTHER') NULL,
         signature                       VARCHAR(2048) NULL,
+        keyhandle_digest                CHAR(64) AS (SHA2(keyhandle, 256)) PERSISTENT,
                 PRIMARY KEY (sid,did,username,fkid),
                 index (did, username, keyhandle),
-                index (sid, did, fkid)
+                index (sid, did, fkid),
+                index keyhandle_digest (did, keyhandle_digest)
         )
         ENGINE = InnoDB DEFAULT CHARSET=latin1;
 
@@ -22,7 +22,8 @@ create table REPLICATION (
         objectop	tinyint unsigned not null,
 	objectpk        varchar(520) not null,
         scheduled       datetime,
-		primary key (ssid, rpid, tsid)
+		primary key (ssid, rpid, tsid),
+		index (tsid, ssid, rpid, scheduled)
         )
 	engine=innodb;
 
@@ -550,6 +550,19 @@ if [[ $CURRENT_SKFS_BUILDNO < "4.4.2" ]]; then
 	mv $STRONGKEY_HOME/fido/VersionFidoServer-4.4.1 $STRONGKEY_HOME/fido/VersionFidoServer-4.4.2
 fi # End of 4.4.2 Upgrade
 
+# 4.4.2 upgrade finished, start upgrade to 4.4.3
+if [[ $CURRENT_SKFS_BUILDNO < "4.4.3" ]]; then
+	echo "Upgrading to 4.4.3"
+
+	# Index used by the BacklogProcessor to page through back-logged replication objects
+	$MARIA_HOME/bin/mysql --user=skfsdbuser --password=$MARIA_SKFSDBUSER_PASSWORD --database=skfs -e "create index if not exists tsid on replication(tsid,ssid,rpid,scheduled);"
+
+	# Digest of the keyhandle (credential ID), to find keys without their username
+	$MARIA_HOME/bin/mysql --user=skfsdbuser --password=$MARIA_SKFSDBUSER_PASSWORD --database=skfs -e "alter table fido_keys add column if not exists keyhandle_digest CHAR(64) AS (SHA2(keyhandle, 256)) PERSISTENT; create index if not exists keyhandle_digest on fido_keys(did,keyhandle_digest);"
+
+	mv $STRONGKEY_HOME/fido/VersionFidoServer-4.4.2 $STRONGKEY_HOME/fido/VersionFidoServer-4.4.3
+fi # End of 4.4.3 Upgrade
+
 # Start Glassfish
 echo
 echo "Starting Glassfish..."
@@ -7,8 +7,8 @@
 
 package com.strongkey.skfs.core;
 
+import com.strongkey.skfs.utilities.ChallengeGenerator;
 import com.strongkey.skfs.utilities.SKFSConstants;
-import java.security.SecureRandom;
 import java.util.Base64;
 
 /**
@@ -81,15 +81,7 @@ public class U2FUtility {
         if (size > SKFSConstants.MAX_RANDOM_NUMBER_SIZE_BITS / 8) {
             size = SKFSConstants.MAX_RANDOM_NUMBER_SIZE_BITS / 8;
         }
-        //Generate seed
-        SecureRandom random = new SecureRandom();
-        byte seed[] = new byte[20];
-        random.nextBytes(seed);
-
-        //Generate Random number
-        SecureRandom sr = new SecureRandom(seed);
-        byte[] randomBytes = new byte[size];
-        sr.nextBytes(randomBytes);
+        byte[] randomBytes = ChallengeGenerator.getBytes(size);
 
         return Base64.getUrlEncoder().withoutPadding().encodeToString(randomBytes);
     }
@@ -33,6 +33,8 @@ public class FidoPolicyObject {
     private final JWTPolicyOptions jwt;
     private final AuthorizationPolicyOptions authorizationOptions;
     private final MDSPolicyOptions mds;
+    // Status reports of the MDS options, compiled when the policy is parsed
+    private final MDSStatusDecisions mdsStatusDecisions;
 
     private FidoPolicyObject(
             Long did,
@@ -67,7 +69,7 @@ public class FidoPolicyObject {
         this.jwt = jwt;
         this.authorizationOptions = authorizationOptions;
         this.mds = mds;
-        
+        this.mdsStatusDecisions = (mds == null) ? null : MDSStatusDecisions.compile(mds.getStatusReports());
     }
 
     public Long getDid() {
@@ -140,6 +142,10 @@ public class FidoPolicyObject {
         return mds;
     }
 
+    public MDSStatusDecisions getMdsStatusDecisions(){
+        return mdsStatusDecisions;
+    }
+
     public static FidoPolicyObject parse(String base64Policy, Long did, Long sid, Long pid) throws SKFEException {
         try {
             String policyString = new String(Base64.getUrlDecoder().decode(base64Policy), "UTF-8");
@@ -0,0 +1,69 @@
+/**
+* Copyright StrongAuth, Inc. All Rights Reserved.
+*
+* Use of this source code is governed by the GNU Lesser General Public License v2.1
+* The license can be found at https://github.com/StrongKey/fido2/blob/master/LICENSE
+*/
+
+package com.strongkey.skfs.fido.policyobjects;
+
+import com.strongkey.skfs.pojos.AuthenticatorStatus;
+import java.util.EnumSet;
+import java.util.List;
+
+/**
+ * The authenticator status reports of a policy's MDS options, compiled into
+ * sets of statuses by decision. When a policy lists a status more than once,
+ * the last decision applies.
+ */
+public final class MDSStatusDecisions {
+
+    private final EnumSet<AuthenticatorStatus> listed = EnumSet.noneOf(AuthenticatorStatus.class);
+    private final EnumSet<AuthenticatorStatus> denied = EnumSet.noneOf(AuthenticatorStatus.class);
+    private final EnumSet<AuthenticatorStatus> accepted = EnumSet.noneOf(AuthenticatorStatus.class);
+
+    private MDSStatusDecisions() {
+    }
+
+    /**
+     * @param statusReports - the status reports of the policy; statuses that
+     * are not MDS statuses are left out
+     * @return MDSStatusDecisions
+     */
+    public static MDSStatusDecisions compile(List<?> statusReports) {
+        MDSStatusDecisions decisions = new MDSStatusDecisions();
+        for (Object o : statusReports) {
+            MDSAuthenticatorStatusPolicy report = (MDSAuthenticatorStatusPolicy) o;
+            AuthenticatorStatus status = AuthenticatorStatus.parse(report.getStatus());
+            if (status == null) {
+                continue;
+            }
+            decisions.listed.add(status);
+            decisions.denied.remove(status);
+            decisions.accepted.remove(status);
+            if ("DENY".equalsIgnoreCase(report.getDecision())) {
+                decisions.denied.add(status);
+            } else if ("ACCEPT".equalsIgnoreCase(report.getDecision())) {
+                decisions.accepted.add(status);
+            }
+        }
+        return decisions;
+    }
+
+    public boolean isListed(AuthenticatorStatus status) {
+        return listed.contains(status);
+    }
+
+    public boolean isDenied(AuthenticatorStatus status) {
+        return denied.contains(status);
+    }
+
+    public boolean isAccepted(AuthenticatorStatus status) {
+        return accepted.contains(status);
+    }
+
+    @Override
+    public String toString() {
+        return "listed=" + listed + " denied=" + denied + " accepted=" + accepted;
+    }
+}
@@ -6,17 +6,11 @@
 */
 package com.strongkey.skfs.fido2;
 
-import com.strongkey.cbor.jacob.CborDecoder;
-import com.strongkey.cbor.jacob.CborEncoder;
-import com.strongkey.skfs.utilities.SKFSCommon;
+import com.strongkey.cbor.CborReader;
+import com.strongkey.cbor.jacob.CborConstants;
 import com.strongkey.skfs.utilities.SKFSConstants;
 import com.strongkey.skfs.utilities.SKFSLogger;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.PushbackInputStream;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.logging.Level;
 
 public class ECKeyObject extends FIDO2KeyObject {
@@ -26,83 +20,47 @@ public class ECKeyObject extends FIDO2KeyObject {
     private int encodedLength;
 
     public void decode(byte[] cbor) throws IOException {
+        decode(new CborReader(cbor));
+    }
 
-//        CBORFactory f = new CBORFactory();
-//        ObjectMapper mapper = new ObjectMapper(f);
-//        CBORParser parser = f.createParser(cbor);
-//
-//        Map<String, Object> pkObjectMap = mapper.readValue(parser, new TypeReference<Map<String, Object>>() {
-//        });
-        ByteArrayInputStream m_bais = new ByteArrayInputStream(cbor);
-        PushbackInputStream m_is = new PushbackInputStream(m_bais);
-        CborDecoder m_stream = new CborDecoder(m_is);
-        
-        long len = m_stream.readMapLength();
-         Map<Object, Object> pkObjectMap = new HashMap<>();
-            for (long i = 0; len < 0 || i < len; i++) {
-                Object key = SKFSCommon.readGenericItem(m_stream);
-                if (len < 0 && (key == null)) {
-                    // break read...
-                    break;
-                }
-                Object value = SKFSCommon.readGenericItem(m_stream);
-                pkObjectMap.put(key, value);
+    /**
+     * Decodes the COSE key at the cursor of the reader, leaving the cursor
+     * after it. Parameters other than kty, alg, crv, x and y are skipped.
+     */
+    public void decode(CborReader cbor) throws IOException {
+        int start = cbor.position();
+        long len = cbor.readMapLength();
+        for (long i = 0; (len < 0) ? !cbor.isBreak() : i < len; i++) {
+            int mt = cbor.peekMajorType();
+            if (mt != CborConstants.TYPE_UNSIGNED_INTEGER && mt != CborConstants.TYPE_NEGATIVE_INTEGER) {
+                cbor.skip();
+                cbor.skip();
+                continue;
             }
-
-        for (Map.Entry<Object,Object> entry : pkObjectMap.entrySet()) {
-//        for (Object key : pkObjectMap.keySet()) {
-            Object key = entry.getKey();
+            long label = cbor.readInt();
             SKFSLogger.log(SKFSConstants.SKFE_LOGGER, Level.FINE, "FIDO-MSG-2001",
-                    "key : " + key);
-            switch (Long.toString((long)key)) {
-                case "1":
-                    kty = (long) entry.getValue();
-                    break;
-                case "-1":
-                    crv = (long) entry.getValue();
-                    break;
-                case "3":
-                    alg = (long) entry.getValue();
-                    break;
-                case "-2":
-                    x = (byte[]) entry.getValue();
-                    break;
-                case "-3":
-                    y = (byte[]) entry.getValue();
-                    break;
-                default :
-                    break;
+                    "key : " + label);
+            if (label == KTY_LABEL) {
+                kty = cbor.readInt();
+            } else if (label == CRV_LABEL) {
+                crv = cbor.readInt();
+            } else if (label == ALG_LABEL) {
+                alg = cbor.readInt();
+            } else if (label == X_LABEL) {
+                x = cbor.readByteString();
+            } else if (label == Y_LABEL) {
+                y = cbor.readByteString();
+            } else {
+                cbor.skip();
             }
         }
-        
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        try {
-            CborEncoder cbe = new CborEncoder(baos);
-            cbe.writeMapStart(5);
-
-            cbe.writeInt(1);
-            cbe.writeInt((int)kty);
-
-            cbe.writeInt(3);
-            cbe.writeInt((int)alg);
-
-            cbe.writeInt(-1);
-            cbe.writeInt((int)crv);
-
-            cbe.writeInt(-2);
-            cbe.writeByteString(x);
-
-            cbe.writeInt(-3);
-            cbe.writeByteString(y);
-
-        } catch (IOException e) {
-            SKFSLogger.log(SKFSConstants.SKFE_LOGGER, Level.SEVERE, "FIDO-ERR-0001",
-                e.getMessage());
+        if (len < 0) {
+            cbor.readBreak();
         }
-        
+        encodedLength = cbor.position() - start;
+
         SKFSLogger.log(SKFSConstants.SKFE_LOGGER, Level.FINE, "FIDO-MSG-2001",
-                    "Length of Encoded Attested Cred. Data = " + baos.toByteArray().length);
-        encodedLength = baos.toByteArray().length;
+                    "Length of Encoded Attested Cred. Data = " + encodedLength);
     }
 
     public int getEncodedLength() {
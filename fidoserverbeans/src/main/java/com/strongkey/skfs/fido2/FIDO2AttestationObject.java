@@ -7,20 +7,15 @@
 
 package com.strongkey.skfs.fido2;
 
-import com.strongkey.cbor.jacob.CborDecoder;
-import com.strongkey.skfs.utilities.SKFSCommon;
+import com.strongkey.cbor.CborReader;
 import com.strongkey.skfs.utilities.SKFSConstants;
 import com.strongkey.skfs.utilities.SKFSLogger;
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.PushbackInputStream;
 import java.security.NoSuchAlgorithmException;
 import java.security.NoSuchProviderException;
 import java.security.spec.InvalidKeySpecException;
 import java.security.spec.InvalidParameterSpecException;
 import java.util.Base64;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.logging.Level;
 
 public class FIDO2AttestationObject {
@@ -45,31 +40,20 @@ public class FIDO2AttestationObject {
         byte[] authenticatorData = null;
         Object attestationStmt = null;
 
-        ByteArrayInputStream m_bais = new ByteArrayInputStream(Base64.getUrlDecoder().decode(attestationObject));
-        PushbackInputStream m_is = new PushbackInputStream(m_bais);
-        CborDecoder m_stream = new CborDecoder(m_is);
-
-         long len = m_stream.readMapLength();
-         Map<String, Object> attObjectMap = new HashMap<>();
-            for (long i = 0; len < 0 || i < len; i++) {
-                String key = (String) SKFSCommon.readGenericItem(m_stream);
-                if (len < 0 && (key == null)) {
-                    // break read...
-                    break;
-                }
-                Object value = SKFSCommon.readGenericItem(m_stream);
-                attObjectMap.put(key, value);
-            }
-        
-//        for (String key : attObjectMap.keySet()) {
-        for (Map.Entry<String,Object> entry : attObjectMap.entrySet()) {
-            String key = entry.getKey();
+        CborReader reader = new CborReader(Base64.getUrlDecoder().decode(attestationObject));
+
+        long len = reader.readMapLength();
+        for (long i = 0; (len < 0) ? !reader.isBreak() : i < len; i++) {
+            String key = reader.readTextString();
             if (key.equalsIgnoreCase("fmt")) {
-                attFormat = entry.getValue().toString();
+                attFormat = reader.readTextString();
             } else if (key.equalsIgnoreCase("authData")) {
-                authenticatorData = (byte[]) entry.getValue();
+                authenticatorData = reader.readByteString();
             } else if (key.equalsIgnoreCase("attStmt")) {
-                attestationStmt = entry.getValue();
+                // The layout of the statement depends on its format
+                attestationStmt = reader.readGenericItem();
+            } else {
+                reader.skip();
             }
         }
         authData = new FIDO2AuthenticatorData();
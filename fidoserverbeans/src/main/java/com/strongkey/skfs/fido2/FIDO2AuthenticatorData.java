@@ -7,6 +7,7 @@
 
 package com.strongkey.skfs.fido2;
 
+import com.strongkey.cbor.CborReader;
 import com.strongkey.skfs.utilities.SKFSConstants;
 import com.strongkey.skfs.utilities.SKFSLogger;
 import java.io.IOException;
@@ -81,11 +82,9 @@ public class FIDO2AuthenticatorData {
 
     public void decodeAuthData(byte[] authData) throws IOException, NoSuchAlgorithmException, NoSuchProviderException, InvalidKeySpecException, InvalidParameterSpecException {
         authDataDecoded = authData;
-        int index = 0;
-        rpIdHash = new byte[32];
-        System.arraycopy(authData, 0, rpIdHash, 0, 32);
-        index += 32;
-        flags = authData[index++];
+        CborReader reader = new CborReader(authData);
+        rpIdHash = reader.readRawBytes(32);
+        flags = (byte) reader.readRawByte();
 
         SKFSLogger.log(SKFSConstants.SKFE_LOGGER, Level.FINE, "FIDO-MSG-2001",
                     "rpidHash : " + Base64.toBase64String(rpIdHash));
@@ -104,34 +103,24 @@ public class FIDO2AuthenticatorData {
         SKFSLogger.log(SKFSConstants.SKFE_LOGGER, Level.FINE, "FIDO-MSG-2001",
                     "ExtensionData is " + (isExtensionData ? "present" : "not present"));
 
-        counterValue = new byte[COUNTER_VALUE_BYTES];
-        System.arraycopy(authData, index, counterValue, 0, COUNTER_VALUE_BYTES);
-        index += COUNTER_VALUE_BYTES;
+        counterValue = reader.readRawBytes(COUNTER_VALUE_BYTES);
 //        counter = ByteBuffer.wrap(counterValue).getInt();
         SKFSLogger.log(SKFSConstants.SKFE_LOGGER, Level.FINE, "FIDO-MSG-2001",
                     "counter Hex: " + Hex.toHexString(counterValue));
 
-        int attestedCredentialDataLength;
         if (isAttestedCredentialData) {
             attCredData = new FIDO2AttestedCredentialData();
-            byte[] remainingData = new byte[authData.length - index];
-            System.arraycopy(authData, index, remainingData, 0, authData.length - index);
-            attestedCredentialDataLength = attCredData.decodeAttCredData(remainingData);
-            index += attestedCredentialDataLength;
+            attCredData.decodeAttCredData(reader);
         }
 
         //ignore extensions for now
-        int extensionsLength;
         if(isExtensionData){
             ext = new FIDO2Extensions();
-            byte[] remainingData = new byte[authData.length - index];
-            System.arraycopy(authData, index, remainingData, 0, authData.length - index);
-            extensionsLength = ext.decodeExtensions(remainingData);
-            index += extensionsLength;
+            ext.decodeExtensions(reader);
         }
 
-        if(authData.length != index){
-            int extraData = authData.length - index;
+        if(reader.hasRemaining()){
+            int extraData = reader.remaining();
             throw new IllegalArgumentException("AuthenicatorData contains invalid CBOR: "
                 + extraData + " unknown bytes");
         }
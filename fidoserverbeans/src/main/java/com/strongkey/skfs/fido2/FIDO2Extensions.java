@@ -6,11 +6,8 @@
  */
 package com.strongkey.skfs.fido2;
 
-import com.strongkey.cbor.jacob.CborDecoder;
-import com.strongkey.skfs.utilities.SKFSCommon;
-import java.io.ByteArrayInputStream;
+import com.strongkey.cbor.CborReader;
 import java.io.IOException;
-import java.io.PushbackInputStream;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -19,37 +16,28 @@ public class FIDO2Extensions {
     Map<String, Object> extensionMap;
 
     public int decodeExtensions(byte[] extensionBytes) throws IOException {
-//        CBORFactory f = new CBORFactory();
-//        ObjectMapper mapper = new ObjectMapper(f);
-//        CBORParser parser = f.createParser(extensionBytes);
-//        extensionMap = mapper.readValue(parser, new TypeReference<Map<String, Object>>() {});
-
-        ByteArrayInputStream m_bais = new ByteArrayInputStream(extensionBytes);
-        PushbackInputStream m_is = new PushbackInputStream(m_bais);
-        CborDecoder m_stream = new CborDecoder(m_is);
+        return decodeExtensions(new CborReader(extensionBytes));
+    }
 
-        long len = m_stream.readMapLength();
+    /**
+     * Decodes the extensions map at the cursor of the reader, leaving the
+     * cursor after it.
+     *
+     * @return size of the extensions
+     */
+    public int decodeExtensions(CborReader extensions) throws IOException {
+        int start = extensions.position();
+        long len = extensions.readMapLength();
         extensionMap = new HashMap<>();
-        for (long i = 0; len < 0 || i < len; i++) {
-            String key = (String) SKFSCommon.readGenericItem(m_stream);
-            if (len < 0 && (key == null)) {
-                // break read...
-                break;
-            }
-            Object value = SKFSCommon.readGenericItem(m_stream);
+        for (long i = 0; (len < 0) ? !extensions.isBreak() : i < len; i++) {
+            String key = extensions.readTextString();
+            Object value = extensions.readGenericItem();
             extensionMap.put(key, value);
         }
-
-        //Return size of AttestedCredentialData
-        int numRemainingBytes = 0;
-        if (m_stream.peekType() != null) {
-            numRemainingBytes = (int) m_stream.readArrayLength();
+        if (len < 0) {
+            extensions.readBreak();
         }
-//        JsonToken leftoverCBORToken;
-//        while ((leftoverCBORToken = parser.nextToken()) != null) {
-//            numRemainingBytes += leftoverCBORToken.asByteArray().length;
-//        }
-        return extensionBytes.length - numRemainingBytes;
+        return extensions.position() - start;
     }
 
     public Object getExtension(String extensionName) {
@@ -7,6 +7,10 @@
 
 package com.strongkey.skfs.fido2;
 
+import com.strongkey.cbor.CborReader;
+import com.strongkey.cbor.jacob.CborConstants;
+import java.io.IOException;
+
 public abstract class FIDO2KeyObject {
 
     long alg;
@@ -27,4 +31,27 @@ public abstract class FIDO2KeyObject {
         return kty;
     }
 
+    /**
+     * Looks up the key type of the COSE key at the cursor of the reader,
+     * without moving the cursor.
+     *
+     * @return the kty of the key, or 0 if it has none
+     */
+    static long peekKty(CborReader cbor) throws IOException {
+        CborReader probe = cbor.duplicate();
+        long len = probe.readMapLength();
+        for (long i = 0; (len < 0) ? !probe.isBreak() : i < len; i++) {
+            int mt = probe.peekMajorType();
+            if ((mt == CborConstants.TYPE_UNSIGNED_INTEGER || mt == CborConstants.TYPE_NEGATIVE_INTEGER)
+                    && probe.readInt() == KTY_LABEL) {
+                return probe.readInt();
+            }
+            if (mt != CborConstants.TYPE_UNSIGNED_INTEGER && mt != CborConstants.TYPE_NEGATIVE_INTEGER) {
+                probe.skip();
+            }
+            probe.skip();
+        }
+        return 0;
+    }
+
 }
@@ -0,0 +1,182 @@
+/**
+* Copyright StrongAuth, Inc. All Rights Reserved.
+*
+* Use of this source code is governed by the GNU Lesser General Public License v2.1
+* The license can be found at https://github.com/StrongKey/fido2/blob/master/LICENSE
+*/
+
+package com.strongkey.skfs.fido2;
+
+import com.strongkey.skfs.utilities.SKFSConstants;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import javax.json.Json;
+import javax.json.JsonException;
+import javax.json.JsonObject;
+import javax.json.JsonReader;
+import javax.json.JsonString;
+import javax.json.JsonValue;
+
+/**
+ * Parsed form of a FIDO2 registration or authentication response and its
+ * metadata. Every JSON document of the request (the credential, its inner
+ * response object, the metadata and the decoded clientDataJSON) is parsed
+ * exactly once and then shared by all the checks performed on the request.
+ *
+ * The accessors return null for values that are missing or of the wrong
+ * type, just like applianceCommon.getJsonValue does for JSON strings.
+ */
+public class FIDO2RequestContext {
+
+    private final JsonObject credential;
+    private final JsonObject response;
+    private final JsonObject metadata;
+
+    private byte[] clientDataBytes;
+    private JsonObject clientData;
+    private boolean clientDataParsed = false;
+
+    public FIDO2RequestContext(JsonObject credential, JsonObject metadata) {
+        this.credential = credential;
+        this.metadata = metadata;
+        this.response = getJsonObject(credential, SKFSConstants.JSON_KEY_SERVLET_INPUT_RESPONSE);
+    }
+
+    /**
+     * Builds the context from the JSON strings used by the older webservice
+     * interfaces. Strings that are not JSON objects result in null documents.
+     *
+     * @param credential - the response received from the authenticator
+     * @param metadata - the metadata sent by the relying party
+     * @return FIDO2RequestContext
+     */
+    public static FIDO2RequestContext parse(String credential, String metadata) {
+        return new FIDO2RequestContext(readObject(credential), readObject(metadata));
+    }
+
+    public JsonObject getCredential() {
+        return credential;
+    }
+
+    public JsonObject getResponse() {
+        return response;
+    }
+
+    public JsonObject getMetadata() {
+        return metadata;
+    }
+
+    public String getId() {
+        return getString(credential, SKFSConstants.JSON_KEY_ID);
+    }
+
+    public String getRawId() {
+        return getString(credential, SKFSConstants.JSON_KEY_RAW_ID);
+    }
+
+    public String getType() {
+        return getString(credential, SKFSConstants.JSON_KEY_REQUEST_TYPE);
+    }
+
+    public String getClientDataJSON() {
+        return getString(response, SKFSConstants.JSON_KEY_CLIENTDATAJSON);
+    }
+
+    public String getMetadataValue(String key) {
+        return getString(metadata, key);
+    }
+
+    /**
+     * Returns the decoded clientDataJSON bytes; decoded on first use.
+     *
+     * @return byte[] or null if the response has no clientDataJSON
+     * @throws IllegalArgumentException if clientDataJSON is not Base64
+     */
+    public byte[] getClientDataBytes() {
+        if (clientDataBytes == null) {
+            String clientDataJSON = getClientDataJSON();
+            if (clientDataJSON == null) {
+                return null;
+            }
+            try {
+                clientDataBytes = Base64.getUrlDecoder().decode(clientDataJSON);
+            } catch (IllegalArgumentException ex) {
+                clientDataBytes = Base64.getDecoder().decode(clientDataJSON);
+            }
+        }
+        return clientDataBytes;
+    }
+
+    /**
+     * Returns the decoded clientDataJSON as a String.
+     *
+     * @return String or null if the response has no clientDataJSON
+     */
+    public String getClientDataString() {
+        byte[] bytes = getClientDataBytes();
+        return (bytes == null) ? null : new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the parsed clientDataJSON; parsed on first use.
+     *
+     * @return JsonObject or null if missing or not a JSON object
+     */
+    public JsonObject getClientData() {
+        if (!clientDataParsed) {
+            clientData = readObject(getClientDataString());
+            clientDataParsed = true;
+        }
+        return clientData;
+    }
+
+    public static String getString(JsonObject json, String key) {
+        if (json == null) {
+            return null;
+        }
+        JsonValue value = json.get(key);
+        if (value instanceof JsonString) {
+            return ((JsonString) value).getString();
+        }
+        return null;
+    }
+
+    public static Boolean getBoolean(JsonObject json, String key) {
+        if (json == null) {
+            return null;
+        }
+        JsonValue value = json.get(key);
+        if (value == null) {
+            return null;
+        }
+        if (value.getValueType() == JsonValue.ValueType.TRUE) {
+            return Boolean.TRUE;
+        } else if (value.getValueType() == JsonValue.ValueType.FALSE) {
+            return Boolean.FALSE;
+        }
+        return null;
+    }
+
+    public static JsonObject getJsonObject(JsonObject json, String key) {
+        if (json == null) {
+            return null;
+        }
+        JsonValue value = json.get(key);
+        if (value instanceof JsonObject) {
+            return (JsonObject) value;
+        }
+        return null;
+    }
+
+    private static JsonObject readObject(String jsonstr) {
+        if (jsonstr == null || jsonstr.isEmpty()) {
+            return null;
+        }
+        try (JsonReader jsonreader = Json.createReader(new StringReader(jsonstr))) {
+            return jsonreader.readObject();
+        } catch (JsonException | IllegalStateException ex) {
+            return null;
+        }
+    }
+}
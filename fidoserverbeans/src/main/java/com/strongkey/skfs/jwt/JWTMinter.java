@@ -0,0 +1,214 @@
+/**
+* Copyright StrongAuth, Inc. All Rights Reserved.
+*
+* Use of this source code is governed by the GNU Lesser General Public License v2.1
+* The license can be found at https://github.com/StrongKey/fido2/blob/master/LICENSE
+*/
+package com.strongkey.skfs.jwt;
+
+import com.strongkey.crypto.utility.cryptoCommon;
+import com.strongkey.skce.utilities.skceMetrics;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.security.SignatureException;
+import java.security.cert.X509Certificate;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.json.Json;
+import org.bouncycastle.openssl.jcajce.JcaPEMWriter;
+
+/**
+ * Mints the JWTs of a domain with its signing keys.
+ *
+ * The base64url header of each signing certificate is built once, when the
+ * signers of the domain are first used or after cryptoCommon loads them
+ * again. Each signer is used by one thread at a time; a thread starts
+ * looking for a free signer at the one matching its ID, and signs with a
+ * new Signature of the same key when all of them are busy rather than
+ * waiting.
+ */
+final class JWTMinter {
+
+    private static final Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+
+    private static final Map<String, JWTMinter> minters = new ConcurrentHashMap<>();
+
+    private static final AtomicLong overflows = new AtomicLong();
+
+    static {
+        skceMetrics.counter("skfs_jwt_signer_overflows_total", "JWTs signed with a new Signature because all the signers of the domain were busy",
+                overflows::get);
+    }
+
+    // The signers of cryptoCommon the minter was built from
+    private final List<List<Object>> signers;
+    private final Slot[] slots;
+    private final String algorithm;
+
+    private JWTMinter(List<List<Object>> signers) throws IOException {
+        this.signers = signers;
+        this.algorithm = cryptoCommon.getJwtSignAlgorithm();
+        String alg = algorithm.equalsIgnoreCase("SHA256withECDSA") ? "ES256" : algorithm;
+        Map<X509Certificate, String> headers = new HashMap<>();
+        slots = new Slot[signers.size()];
+        for (int i = 0; i < slots.length; i++) {
+            List<Object> signer = signers.get(i);
+            X509Certificate cert = (X509Certificate) signer.get(1);
+            String header = headers.get(cert);
+            if (header == null) {
+                header = getHeader(alg, cert);
+                headers.put(cert, header);
+            }
+            slots[i] = new Slot((Signature) signer.get(0), (PrivateKey) signer.get(2), header);
+        }
+    }
+
+    /**
+     * @param did - the domain
+     * @return the minter of the current signing keys of the domain
+     * @throws IllegalStateException if the keys of the domain are not loaded
+     */
+    static JWTMinter get(String did) throws IOException {
+        List<List<Object>> signers = cryptoCommon.getJWTSigners(did);
+        if (signers == null || signers.isEmpty()) {
+            throw new IllegalStateException("No JWT signing keys for domain " + did);
+        }
+        JWTMinter m = minters.get(did);
+        if (m != null && m.signers == signers) {
+            return m;
+        }
+        try {
+            // Only one minter may use the signers
+            return minters.compute(did, (k, v) -> {
+                if (v != null && v.signers == signers) {
+                    return v;
+                }
+                try {
+                    return new JWTMinter(signers);
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    /**
+     * @param payload - the JSON claims
+     * @return the JWS in compact serialization
+     */
+    String mint(String payload) throws SignatureException, NoSuchAlgorithmException, InvalidKeyException {
+        int start = (int) (Thread.currentThread().getId() % slots.length);
+        for (int i = 0; i < slots.length; i++) {
+            Slot s = slots[(start + i) % slots.length];
+            if (s.busy.compareAndSet(false, true)) {
+                try {
+                    return sign(s.signature, s.header, payload);
+                } finally {
+                    s.busy.set(false);
+                }
+            }
+        }
+        overflows.incrementAndGet();
+        Slot s = slots[start];
+        Signature signature = Signature.getInstance(algorithm);
+        signature.initSign(s.key);
+        return sign(signature, s.header, payload);
+    }
+
+    private static String sign(Signature signature, String header, String payload) throws SignatureException {
+        StringBuilder sb = new StringBuilder(header.length() + payload.length() * 4 / 3 + 128);
+        sb.append(header).append('.').append(encoder.encodeToString(payload.getBytes(StandardCharsets.UTF_8)));
+        signature.update(sb.toString().getBytes(StandardCharsets.UTF_8));
+        return sb.append('.').append(encoder.encodeToString(signature.sign())).toString();
+    }
+
+    /**
+     * The x5c of the header is the PEM certificate, which JWTVerify expects.
+     */
+    private static String getHeader(String alg, X509Certificate cert) throws IOException {
+        StringWriter sw = new StringWriter();
+        try (JcaPEMWriter pemWriter = new JcaPEMWriter(sw)) {
+            pemWriter.writeObject(cert);
+        }
+        String header = Json.createObjectBuilder()
+                .add("alg", alg)
+                .add("x5c", sw.toString())
+                .build()
+                .toString();
+        return encoder.encodeToString(header.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Appends a JSON string to a claims set being written.
+     *
+     * @param sb - the claims
+     * @param value - the string, or null
+     */
+    static void appendString(StringBuilder sb, String value) {
+        if (value == null) {
+            sb.append("null");
+            return;
+        }
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\b':
+                    sb.append("\\b");
+                    break;
+                case '\f':
+                    sb.append("\\f");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        sb.append('"');
+    }
+
+    private static final class Slot {
+
+        private final Signature signature;
+        private final PrivateKey key;
+        private final String header;
+        private final AtomicBoolean busy = new AtomicBoolean();
+
+        private Slot(Signature signature, PrivateKey key, String header) {
+            this.signature = signature;
+            this.key = key;
+            this.header = header;
+        }
+    }
+}
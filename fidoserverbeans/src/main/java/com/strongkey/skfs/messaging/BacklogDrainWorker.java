@@ -0,0 +1,613 @@
+/**
+* Copyright StrongAuth, Inc. All Rights Reserved.
+*
+* Use of this source code is governed by the GNU Lesser General Public License v2.1
+* The license can be found at https://github.com/StrongKey/fido2/blob/master/LICENSE
+*/
+
+package com.strongkey.skfs.messaging;
+
+import com.google.protobuf.Message;
+import com.strongkey.appliance.utilities.applianceCommon;
+import com.strongkey.appliance.utilities.applianceConstants;
+import com.strongkey.appliance.utilities.strongkeyLogger;
+import com.strongkey.replication.messaging.ZMQBacklogProcessor;
+import com.strongkey.skce.utilities.skceConstants;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Pushes a share of a page of back-logged replication objects to a target
+ * server. The BacklogProcessorHelper assigns every replication object to a
+ * worker by the type and primary key of the object, so all the replication
+ * objects of one database object are pushed by the same worker, in the order
+ * they were written to the REPLICATION table.
+ *
+ * The objects referenced by the share are read with one query per object type
+ * and IN-list chunk instead of one query per replication object. Each worker
+ * has its own connection and keeps its statements open for the whole drain;
+ * the IN-lists always have the same number of entries (short chunks are padded
+ * by repeating their last key) so the statements can be reused for every page.
+ */
+class BacklogDrainWorker implements Callable<Integer>
+{
+    private final String classname = this.getClass().getName();
+
+    private final Connection conn;
+    private final int inlistsize;
+    private final Map<Integer, PreparedStatement> statements = new HashMap<>();
+    private final List<BacklogRecord> records = new ArrayList<>();
+
+    BacklogDrainWorker(Connection conn, int inlistsize) {
+        this.conn = conn;
+        this.inlistsize = inlistsize;
+    }
+
+    void add(BacklogRecord record) {
+        records.add(record);
+    }
+
+    boolean isEmpty() {
+        return records.isEmpty();
+    }
+
+    /**
+     * Pushes the replication objects added since the last call.
+     *
+     * @return number of objects pushed to the target server
+     * @throws SQLException
+     */
+    @Override
+    public Integer call() throws SQLException {
+        try {
+            return push(fetch());
+        } finally {
+            records.clear();
+        }
+    }
+
+    /**
+     * Closes the statements of the worker and its connection.
+     */
+    void close() {
+        for (PreparedStatement ps : statements.values()) {
+            try {
+                ps.close();
+            } catch (SQLException ex) {
+                Logger.getLogger(BacklogDrainWorker.class.getName()).log(Level.SEVERE, null, ex);
+            }
+        }
+        statements.clear();
+        try {
+            conn.close();
+        } catch (SQLException ex) {
+            Logger.getLogger(BacklogDrainWorker.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+
+    /**
+     * Reads the objects referenced by the current records.
+     *
+     * @return objtype -> object key -> proto of the object
+     * @throws SQLException
+     */
+    private Map<Integer, Map<String, Message>> fetch() throws SQLException {
+        // objtype -> object key -> query parameters, without duplicates
+        Map<Integer, Map<String, Object[]>> keys = new HashMap<>();
+        for (BacklogRecord record : records) {
+            if (record.objkey != null) {
+                keys.computeIfAbsent(record.objtype, k -> new LinkedHashMap<>()).putIfAbsent(record.objkey, record.params);
+            }
+        }
+
+        Map<Integer, Map<String, Message>> protos = new HashMap<>();
+        for (Map.Entry<Integer, Map<String, Object[]>> entry : keys.entrySet()) {
+            int objtype = entry.getKey();
+            Map<String, Message> found = new HashMap<>();
+            PreparedStatement objectquery = getStatement(objtype);
+            List<Object[]> params = new ArrayList<>(entry.getValue().values());
+            for (int from = 0; from < params.size(); from += inlistsize) {
+                List<Object[]> chunk = params.subList(from, Math.min(from + inlistsize, params.size()));
+                int index = 1;
+                for (int i = 0; i < inlistsize; i++) {
+                    Object[] tuple = chunk.get(Math.min(i, chunk.size() - 1));
+                    for (Object param : tuple) {
+                        if (param instanceof Long) {
+                            objectquery.setLong(index++, (Long) param);
+                        } else {
+                            objectquery.setString(index++, (String) param);
+                        }
+                    }
+                }
+                try (ResultSet objrs = objectquery.executeQuery()) {
+                    while (objrs.next()) {
+                        found.put(getRowKey(objtype, objrs), buildProto(objtype, objrs));
+                    }
+                }
+            }
+            protos.put(objtype, found);
+        }
+        return protos;
+    }
+
+    /**
+     * Pushes the current records, in order, to the target server.
+     */
+    private int push(Map<Integer, Map<String, Message>> protos) {
+        int pushed = 0;
+        for (BacklogRecord record : records) {
+            if (Thread.currentThread().isInterrupted()) {
+                return pushed;
+            }
+            String reppk = record.ssid + "-" + record.rpid + "-" + record.tsid;
+            strongkeyLogger.logp(skceConstants.SKEE_LOGGER,Level.FINE, classname, "run", "SKCE-MSG-6045", reppk);
+
+            if (record.objkey == null) {
+                strongkeyLogger.logp(skceConstants.SKEE_LOGGER,Level.WARNING, classname, "run", "SKCE-ERR-6015", applianceCommon.getEntityName(record.objtype) + " [OBJPK=" + record.objpk + "] [OBJOP=" + applianceCommon.getRepop(record.objop) + "]");
+                continue;
+            }
+            strongkeyLogger.logp(skceConstants.SKEE_LOGGER,Level.FINE, classname, "run", "SKCE-MSG-6046", applianceCommon.getEntityName(record.objtype) + " [OBJPK=" + record.objpk + "]");
+
+            Map<String, Message> found = protos.get(record.objtype);
+            Message proto = (found == null) ? null : found.get(record.objkey);
+            if (proto == null) {
+                proto = buildDeletedProto(record);
+                if (proto == null) {
+                    strongkeyLogger.logp(skceConstants.SKEE_LOGGER,Level.FINE, classname, "run", "SKCE-ERR-6014", applianceCommon.getEntityName(record.objtype) + " [OBJPK=" + record.objpk + "]");
+                    continue;
+                }
+            } else {
+                proto = withUsername(record, proto);
+            }
+            strongkeyLogger.logp(skceConstants.SKEE_LOGGER,Level.FINE, classname, "run", "SKCE-MSG-6047", proto.toString());
+
+            /**
+             * Publish the object as a multi-frame message
+             * - first, the primary-key of the replication object with the TSID stripped out
+             * - next, the type of object being replicated
+             * - next, the operation on the object: add, delete, or modify
+             * - next, the primary-key of the object and
+             * - finally, the object itself as a Protocol Buffer message
+             */
+            String rmsg = "REPOBJPK=" + reppk + " [OBJTYPE=" + applianceCommon.getEntityName(record.objtype) + "] [OBJPK=" + record.objpk + "] [OBJOP=" + applianceCommon.getRepop(record.objop) + "]";
+            if (ZMQBacklogProcessor.getInstance().send(reppk, record.objtype, record.objop, record.objpk, proto.toByteArray())) {
+                strongkeyLogger.logp(skceConstants.SKEE_LOGGER,Level.INFO, classname, "run", "SKCE-MSG-6048", rmsg);
+                pushed++;
+            } else {
+                strongkeyLogger.logp(skceConstants.SKEE_LOGGER,Level.WARNING, classname, "run", "SKCE-ERR-6016", rmsg);
+            }
+        }
+        return pushed;
+    }
+
+    /**
+     * The FIDO_KEYS and FIDO_USERS protos carry the username as written in
+     * the replication object, like they did when objects were read one at a
+     * time; the database comparison of usernames ignores case.
+     */
+    private Message withUsername(BacklogRecord record, Message proto) {
+        switch (record.objtype) {
+            case applianceConstants.ENTITY_TYPE_FIDO_KEYS:
+                ZMQSKCEReplicationProtos.FidoKeys fkproto = (ZMQSKCEReplicationProtos.FidoKeys) proto;
+                return fkproto.getUsername().equals(record.username) ? fkproto : fkproto.toBuilder().setUsername(record.username).build();
+            case applianceConstants.ENTITY_TYPE_FIDO_USERS:
+                ZMQSKCEReplicationProtos.FidoUsers fuproto = (ZMQSKCEReplicationProtos.FidoUsers) proto;
+                return fuproto.getUsername().equals(record.username) ? fuproto : fuproto.toBuilder().setUsername(record.username).build();
+            default:
+                return proto;
+        }
+    }
+
+    /**
+     * Builds the proto pushed for a deleted object that is no longer in the
+     * database.
+     *
+     * @return the proto or null if the object cannot be replicated
+     */
+    private Message buildDeletedProto(BacklogRecord record) {
+        if (record.objop != applianceConstants.REPLICATION_OPERATION_DELETE) {
+            return null;
+        }
+        switch (record.objtype) {
+            case applianceConstants.ENTITY_TYPE_FIDO_KEYS:
+                return ZMQSKCEReplicationProtos.FidoKeys.newBuilder()
+                        .setAttcid(0L)
+                        .setAppid("")
+                        .setCounter(0L)
+                        .setCreateDate(0L)
+                        .setCreateLocation("")
+                        .setDid((Long) record.params[1])
+                        .setFidoProtocol("")
+                        .setFidoVersion("")
+                        .setFkid((Long) record.params[2])
+                        .setKeyhandle("")
+                        .setPublickey("")
+                        .setSid((Long) record.params[0])
+                        .setStatus("")
+                        .setSignatureKeytype("")
+                        .setUsername(record.username)
+                        .build();
+            case applianceConstants.ENTITY_TYPE_FIDO_CONFIGURATIONS:
+                return ZMQSKCEReplicationProtos.Configurations.newBuilder()
+                        .setConfigKey((String) record.params[1])
+                        .setConfigValue("")
+                        .setDid((Long) record.params[0])
+                        .build();
+            default:
+                return null;
+        }
+    }
+
+    private PreparedStatement getStatement(int objtype) throws SQLException {
+        PreparedStatement ps = statements.get(objtype);
+        if (ps == null) {
+            ps = conn.prepareStatement(getQuery(objtype));
+            statements.put(objtype, ps);
+        }
+        return ps;
+    }
+
+    /**
+     * SQL statement to get the actual objects to be replicated
+     */
+    private String getQuery(int objtype) {
+        switch (objtype) {
+            case applianceConstants.ENTITY_TYPE_FIDO_KEYS:
+                return "SELECT SID, DID, USERNAME, FKID, USERID, KEYHANDLE, " +
+                        " APPID, PUBLICKEY, " +
+                        " TRANSPORTS, ATTSID, ATTDID, ATTCID, COUNTER, FIDO_VERSION, " +
+                        " FIDO_PROTOCOL, AAGUID, REGISTRATION_SETTINGS,REGISTRATION_SETTINGS_VERSION, " +
+                        " CREATE_DATE, CREATE_LOCATION, MODIFY_DATE, " +
+                        " MODIFY_LOCATION, STATUS, SIGNATURE_KEYTYPE, SIGNATURE " +
+                        " FROM FIDO_KEYS " +
+                        " WHERE (SID, DID, FKID) IN " + inlist(3);
+            case applianceConstants.ENTITY_TYPE_FIDO_USERS:
+                return "SELECT SID, DID, USERNAME, USERDN, FIDO_KEYS_ENABLED, " +
+                        " TWO_STEP_VERIFICATION, PRIMARY_EMAIL, REGISTERED_EMAILS, " +
+                        " PRIMARY_PHONE_NUMBER, REGISTERED_PHONE_NUMBERS, TWO_STEP_TARGET, STATUS, SIGNATURE " +
+                        " FROM FIDO_USERS " +
+                        " WHERE (SID, DID, USERNAME) IN " + inlist(3);
+            case applianceConstants.ENTITY_TYPE_DOMAINS:
+                return "SELECT DID, NAME, STATUS, REPLICATION_STATUS, ENCRYPTION_CERTIFICATE, "
+                        + " ENCRYPTION_CERTIFICATE_UUID, "
+                        + " SIGNING_CERTIFICATE, SIGNING_CERTIFICATE_UUID, "
+                        + " SKCE_SIGNINGDN, "
+                        + " SKFE_APPID, NOTES "
+                        + " FROM DOMAINS "
+                        + " WHERE DID IN " + inlist(1);
+            case applianceConstants.ENTITY_TYPE_ATTESTATION_CERTIFICATES:
+                return "SELECT SID, DID, ATTCID, PARENT_SID, PARENT_DID, PARENT_ATTCID, " +
+                        " CERTIFICATE, ISSUER_DN, SUBJECT_DN, SERIAL_NUMBER, SIGNATURE " +
+                        " FROM ATTESTATION_CERTIFICATES " +
+                        " WHERE (SID, DID, ATTCID) IN " + inlist(3);
+            case applianceConstants.ENTITY_TYPE_FIDO_POLICIES:
+                return "SELECT SID, DID, PID," +
+                        " POLICY, STATUS, NOTES, CREATE_DATE, MODIFY_DATE, SIGNATURE " +
+                        " FROM FIDO_POLICIES " +
+                        " WHERE (SID, DID, PID) IN " + inlist(3);
+            case applianceConstants.ENTITY_TYPE_FIDO_CONFIGURATIONS:
+                return "SELECT DID, CONFIG_KEY, CONFIG_VALUE, NOTES "
+                        + " FROM CONFIGURATIONS "
+                        + " WHERE (DID, CONFIG_KEY) IN " + inlist(2);
+            default:
+                throw new IllegalArgumentException(applianceCommon.getEntityName(objtype));
+        }
+    }
+
+    // Builds "((?,?),(?,?),...)" with inlistsize tuples of the given width
+    private String inlist(int width) {
+        StringBuilder tuple = new StringBuilder(width == 1 ? "?" : "(?");
+        for (int i = 1; i < width; i++) {
+            tuple.append(",?");
+        }
+        if (width > 1) {
+            tuple.append(")");
+        }
+        StringBuilder sb = new StringBuilder("(");
+        for (int i = 0; i < inlistsize; i++) {
+            if (i > 0) {
+                sb.append(",");
+            }
+            sb.append(tuple);
+        }
+        return sb.append(")").toString();
+    }
+
+    /**
+     * Key of an object read from the database; must match the object key of
+     * the BacklogRecords referencing it.
+     */
+    private static String getRowKey(int objtype, ResultSet objrs) throws SQLException {
+        switch (objtype) {
+            case applianceConstants.ENTITY_TYPE_FIDO_KEYS:
+                return objrs.getLong("sid") + "-" + objrs.getLong("did") + "-" + objrs.getLong("fkid");
+            case applianceConstants.ENTITY_TYPE_FIDO_USERS:
+                return objrs.getLong("sid") + "-" + objrs.getLong("did") + "-" + objrs.getString("username").toLowerCase();
+            case applianceConstants.ENTITY_TYPE_DOMAINS:
+                return String.valueOf(objrs.getLong("did"));
+            case applianceConstants.ENTITY_TYPE_ATTESTATION_CERTIFICATES:
+                return objrs.getLong("sid") + "-" + objrs.getLong("did") + "-" + objrs.getLong("attcid");
+            case applianceConstants.ENTITY_TYPE_FIDO_POLICIES:
+                return objrs.getLong("sid") + "-" + objrs.getLong("did") + "-" + objrs.getLong("pid");
+            case applianceConstants.ENTITY_TYPE_FIDO_CONFIGURATIONS:
+                return objrs.getLong("did") + "-" + objrs.getString("config_key").toLowerCase();
+            default:
+                throw new IllegalArgumentException(applianceCommon.getEntityName(objtype));
+        }
+    }
+
+    /**
+     * Builds the proto of an object read from the database.
+     */
+    private static Message buildProto(int objtype, ResultSet objrs) throws SQLException {
+        switch (objtype) {
+            case applianceConstants.ENTITY_TYPE_FIDO_KEYS:
+                ZMQSKCEReplicationProtos.FidoKeys.Builder fkbuilder = ZMQSKCEReplicationProtos.FidoKeys.newBuilder();
+                // First deal with attributes that might be null
+                if (objrs.getString("userid") != null)
+                    fkbuilder.setUserid(objrs.getString("userid"));
+                if (objrs.getString("transports") != null)
+                    fkbuilder.setTransports(objrs.getLong("transports"));
+                if (objrs.getTimestamp("modify_date") != null)
+                    fkbuilder.setModifyDate(objrs.getTimestamp("modify_date").getTime());
+                if (objrs.getString("modify_location") != null)
+                    fkbuilder.setModifyLocation(objrs.getString("modify_location"));
+                if (objrs.getString("signature") != null)
+                    fkbuilder.setSignature(objrs.getString("signature"));
+                if (objrs.getString("signature_keytype") != null)
+                    fkbuilder.setSignatureKeytype(objrs.getString("signature_keytype"));
+                if (objrs.getString("attsid") != null)
+                    fkbuilder.setAttsid(objrs.getLong("attsid"));
+                if (objrs.getString("attdid") != null)
+                    fkbuilder.setAttdid(objrs.getLong("attdid"));
+                if (objrs.getString("attcid") != null)
+                    fkbuilder.setAttcid(objrs.getLong("attcid"));
+                if (objrs.getString("aaguid") != null)
+                    fkbuilder.setAaguid(objrs.getString("aaguid"));
+                if (objrs.getString("registration_settings") != null)
+                    fkbuilder.setRegistrationSettings(objrs.getString("registration_settings"));
+                if (objrs.getString("registration_settings_version") != null)
+                    fkbuilder.setRegistrationSettingsVersion(objrs.getLong("registration_settings_version"));
+                // Now build the proto with all non-null values
+                return fkbuilder
+                        .setAppid(objrs.getString("appid"))
+                        .setCounter(objrs.getLong("counter"))
+                        .setCreateDate(objrs.getTimestamp("create_date").getTime())
+                        .setCreateLocation(objrs.getString("create_location"))
+                        .setDid(objrs.getLong("did"))
+                        .setFidoProtocol(objrs.getString("fido_protocol"))
+                        .setFidoVersion(objrs.getString("fido_version"))
+                        .setFkid(objrs.getLong("fkid"))
+                        .setKeyhandle(objrs.getString("keyhandle"))
+                        .setPublickey(objrs.getString("publickey"))
+                        .setSid(objrs.getLong("sid"))
+                        .setStatus(objrs.getString("status"))
+                        .setUsername(objrs.getString("username"))
+                        .build();
+
+            case applianceConstants.ENTITY_TYPE_FIDO_USERS:
+                ZMQSKCEReplicationProtos.FidoUsers.Builder fubuilder = ZMQSKCEReplicationProtos.FidoUsers.newBuilder();
+                // First deal with attributes that might be null
+                if (objrs.getString("primary_email") != null)
+                    fubuilder.setPrimaryEmail(objrs.getString("primary_email"));
+                if (objrs.getString("registered_emails") != null)
+                    fubuilder.setRegisteredEmails(objrs.getString("registered_emails"));
+                if (objrs.getString("primary_phone_number") != null)
+                    fubuilder.setPrimaryPhoneNumber(objrs.getString("primary_phone_number"));
+                if (objrs.getString("registered_phone_numbers") != null)
+                    fubuilder.setRegisteredPhoneNumbers(objrs.getString("registered_phone_numbers"));
+                if (objrs.getString("signature") != null)
+                    fubuilder.setSignature(objrs.getString("signature"));
+                if (objrs.getString("two_step_target") != null && objrs.getString("two_step_target").trim().length()>0)
+                    fubuilder.setTwoStepTarget(objrs.getString("two_step_target"));
+                if (objrs.getString("userdn") != null)
+                    fubuilder.setUserdn(objrs.getString("userdn"));
+                // Now build the proto with all non-null values
+                return fubuilder
+                        .setDid(objrs.getLong("did"))
+                        .setFidoKeysEnabled(objrs.getString("fido_keys_enabled"))
+                        .setSid(objrs.getLong("sid"))
+                        .setStatus(objrs.getString("status"))
+                        .setTwoStepVerification(objrs.getString("two_step_verification"))
+                        .setUsername(objrs.getString("username"))
+                        .build();
+
+            case applianceConstants.ENTITY_TYPE_DOMAINS:
+                ZMQSKCEReplicationProtos.Domains.Builder dombuilder = ZMQSKCEReplicationProtos.Domains.newBuilder();
+                // First deal with attributes that might be null
+                if (objrs.getString("encryption_certificate") != null) {
+                    dombuilder.setEncryptionCertificate(objrs.getString("encryption_certificate"));
+                }
+                if (objrs.getString("encryption_certificate_uuid") != null) {
+                    dombuilder.setEncryptionCertificateUuid(objrs.getString("encryption_certificate_uuid"));
+                }
+                if (objrs.getString("name") != null) {
+                    dombuilder.setName(objrs.getString("name"));
+                }
+                if (objrs.getString("notes") != null) {
+                    dombuilder.setNotes(objrs.getString("notes"));
+                }
+                if (objrs.getString("signing_certificate_uuid") != null) {
+                    dombuilder.setSigningCertificateUuid(objrs.getString("signing_certificate_uuid"));
+                }
+                if (objrs.getString("signing_certificate") != null) {
+                    dombuilder.setSigningCertificate(objrs.getString("signing_certificate"));
+                }
+                if (objrs.getString("skce_signingdn") != null) {
+                    dombuilder.setSkceSigningdn(objrs.getString("skce_signingdn"));
+                }
+                if (objrs.getString("skfe_appid") != null) {
+                    dombuilder.setSkfeAppid(objrs.getString("skfe_appid"));
+                }
+                // Now build the proto with all non-null values
+                return dombuilder
+                        .setDid(objrs.getLong("did"))
+                        .setReplicationStatus(objrs.getString("replication_status"))
+                        .setStatus(objrs.getString("status"))
+                        .build();
+
+            case applianceConstants.ENTITY_TYPE_ATTESTATION_CERTIFICATES:
+                ZMQSKCEReplicationProtos.AttestationCertificates.Builder attCertbuilder = ZMQSKCEReplicationProtos.AttestationCertificates.newBuilder();
+                // First deal with attributes that might be null
+                if (objrs.getString("parent_sid") != null) {
+                    attCertbuilder.setParentSid(objrs.getLong("parent_sid"));
+                }
+                if (objrs.getString("parent_did") != null) {
+                    attCertbuilder.setParentDid(objrs.getLong("parent_did"));
+                }
+                if (objrs.getString("parent_attcid") != null) {
+                    attCertbuilder.setParentAttcid(objrs.getLong("parent_attcid"));
+                }
+                if (objrs.getString("signature") != null) {
+                    attCertbuilder.setSignature(objrs.getString("signature"));
+                }
+                // Now build the proto with all non-null values
+                return attCertbuilder
+                        .setSid(objrs.getLong("sid"))
+                        .setDid(objrs.getLong("did"))
+                        .setAttcid(objrs.getLong("attcid"))
+                        .setCertificate(objrs.getString("certificate"))
+                        .setIssuerDn(objrs.getString("issuer_dn"))
+                        .setSubjectDn(objrs.getString("subject_dn"))
+                        .setSerialNumber(objrs.getString("serial_number"))
+                        .build();
+
+            case applianceConstants.ENTITY_TYPE_FIDO_POLICIES:
+                ZMQSKCEReplicationProtos.FidoPolicies.Builder fpbuilder = ZMQSKCEReplicationProtos.FidoPolicies.newBuilder();
+                // First deal with attributes that might be null
+                if (objrs.getString("notes") != null) {
+                    fpbuilder.setNotes(objrs.getString("notes"));
+                }
+                if (objrs.getTimestamp("modify_date") != null) {
+                    fpbuilder.setModifyDate(objrs.getTimestamp("modify_date").getTime());
+                }
+                if (objrs.getString("signature") != null) {
+                    fpbuilder.setSignature(objrs.getString("signature"));
+                }
+                // Now build the proto with all non-null values
+                return fpbuilder
+                        .setSid(objrs.getLong("sid"))
+                        .setDid(objrs.getLong("did"))
+                        .setPid(objrs.getLong("pid"))
+                        .setPolicy(objrs.getString("policy"))
+                        .setStatus(objrs.getString("status"))
+                        .setCreateDate(objrs.getTimestamp("create_date").getTime())
+                        .build();
+
+            case applianceConstants.ENTITY_TYPE_FIDO_CONFIGURATIONS:
+                ZMQSKCEReplicationProtos.Configurations.Builder cfgbuilder = ZMQSKCEReplicationProtos.Configurations.newBuilder();
+                // First deal with attributes that might be null
+                if (objrs.getString("notes") != null) {
+                    cfgbuilder.setNotes(objrs.getString("notes"));
+                }
+                // Now build the proto with all non-null values
+                return cfgbuilder
+                        .setConfigKey(objrs.getString("config_key"))
+                        .setConfigValue(objrs.getString("config_value"))
+                        .setDid(objrs.getLong("did"))
+                        .build();
+
+            default:
+                throw new IllegalArgumentException(applianceCommon.getEntityName(objtype));
+        }
+    }
+
+    /**
+     * A row of the REPLICATION table together with the parsed primary key of
+     * the object it references.
+     */
+    static final class BacklogRecord
+    {
+        final long ssid;
+        final long rpid;
+        final long tsid;
+        final int objtype;
+        final int objop;
+        final String objpk;
+        final long scheduled;
+
+        // Key of the referenced object, null if the object cannot be replicated
+        String objkey;
+        // Values of the IN-list tuple selecting the object
+        Object[] params;
+        // Username for FIDO_KEYS and FIDO_USERS objects
+        String username;
+
+        BacklogRecord(long ssid, long rpid, long tsid, int objtype, int objop, String objpk, long scheduled) {
+            this.ssid = ssid;
+            this.rpid = rpid;
+            this.tsid = tsid;
+            // A counter update that missed its live publish is caught up
+            // with the whole key row, which carries the latest counter
+            this.objtype = (objtype == applianceConstants.ENTITY_TYPE_FIDO_KEYS_COUNTER) ? applianceConstants.ENTITY_TYPE_FIDO_KEYS : objtype;
+            this.objop = objop;
+            this.objpk = objpk;
+            this.scheduled = scheduled;
+            try {
+                parse();
+            } catch (RuntimeException ex) {
+                objkey = null;
+            }
+        }
+
+        // Figure out primary key from keystring
+        private void parse() {
+            String[] pkarray;
+            Long objsid, objdid;
+            switch (objtype) {
+                case applianceConstants.ENTITY_TYPE_FIDO_KEYS:
+                    pkarray = objpk.split("-", 3);
+                    objsid = Long.parseLong(pkarray[0]);
+                    objdid = Long.parseLong(pkarray[1]);
+                    // pkarray[2] should have both the uesrname and fkid with an indeterminate amount of hyphens in the username
+                    int userfkidhyphen = pkarray[2].lastIndexOf("-");
+                    username = pkarray[2].substring(0, userfkidhyphen);
+                    Long objfkid = Long.parseLong(pkarray[2].substring(userfkidhyphen + 1));
+                    params = new Object[]{objsid, objdid, objfkid};
+                    objkey = objsid + "-" + objdid + "-" + objfkid;
+                    break;
+                case applianceConstants.ENTITY_TYPE_FIDO_USERS:
+                    pkarray = objpk.split("-", 3);
+                    objsid = Long.parseLong(pkarray[0]);
+                    objdid = Long.parseLong(pkarray[1]);
+                    username = pkarray[2];
+                    params = new Object[]{objsid, objdid, username};
+                    objkey = objsid + "-" + objdid + "-" + username.toLowerCase();
+                    break;
+                case applianceConstants.ENTITY_TYPE_DOMAINS:
+                    pkarray = objpk.split("-");
+                    objdid = Long.parseLong(pkarray[0]);
+                    params = new Object[]{objdid};
+                    objkey = String.valueOf(objdid);
+                    break;
+                case applianceConstants.ENTITY_TYPE_ATTESTATION_CERTIFICATES:
+                case applianceConstants.ENTITY_TYPE_FIDO_POLICIES:
+                    pkarray = objpk.split("-", 3);
+                    objsid = Long.parseLong(pkarray[0]);
+                    objdid = Long.parseLong(pkarray[1]);
+                    Long objid = Long.parseLong(pkarray[2]);
+                    params = new Object[]{objsid, objdid, objid};
+                    objkey = objsid + "-" + objdid + "-" + objid;
+                    break;
+                case applianceConstants.ENTITY_TYPE_FIDO_CONFIGURATIONS:
+                    pkarray = objpk.split("-", 2);
+                    objdid = Long.parseLong(pkarray[0]);
+                    params = new Object[]{objdid, pkarray[1]};
+                    objkey = objdid + "-" + pkarray[1].toLowerCase();
+                    break;
+                default:
+                    objkey = null;
+            }
+        }
+    }
+}
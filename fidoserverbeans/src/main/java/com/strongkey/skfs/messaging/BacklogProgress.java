@@ -0,0 +1,115 @@
+/**
+* Copyright StrongAuth, Inc. All Rights Reserved.
+*
+* Use of this source code is governed by the GNU Lesser General Public License v2.1
+* The license can be found at https://github.com/StrongKey/fido2/blob/master/LICENSE
+*/
+
+package com.strongkey.skfs.messaging;
+
+/**
+ * Progress of the backlog drain towards one target server. Updated by the
+ * BacklogProcessorHelper of the server after every page of replication
+ * objects and readable from any thread.
+ */
+public class BacklogProgress {
+
+    private final Long tsid;
+
+    private volatile long total = 0;
+    private volatile long processed = 0;
+    private volatile long sent = 0;
+    private volatile long startTime = 0;
+    private volatile long lastUpdate = 0;
+    private volatile long lag = 0;
+    private volatile boolean running = false;
+
+    public BacklogProgress(Long tsid) {
+        this.tsid = tsid;
+    }
+
+    /**
+     * Called when a drain starts.
+     *
+     * @param total - number of replication objects found in the backlog
+     */
+    synchronized void start(long total) {
+        this.total = total;
+        this.processed = 0;
+        this.sent = 0;
+        this.startTime = System.currentTimeMillis();
+        this.lastUpdate = this.startTime;
+        this.lag = 0;
+        this.running = true;
+    }
+
+    /**
+     * Called after every page of replication objects.
+     *
+     * @param rows - number of replication objects read in the page
+     * @param pushed - number of objects pushed to the target server
+     * @param scheduled - time the last object of the page was scheduled at
+     */
+    synchronized void update(int rows, int pushed, long scheduled) {
+        this.processed += rows;
+        this.sent += pushed;
+        this.lastUpdate = System.currentTimeMillis();
+        this.lag = (scheduled > 0) ? this.lastUpdate - scheduled : 0;
+    }
+
+    synchronized void finish() {
+        this.lastUpdate = System.currentTimeMillis();
+        this.running = false;
+    }
+
+    public Long getTsid() {
+        return tsid;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public long getProcessed() {
+        return processed;
+    }
+
+    public long getSent() {
+        return sent;
+    }
+
+    /**
+     * @return number of objects of the backlog not processed yet; objects
+     * scheduled after the drain started are not included
+     */
+    public long getRemaining() {
+        return Math.max(0, total - processed);
+    }
+
+    /**
+     * @return milliseconds between the time the last processed object was
+     * scheduled and the time it was processed
+     */
+    public long getLag() {
+        return lag;
+    }
+
+    public double getRowsPerSecond() {
+        long elapsed = lastUpdate - startTime;
+        return (elapsed > 0) ? processed * 1000.0 / elapsed : 0;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public String toString() {
+        return "TSID=" + tsid
+                + " processed=" + processed + "/" + total
+                + " sent=" + sent
+                + " remaining=" + getRemaining()
+                + " rows/sec=" + String.format("%.1f", getRowsPerSecond())
+                + " lag(ms)=" + lag;
+    }
+}
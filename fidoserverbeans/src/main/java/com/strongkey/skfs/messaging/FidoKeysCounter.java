@@ -0,0 +1,146 @@
+/**
+* Copyright StrongAuth, Inc. All Rights Reserved.
+*
+* Use of this source code is governed by the GNU Lesser General Public License v2.1
+* The license can be found at https://github.com/StrongKey/fido2/blob/master/LICENSE
+*/
+
+package com.strongkey.skfs.messaging;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.strongkey.skfe.entitybeans.FidoKeys;
+import com.strongkey.skfe.entitybeans.FidoKeysPK;
+import java.util.Date;
+
+/**
+ * Signature counter of a FIDO key after an authentication, together with the
+ * modify date and location written with it.
+ *
+ * This is the unit of work of the signature counter write-behind and the
+ * payload of ENTITY_TYPE_FIDO_KEYS_COUNTER replication messages, encoded as
+ * the FidoKeysCounter message of skce.proto.
+ */
+public final class FidoKeysCounter {
+
+    private final short sid;
+    private final short did;
+    private final String username;
+    private final long fkid;
+    private final int counter;
+    private final Date modifyDate;
+    private final String modifyLocation;
+
+    public FidoKeysCounter(short sid, short did, String username, long fkid, int counter, Date modifyDate, String modifyLocation) {
+        this.sid = sid;
+        this.did = did;
+        this.username = username;
+        this.fkid = fkid;
+        this.counter = counter;
+        this.modifyDate = (modifyDate == null) ? null : new Date(modifyDate.getTime());
+        this.modifyLocation = modifyLocation;
+    }
+
+    /**
+     * Snapshot of the counter columns of a key.
+     *
+     * @param fk - the key
+     */
+    public FidoKeysCounter(FidoKeys fk) {
+        this(fk.getFidoKeysPK().getSid(),
+                fk.getFidoKeysPK().getDid(),
+                fk.getFidoKeysPK().getUsername(),
+                fk.getFidoKeysPK().getFkid(),
+                fk.getCounter(),
+                fk.getModifyDate(),
+                fk.getModifyLocation());
+    }
+
+    public short getSid() {
+        return sid;
+    }
+
+    public short getDid() {
+        return did;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public long getFkid() {
+        return fkid;
+    }
+
+    public int getCounter() {
+        return counter;
+    }
+
+    public Date getModifyDate() {
+        return (modifyDate == null) ? null : new Date(modifyDate.getTime());
+    }
+
+    public String getModifyLocation() {
+        return modifyLocation;
+    }
+
+    public FidoKeysPK getFidoKeysPK() {
+        return new FidoKeysPK(sid, did, username, fkid);
+    }
+
+    /**
+     * @return key of the FIDO key in the MAP_FIDO_KEYS map: sid-did-fkid
+     */
+    public String getMapkey() {
+        return sid + "-" + did + "-" + fkid;
+    }
+
+    /**
+     * @return primary key of the FIDO key in replication messages:
+     * sid-did-username-fkid
+     */
+    public String getPrimarykey() {
+        return sid + "-" + did + "-" + username + "-" + fkid;
+    }
+
+    /**
+     * Encodes the counter as a FidoKeysCounter message.
+     *
+     * @return byte[] with the encoded message
+     */
+    public byte[] toByteArray() {
+        ZMQSKCEReplicationProtos.FidoKeysCounter.Builder fkcbuilder = ZMQSKCEReplicationProtos.FidoKeysCounter.newBuilder()
+                .setSid(sid)
+                .setDid(did)
+                .setUsername(username)
+                .setFkid(fkid)
+                .setCounter(counter);
+        if (modifyDate != null) {
+            fkcbuilder.setModifyDate(modifyDate.getTime());
+        }
+        if (modifyLocation != null) {
+            fkcbuilder.setModifyLocation(modifyLocation);
+        }
+        return fkcbuilder.build().toByteArray();
+    }
+
+    /**
+     * Decodes a FidoKeysCounter message.
+     *
+     * @param msg - the encoded message
+     * @return FidoKeysCounter
+     * @throws InvalidProtocolBufferException if the message is malformed or
+     * a required field is missing
+     */
+    public static FidoKeysCounter parseFrom(byte[] msg) throws InvalidProtocolBufferException {
+        ZMQSKCEReplicationProtos.FidoKeysCounter fkcproto = ZMQSKCEReplicationProtos.FidoKeysCounter.parseFrom(msg);
+        return new FidoKeysCounter((short) fkcproto.getSid(), (short) fkcproto.getDid(), fkcproto.getUsername(),
+                fkcproto.getFkid(), (int) fkcproto.getCounter(),
+                fkcproto.hasModifyDate() ? new Date(fkcproto.getModifyDate()) : null,
+                fkcproto.hasModifyLocation() ? fkcproto.getModifyLocation() : null);
+    }
+
+    @Override
+    public String toString() {
+        return "FidoKeysCounter{" + getPrimarykey() + " counter=" + counter + "}";
+    }
+}
@@ -10,19 +10,27 @@ package com.strongkey.skfs.messaging;
 import com.strongkey.appliance.utilities.applianceCommon;
 import com.strongkey.appliance.utilities.applianceConstants;
 import com.strongkey.appliance.utilities.strongkeyLogger;
-import com.strongkey.replication.messaging.ZMQBacklogProcessor;
 import com.strongkey.skce.utilities.skceCommon;
 import com.strongkey.skce.utilities.skceConstants;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.SortedMap;
 import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.annotation.PreDestroy;
+import javax.enterprise.concurrent.ManagedExecutorService;
 import javax.naming.Context;
 import javax.naming.InitialContext;
 import javax.naming.NamingException;
@@ -49,12 +57,16 @@ public class SKCEBacklogProcessor implements BacklogProcessor
     final Integer TIMEDIFF      = Integer.parseInt(skceCommon.getConfigurationProperty("skce.cfg.property.messaging.timediff"));
     final Integer BLPSLEEPTIME  = Integer.parseInt(skceCommon.getConfigurationProperty("skce.cfg.property.messaging.blpsleeptime"));
     private static final SortedMap<Long, BacklogProcessorHelper> blphelpers = new ConcurrentSkipListMap<>();
+    private static final SortedMap<Long, BacklogProgress> blpprogress = new ConcurrentSkipListMap<>();
 
      // JDBC objects
     private Context    ctx;
     private DataSource ds;
     private Connection ctorconn;
 
+    // Runs the workers of the helpers draining more than one connection
+    private ManagedExecutorService drainpool;
+
     private String JNDINAME     = skceCommon.getConfigurationProperty("skce.cfg.property.jdbc.jndiname");
 
 /**********************************************************************************************
@@ -99,6 +111,11 @@ Y88b  d88P Y88..88P 888  888      X88 Y88b.  888     Y88b 888 Y88b.    Y88b.  Y8
             ctx = (Context) new InitialContext().lookup("");
             ds  = (DataSource) ctx.lookup(JNDINAME);
             ctorconn = ds.getConnection();
+            try {
+                drainpool = (ManagedExecutorService) new InitialContext().lookup("java:comp/DefaultManagedExecutorService");
+            } catch (NamingException ex) {
+                Logger.getLogger(SKCEBacklogProcessor.class.getName()).log(Level.WARNING, null, ex);
+            }
 
             // See if there is more than one Server in the cluster to replicate to
             PreparedStatement localserver = ctorconn.prepareStatement(
@@ -357,6 +374,24 @@ Y8b d88P
                                                 Y8b d88P
                                                  "Y88P"
 ***************************************************************************/
+    /**
+     * Returns the progress of the backlog drain towards a target server
+     * @param tsid - SID of the target server
+     * @return
+     */
+    static BacklogProgress getProgress(Long tsid) {
+        return blpprogress.computeIfAbsent(tsid, BacklogProgress::new);
+    }
+
+    /**
+     * Returns the progress of the backlog drains towards all target servers
+     * that had a backlog since this server started
+     * @return
+     */
+    public static Collection<BacklogProgress> getProgress() {
+        return Collections.unmodifiableCollection(blpprogress.values());
+    }
+
     /**
      * Method to check if BacklogProcessor thread is running
      * @return
@@ -416,14 +451,13 @@ Y8b d88P
                 countquery = conn.prepareStatement(
                 "SELECT R.TSID, COUNT(*) " +
                 " FROM REPLICATION R, SERVERS S " +
-                " WHERE TIMESTAMPDIFF(SECOND, R.SCHEDULED, NOW()) > ?" +
+                " WHERE R.SCHEDULED < ?" +
                 " AND R.TSID = S.SID " +
                 " AND S.STATUS = 'Active'" +
                 " AND R.OBJECTYPE > ?" +
                 " AND R.OBJECTYPE < ?" +
                 " AND S.REPLICATION_STATUS = 'Active'" +
                 " GROUP BY R.TSID");
-                countquery.setInt(1, TIMEDIFF);
                 countquery.setInt(2, applianceConstants.ENTITY_TYPE_SKCE_LOWER_LIMIT);
                 countquery.setInt(3, applianceConstants.ENTITY_TYPE_SKCE_UPPER_LIMIT);
 
@@ -453,6 +487,7 @@ Y8b d88P
                         int foundsize;
                         Long sid;
 
+                        countquery.setTimestamp(1, new Timestamp(System.currentTimeMillis() - TIMEDIFF * 1000L));
                         cqrs = countquery.executeQuery();
                         while(cqrs.next()) {
                             sid = cqrs.getLong(1);
@@ -466,7 +501,7 @@ Y8b d88P
                                     }
                                 }
                                 strongkeyLogger.logp(skceConstants.SKEE_LOGGER,Level.INFO, classname, "run", "SKCE-MSG-6043", "SID: " + sid + " Count: " + foundsize);
-                                BacklogProcessorHelper backlogProcessorHelper = new BacklogProcessorHelper(sid);
+                                BacklogProcessorHelper backlogProcessorHelper = new BacklogProcessorHelper(sid, drainpool);
                                 backlogProcessorHelper.start();
                                 blphelpers.put(sid, backlogProcessorHelper);
                                 counter = 0;
@@ -534,14 +569,17 @@ class BacklogProcessorHelper extends Thread
     private final String classname = this.getClass().getName();
     private final int DBFETCHSIZE     = Integer.parseInt(skceCommon.getConfigurationProperty("skce.cfg.property.jdbc.dbfetchsize"));
     private final int DBPROCESSSIZE   = Integer.parseInt(skceCommon.getConfigurationProperty("skce.cfg.property.jdbc.dbprocesssize"));
+    private final int BLPTHREADS      = Math.max(1, Integer.parseInt(skceCommon.getConfigurationProperty("skce.cfg.property.messaging.blpthreads")));
+    private final int BLPINLISTSIZE   = Math.max(1, Integer.parseInt(skceCommon.getConfigurationProperty("skce.cfg.property.messaging.blpinlistsize")));
     final Integer TIMEDIFF      = Integer.parseInt(skceCommon.getConfigurationProperty("skce.cfg.property.messaging.timediff"));
     private String JNDINAME     = skceCommon.getConfigurationProperty("skce.cfg.property.jdbc.jndiname");
     private Context    ctx;
     private DataSource ds;
     private Long sid = null;
+    private final ManagedExecutorService drainpool;
 
     // Constructor
-    public BacklogProcessorHelper(Long sid) {
+    public BacklogProcessorHelper(Long sid, ManagedExecutorService drainpool) {
         try {
             ctx = (Context) new InitialContext().lookup("");
             ds  = (DataSource) ctx.lookup(JNDINAME);
@@ -550,10 +588,10 @@ class BacklogProcessorHelper extends Thread
             Logger.getLogger(SKCEBacklogProcessor.class.getName()).log(Level.SEVERE, null, ex);
         }
         this.sid = sid;
+        this.drainpool = drainpool;
     }
 
     @Override
-    @SuppressWarnings("SleepWhileHoldingLock")
     public void run()
     {
         /**
@@ -567,555 +605,157 @@ class BacklogProcessorHelper extends Thread
         * objects from the heap.
         */
         Connection conn = null;
+        // Without the container's pool the objects are pushed on one connection
+        ExecutorService executor = (BLPTHREADS > 1) ? drainpool : null;
+        BacklogDrainWorker[] workers = new BacklogDrainWorker[(executor == null) ? 1 : BLPTHREADS];
+        List<Future<Integer>> results = new ArrayList<>();
+        BacklogProgress progress = SKCEBacklogProcessor.getProgress(sid);
 
         try
         {
             // Get local Connection
             conn = ds.getConnection();
 
+            // Objects scheduled before the cutoff are back-logged; comparing
+            // the column itself (rather than an expression on it) lets the
+            // database use the index on REPLICATION (TSID, SSID, RPID, SCHEDULED)
+            Timestamp cutoff = new Timestamp(System.currentTimeMillis() - TIMEDIFF * 1000L);
+
             // Setup query to count back-logged objects for Active servers only
             PreparedStatement countquery = conn.prepareStatement(
             "SELECT COUNT(*)" +
             " FROM REPLICATION R" +
-            " WHERE TIMESTAMPDIFF(SECOND, R.SCHEDULED, NOW()) > ?" +
-            " AND R.TSID = ?" +
+            " WHERE R.TSID = ?" +
+            " AND R.SCHEDULED < ?" +
             " AND R.OBJECTYPE > ?" +
             " AND R.OBJECTYPE < ?");
-            countquery.setInt(1, TIMEDIFF);
-            countquery.setLong(2, sid);
+            countquery.setLong(1, sid);
+            countquery.setTimestamp(2, cutoff);
             countquery.setInt(3, applianceConstants.ENTITY_TYPE_SKCE_LOWER_LIMIT);
             countquery.setInt(4, applianceConstants.ENTITY_TYPE_SKCE_UPPER_LIMIT);
 
-            // Setup query to get back-logged objects for Active servers only
+            // Setup query to get back-logged objects for Active servers only;
+            // pages continue after the (SSID, RPID) of the last object read
             PreparedStatement dataquery = conn.prepareStatement(
             "SELECT SSID, RPID, TSID, OBJECTYPE, OBJECTOP, OBJECTPK, SCHEDULED " +
             " FROM REPLICATION R" +
-            " WHERE TIMESTAMPDIFF(SECOND, R.SCHEDULED, NOW()) > ? " +
-            " AND R.TSID = ?" +
-            " AND R.RPID > ? " +
+            " WHERE R.TSID = ?" +
+            " AND (R.SSID > ? OR (R.SSID = ? AND R.RPID > ?))" +
+            " AND R.SCHEDULED < ?" +
             " AND R.OBJECTYPE > ?" +
             " AND R.OBJECTYPE < ?" +
-            " ORDER BY R.SSID, R.RPID, R.TSID " +
+            " ORDER BY R.SSID, R.RPID " +
             " LIMIT ?",
             ResultSet.TYPE_FORWARD_ONLY);
 
-            // JDBC objects
-            PreparedStatement objectquery = null;
-            ResultSet cqrs;
-            ResultSet dqrs;
-
-            // Local variables
-            Long dbssid;
-            Long dbrpid ;
-            Long dbtsid;
-            Integer dbobjtype;
-            Integer dbobjop;
-            String dbobjpk;
-            Boolean invalidObject = Boolean.FALSE;
-
             // Get a count of leftover objects
             int foundsize;
+            try (ResultSet cqrs = countquery.executeQuery()) {
+                cqrs.next();
+                foundsize = cqrs.getInt(1);
+            }
+            countquery.close();
+            progress.start(foundsize);
 
-            cqrs = countquery.executeQuery();
-            cqrs.next();
-            foundsize = cqrs.getInt(1);
+            // Workers pushing the objects; each has its own connection
+            for (int i = 0; i < workers.length; i++) {
+                workers[i] = new BacklogDrainWorker(ds.getConnection(), BLPINLISTSIZE);
+            }
 
             // Find the records to be replicated; need to process them in
             // batches to keep memory usage stable
-            Long currentrecord = 0L;
-            int iterations = ((foundsize / DBPROCESSSIZE) + 1);
-            for (int iter = 0; iter < iterations; iter++)
+            long lastssid = -1L;
+            long lastrpid = 0L;
+            while (true)
             {
                 if (Thread.currentThread().isInterrupted()) {
                     return;
                 }
 
                 dataquery.setFetchSize(DBFETCHSIZE);
-                dataquery.setInt(1, TIMEDIFF);
-                dataquery.setLong(2, sid);
-                dataquery.setLong(3, currentrecord);
-                dataquery.setInt(4, applianceConstants.ENTITY_TYPE_SKCE_LOWER_LIMIT);
-                dataquery.setInt(5, applianceConstants.ENTITY_TYPE_SKCE_UPPER_LIMIT);
-                dataquery.setInt(6, DBPROCESSSIZE);
-
-                // Get the records and process them individually
-                dqrs = dataquery.executeQuery();
-                while (dqrs.next()) {
-
-                    if (Thread.currentThread().isInterrupted()) {
-                        return;
+                dataquery.setLong(1, sid);
+                dataquery.setLong(2, lastssid);
+                dataquery.setLong(3, lastssid);
+                dataquery.setLong(4, lastrpid);
+                dataquery.setTimestamp(5, cutoff);
+                dataquery.setInt(6, applianceConstants.ENTITY_TYPE_SKCE_LOWER_LIMIT);
+                dataquery.setInt(7, applianceConstants.ENTITY_TYPE_SKCE_UPPER_LIMIT);
+                dataquery.setInt(8, DBPROCESSSIZE);
+
+                // Get the records and hand them to the workers; all records
+                // of an object go to the same worker to keep their order
+                int rows = 0;
+                long lastscheduled = 0L;
+                try (ResultSet dqrs = dataquery.executeQuery()) {
+                    while (dqrs.next()) {
+                        Timestamp scheduled = dqrs.getTimestamp("scheduled");
+                        BacklogDrainWorker.BacklogRecord record = new BacklogDrainWorker.BacklogRecord(
+                                dqrs.getLong("ssid"),
+                                dqrs.getLong("rpid"),
+                                dqrs.getLong("tsid"),
+                                dqrs.getInt("objectype"),
+                                dqrs.getInt("objectop"),
+                                dqrs.getString("objectpk"),
+                                (scheduled == null) ? 0L : scheduled.getTime());
+                        String lanekey = record.objtype + "-" + ((record.objkey == null) ? record.objpk : record.objkey);
+                        workers[(lanekey.hashCode() & Integer.MAX_VALUE) % workers.length].add(record);
+
+                        // Update last record to remember where the page ended
+                        lastssid = record.ssid;
+                        lastrpid = record.rpid;
+                        lastscheduled = record.scheduled;
+                        rows++;
                     }
+                }
+                if (rows == 0) {
+                    break;
+                }
 
-                    // Local variables
-                    Long objdid;
-                    Long objsid;
-                    byte[] objbytes = null;
-                    String[] pkarray;
-                    ResultSet objrs;
-
-                    // Get record from result-set
-                    dbssid = dqrs.getLong("ssid");
-                    dbrpid = dqrs.getLong("rpid");
-                    dbtsid = dqrs.getLong("tsid");
-                    dbobjtype = dqrs.getInt("objectype");
-                    dbobjop = dqrs.getInt("objectop");
-                    dbobjpk = dqrs.getString("objectpk");
-
-                    // Update currentrecord to remember last record processed
-                    currentrecord = dbrpid;
-                    strongkeyLogger.logp(skceConstants.SKEE_LOGGER,Level.FINE, classname, "run", "SKCE-MSG-6045", dbssid + "-" + dbrpid + "-" + dbtsid);
-
-                    // What object do we have? Create a Protocol Buffer message
-                    switch (dbobjtype)
-                    {
-                        case applianceConstants.ENTITY_TYPE_FIDO_KEYS:
-                            // Figure out primary key from keystring
-                            pkarray = dbobjpk.split("-", 3);
-                            objsid = Long.parseLong(pkarray[0]);
-                            objdid = Long.parseLong(pkarray[1]);
-
-                            // pkarray[2] should have both the uesrname and fkid with an indeterminate amount of hyphens in the username
-                            int userfkidhyphen = pkarray[2].lastIndexOf("-");
-
-                            String objfkuser = pkarray[2].substring(0, userfkidhyphen);
-                            Long objfkid = Long.parseLong(pkarray[2].substring(userfkidhyphen + 1));
-
-                            strongkeyLogger.logp(skceConstants.SKEE_LOGGER,Level.FINE, classname, "run", "SKCE-MSG-6046", "[SID-DID-FIDOUSER-FKID]: " + objsid + "-" + objdid + "-" + objfkuser + "-" + objfkid);
-
-                            // SQL statement to get the actual object to be replicated
-                            objectquery = conn.prepareStatement(
-                                "SELECT SID, DID, USERNAME, FKID, USERID, KEYHANDLE, " +
-                                " APPID, PUBLICKEY, " +
-                                " TRANSPORTS, ATTSID, ATTDID, ATTCID, COUNTER, FIDO_VERSION, " +
-                                " FIDO_PROTOCOL, AAGUID, REGISTRATION_SETTINGS,REGISTRATION_SETTINGS_VERSION, " +
-                                " CREATE_DATE, CREATE_LOCATION, MODIFY_DATE, " +
-                                " MODIFY_LOCATION, STATUS, SIGNATURE_KEYTYPE, SIGNATURE " +
-                                " FROM FIDO_KEYS " +
-                                " WHERE SID = ? " +
-                                " AND DID = ? " +
-                                " AND USERNAME = ? " +
-                                " AND FKID = ?");
-                            objectquery.setLong(1, objsid);
-                            objectquery.setLong(2, objdid);
-                            objectquery.setString(3, objfkuser);
-                            objectquery.setLong(4, objfkid);
-
-
-
-                            // Get object and create proto if found
-                            objrs = objectquery.executeQuery();
-                            ZMQSKCEReplicationProtos.FidoKeys.Builder fkbuilder = ZMQSKCEReplicationProtos.FidoKeys.newBuilder();
-                            if (objrs.next()) {
-                                // First deal with attributes that might be null
-                                if (objrs.getString("userid") != null)
-                                    fkbuilder.setUserid(objrs.getString("userid"));
-                                if (objrs.getString("transports") != null)
-                                    fkbuilder.setTransports(objrs.getLong("transports"));
-                                if (objrs.getTimestamp("modify_date") != null)
-                                    fkbuilder.setModifyDate(objrs.getTimestamp("modify_date").getTime());
-                                if (objrs.getString("modify_location") != null)
-                                    fkbuilder.setModifyLocation(objrs.getString("modify_location"));
-                                if (objrs.getString("signature") != null)
-                                    fkbuilder.setSignature(objrs.getString("signature"));
-                                if (objrs.getString("signature_keytype") != null)
-                                    fkbuilder.setSignatureKeytype(objrs.getString("signature_keytype"));
-                                if (objrs.getString("attsid") != null)
-                                    fkbuilder.setAttsid(objrs.getLong("attsid"));
-                                if (objrs.getString("attdid") != null)
-                                    fkbuilder.setAttdid(objrs.getLong("attdid"));
-                                if (objrs.getString("attcid") != null)
-                                    fkbuilder.setAttcid(objrs.getLong("attcid"));
-                                if (objrs.getString("aaguid") != null)
-                                    fkbuilder.setAaguid(objrs.getString("aaguid"));
-                                if (objrs.getString("registration_settings") != null)
-                                    fkbuilder.setRegistrationSettings(objrs.getString("registration_settings"));
-                                if (objrs.getString("registration_settings_version") != null)
-                                    fkbuilder.setRegistrationSettingsVersion(objrs.getLong("registration_settings_version"));
-                                // Now build the proto with all non-null values
-                                ZMQSKCEReplicationProtos.FidoKeys proto =
-                                    fkbuilder
-                                        .setAppid(objrs.getString("appid"))
-                                        .setCounter(objrs.getLong("counter"))
-                                        .setCreateDate(objrs.getTimestamp("create_date").getTime())
-                                        .setCreateLocation(objrs.getString("create_location"))
-                                        .setDid(objdid)
-                                        .setFidoProtocol(objrs.getString("fido_protocol"))
-                                        .setFidoVersion(objrs.getString("fido_version"))
-                                        .setFkid(objfkid)
-                                        .setKeyhandle(objrs.getString("keyhandle"))
-                                        .setPublickey(objrs.getString("publickey"))
-                                        .setSid(objsid)
-                                        .setStatus(objrs.getString("status"))
-                                        .setUsername(objfkuser)
-                                        .build();
-                                strongkeyLogger.logp(skceConstants.SKEE_LOGGER,Level.FINE, classname, "run", "SKCE-MSG-6047", proto.toString());
-                                objbytes = proto.toByteArray();
-                            } else {
-                                if (dbobjop == applianceConstants.REPLICATION_OPERATION_DELETE) {
-                                    ZMQSKCEReplicationProtos.FidoKeys proto =
-                                        fkbuilder
-                                        .setAttcid(0L)
-                                        .setAppid("")
-                                        .setCounter(0L)
-                                        .setCreateDate(0L)
-                                        .setCreateLocation("")
-                                        .setDid(objdid)
-                                        .setFidoProtocol("")
-                                        .setFidoVersion("")
-                                        .setFkid(objfkid)
-                                        .setKeyhandle("")
-                                        .setPublickey("")
-                                        .setSid(objsid)
-                                        .setStatus("")
-                                        .setSignatureKeytype("")
-                                        .setUsername(objfkuser)
-                                        .build();
-                                    objbytes = proto.toByteArray();
-                                } else {
-                                    strongkeyLogger.logp(skceConstants.SKEE_LOGGER,Level.FINE, classname, "run", "SKCE-ERR-6014", "[SID-DID-FIDOUSER-FKID]: " + objsid + "-" + objdid + "-" + objfkuser + "-" + objfkid);
-                                    objectquery.close();
-                                    continue;
-                                }
-                            }
-                            objectquery.close();
-                            break;
-
-                        case applianceConstants.ENTITY_TYPE_FIDO_USERS:
-                            // Figure out primary key from keystring
-                            pkarray = dbobjpk.split("-", 3);
-                            objsid = Long.parseLong(pkarray[0]);
-                            objdid = Long.parseLong(pkarray[1]);
-                            String objfuser = pkarray[2];
-
-                            strongkeyLogger.logp(skceConstants.SKEE_LOGGER,Level.FINE, classname, "run", "SKCE-MSG-6046", "[SID-DID-FIDOUSER]: " + objsid + "-" + objdid + "-" + objfuser);
-
-                            // SQL statement to get the actual object to be replicated
-                            objectquery = conn.prepareStatement(
-                                "SELECT SID, DID, USERNAME, USERDN, FIDO_KEYS_ENABLED, " +
-                                " TWO_STEP_VERIFICATION, PRIMARY_EMAIL, REGISTERED_EMAILS, " +
-                                " PRIMARY_PHONE_NUMBER, REGISTERED_PHONE_NUMBERS, TWO_STEP_TARGET, STATUS, SIGNATURE " +
-                                " FROM FIDO_USERS " +
-                                " WHERE SID = ? " +
-                                " AND DID = ? " +
-                                " AND USERNAME = ?");
-                            objectquery.setLong(1, objsid);
-                            objectquery.setLong(2, objdid);
-                            objectquery.setString(3, objfuser);
-
-                            // Get object and create proto if found
-                            objrs = objectquery.executeQuery();
-                            if (objrs.next()) {
-                                // First deal with attributes that might be null
-                                ZMQSKCEReplicationProtos.FidoUsers.Builder fubuilder = ZMQSKCEReplicationProtos.FidoUsers.newBuilder();
-                                if (objrs.getString("primary_email") != null)
-                                    fubuilder.setPrimaryEmail(objrs.getString("primary_email"));
-                                if (objrs.getString("registered_emails") != null)
-                                    fubuilder.setRegisteredEmails(objrs.getString("registered_emails"));
-                                if (objrs.getString("primary_phone_number") != null)
-                                    fubuilder.setPrimaryPhoneNumber(objrs.getString("primary_phone_number"));
-                                if (objrs.getString("registered_phone_numbers") != null)
-                                    fubuilder.setRegisteredPhoneNumbers(objrs.getString("registered_phone_numbers"));
-                                if (objrs.getString("signature") != null)
-                                    fubuilder.setSignature(objrs.getString("signature"));
-                                if (objrs.getString("two_step_target") != null && objrs.getString("two_step_target").trim().length()>0)
-                                    fubuilder.setTwoStepTarget(objrs.getString("two_step_target"));
-                                if (objrs.getString("userdn") != null)
-                                    fubuilder.setUserdn(objrs.getString("userdn"));
-                                // Now build the proto with all non-null values
-                                ZMQSKCEReplicationProtos.FidoUsers proto =
-                                    fubuilder
-                                        .setDid(objdid)
-                                        .setFidoKeysEnabled(objrs.getString("fido_keys_enabled"))
-                                        .setSid(objsid)
-                                        .setStatus(objrs.getString("status"))
-                                        .setTwoStepVerification(objrs.getString("two_step_verification"))
-                                        .setUsername(objfuser)
-                                        .build();
-                                strongkeyLogger.logp(skceConstants.SKEE_LOGGER,Level.FINE, classname, "run", "SKCE-MSG-6047", proto.toString());
-                                objbytes = proto.toByteArray();
-                            } else {
-                                strongkeyLogger.logp(skceConstants.SKEE_LOGGER,Level.FINE, classname, "run", "SKCE-ERR-6014", "[SID-DID-FIDOUSER]: " + objsid + "-" + objdid + "-" + objfuser);
-                                objectquery.close();
-                                continue;
-                            }
-                            objectquery.close();
-                            break;
-
-                        case applianceConstants.ENTITY_TYPE_DOMAINS:
-                            // Figure out primary key from keystring
-                            pkarray = dbobjpk.split("-");
-                            objdid = Long.parseLong(pkarray[0]);
-                            strongkeyLogger.logp(skceConstants.SKEE_LOGGER,Level.FINE, classname, "run", "SKCE-MSG-6046", "[DID]: " + objdid);
-
-                            // SQL statement to get the actual object to be replicated
-                            objectquery = conn.prepareStatement(
-                                    "SELECT DID, NAME, STATUS, REPLICATION_STATUS, ENCRYPTION_CERTIFICATE, "
-                                    + " ENCRYPTION_CERTIFICATE_UUID, "
-                                    + " SIGNING_CERTIFICATE, SIGNING_CERTIFICATE_UUID, "
-                                    + " SKCE_SIGNINGDN, "
-                                    + " SKFE_APPID, NOTES "
-                                    + " FROM DOMAINS "
-                                    + " WHERE DID = ?");
-                            objectquery.setLong(1, objdid);
-
-                            // Get object and create proto if found
-                            objrs = objectquery.executeQuery();
-                            if (objrs.next()) {
-                                // First deal with attributes that might be null
-                                ZMQSKCEReplicationProtos.Domains.Builder dombuilder = ZMQSKCEReplicationProtos.Domains.newBuilder();
-                                if (objrs.getString("encryption_certificate") != null) {
-                                    dombuilder.setEncryptionCertificate(objrs.getString("encryption_certificate"));
-                                }
-                                if (objrs.getString("encryption_certificate_uuid") != null) {
-                                    dombuilder.setEncryptionCertificateUuid(objrs.getString("encryption_certificate_uuid"));
-                                }
-                                if (objrs.getString("name") != null) {
-                                    dombuilder.setName(objrs.getString("name"));
-                                }
-                                if (objrs.getString("notes") != null) {
-                                    dombuilder.setNotes(objrs.getString("notes"));
-                                }
-                                if (objrs.getString("signing_certificate_uuid") != null) {
-                                    dombuilder.setSigningCertificateUuid(objrs.getString("signing_certificate_uuid"));
-                                }
-                                if (objrs.getString("signing_certificate") != null) {
-                                    dombuilder.setSigningCertificate(objrs.getString("signing_certificate"));
-                                }
-                                if (objrs.getString("skce_signingdn") != null) {
-                                    dombuilder.setSkceSigningdn(objrs.getString("skce_signingdn"));
-                                }
-                                if (objrs.getString("skfe_appid") != null) {
-                                    dombuilder.setSkfeAppid(objrs.getString("skfe_appid"));
-                                }
-                                // Now build the proto with all non-null values
-                                ZMQSKCEReplicationProtos.Domains proto
-                                        = dombuilder
-                                        .setDid(objdid)
-                                        .setReplicationStatus(objrs.getString("replication_status"))
-                                        .setStatus(objrs.getString("status"))
-                                        .build();
-                                strongkeyLogger.logp(skceConstants.SKEE_LOGGER,Level.FINE, classname, "run", "SKCE-MSG-6047", proto.toString());
-                                objbytes = proto.toByteArray();
-                            } else {
-                                strongkeyLogger.logp(skceConstants.SKEE_LOGGER,Level.INFO, classname, "run", "SKCE-ERR-6014", "[DID]: " + objdid);
-                                objectquery.close();
-//                                deleteRow(dbssid, dbrpid, dbtsid);
-                                continue;
-                            }
-                            objectquery.close();
-                            break;
-
-                        case applianceConstants.ENTITY_TYPE_ATTESTATION_CERTIFICATES:
-                            // Figure out primary key from keystring
-                            pkarray = dbobjpk.split("-", 3);
-                            objsid = Long.parseLong(pkarray[0]);
-                            objdid = Long.parseLong(pkarray[1]);
-                            Long objattcid = Long.parseLong(pkarray[2]);
-
-                            strongkeyLogger.logp(skceConstants.SKEE_LOGGER,Level.FINE, classname, "run", "SKCE-MSG-6046", "[SID-DID-ATTCID]: " + objsid + "-" + objdid + "-" + objattcid);
-
-                            // SQL statement to get the actual object to be replicated
-                            objectquery = conn.prepareStatement(
-                                "SELECT SID, DID, ATTCID, PARENT_SID, PARENT_DID, PARENT_ATTCID, " +
-                                " CERTIFICATE, ISSUER_DN, SUBJECT_DN, SERIAL_NUMBER, SIGNATURE " +
-                                " FROM ATTESTATION_CERTIFICATES " +
-                                " WHERE SID = ? " +
-                                " AND DID = ? " +
-                                " AND ATTCID = ? ");
-                            objectquery.setLong(1, objsid);
-                            objectquery.setLong(2, objdid);
-                            objectquery.setLong(3, objattcid);
-
-                            // Get object and create proto if found
-                            objrs = objectquery.executeQuery();
-                            if (objrs.next()) {
-                                // First deal with attributes that might be null
-                                ZMQSKCEReplicationProtos.AttestationCertificates.Builder attCertbuilder = ZMQSKCEReplicationProtos.AttestationCertificates.newBuilder();
-                                if (objrs.getString("parent_sid") != null) {
-                                    attCertbuilder.setParentSid(objrs.getLong("parent_sid"));
-                                }
-                                if (objrs.getString("parent_did") != null) {
-                                    attCertbuilder.setParentDid(objrs.getLong("parent_did"));
-                                }
-                                if (objrs.getString("parent_attcid") != null) {
-                                    attCertbuilder.setParentAttcid(objrs.getLong("parent_attcid"));
-                                }
-                                if (objrs.getString("signature") != null) {
-                                    attCertbuilder.setSignature(objrs.getString("signature"));
-                                }
-
-                                // Now build the proto with all non-null values
-                                ZMQSKCEReplicationProtos.AttestationCertificates proto
-                                        = attCertbuilder
-                                        .setSid(objsid)
-                                        .setDid(objdid)
-                                        .setAttcid(objattcid)
-                                        .setCertificate(objrs.getString("certificate"))
-                                        .setIssuerDn(objrs.getString("issuer_dn"))
-                                        .setSubjectDn(objrs.getString("subject_dn"))
-                                        .setSerialNumber(objrs.getString("serial_number"))
-                                        .build();
-                                strongkeyLogger.logp(skceConstants.SKEE_LOGGER,Level.FINE, classname, "run", "SKCE-MSG-6047", proto.toString());
-                                objbytes = proto.toByteArray();
-                            } else {
-                                strongkeyLogger.logp(skceConstants.SKEE_LOGGER,Level.INFO, classname, "run", "SKCE-ERR-6014", "[SID-DID-ATTCID]: " + objsid + "-" + objdid + "-" + objattcid);
-                                objectquery.close();
-                                continue;
-                            }
-                            objectquery.close();
-                            break;
-
-                        case applianceConstants.ENTITY_TYPE_FIDO_POLICIES:
-                            // Figure out primary key from keystring
-                            pkarray = dbobjpk.split("-", 3);
-                            objsid = Long.parseLong(pkarray[0]);
-                            objdid = Long.parseLong(pkarray[1]);
-                            Long objpid = Long.parseLong(pkarray[2]);
-
-                            strongkeyLogger.logp(skceConstants.SKEE_LOGGER,Level.FINE, classname, "run", "SKCE-MSG-6046", "[SID-DID-PID]: " + objsid + "-" + objdid + "-" + objpid);
-
-                            // SQL statement to get the actual object to be replicated
-                            objectquery = conn.prepareStatement(
-                                "SELECT SID, DID, PID," +
-                                " POLICY, STATUS, NOTES, CREATE_DATE, MODIFY_DATE, SIGNATURE " +
-                                " FROM FIDO_POLICIES " +
-                                " WHERE SID = ? " +
-                                " AND DID = ? " +
-                                " AND PID = ? ");
-                            objectquery.setLong(1, objsid);
-                            objectquery.setLong(2, objdid);
-                            objectquery.setLong(3, objpid);
-
-                            // Get object and create proto if found
-                            objrs = objectquery.executeQuery();
-                            if (objrs.next()) {
-                                // First deal with attributes that might be null
-                                ZMQSKCEReplicationProtos.FidoPolicies.Builder fpbuilder = ZMQSKCEReplicationProtos.FidoPolicies.newBuilder();
-                                
-                                if (objrs.getString("notes") != null) {
-                                    fpbuilder.setNotes(objrs.getString("notes"));
-                                }
-                               if (objrs.getTimestamp("modify_date") != null) {
-                                    fpbuilder.setModifyDate(objrs.getTimestamp("modify_date").getTime());
-                                }
-                                if (objrs.getString("signature") != null) {
-                                    fpbuilder.setSignature(objrs.getString("signature"));
-                                }
-
-                                // Now build the proto with all non-null values
-                                ZMQSKCEReplicationProtos.FidoPolicies proto
-                                        = fpbuilder
-                                        .setSid(objsid)
-                                        .setDid(objdid)
-                                        .setPid(objpid)
-                                        .setPolicy(objrs.getString("policy"))
-                                        .setStatus(objrs.getString("status"))
-                                        .setCreateDate(objrs.getTimestamp("create_date").getTime())
-                                        .build();
-                                strongkeyLogger.logp(skceConstants.SKEE_LOGGER,Level.FINE, classname, "run", "SKCE-MSG-6047", proto.toString());
-                                objbytes = proto.toByteArray();
-                            } else {
-                                strongkeyLogger.logp(skceConstants.SKEE_LOGGER,Level.INFO, classname, "run", "SKCE-ERR-6014", "[SID-DID-PID]: " + objsid + "-" + objdid + "-" + objpid);
-                                objectquery.close();
-                                continue;
-                            }
-                            objectquery.close();
-                            break;
-
-                        case applianceConstants.ENTITY_TYPE_FIDO_CONFIGURATIONS:
-
-                            // Figure out primary key from keystring
-                            pkarray = dbobjpk.split("-", 2);
-                            objdid = Long.parseLong(pkarray[0]);
-                            String objkey = pkarray[1];
-                            strongkeyLogger.logp(skceConstants.SKEE_LOGGER, Level.FINE, classname, "run", "SKCE-MSG-6046", "[DID-CONFIG_KEY]: " + objdid + "-" + objkey);
-
-                            // SQL statement to get the actual object to be replicated
-                            objectquery = conn.prepareStatement(
-                                    "SELECT DID, CONFIG_KEY, CONFIG_VALUE, NOTES "
-                                    + " FROM CONFIGURATIONS "
-                                    + " WHERE DID = ? "
-                                    + " AND CONFIG_KEY = ?");
-                            objectquery.setLong(1, objdid);
-                            objectquery.setString(2, objkey);
-
-                            // Get object and create proto if found
-                            objrs = objectquery.executeQuery();
-                            ZMQSKCEReplicationProtos.Configurations.Builder cfgbuilder = ZMQSKCEReplicationProtos.Configurations.newBuilder();
-                            if (objrs.next()) {
-                                // First deal with attributes that might be null
-                                
-                                if (objrs.getString("notes") != null) {
-                                    cfgbuilder.setNotes(objrs.getString("notes"));
-                                }
-                                // Now build the proto with all non-null values
-                                ZMQSKCEReplicationProtos.Configurations proto
-                                        = cfgbuilder
-                                                .setConfigKey(objrs.getString("config_key"))
-                                                .setConfigValue(objrs.getString("config_value"))
-                                                .setDid(objdid)
-                                                .build();
-                                strongkeyLogger.logp(skceConstants.SKEE_LOGGER, Level.FINE, classname, "run", "SKCE-MSG-6047", proto.toString());
-                                objbytes = proto.toByteArray();
-                            } else {
-                                if (dbobjop == applianceConstants.REPLICATION_OPERATION_DELETE) {
-                                    ZMQSKCEReplicationProtos.Configurations proto =
-                                        cfgbuilder
-                                        .setConfigKey(objkey)
-                                                .setConfigValue("")
-                                                .setDid(objdid)
-                                                .build();
-                                    objbytes = proto.toByteArray();
-                                } else {
-                                    strongkeyLogger.logp(skceConstants.SKEE_LOGGER,Level.FINE, classname, "run", "SKCE-ERR-6014", "[DID-CONFIGKEY]: " + objdid + "-" + objkey);
-                                    objectquery.close();
-                                    continue;
-                                }
-                            }
-                            objectquery.close();
-
-                            break;
-   
-                        default:
-                            strongkeyLogger.logp(skceConstants.SKEE_LOGGER,Level.WARNING, classname, "run", "SKCE-ERR-6015", applianceCommon.getEntityName(dbobjtype) + " [OBJPK=" + dbobjpk + "] [OBJOP=" + applianceCommon.getRepop(dbobjop) + "]");
-                            invalidObject = Boolean.TRUE;
-                            break;
+                int pushed = 0;
+                if (executor == null) {
+                    pushed = workers[0].call();
+                } else {
+                    results.clear();
+                    for (BacklogDrainWorker worker : workers) {
+                        if (!worker.isEmpty()) {
+                            results.add(executor.submit(worker));
+                        }
+                    }
+                    for (Future<Integer> result : results) {
+                        pushed += result.get();
                     }
+                }
 
-                    // Don't go into ZMQ code unless its a valid object
-                    if (!invalidObject) {
-                        /**
-                        * Publish the object as a multi-frame message
-                        * - first, the primary-key of the replication object with the TSID stripped out
-                        * - next, the type of object being replicated
-                        * - next, the operation on the object: add, delete, or modify
-                        * - next, the primary-key of the object and
-                        * - finally, the object itself as a Protocol Buffer message
-                        */
-                        String reppk = dbssid + "-" + dbrpid + "-" + dbtsid;
-                        String rmsg = "REPOBJPK=" + reppk + " [OBJTYPE=" + applianceCommon.getEntityName(dbobjtype) + "] [OBJPK=" + dbobjpk + "] [OBJOP=" + applianceCommon.getRepop(dbobjop) + "]";
-                        if (ZMQBacklogProcessor.getInstance().send(reppk, dbobjtype, dbobjop, dbobjpk, objbytes)) {
-                            strongkeyLogger.logp(skceConstants.SKEE_LOGGER,Level.INFO, classname, "run", "SKCE-MSG-6048", rmsg);
-                        } else {
-                            strongkeyLogger.logp(skceConstants.SKEE_LOGGER,Level.WARNING, classname, "run", "SKCE-ERR-6016", rmsg);
+                progress.update(rows, pushed, lastscheduled);
+                strongkeyLogger.logp(skceConstants.SKEE_LOGGER,Level.INFO, classname, "run", "SKCE-MSG-6133", progress.toString());
 
-                        }
-                    } else {
-                        // Reset invalid object flag for next iteration
-                        invalidObject = Boolean.FALSE;
-                    }
+                if (rows < DBPROCESSSIZE) {
+                    break;
                 }
             }
-            countquery.close();
-        }catch (SQLException ex) {
+            dataquery.close();
+            strongkeyLogger.logp(skceConstants.SKEE_LOGGER,Level.INFO, classname, "run", "SKCE-MSG-6134", progress.toString());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ex) {
+            Logger.getLogger(SKCEBacklogProcessor.class.getName()).log(Level.SEVERE, null, ex.getCause());
+        } catch (SQLException ex) {
             Logger.getLogger(SKCEBacklogProcessor.class.getName()).log(Level.SEVERE, null, ex);
-            if (ex.getSQLState().startsWith("08")) {
-                try {
-                    strongkeyLogger.logp(skceConstants.SKEE_LOGGER,Level.WARNING, classname, "run", "SKCE-MSG-6111", "");
-                    conn.close();
-                } catch (SQLException se) {}
+            if (ex.getSQLState() != null && ex.getSQLState().startsWith("08")) {
+                strongkeyLogger.logp(skceConstants.SKEE_LOGGER,Level.WARNING, classname, "run", "SKCE-MSG-6111", "");
             }
         } finally {
+            progress.finish();
+            // The pool belongs to the container; only the pushes of this
+            // helper are stopped
+            for (Future<Integer> result : results) {
+                result.cancel(true);
+            }
+            for (BacklogDrainWorker worker : workers) {
+                if (worker != null) {
+                    worker.close();
+                }
+            }
             if (conn != null) {
                 try {
                     conn.close();
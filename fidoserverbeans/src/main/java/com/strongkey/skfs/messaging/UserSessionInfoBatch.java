@@ -0,0 +1,140 @@
+/**
+* Copyright StrongAuth, Inc. All Rights Reserved.
+*
+* Use of this source code is governed by the GNU Lesser General Public License v2.1
+* The license can be found at https://github.com/StrongKey/fido2/blob/master/LICENSE
+*/
+
+package com.strongkey.skfs.messaging;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.strongkey.skce.pojos.UserSessionInfo;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Converts user sessions to and from their replication messages.
+ *
+ * A batch is encoded as the UserSessionInfoBatch message of skce.proto.
+ */
+public final class UserSessionInfoBatch {
+
+    private UserSessionInfoBatch() {
+    }
+
+    /**
+     * Builds the replication message of a user session.
+     *
+     * @param usibean - the session
+     * @return ZMQSKCEReplicationProtos.UserSessionInfo
+     */
+    public static ZMQSKCEReplicationProtos.UserSessionInfo toProto(UserSessionInfo usibean) {
+        ZMQSKCEReplicationProtos.UserSessionInfo.Builder usibuilder = ZMQSKCEReplicationProtos.UserSessionInfo.newBuilder();
+        // First deal with attributes that might be null
+        if (usibean.getSkid() != null) {
+            usibuilder.setSkid(usibean.getSkid());
+        }
+        if (usibean.getDisplayName()!= null) {
+            usibuilder.setDisplayName(usibean.getDisplayName());
+        }
+        if (usibean.getRpName()!= null) {
+            usibuilder.setRpName(usibean.getRpName());
+        }
+        if (usibean.getSid() != null) {
+            usibuilder.setSid(usibean.getSid());
+        }
+        if (usibean.getSessionid() != null) {
+            usibuilder.setSessionid(usibean.getSessionid());
+        }
+        if (usibean.getUserId() != null){
+            usibuilder.setUserid(usibean.getUserId());
+        }
+        if (usibean.getUserIcon() != null){
+            usibuilder.setUsericon(usibean.getUserIcon());
+        }
+        if (usibean.getPolicyMapKey() != null){
+            usibuilder.setFidopolicymapkey(usibean.getPolicyMapKey());
+        }
+        if (usibean.getAttestationPreferance()!= null){
+            usibuilder.setAttestationPreferance(usibean.getAttestationPreferance());
+        }
+        if (usibean.getUserVerificationReq()!= null){
+            usibuilder.setUserVerificationReq(usibean.getUserVerificationReq());
+        }
+        return usibuilder
+                .setUsername(usibean.getUsername())
+                .setNonce(usibean.getNonce())
+                .setAppid(usibean.getAppid())
+                .setSessiontype(usibean.getSessiontype())
+                .setCreationdate(usibean.getCreationdate().getTime())
+                .setUserPublicKey(usibean.getUserPublicKey())
+                .setFkid(usibean.getFkid())
+                .setMapkey(usibean.getMapkey())
+                .build();
+    }
+
+    /**
+     * Builds a user session from its replication message. The creation date
+     * is set to the time the message is received on this server.
+     *
+     * @param usiproto - the replication message
+     * @return UserSessionInfo
+     */
+    public static UserSessionInfo fromProto(ZMQSKCEReplicationProtos.UserSessionInfo usiproto) {
+        UserSessionInfo usersessioninfo = new UserSessionInfo();
+        usersessioninfo.setUsername(usiproto.getUsername());
+        usersessioninfo.setNonce(usiproto.getNonce());
+        usersessioninfo.setAppid(usiproto.getAppid());
+        usersessioninfo.setSessiontype(usiproto.getSessiontype());
+        usersessioninfo.setCreationdate(new Date());
+        usersessioninfo.setUserPublicKey(usiproto.getUserPublicKey());
+        usersessioninfo.setMapkey(usiproto.getMapkey());
+
+        if(usiproto.hasDisplayName()) usersessioninfo.setDisplayName(usiproto.getDisplayName());
+        if(usiproto.hasRpName()) usersessioninfo.setRpName(usiproto.getRpName());
+        if(usiproto.hasFkid()) usersessioninfo.setFkid((int) usiproto.getFkid());
+        if(usiproto.hasSkid()) usersessioninfo.setSkid((short) usiproto.getSkid());
+        if(usiproto.hasSid()) usersessioninfo.setSid((short) usiproto.getSid());
+        if(usiproto.hasSessionid()) usersessioninfo.setSessionid(usiproto.getSessionid());
+        if(usiproto.hasUserid()) usersessioninfo.setUserId(usiproto.getUserid());
+        if(usiproto.hasUsericon()) usersessioninfo.setUserIcon(usiproto.getUsericon());
+        if(usiproto.hasFidopolicymapkey()) usersessioninfo.setPolicyMapKey(usiproto.getFidopolicymapkey());
+        if(usiproto.hasAttestationPreferance()) usersessioninfo.setAttestationPreferance(usiproto.getAttestationPreferance());
+        if(usiproto.hasUserVerificationReq()) usersessioninfo.setuserVerificationReq(usiproto.getUserVerificationReq());
+        return usersessioninfo;
+    }
+
+    /**
+     * Encodes the sessions as one UserSessionInfoBatch message.
+     *
+     * @param sessions - the sessions of the batch
+     * @return byte[] with the encoded batch
+     */
+    public static byte[] toByteArray(Collection<UserSessionInfo> sessions) {
+        ZMQSKCEReplicationProtos.UserSessionInfoBatch.Builder batchbuilder = ZMQSKCEReplicationProtos.UserSessionInfoBatch.newBuilder();
+        for (UserSessionInfo session : sessions) {
+            batchbuilder.addSessions(toProto(session));
+        }
+        return batchbuilder.build().toByteArray();
+    }
+
+    /**
+     * Decodes a UserSessionInfoBatch message. The whole message is decoded
+     * before anything is returned, so a malformed batch yields no sessions at
+     * all rather than part of them.
+     *
+     * @param msg - the encoded batch
+     * @return List of the sessions in the order they were written
+     * @throws InvalidProtocolBufferException if the message is malformed
+     */
+    public static List<UserSessionInfo> parseFrom(byte[] msg) throws InvalidProtocolBufferException {
+        ZMQSKCEReplicationProtos.UserSessionInfoBatch batchproto = ZMQSKCEReplicationProtos.UserSessionInfoBatch.parseFrom(msg);
+        List<UserSessionInfo> sessions = new ArrayList<>(batchproto.getSessionsCount());
+        for (ZMQSKCEReplicationProtos.UserSessionInfo usiproto : batchproto.getSessionsList()) {
+            sessions.add(fromProto(usiproto));
+        }
+        return sessions;
+    }
+}
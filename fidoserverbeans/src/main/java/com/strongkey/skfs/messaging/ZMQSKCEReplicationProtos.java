@@ -10919,6 +10919,1757 @@ public final class ZMQSKCEReplicationProtos {
     // @@protoc_insertion_point(class_scope:com.strongkey.skfs.messaging.UserSessionInfo)
   }
 
+  public interface UserSessionInfoBatchOrBuilder extends
+      // @@protoc_insertion_point(interface_extends:com.strongkey.skfs.messaging.UserSessionInfoBatch)
+      com.google.protobuf.MessageOrBuilder {
+
+    /**
+     * <code>repeated .com.strongkey.skfs.messaging.UserSessionInfo sessions = 1;</code>
+     */
+    java.util.List<com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.UserSessionInfo> 
+        getSessionsList();
+    /**
+     * <code>repeated .com.strongkey.skfs.messaging.UserSessionInfo sessions = 1;</code>
+     */
+    com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.UserSessionInfo getSessions(int index);
+    /**
+     * <code>repeated .com.strongkey.skfs.messaging.UserSessionInfo sessions = 1;</code>
+     */
+    int getSessionsCount();
+    /**
+     * <code>repeated .com.strongkey.skfs.messaging.UserSessionInfo sessions = 1;</code>
+     */
+    java.util.List<? extends com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.UserSessionInfoOrBuilder> 
+        getSessionsOrBuilderList();
+    /**
+     * <code>repeated .com.strongkey.skfs.messaging.UserSessionInfo sessions = 1;</code>
+     */
+    com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.UserSessionInfoOrBuilder getSessionsOrBuilder(
+        int index);
+  }
+  /**
+   * Protobuf type {@code com.strongkey.skfs.messaging.UserSessionInfoBatch}
+   */
+  public static final class UserSessionInfoBatch extends
+      com.google.protobuf.GeneratedMessage implements
+      // @@protoc_insertion_point(message_implements:com.strongkey.skfs.messaging.UserSessionInfoBatch)
+      UserSessionInfoBatchOrBuilder {
+    // Use UserSessionInfoBatch.newBuilder() to construct.
+    private UserSessionInfoBatch(com.google.protobuf.GeneratedMessage.Builder<?> builder) {
+      super(builder);
+      this.unknownFields = builder.getUnknownFields();
+    }
+    private UserSessionInfoBatch(boolean noInit) { this.unknownFields = com.google.protobuf.UnknownFieldSet.getDefaultInstance(); }
+
+    private static final UserSessionInfoBatch defaultInstance;
+    public static UserSessionInfoBatch getDefaultInstance() {
+      return defaultInstance;
+    }
+
+    public UserSessionInfoBatch getDefaultInstanceForType() {
+      return defaultInstance;
+    }
+
+    private final com.google.protobuf.UnknownFieldSet unknownFields;
+    @java.lang.Override
+    public final com.google.protobuf.UnknownFieldSet
+        getUnknownFields() {
+      return this.unknownFields;
+    }
+    private UserSessionInfoBatch(
+        com.google.protobuf.CodedInputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      initFields();
+      int mutable_bitField0_ = 0;
+      com.google.protobuf.UnknownFieldSet.Builder unknownFields =
+          com.google.protobuf.UnknownFieldSet.newBuilder();
+      try {
+        boolean done = false;
+        while (!done) {
+          int tag = input.readTag();
+          switch (tag) {
+            case 0:
+              done = true;
+              break;
+            default: {
+              if (!parseUnknownField(input, unknownFields,
+                                     extensionRegistry, tag)) {
+                done = true;
+              }
+              break;
+            }
+            case 10: {
+              if (!((mutable_bitField0_ & 0x00000001) == 0x00000001)) {
+                sessions_ = new java.util.ArrayList<com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.UserSessionInfo>();
+                mutable_bitField0_ |= 0x00000001;
+              }
+              sessions_.add(input.readMessage(com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.UserSessionInfo.PARSER, extensionRegistry));
+              break;
+            }
+          }
+        }
+      } catch (com.google.protobuf.InvalidProtocolBufferException e) {
+        throw e.setUnfinishedMessage(this);
+      } catch (java.io.IOException e) {
+        throw new com.google.protobuf.InvalidProtocolBufferException(
+            e.getMessage()).setUnfinishedMessage(this);
+      } finally {
+        if (((mutable_bitField0_ & 0x00000001) == 0x00000001)) {
+          sessions_ = java.util.Collections.unmodifiableList(sessions_);
+        }
+        this.unknownFields = unknownFields.build();
+        makeExtensionsImmutable();
+      }
+    }
+    public static final com.google.protobuf.Descriptors.Descriptor
+        getDescriptor() {
+      return com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.internal_static_com_strongkey_skfs_messaging_UserSessionInfoBatch_descriptor;
+    }
+
+    protected com.google.protobuf.GeneratedMessage.FieldAccessorTable
+        internalGetFieldAccessorTable() {
+      return com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.internal_static_com_strongkey_skfs_messaging_UserSessionInfoBatch_fieldAccessorTable
+          .ensureFieldAccessorsInitialized(
+              com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.UserSessionInfoBatch.class, com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.UserSessionInfoBatch.Builder.class);
+    }
+
+    public static com.google.protobuf.Parser<UserSessionInfoBatch> PARSER =
+        new com.google.protobuf.AbstractParser<UserSessionInfoBatch>() {
+      public UserSessionInfoBatch parsePartialFrom(
+          com.google.protobuf.CodedInputStream input,
+          com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+          throws com.google.protobuf.InvalidProtocolBufferException {
+        return new UserSessionInfoBatch(input, extensionRegistry);
+      }
+    };
+
+    @java.lang.Override
+    public com.google.protobuf.Parser<UserSessionInfoBatch> getParserForType() {
+      return PARSER;
+    }
+
+    public static final int SESSIONS_FIELD_NUMBER = 1;
+    private java.util.List<com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.UserSessionInfo> sessions_;
+    /**
+     * <code>repeated .com.strongkey.skfs.messaging.UserSessionInfo sessions = 1;</code>
+     */
+    public java.util.List<com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.UserSessionInfo> getSessionsList() {
+      return sessions_;
+    }
+    /**
+     * <code>repeated .com.strongkey.skfs.messaging.UserSessionInfo sessions = 1;</code>
+     */
+    public java.util.List<? extends com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.UserSessionInfoOrBuilder> 
+        getSessionsOrBuilderList() {
+      return sessions_;
+    }
+    /**
+     * <code>repeated .com.strongkey.skfs.messaging.UserSessionInfo sessions = 1;</code>
+     */
+    public int getSessionsCount() {
+      return sessions_.size();
+    }
+    /**
+     * <code>repeated .com.strongkey.skfs.messaging.UserSessionInfo sessions = 1;</code>
+     */
+    public com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.UserSessionInfo getSessions(int index) {
+      return sessions_.get(index);
+    }
+    /**
+     * <code>repeated .com.strongkey.skfs.messaging.UserSessionInfo sessions = 1;</code>
+     */
+    public com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.UserSessionInfoOrBuilder getSessionsOrBuilder(
+        int index) {
+      return sessions_.get(index);
+    }
+
+    private void initFields() {
+      sessions_ = java.util.Collections.emptyList();
+    }
+    private byte memoizedIsInitialized = -1;
+    public final boolean isInitialized() {
+      byte isInitialized = memoizedIsInitialized;
+      if (isInitialized == 1) return true;
+      if (isInitialized == 0) return false;
+
+      for (int i = 0; i < getSessionsCount(); i++) {
+        if (!getSessions(i).isInitialized()) {
+          memoizedIsInitialized = 0;
+          return false;
+        }
+      }
+      memoizedIsInitialized = 1;
+      return true;
+    }
+
+    public void writeTo(com.google.protobuf.CodedOutputStream output)
+                        throws java.io.IOException {
+      getSerializedSize();
+      for (int i = 0; i < sessions_.size(); i++) {
+        output.writeMessage(1, sessions_.get(i));
+      }
+      getUnknownFields().writeTo(output);
+    }
+
+    private int memoizedSerializedSize = -1;
+    public int getSerializedSize() {
+      int size = memoizedSerializedSize;
+      if (size != -1) return size;
+
+      size = 0;
+      for (int i = 0; i < sessions_.size(); i++) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeMessageSize(1, sessions_.get(i));
+      }
+      size += getUnknownFields().getSerializedSize();
+      memoizedSerializedSize = size;
+      return size;
+    }
+
+    private static final long serialVersionUID = 0L;
+    @java.lang.Override
+    protected java.lang.Object writeReplace()
+        throws java.io.ObjectStreamException {
+      return super.writeReplace();
+    }
+
+    public static com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.UserSessionInfoBatch parseFrom(
+        com.google.protobuf.ByteString data)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data);
+    }
+    public static com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.UserSessionInfoBatch parseFrom(
+        com.google.protobuf.ByteString data,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data, extensionRegistry);
+    }
+    public static com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.UserSessionInfoBatch parseFrom(byte[] data)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data);
+    }
+    public static com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.UserSessionInfoBatch parseFrom(
+        byte[] data,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data, extensionRegistry);
+    }
+    public static com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.UserSessionInfoBatch parseFrom(java.io.InputStream input)
+        throws java.io.IOException {
+      return PARSER.parseFrom(input);
+    }
+    public static com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.UserSessionInfoBatch parseFrom(
+        java.io.InputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return PARSER.parseFrom(input, extensionRegistry);
+    }
+    public static com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.UserSessionInfoBatch parseDelimitedFrom(java.io.InputStream input)
+        throws java.io.IOException {
+      return PARSER.parseDelimitedFrom(input);
+    }
+    public static com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.UserSessionInfoBatch parseDelimitedFrom(
+        java.io.InputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return PARSER.parseDelimitedFrom(input, extensionRegistry);
+    }
+    public static com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.UserSessionInfoBatch parseFrom(
+        com.google.protobuf.CodedInputStream input)
+        throws java.io.IOException {
+      return PARSER.parseFrom(input);
+    }
+    public static com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.UserSessionInfoBatch parseFrom(
+        com.google.protobuf.CodedInputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return PARSER.parseFrom(input, extensionRegistry);
+    }
+
+    public static Builder newBuilder() { return Builder.create(); }
+    public Builder newBuilderForType() { return newBuilder(); }
+    public static Builder newBuilder(com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.UserSessionInfoBatch prototype) {
+      return newBuilder().mergeFrom(prototype);
+    }
+    public Builder toBuilder() { return newBuilder(this); }
+
+    @java.lang.Override
+    protected Builder newBuilderForType(
+        com.google.protobuf.GeneratedMessage.BuilderParent parent) {
+      Builder builder = new Builder(parent);
+      return builder;
+    }
+    /**
+     * Protobuf type {@code com.strongkey.skfs.messaging.UserSessionInfoBatch}
+     */
+    public static final class Builder extends
+        com.google.protobuf.GeneratedMessage.Builder<Builder> implements
+        // @@protoc_insertion_point(builder_implements:com.strongkey.skfs.messaging.UserSessionInfoBatch)
+        com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.UserSessionInfoBatchOrBuilder {
+      public static final com.google.protobuf.Descriptors.Descriptor
+          getDescriptor() {
+        return com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.internal_static_com_strongkey_skfs_messaging_UserSessionInfoBatch_descriptor;
+      }
+
+      protected com.google.protobuf.GeneratedMessage.FieldAccessorTable
+          internalGetFieldAccessorTable() {
+        return com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.internal_static_com_strongkey_skfs_messaging_UserSessionInfoBatch_fieldAccessorTable
+            .ensureFieldAccessorsInitialized(
+                com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.UserSessionInfoBatch.class, com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.UserSessionInfoBatch.Builder.class);
+      }
+
+      // Construct using com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.UserSessionInfoBatch.newBuilder()
+      private Builder() {
+        maybeForceBuilderInitialization();
+      }
+
+      private Builder(
+          com.google.protobuf.GeneratedMessage.BuilderParent parent) {
+        super(parent);
+        maybeForceBuilderInitialization();
+      }
+      private void maybeForceBuilderInitialization() {
+        if (com.google.protobuf.GeneratedMessage.alwaysUseFieldBuilders) {
+          getSessionsFieldBuilder();
+        }
+      }
+      private static Builder create() {
+        return new Builder();
+      }
+
+      public Builder clear() {
+        super.clear();
+        if (sessionsBuilder_ == null) {
+          sessions_ = java.util.Collections.emptyList();
+          bitField0_ = (bitField0_ & ~0x00000001);
+        } else {
+          sessionsBuilder_.clear();
+        }
+        return this;
+      }
+
+      public Builder clone() {
+        return create().mergeFrom(buildPartial());
+      }
+
+      public com.google.protobuf.Descriptors.Descriptor
+          getDescriptorForType() {
+        return com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.internal_static_com_strongkey_skfs_messaging_UserSessionInfoBatch_descriptor;
+      }
+
+      public com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.UserSessionInfoBatch getDefaultInstanceForType() {
+        return com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.UserSessionInfoBatch.getDefaultInstance();
+      }
+
+      public com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.UserSessionInfoBatch build() {
+        com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.UserSessionInfoBatch result = buildPartial();
+        if (!result.isInitialized()) {
+          throw newUninitializedMessageException(result);
+        }
+        return result;
+      }
+
+      public com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.UserSessionInfoBatch buildPartial() {
+        com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.UserSessionInfoBatch result = new com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.UserSessionInfoBatch(this);
+        int from_bitField0_ = bitField0_;
+        if (sessionsBuilder_ == null) {
+          if (((bitField0_ & 0x00000001) == 0x00000001)) {
+            sessions_ = java.util.Collections.unmodifiableList(sessions_);
+            bitField0_ = (bitField0_ & ~0x00000001);
+          }
+          result.sessions_ = sessions_;
+        } else {
+          result.sessions_ = sessionsBuilder_.build();
+        }
+        onBuilt();
+        return result;
+      }
+
+      public Builder mergeFrom(com.google.protobuf.Message other) {
+        if (other instanceof com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.UserSessionInfoBatch) {
+          return mergeFrom((com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.UserSessionInfoBatch)other);
+        } else {
+          super.mergeFrom(other);
+          return this;
+        }
+      }
+
+      public Builder mergeFrom(com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.UserSessionInfoBatch other) {
+        if (other == com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.UserSessionInfoBatch.getDefaultInstance()) return this;
+        if (sessionsBuilder_ == null) {
+          if (!other.sessions_.isEmpty()) {
+            if (sessions_.isEmpty()) {
+              sessions_ = other.sessions_;
+              bitField0_ = (bitField0_ & ~0x00000001);
+            } else {
+              ensureSessionsIsMutable();
+              sessions_.addAll(other.sessions_);
+            }
+            onChanged();
+          }
+        } else {
+          if (!other.sessions_.isEmpty()) {
+            if (sessionsBuilder_.isEmpty()) {
+              sessionsBuilder_.dispose();
+              sessionsBuilder_ = null;
+              sessions_ = other.sessions_;
+              bitField0_ = (bitField0_ & ~0x00000001);
+              sessionsBuilder_ = 
+                com.google.protobuf.GeneratedMessage.alwaysUseFieldBuilders ?
+                   getSessionsFieldBuilder() : null;
+            } else {
+              sessionsBuilder_.addAllMessages(other.sessions_);
+            }
+          }
+        }
+        this.mergeUnknownFields(other.getUnknownFields());
+        return this;
+      }
+
+      public final boolean isInitialized() {
+        for (int i = 0; i < getSessionsCount(); i++) {
+          if (!getSessions(i).isInitialized()) {
+            
+            return false;
+          }
+        }
+        return true;
+      }
+
+      public Builder mergeFrom(
+          com.google.protobuf.CodedInputStream input,
+          com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+          throws java.io.IOException {
+        com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.UserSessionInfoBatch parsedMessage = null;
+        try {
+          parsedMessage = PARSER.parsePartialFrom(input, extensionRegistry);
+        } catch (com.google.protobuf.InvalidProtocolBufferException e) {
+          parsedMessage = (com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.UserSessionInfoBatch) e.getUnfinishedMessage();
+          throw e;
+        } finally {
+          if (parsedMessage != null) {
+            mergeFrom(parsedMessage);
+          }
+        }
+        return this;
+      }
+      private int bitField0_;
+
+      private java.util.List<com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.UserSessionInfo> sessions_ =
+        java.util.Collections.emptyList();
+      private void ensureSessionsIsMutable() {
+        if (!((bitField0_ & 0x00000001) == 0x00000001)) {
+          sessions_ = new java.util.ArrayList<com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.UserSessionInfo>(sessions_);
+          bitField0_ |= 0x00000001;
+         }
+      }
+
+      private com.google.protobuf.RepeatedFieldBuilder<
+          com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.UserSessionInfo, com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.UserSessionInfo.Builder, com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.UserSessionInfoOrBuilder> sessionsBuilder_;
+
+      /**
+       * <code>repeated .com.strongkey.skfs.messaging.UserSessionInfo sessions = 1;</code>
+       */
+      public java.util.List<com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.UserSessionInfo> getSessionsList() {
+        if (sessionsBuilder_ == null) {
+          return java.util.Collections.unmodifiableList(sessions_);
+        } else {
+          return sessionsBuilder_.getMessageList();
+        }
+      }
+      /**
+       * <code>repeated .com.strongkey.skfs.messaging.UserSessionInfo sessions = 1;</code>
+       */
+      public int getSessionsCount() {
+        if (sessionsBuilder_ == null) {
+          return sessions_.size();
+        } else {
+          return sessionsBuilder_.getCount();
+        }
+      }
+      /**
+       * <code>repeated .com.strongkey.skfs.messaging.UserSessionInfo sessions = 1;</code>
+       */
+      public com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.UserSessionInfo getSessions(int index) {
+        if (sessionsBuilder_ == null) {
+          return sessions_.get(index);
+        } else {
+          return sessionsBuilder_.getMessage(index);
+        }
+      }
+      /**
+       * <code>repeated .com.strongkey.skfs.messaging.UserSessionInfo sessions = 1;</code>
+       */
+      public Builder setSessions(
+          int index, com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.UserSessionInfo value) {
+        if (sessionsBuilder_ == null) {
+          if (value == null) {
+            throw new NullPointerException();
+          }
+          ensureSessionsIsMutable();
+          sessions_.set(index, value);
+          onChanged();
+        } else {
+          sessionsBuilder_.setMessage(index, value);
+        }
+        return this;
+      }
+      /**
+       * <code>repeated .com.strongkey.skfs.messaging.UserSessionInfo sessions = 1;</code>
+       */
+      public Builder setSessions(
+          int index, com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.UserSessionInfo.Builder builderForValue) {
+        if (sessionsBuilder_ == null) {
+          ensureSessionsIsMutable();
+          sessions_.set(index, builderForValue.build());
+          onChanged();
+        } else {
+          sessionsBuilder_.setMessage(index, builderForValue.build());
+        }
+        return this;
+      }
+      /**
+       * <code>repeated .com.strongkey.skfs.messaging.UserSessionInfo sessions = 1;</code>
+       */
+      public Builder addSessions(com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.UserSessionInfo value) {
+        if (sessionsBuilder_ == null) {
+          if (value == null) {
+            throw new NullPointerException();
+          }
+          ensureSessionsIsMutable();
+          sessions_.add(value);
+          onChanged();
+        } else {
+          sessionsBuilder_.addMessage(value);
+        }
+        return this;
+      }
+      /**
+       * <code>repeated .com.strongkey.skfs.messaging.UserSessionInfo sessions = 1;</code>
+       */
+      public Builder addSessions(
+          int index, com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.UserSessionInfo value) {
+        if (sessionsBuilder_ == null) {
+          if (value == null) {
+            throw new NullPointerException();
+          }
+          ensureSessionsIsMutable();
+          sessions_.add(index, value);
+          onChanged();
+        } else {
+          sessionsBuilder_.addMessage(index, value);
+        }
+        return this;
+      }
+      /**
+       * <code>repeated .com.strongkey.skfs.messaging.UserSessionInfo sessions = 1;</code>
+       */
+      public Builder addSessions(
+          com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.UserSessionInfo.Builder builderForValue) {
+        if (sessionsBuilder_ == null) {
+          ensureSessionsIsMutable();
+          sessions_.add(builderForValue.build());
+          onChanged();
+        } else {
+          sessionsBuilder_.addMessage(builderForValue.build());
+        }
+        return this;
+      }
+      /**
+       * <code>repeated .com.strongkey.skfs.messaging.UserSessionInfo sessions = 1;</code>
+       */
+      public Builder addSessions(
+          int index, com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.UserSessionInfo.Builder builderForValue) {
+        if (sessionsBuilder_ == null) {
+          ensureSessionsIsMutable();
+          sessions_.add(index, builderForValue.build());
+          onChanged();
+        } else {
+          sessionsBuilder_.addMessage(index, builderForValue.build());
+        }
+        return this;
+      }
+      /**
+       * <code>repeated .com.strongkey.skfs.messaging.UserSessionInfo sessions = 1;</code>
+       */
+      public Builder addAllSessions(
+          java.lang.Iterable<? extends com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.UserSessionInfo> values) {
+        if (sessionsBuilder_ == null) {
+          ensureSessionsIsMutable();
+          com.google.protobuf.AbstractMessageLite.Builder.addAll(
+              values, sessions_);
+          onChanged();
+        } else {
+          sessionsBuilder_.addAllMessages(values);
+        }
+        return this;
+      }
+      /**
+       * <code>repeated .com.strongkey.skfs.messaging.UserSessionInfo sessions = 1;</code>
+       */
+      public Builder clearSessions() {
+        if (sessionsBuilder_ == null) {
+          sessions_ = java.util.Collections.emptyList();
+          bitField0_ = (bitField0_ & ~0x00000001);
+          onChanged();
+        } else {
+          sessionsBuilder_.clear();
+        }
+        return this;
+      }
+      /**
+       * <code>repeated .com.strongkey.skfs.messaging.UserSessionInfo sessions = 1;</code>
+       */
+      public Builder removeSessions(int index) {
+        if (sessionsBuilder_ == null) {
+          ensureSessionsIsMutable();
+          sessions_.remove(index);
+          onChanged();
+        } else {
+          sessionsBuilder_.remove(index);
+        }
+        return this;
+      }
+      /**
+       * <code>repeated .com.strongkey.skfs.messaging.UserSessionInfo sessions = 1;</code>
+       */
+      public com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.UserSessionInfo.Builder getSessionsBuilder(
+          int index) {
+        return getSessionsFieldBuilder().getBuilder(index);
+      }
+      /**
+       * <code>repeated .com.strongkey.skfs.messaging.UserSessionInfo sessions = 1;</code>
+       */
+      public com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.UserSessionInfoOrBuilder getSessionsOrBuilder(
+          int index) {
+        if (sessionsBuilder_ == null) {
+          return sessions_.get(index);  } else {
+          return sessionsBuilder_.getMessageOrBuilder(index);
+        }
+      }
+      /**
+       * <code>repeated .com.strongkey.skfs.messaging.UserSessionInfo sessions = 1;</code>
+       */
+      public java.util.List<? extends com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.UserSessionInfoOrBuilder> 
+           getSessionsOrBuilderList() {
+        if (sessionsBuilder_ != null) {
+          return sessionsBuilder_.getMessageOrBuilderList();
+        } else {
+          return java.util.Collections.unmodifiableList(sessions_);
+        }
+      }
+      /**
+       * <code>repeated .com.strongkey.skfs.messaging.UserSessionInfo sessions = 1;</code>
+       */
+      public com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.UserSessionInfo.Builder addSessionsBuilder() {
+        return getSessionsFieldBuilder().addBuilder(
+            com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.UserSessionInfo.getDefaultInstance());
+      }
+      /**
+       * <code>repeated .com.strongkey.skfs.messaging.UserSessionInfo sessions = 1;</code>
+       */
+      public com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.UserSessionInfo.Builder addSessionsBuilder(
+          int index) {
+        return getSessionsFieldBuilder().addBuilder(
+            index, com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.UserSessionInfo.getDefaultInstance());
+      }
+      /**
+       * <code>repeated .com.strongkey.skfs.messaging.UserSessionInfo sessions = 1;</code>
+       */
+      public java.util.List<com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.UserSessionInfo.Builder> 
+           getSessionsBuilderList() {
+        return getSessionsFieldBuilder().getBuilderList();
+      }
+      private com.google.protobuf.RepeatedFieldBuilder<
+          com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.UserSessionInfo, com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.UserSessionInfo.Builder, com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.UserSessionInfoOrBuilder> 
+          getSessionsFieldBuilder() {
+        if (sessionsBuilder_ == null) {
+          sessionsBuilder_ = new com.google.protobuf.RepeatedFieldBuilder<
+              com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.UserSessionInfo, com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.UserSessionInfo.Builder, com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.UserSessionInfoOrBuilder>(
+                  sessions_,
+                  ((bitField0_ & 0x00000001) == 0x00000001),
+                  getParentForChildren(),
+                  isClean());
+          sessions_ = null;
+        }
+        return sessionsBuilder_;
+      }
+
+      // @@protoc_insertion_point(builder_scope:com.strongkey.skfs.messaging.UserSessionInfoBatch)
+    }
+
+    static {
+      defaultInstance = new UserSessionInfoBatch(true);
+      defaultInstance.initFields();
+    }
+
+    // @@protoc_insertion_point(class_scope:com.strongkey.skfs.messaging.UserSessionInfoBatch)
+  }
+
+  public interface FidoKeysCounterOrBuilder extends
+      // @@protoc_insertion_point(interface_extends:com.strongkey.skfs.messaging.FidoKeysCounter)
+      com.google.protobuf.MessageOrBuilder {
+
+    /**
+     * <code>required int64 sid = 1;</code>
+     */
+    boolean hasSid();
+    /**
+     * <code>required int64 sid = 1;</code>
+     */
+    long getSid();
+
+    /**
+     * <code>required int64 did = 2;</code>
+     */
+    boolean hasDid();
+    /**
+     * <code>required int64 did = 2;</code>
+     */
+    long getDid();
+
+    /**
+     * <code>required string username = 3;</code>
+     */
+    boolean hasUsername();
+    /**
+     * <code>required string username = 3;</code>
+     */
+    java.lang.String getUsername();
+    /**
+     * <code>required string username = 3;</code>
+     */
+    com.google.protobuf.ByteString
+        getUsernameBytes();
+
+    /**
+     * <code>required int64 fkid = 4;</code>
+     */
+    boolean hasFkid();
+    /**
+     * <code>required int64 fkid = 4;</code>
+     */
+    long getFkid();
+
+    /**
+     * <code>required int64 counter = 5;</code>
+     */
+    boolean hasCounter();
+    /**
+     * <code>required int64 counter = 5;</code>
+     */
+    long getCounter();
+
+    /**
+     * <code>optional int64 modify_date = 6;</code>
+     */
+    boolean hasModifyDate();
+    /**
+     * <code>optional int64 modify_date = 6;</code>
+     */
+    long getModifyDate();
+
+    /**
+     * <code>optional string modify_location = 7;</code>
+     */
+    boolean hasModifyLocation();
+    /**
+     * <code>optional string modify_location = 7;</code>
+     */
+    java.lang.String getModifyLocation();
+    /**
+     * <code>optional string modify_location = 7;</code>
+     */
+    com.google.protobuf.ByteString
+        getModifyLocationBytes();
+  }
+  /**
+   * Protobuf type {@code com.strongkey.skfs.messaging.FidoKeysCounter}
+   */
+  public static final class FidoKeysCounter extends
+      com.google.protobuf.GeneratedMessage implements
+      // @@protoc_insertion_point(message_implements:com.strongkey.skfs.messaging.FidoKeysCounter)
+      FidoKeysCounterOrBuilder {
+    // Use FidoKeysCounter.newBuilder() to construct.
+    private FidoKeysCounter(com.google.protobuf.GeneratedMessage.Builder<?> builder) {
+      super(builder);
+      this.unknownFields = builder.getUnknownFields();
+    }
+    private FidoKeysCounter(boolean noInit) { this.unknownFields = com.google.protobuf.UnknownFieldSet.getDefaultInstance(); }
+
+    private static final FidoKeysCounter defaultInstance;
+    public static FidoKeysCounter getDefaultInstance() {
+      return defaultInstance;
+    }
+
+    public FidoKeysCounter getDefaultInstanceForType() {
+      return defaultInstance;
+    }
+
+    private final com.google.protobuf.UnknownFieldSet unknownFields;
+    @java.lang.Override
+    public final com.google.protobuf.UnknownFieldSet
+        getUnknownFields() {
+      return this.unknownFields;
+    }
+    private FidoKeysCounter(
+        com.google.protobuf.CodedInputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      initFields();
+      int mutable_bitField0_ = 0;
+      com.google.protobuf.UnknownFieldSet.Builder unknownFields =
+          com.google.protobuf.UnknownFieldSet.newBuilder();
+      try {
+        boolean done = false;
+        while (!done) {
+          int tag = input.readTag();
+          switch (tag) {
+            case 0:
+              done = true;
+              break;
+            default: {
+              if (!parseUnknownField(input, unknownFields,
+                                     extensionRegistry, tag)) {
+                done = true;
+              }
+              break;
+            }
+            case 8: {
+              bitField0_ |= 0x00000001;
+              sid_ = input.readInt64();
+              break;
+            }
+            case 16: {
+              bitField0_ |= 0x00000002;
+              did_ = input.readInt64();
+              break;
+            }
+            case 26: {
+              com.google.protobuf.ByteString bs = input.readBytes();
+              bitField0_ |= 0x00000004;
+              username_ = bs;
+              break;
+            }
+            case 32: {
+              bitField0_ |= 0x00000008;
+              fkid_ = input.readInt64();
+              break;
+            }
+            case 40: {
+              bitField0_ |= 0x00000010;
+              counter_ = input.readInt64();
+              break;
+            }
+            case 48: {
+              bitField0_ |= 0x00000020;
+              modifyDate_ = input.readInt64();
+              break;
+            }
+            case 58: {
+              com.google.protobuf.ByteString bs = input.readBytes();
+              bitField0_ |= 0x00000040;
+              modifyLocation_ = bs;
+              break;
+            }
+          }
+        }
+      } catch (com.google.protobuf.InvalidProtocolBufferException e) {
+        throw e.setUnfinishedMessage(this);
+      } catch (java.io.IOException e) {
+        throw new com.google.protobuf.InvalidProtocolBufferException(
+            e.getMessage()).setUnfinishedMessage(this);
+      } finally {
+        this.unknownFields = unknownFields.build();
+        makeExtensionsImmutable();
+      }
+    }
+    public static final com.google.protobuf.Descriptors.Descriptor
+        getDescriptor() {
+      return com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.internal_static_com_strongkey_skfs_messaging_FidoKeysCounter_descriptor;
+    }
+
+    protected com.google.protobuf.GeneratedMessage.FieldAccessorTable
+        internalGetFieldAccessorTable() {
+      return com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.internal_static_com_strongkey_skfs_messaging_FidoKeysCounter_fieldAccessorTable
+          .ensureFieldAccessorsInitialized(
+              com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.FidoKeysCounter.class, com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.FidoKeysCounter.Builder.class);
+    }
+
+    public static com.google.protobuf.Parser<FidoKeysCounter> PARSER =
+        new com.google.protobuf.AbstractParser<FidoKeysCounter>() {
+      public FidoKeysCounter parsePartialFrom(
+          com.google.protobuf.CodedInputStream input,
+          com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+          throws com.google.protobuf.InvalidProtocolBufferException {
+        return new FidoKeysCounter(input, extensionRegistry);
+      }
+    };
+
+    @java.lang.Override
+    public com.google.protobuf.Parser<FidoKeysCounter> getParserForType() {
+      return PARSER;
+    }
+
+    private int bitField0_;
+    public static final int SID_FIELD_NUMBER = 1;
+    private long sid_;
+    /**
+     * <code>required int64 sid = 1;</code>
+     */
+    public boolean hasSid() {
+      return ((bitField0_ & 0x00000001) == 0x00000001);
+    }
+    /**
+     * <code>required int64 sid = 1;</code>
+     */
+    public long getSid() {
+      return sid_;
+    }
+
+    public static final int DID_FIELD_NUMBER = 2;
+    private long did_;
+    /**
+     * <code>required int64 did = 2;</code>
+     */
+    public boolean hasDid() {
+      return ((bitField0_ & 0x00000002) == 0x00000002);
+    }
+    /**
+     * <code>required int64 did = 2;</code>
+     */
+    public long getDid() {
+      return did_;
+    }
+
+    public static final int USERNAME_FIELD_NUMBER = 3;
+    private java.lang.Object username_;
+    /**
+     * <code>required string username = 3;</code>
+     */
+    public boolean hasUsername() {
+      return ((bitField0_ & 0x00000004) == 0x00000004);
+    }
+    /**
+     * <code>required string username = 3;</code>
+     */
+    public java.lang.String getUsername() {
+      java.lang.Object ref = username_;
+      if (ref instanceof java.lang.String) {
+        return (java.lang.String) ref;
+      } else {
+        com.google.protobuf.ByteString bs = 
+            (com.google.protobuf.ByteString) ref;
+        java.lang.String s = bs.toStringUtf8();
+        if (bs.isValidUtf8()) {
+          username_ = s;
+        }
+        return s;
+      }
+    }
+    /**
+     * <code>required string username = 3;</code>
+     */
+    public com.google.protobuf.ByteString
+        getUsernameBytes() {
+      java.lang.Object ref = username_;
+      if (ref instanceof java.lang.String) {
+        com.google.protobuf.ByteString b = 
+            com.google.protobuf.ByteString.copyFromUtf8(
+                (java.lang.String) ref);
+        username_ = b;
+        return b;
+      } else {
+        return (com.google.protobuf.ByteString) ref;
+      }
+    }
+
+    public static final int FKID_FIELD_NUMBER = 4;
+    private long fkid_;
+    /**
+     * <code>required int64 fkid = 4;</code>
+     */
+    public boolean hasFkid() {
+      return ((bitField0_ & 0x00000008) == 0x00000008);
+    }
+    /**
+     * <code>required int64 fkid = 4;</code>
+     */
+    public long getFkid() {
+      return fkid_;
+    }
+
+    public static final int COUNTER_FIELD_NUMBER = 5;
+    private long counter_;
+    /**
+     * <code>required int64 counter = 5;</code>
+     */
+    public boolean hasCounter() {
+      return ((bitField0_ & 0x00000010) == 0x00000010);
+    }
+    /**
+     * <code>required int64 counter = 5;</code>
+     */
+    public long getCounter() {
+      return counter_;
+    }
+
+    public static final int MODIFY_DATE_FIELD_NUMBER = 6;
+    private long modifyDate_;
+    /**
+     * <code>optional int64 modify_date = 6;</code>
+     */
+    public boolean hasModifyDate() {
+      return ((bitField0_ & 0x00000020) == 0x00000020);
+    }
+    /**
+     * <code>optional int64 modify_date = 6;</code>
+     */
+    public long getModifyDate() {
+      return modifyDate_;
+    }
+
+    public static final int MODIFY_LOCATION_FIELD_NUMBER = 7;
+    private java.lang.Object modifyLocation_;
+    /**
+     * <code>optional string modify_location = 7;</code>
+     */
+    public boolean hasModifyLocation() {
+      return ((bitField0_ & 0x00000040) == 0x00000040);
+    }
+    /**
+     * <code>optional string modify_location = 7;</code>
+     */
+    public java.lang.String getModifyLocation() {
+      java.lang.Object ref = modifyLocation_;
+      if (ref instanceof java.lang.String) {
+        return (java.lang.String) ref;
+      } else {
+        com.google.protobuf.ByteString bs = 
+            (com.google.protobuf.ByteString) ref;
+        java.lang.String s = bs.toStringUtf8();
+        if (bs.isValidUtf8()) {
+          modifyLocation_ = s;
+        }
+        return s;
+      }
+    }
+    /**
+     * <code>optional string modify_location = 7;</code>
+     */
+    public com.google.protobuf.ByteString
+        getModifyLocationBytes() {
+      java.lang.Object ref = modifyLocation_;
+      if (ref instanceof java.lang.String) {
+        com.google.protobuf.ByteString b = 
+            com.google.protobuf.ByteString.copyFromUtf8(
+                (java.lang.String) ref);
+        modifyLocation_ = b;
+        return b;
+      } else {
+        return (com.google.protobuf.ByteString) ref;
+      }
+    }
+
+    private void initFields() {
+      sid_ = 0L;
+      did_ = 0L;
+      username_ = "";
+      fkid_ = 0L;
+      counter_ = 0L;
+      modifyDate_ = 0L;
+      modifyLocation_ = "";
+    }
+    private byte memoizedIsInitialized = -1;
+    public final boolean isInitialized() {
+      byte isInitialized = memoizedIsInitialized;
+      if (isInitialized == 1) return true;
+      if (isInitialized == 0) return false;
+
+      if (!hasSid()) {
+        memoizedIsInitialized = 0;
+        return false;
+      }
+      if (!hasDid()) {
+        memoizedIsInitialized = 0;
+        return false;
+      }
+      if (!hasUsername()) {
+        memoizedIsInitialized = 0;
+        return false;
+      }
+      if (!hasFkid()) {
+        memoizedIsInitialized = 0;
+        return false;
+      }
+      if (!hasCounter()) {
+        memoizedIsInitialized = 0;
+        return false;
+      }
+      memoizedIsInitialized = 1;
+      return true;
+    }
+
+    public void writeTo(com.google.protobuf.CodedOutputStream output)
+                        throws java.io.IOException {
+      getSerializedSize();
+      if (((bitField0_ & 0x00000001) == 0x00000001)) {
+        output.writeInt64(1, sid_);
+      }
+      if (((bitField0_ & 0x00000002) == 0x00000002)) {
+        output.writeInt64(2, did_);
+      }
+      if (((bitField0_ & 0x00000004) == 0x00000004)) {
+        output.writeBytes(3, getUsernameBytes());
+      }
+      if (((bitField0_ & 0x00000008) == 0x00000008)) {
+        output.writeInt64(4, fkid_);
+      }
+      if (((bitField0_ & 0x00000010) == 0x00000010)) {
+        output.writeInt64(5, counter_);
+      }
+      if (((bitField0_ & 0x00000020) == 0x00000020)) {
+        output.writeInt64(6, modifyDate_);
+      }
+      if (((bitField0_ & 0x00000040) == 0x00000040)) {
+        output.writeBytes(7, getModifyLocationBytes());
+      }
+      getUnknownFields().writeTo(output);
+    }
+
+    private int memoizedSerializedSize = -1;
+    public int getSerializedSize() {
+      int size = memoizedSerializedSize;
+      if (size != -1) return size;
+
+      size = 0;
+      if (((bitField0_ & 0x00000001) == 0x00000001)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeInt64Size(1, sid_);
+      }
+      if (((bitField0_ & 0x00000002) == 0x00000002)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeInt64Size(2, did_);
+      }
+      if (((bitField0_ & 0x00000004) == 0x00000004)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeBytesSize(3, getUsernameBytes());
+      }
+      if (((bitField0_ & 0x00000008) == 0x00000008)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeInt64Size(4, fkid_);
+      }
+      if (((bitField0_ & 0x00000010) == 0x00000010)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeInt64Size(5, counter_);
+      }
+      if (((bitField0_ & 0x00000020) == 0x00000020)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeInt64Size(6, modifyDate_);
+      }
+      if (((bitField0_ & 0x00000040) == 0x00000040)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeBytesSize(7, getModifyLocationBytes());
+      }
+      size += getUnknownFields().getSerializedSize();
+      memoizedSerializedSize = size;
+      return size;
+    }
+
+    private static final long serialVersionUID = 0L;
+    @java.lang.Override
+    protected java.lang.Object writeReplace()
+        throws java.io.ObjectStreamException {
+      return super.writeReplace();
+    }
+
+    public static com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.FidoKeysCounter parseFrom(
+        com.google.protobuf.ByteString data)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data);
+    }
+    public static com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.FidoKeysCounter parseFrom(
+        com.google.protobuf.ByteString data,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data, extensionRegistry);
+    }
+    public static com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.FidoKeysCounter parseFrom(byte[] data)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data);
+    }
+    public static com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.FidoKeysCounter parseFrom(
+        byte[] data,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data, extensionRegistry);
+    }
+    public static com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.FidoKeysCounter parseFrom(java.io.InputStream input)
+        throws java.io.IOException {
+      return PARSER.parseFrom(input);
+    }
+    public static com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.FidoKeysCounter parseFrom(
+        java.io.InputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return PARSER.parseFrom(input, extensionRegistry);
+    }
+    public static com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.FidoKeysCounter parseDelimitedFrom(java.io.InputStream input)
+        throws java.io.IOException {
+      return PARSER.parseDelimitedFrom(input);
+    }
+    public static com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.FidoKeysCounter parseDelimitedFrom(
+        java.io.InputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return PARSER.parseDelimitedFrom(input, extensionRegistry);
+    }
+    public static com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.FidoKeysCounter parseFrom(
+        com.google.protobuf.CodedInputStream input)
+        throws java.io.IOException {
+      return PARSER.parseFrom(input);
+    }
+    public static com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.FidoKeysCounter parseFrom(
+        com.google.protobuf.CodedInputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return PARSER.parseFrom(input, extensionRegistry);
+    }
+
+    public static Builder newBuilder() { return Builder.create(); }
+    public Builder newBuilderForType() { return newBuilder(); }
+    public static Builder newBuilder(com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.FidoKeysCounter prototype) {
+      return newBuilder().mergeFrom(prototype);
+    }
+    public Builder toBuilder() { return newBuilder(this); }
+
+    @java.lang.Override
+    protected Builder newBuilderForType(
+        com.google.protobuf.GeneratedMessage.BuilderParent parent) {
+      Builder builder = new Builder(parent);
+      return builder;
+    }
+    /**
+     * Protobuf type {@code com.strongkey.skfs.messaging.FidoKeysCounter}
+     */
+    public static final class Builder extends
+        com.google.protobuf.GeneratedMessage.Builder<Builder> implements
+        // @@protoc_insertion_point(builder_implements:com.strongkey.skfs.messaging.FidoKeysCounter)
+        com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.FidoKeysCounterOrBuilder {
+      public static final com.google.protobuf.Descriptors.Descriptor
+          getDescriptor() {
+        return com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.internal_static_com_strongkey_skfs_messaging_FidoKeysCounter_descriptor;
+      }
+
+      protected com.google.protobuf.GeneratedMessage.FieldAccessorTable
+          internalGetFieldAccessorTable() {
+        return com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.internal_static_com_strongkey_skfs_messaging_FidoKeysCounter_fieldAccessorTable
+            .ensureFieldAccessorsInitialized(
+                com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.FidoKeysCounter.class, com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.FidoKeysCounter.Builder.class);
+      }
+
+      // Construct using com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.FidoKeysCounter.newBuilder()
+      private Builder() {
+        maybeForceBuilderInitialization();
+      }
+
+      private Builder(
+          com.google.protobuf.GeneratedMessage.BuilderParent parent) {
+        super(parent);
+        maybeForceBuilderInitialization();
+      }
+      private void maybeForceBuilderInitialization() {
+        if (com.google.protobuf.GeneratedMessage.alwaysUseFieldBuilders) {
+        }
+      }
+      private static Builder create() {
+        return new Builder();
+      }
+
+      public Builder clear() {
+        super.clear();
+        sid_ = 0L;
+        bitField0_ = (bitField0_ & ~0x00000001);
+        did_ = 0L;
+        bitField0_ = (bitField0_ & ~0x00000002);
+        username_ = "";
+        bitField0_ = (bitField0_ & ~0x00000004);
+        fkid_ = 0L;
+        bitField0_ = (bitField0_ & ~0x00000008);
+        counter_ = 0L;
+        bitField0_ = (bitField0_ & ~0x00000010);
+        modifyDate_ = 0L;
+        bitField0_ = (bitField0_ & ~0x00000020);
+        modifyLocation_ = "";
+        bitField0_ = (bitField0_ & ~0x00000040);
+        return this;
+      }
+
+      public Builder clone() {
+        return create().mergeFrom(buildPartial());
+      }
+
+      public com.google.protobuf.Descriptors.Descriptor
+          getDescriptorForType() {
+        return com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.internal_static_com_strongkey_skfs_messaging_FidoKeysCounter_descriptor;
+      }
+
+      public com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.FidoKeysCounter getDefaultInstanceForType() {
+        return com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.FidoKeysCounter.getDefaultInstance();
+      }
+
+      public com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.FidoKeysCounter build() {
+        com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.FidoKeysCounter result = buildPartial();
+        if (!result.isInitialized()) {
+          throw newUninitializedMessageException(result);
+        }
+        return result;
+      }
+
+      public com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.FidoKeysCounter buildPartial() {
+        com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.FidoKeysCounter result = new com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.FidoKeysCounter(this);
+        int from_bitField0_ = bitField0_;
+        int to_bitField0_ = 0;
+        if (((from_bitField0_ & 0x00000001) == 0x00000001)) {
+          to_bitField0_ |= 0x00000001;
+        }
+        result.sid_ = sid_;
+        if (((from_bitField0_ & 0x00000002) == 0x00000002)) {
+          to_bitField0_ |= 0x00000002;
+        }
+        result.did_ = did_;
+        if (((from_bitField0_ & 0x00000004) == 0x00000004)) {
+          to_bitField0_ |= 0x00000004;
+        }
+        result.username_ = username_;
+        if (((from_bitField0_ & 0x00000008) == 0x00000008)) {
+          to_bitField0_ |= 0x00000008;
+        }
+        result.fkid_ = fkid_;
+        if (((from_bitField0_ & 0x00000010) == 0x00000010)) {
+          to_bitField0_ |= 0x00000010;
+        }
+        result.counter_ = counter_;
+        if (((from_bitField0_ & 0x00000020) == 0x00000020)) {
+          to_bitField0_ |= 0x00000020;
+        }
+        result.modifyDate_ = modifyDate_;
+        if (((from_bitField0_ & 0x00000040) == 0x00000040)) {
+          to_bitField0_ |= 0x00000040;
+        }
+        result.modifyLocation_ = modifyLocation_;
+        result.bitField0_ = to_bitField0_;
+        onBuilt();
+        return result;
+      }
+
+      public Builder mergeFrom(com.google.protobuf.Message other) {
+        if (other instanceof com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.FidoKeysCounter) {
+          return mergeFrom((com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.FidoKeysCounter)other);
+        } else {
+          super.mergeFrom(other);
+          return this;
+        }
+      }
+
+      public Builder mergeFrom(com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.FidoKeysCounter other) {
+        if (other == com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.FidoKeysCounter.getDefaultInstance()) return this;
+        if (other.hasSid()) {
+          setSid(other.getSid());
+        }
+        if (other.hasDid()) {
+          setDid(other.getDid());
+        }
+        if (other.hasUsername()) {
+          bitField0_ |= 0x00000004;
+          username_ = other.username_;
+          onChanged();
+        }
+        if (other.hasFkid()) {
+          setFkid(other.getFkid());
+        }
+        if (other.hasCounter()) {
+          setCounter(other.getCounter());
+        }
+        if (other.hasModifyDate()) {
+          setModifyDate(other.getModifyDate());
+        }
+        if (other.hasModifyLocation()) {
+          bitField0_ |= 0x00000040;
+          modifyLocation_ = other.modifyLocation_;
+          onChanged();
+        }
+        this.mergeUnknownFields(other.getUnknownFields());
+        return this;
+      }
+
+      public final boolean isInitialized() {
+        if (!hasSid()) {
+          
+          return false;
+        }
+        if (!hasDid()) {
+          
+          return false;
+        }
+        if (!hasUsername()) {
+          
+          return false;
+        }
+        if (!hasFkid()) {
+          
+          return false;
+        }
+        if (!hasCounter()) {
+          
+          return false;
+        }
+        return true;
+      }
+
+      public Builder mergeFrom(
+          com.google.protobuf.CodedInputStream input,
+          com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+          throws java.io.IOException {
+        com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.FidoKeysCounter parsedMessage = null;
+        try {
+          parsedMessage = PARSER.parsePartialFrom(input, extensionRegistry);
+        } catch (com.google.protobuf.InvalidProtocolBufferException e) {
+          parsedMessage = (com.strongkey.skfs.messaging.ZMQSKCEReplicationProtos.FidoKeysCounter) e.getUnfinishedMessage();
+          throw e;
+        } finally {
+          if (parsedMessage != null) {
+            mergeFrom(parsedMessage);
+          }
+        }
+        return this;
+      }
+      private int bitField0_;
+
+      private long sid_ ;
+      /**
+       * <code>required int64 sid = 1;</code>
+       */
+      public boolean hasSid() {
+        return ((bitField0_ & 0x00000001) == 0x00000001);
+      }
+      /**
+       * <code>required int64 sid = 1;</code>
+       */
+      public long getSid() {
+        return sid_;
+      }
+      /**
+       * <code>required int64 sid = 1;</code>
+       */
+      public Builder setSid(long value) {
+        bitField0_ |= 0x00000001;
+        sid_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>required int64 sid = 1;</code>
+       */
+      public Builder clearSid() {
+        bitField0_ = (bitField0_ & ~0x00000001);
+        sid_ = 0L;
+        onChanged();
+        return this;
+      }
+
+      private long did_ ;
+      /**
+       * <code>required int64 did = 2;</code>
+       */
+      public boolean hasDid() {
+        return ((bitField0_ & 0x00000002) == 0x00000002);
+      }
+      /**
+       * <code>required int64 did = 2;</code>
+       */
+      public long getDid() {
+        return did_;
+      }
+      /**
+       * <code>required int64 did = 2;</code>
+       */
+      public Builder setDid(long value) {
+        bitField0_ |= 0x00000002;
+        did_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>required int64 did = 2;</code>
+       */
+      public Builder clearDid() {
+        bitField0_ = (bitField0_ & ~0x00000002);
+        did_ = 0L;
+        onChanged();
+        return this;
+      }
+
+      private java.lang.Object username_ = "";
+      /**
+       * <code>required string username = 3;</code>
+       */
+      public boolean hasUsername() {
+        return ((bitField0_ & 0x00000004) == 0x00000004);
+      }
+      /**
+       * <code>required string username = 3;</code>
+       */
+      public java.lang.String getUsername() {
+        java.lang.Object ref = username_;
+        if (!(ref instanceof java.lang.String)) {
+          com.google.protobuf.ByteString bs =
+              (com.google.protobuf.ByteString) ref;
+          java.lang.String s = bs.toStringUtf8();
+          if (bs.isValidUtf8()) {
+            username_ = s;
+          }
+          return s;
+        } else {
+          return (java.lang.String) ref;
+        }
+      }
+      /**
+       * <code>required string username = 3;</code>
+       */
+      public com.google.protobuf.ByteString
+          getUsernameBytes() {
+        java.lang.Object ref = username_;
+        if (ref instanceof String) {
+          com.google.protobuf.ByteString b = 
+              com.google.protobuf.ByteString.copyFromUtf8(
+                  (java.lang.String) ref);
+          username_ = b;
+          return b;
+        } else {
+          return (com.google.protobuf.ByteString) ref;
+        }
+      }
+      /**
+       * <code>required string username = 3;</code>
+       */
+      public Builder setUsername(
+          java.lang.String value) {
+        if (value == null) {
+    throw new NullPointerException();
+  }
+  bitField0_ |= 0x00000004;
+        username_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>required string username = 3;</code>
+       */
+      public Builder clearUsername() {
+        bitField0_ = (bitField0_ & ~0x00000004);
+        username_ = getDefaultInstance().getUsername();
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>required string username = 3;</code>
+       */
+      public Builder setUsernameBytes(
+          com.google.protobuf.ByteString value) {
+        if (value == null) {
+    throw new NullPointerException();
+  }
+  bitField0_ |= 0x00000004;
+        username_ = value;
+        onChanged();
+        return this;
+      }
+
+      private long fkid_ ;
+      /**
+       * <code>required int64 fkid = 4;</code>
+       */
+      public boolean hasFkid() {
+        return ((bitField0_ & 0x00000008) == 0x00000008);
+      }
+      /**
+       * <code>required int64 fkid = 4;</code>
+       */
+      public long getFkid() {
+        return fkid_;
+      }
+      /**
+       * <code>required int64 fkid = 4;</code>
+       */
+      public Builder setFkid(long value) {
+        bitField0_ |= 0x00000008;
+        fkid_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>required int64 fkid = 4;</code>
+       */
+      public Builder clearFkid() {
+        bitField0_ = (bitField0_ & ~0x00000008);
+        fkid_ = 0L;
+        onChanged();
+        return this;
+      }
+
+      private long counter_ ;
+      /**
+       * <code>required int64 counter = 5;</code>
+       */
+      public boolean hasCounter() {
+        return ((bitField0_ & 0x00000010) == 0x00000010);
+      }
+      /**
+       * <code>required int64 counter = 5;</code>
+       */
+      public long getCounter() {
+        return counter_;
+      }
+      /**
+       * <code>required int64 counter = 5;</code>
+       */
+      public Builder setCounter(long value) {
+        bitField0_ |= 0x00000010;
+        counter_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>required int64 counter = 5;</code>
+       */
+      public Builder clearCounter() {
+        bitField0_ = (bitField0_ & ~0x00000010);
+        counter_ = 0L;
+        onChanged();
+        return this;
+      }
+
+      private long modifyDate_ ;
+      /**
+       * <code>optional int64 modify_date = 6;</code>
+       */
+      public boolean hasModifyDate() {
+        return ((bitField0_ & 0x00000020) == 0x00000020);
+      }
+      /**
+       * <code>optional int64 modify_date = 6;</code>
+       */
+      public long getModifyDate() {
+        return modifyDate_;
+      }
+      /**
+       * <code>optional int64 modify_date = 6;</code>
+       */
+      public Builder setModifyDate(long value) {
+        bitField0_ |= 0x00000020;
+        modifyDate_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>optional int64 modify_date = 6;</code>
+       */
+      public Builder clearModifyDate() {
+        bitField0_ = (bitField0_ & ~0x00000020);
+        modifyDate_ = 0L;
+        onChanged();
+        return this;
+      }
+
+      private java.lang.Object modifyLocation_ = "";
+      /**
+       * <code>optional string modify_location = 7;</code>
+       */
+      public boolean hasModifyLocation() {
+        return ((bitField0_ & 0x00000040) == 0x00000040);
+      }
+      /**
+       * <code>optional string modify_location = 7;</code>
+       */
+      public java.lang.String getModifyLocation() {
+        java.lang.Object ref = modifyLocation_;
+        if (!(ref instanceof java.lang.String)) {
+          com.google.protobuf.ByteString bs =
+              (com.google.protobuf.ByteString) ref;
+          java.lang.String s = bs.toStringUtf8();
+          if (bs.isValidUtf8()) {
+            modifyLocation_ = s;
+          }
+          return s;
+        } else {
+          return (java.lang.String) ref;
+        }
+      }
+      /**
+       * <code>optional string modify_location = 7;</code>
+       */
+      public com.google.protobuf.ByteString
+          getModifyLocationBytes() {
+        java.lang.Object ref = modifyLocation_;
+        if (ref instanceof String) {
+          com.google.protobuf.ByteString b = 
+              com.google.protobuf.ByteString.copyFromUtf8(
+                  (java.lang.String) ref);
+          modifyLocation_ = b;
+          return b;
+        } else {
+          return (com.google.protobuf.ByteString) ref;
+        }
+      }
+      /**
+       * <code>optional string modify_location = 7;</code>
+       */
+      public Builder setModifyLocation(
+          java.lang.String value) {
+        if (value == null) {
+    throw new NullPointerException();
+  }
+  bitField0_ |= 0x00000040;
+        modifyLocation_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>optional string modify_location = 7;</code>
+       */
+      public Builder clearModifyLocation() {
+        bitField0_ = (bitField0_ & ~0x00000040);
+        modifyLocation_ = getDefaultInstance().getModifyLocation();
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>optional string modify_location = 7;</code>
+       */
+      public Builder setModifyLocationBytes(
+          com.google.protobuf.ByteString value) {
+        if (value == null) {
+    throw new NullPointerException();
+  }
+  bitField0_ |= 0x00000040;
+        modifyLocation_ = value;
+        onChanged();
+        return this;
+      }
+
+      // @@protoc_insertion_point(builder_scope:com.strongkey.skfs.messaging.FidoKeysCounter)
+    }
+
+    static {
+      defaultInstance = new FidoKeysCounter(true);
+      defaultInstance.initFields();
+    }
+
+    // @@protoc_insertion_point(class_scope:com.strongkey.skfs.messaging.FidoKeysCounter)
+  }
+
   public interface KeepAliveOrBuilder extends
       // @@protoc_insertion_point(interface_extends:com.strongkey.skfs.messaging.KeepAlive)
       com.google.protobuf.MessageOrBuilder {
@@ -17763,6 +19514,16 @@ public final class ZMQSKCEReplicationProtos {
   private static
     com.google.protobuf.GeneratedMessage.FieldAccessorTable
       internal_static_com_strongkey_skfs_messaging_UserSessionInfo_fieldAccessorTable;
+  private static final com.google.protobuf.Descriptors.Descriptor
+    internal_static_com_strongkey_skfs_messaging_UserSessionInfoBatch_descriptor;
+  private static
+    com.google.protobuf.GeneratedMessage.FieldAccessorTable
+      internal_static_com_strongkey_skfs_messaging_UserSessionInfoBatch_fieldAccessorTable;
+  private static final com.google.protobuf.Descriptors.Descriptor
+    internal_static_com_strongkey_skfs_messaging_FidoKeysCounter_descriptor;
+  private static
+    com.google.protobuf.GeneratedMessage.FieldAccessorTable
+      internal_static_com_strongkey_skfs_messaging_FidoKeysCounter_fieldAccessorTable;
   private static final com.google.protobuf.Descriptors.Descriptor
     internal_static_com_strongkey_skfs_messaging_KeepAlive_descriptor;
   private static
@@ -17840,28 +19601,34 @@ public final class ZMQSKCEReplicationProtos {
       "\030\014 \001(\t\022\016\n\006mapkey\030\r \002(\t\022\016\n\006userid\030\016 \001(\t\022\020" +
       "\n\010usericon\030\017 \001(\t\022\030\n\020fidopolicymapkey\030\020 \001" +
       "(\t\022\033\n\023userVerificationReq\030\021 \001(\t\022\035\n\025attes" +
-      "tationPreferance\030\022 \001(\t\"\032\n\tKeepAlive\022\r\n\005d" +
-      "ummy\030\001 \002(\003\"\207\001\n\007Servers\022\013\n\003sid\030\001 \002(\003\022\014\n\004f",
-      "qdn\030\002 \002(\t\022\016\n\006status\030\003 \002(\t\022\030\n\020replication" +
-      "_role\030\004 \002(\t\022\032\n\022replication_status\030\005 \002(\t\022" +
-      "\014\n\004mask\030\006 \001(\t\022\r\n\005notes\030\007 \001(\t\"v\n\rServerDo" +
-      "mains\022\013\n\003sid\030\001 \002(\003\022\013\n\003did\030\002 \002(\003\022\025\n\rpseud" +
-      "o_number\030\003 \002(\t\022\016\n\006status\030\004 \002(\t\022\025\n\rmigrat" +
-      "ing_key\030\005 \001(\t\022\r\n\005notes\030\006 \001(\t\"\350\001\n\027Attesta" +
-      "tionCertificates\022\013\n\003sid\030\001 \002(\003\022\013\n\003did\030\002 \002" +
-      "(\003\022\016\n\006attcid\030\003 \002(\003\022\022\n\nparent_sid\030\004 \001(\003\022\022" +
-      "\n\nparent_did\030\005 \001(\003\022\025\n\rparent_attcid\030\006 \001(" +
-      "\003\022\023\n\013certificate\030\007 \002(\t\022\021\n\tissuer_dn\030\010 \002(",
-      "\t\022\022\n\nsubject_dn\030\t \002(\t\022\025\n\rserial_number\030\n" +
-      " \002(\t\022\021\n\tsignature\030\013 \001(\t\"\241\001\n\014FidoPolicies" +
-      "\022\013\n\003sid\030\001 \002(\003\022\013\n\003did\030\002 \002(\003\022\013\n\003pid\030\003 \002(\003\022" +
-      "\016\n\006policy\030\004 \002(\t\022\016\n\006status\030\005 \002(\t\022\r\n\005notes" +
-      "\030\006 \001(\t\022\023\n\013create_date\030\007 \002(\003\022\023\n\013modify_da" +
-      "te\030\010 \001(\003\022\021\n\tsignature\030\t \001(\t\"V\n\016Configura" +
-      "tions\022\013\n\003did\030\001 \002(\003\022\022\n\nconfig_key\030\002 \002(\t\022\024" +
-      "\n\014config_value\030\003 \002(\t\022\r\n\005notes\030\004 \001(\tB8\n\034c" +
-      "om.strongkey.skfs.messagingB\030ZMQSKCERepl" +
-      "icationProtos"
+      "tationPreferance\030\022 \001(\t\"W\n\024UserSessionInf" +
+      "oBatch\022?\n\010sessions\030\001 \003(\0132-.com.strongkey",
+      ".skfs.messaging.UserSessionInfo\"\212\001\n\017Fido" +
+      "KeysCounter\022\013\n\003sid\030\001 \002(\003\022\013\n\003did\030\002 \002(\003\022\020\n" +
+      "\010username\030\003 \002(\t\022\014\n\004fkid\030\004 \002(\003\022\017\n\007counter" +
+      "\030\005 \002(\003\022\023\n\013modify_date\030\006 \001(\003\022\027\n\017modify_lo" +
+      "cation\030\007 \001(\t\"\032\n\tKeepAlive\022\r\n\005dummy\030\001 \002(\003" +
+      "\"\207\001\n\007Servers\022\013\n\003sid\030\001 \002(\003\022\014\n\004fqdn\030\002 \002(\t\022" +
+      "\016\n\006status\030\003 \002(\t\022\030\n\020replication_role\030\004 \002(" +
+      "\t\022\032\n\022replication_status\030\005 \002(\t\022\014\n\004mask\030\006 " +
+      "\001(\t\022\r\n\005notes\030\007 \001(\t\"v\n\rServerDomains\022\013\n\003s" +
+      "id\030\001 \002(\003\022\013\n\003did\030\002 \002(\003\022\025\n\rpseudo_number\030\003",
+      " \002(\t\022\016\n\006status\030\004 \002(\t\022\025\n\rmigrating_key\030\005 " +
+      "\001(\t\022\r\n\005notes\030\006 \001(\t\"\350\001\n\027AttestationCertif" +
+      "icates\022\013\n\003sid\030\001 \002(\003\022\013\n\003did\030\002 \002(\003\022\016\n\006attc" +
+      "id\030\003 \002(\003\022\022\n\nparent_sid\030\004 \001(\003\022\022\n\nparent_d" +
+      "id\030\005 \001(\003\022\025\n\rparent_attcid\030\006 \001(\003\022\023\n\013certi" +
+      "ficate\030\007 \002(\t\022\021\n\tissuer_dn\030\010 \002(\t\022\022\n\nsubje" +
+      "ct_dn\030\t \002(\t\022\025\n\rserial_number\030\n \002(\t\022\021\n\tsi" +
+      "gnature\030\013 \001(\t\"\241\001\n\014FidoPolicies\022\013\n\003sid\030\001 " +
+      "\002(\003\022\013\n\003did\030\002 \002(\003\022\013\n\003pid\030\003 \002(\003\022\016\n\006policy\030" +
+      "\004 \002(\t\022\016\n\006status\030\005 \002(\t\022\r\n\005notes\030\006 \001(\t\022\023\n\013",
+      "create_date\030\007 \002(\003\022\023\n\013modify_date\030\010 \001(\003\022\021" +
+      "\n\tsignature\030\t \001(\t\"V\n\016Configurations\022\013\n\003d" +
+      "id\030\001 \002(\003\022\022\n\nconfig_key\030\002 \002(\t\022\024\n\014config_v" +
+      "alue\030\003 \002(\t\022\r\n\005notes\030\004 \001(\tB8\n\034com.strongk" +
+      "ey.skfs.messagingB\030ZMQSKCEReplicationPro" +
+      "tos"
     };
     com.google.protobuf.Descriptors.FileDescriptor.InternalDescriptorAssigner assigner =
         new com.google.protobuf.Descriptors.FileDescriptor.    InternalDescriptorAssigner() {
@@ -17899,38 +19666,50 @@ public final class ZMQSKCEReplicationProtos {
       com.google.protobuf.GeneratedMessage.FieldAccessorTable(
         internal_static_com_strongkey_skfs_messaging_UserSessionInfo_descriptor,
         new java.lang.String[] { "Username", "DisplayName", "RpName", "Nonce", "Appid", "Sessiontype", "Creationdate", "UserPublicKey", "Fkid", "Skid", "Sid", "Sessionid", "Mapkey", "Userid", "Usericon", "Fidopolicymapkey", "UserVerificationReq", "AttestationPreferance", });
-    internal_static_com_strongkey_skfs_messaging_KeepAlive_descriptor =
+    internal_static_com_strongkey_skfs_messaging_UserSessionInfoBatch_descriptor =
       getDescriptor().getMessageTypes().get(4);
+    internal_static_com_strongkey_skfs_messaging_UserSessionInfoBatch_fieldAccessorTable = new
+      com.google.protobuf.GeneratedMessage.FieldAccessorTable(
+        internal_static_com_strongkey_skfs_messaging_UserSessionInfoBatch_descriptor,
+        new java.lang.String[] { "Sessions", });
+    internal_static_com_strongkey_skfs_messaging_FidoKeysCounter_descriptor =
+      getDescriptor().getMessageTypes().get(5);
+    internal_static_com_strongkey_skfs_messaging_FidoKeysCounter_fieldAccessorTable = new
+      com.google.protobuf.GeneratedMessage.FieldAccessorTable(
+        internal_static_com_strongkey_skfs_messaging_FidoKeysCounter_descriptor,
+        new java.lang.String[] { "Sid", "Did", "Username", "Fkid", "Counter", "ModifyDate", "ModifyLocation", });
+    internal_static_com_strongkey_skfs_messaging_KeepAlive_descriptor =
+      getDescriptor().getMessageTypes().get(6);
     internal_static_com_strongkey_skfs_messaging_KeepAlive_fieldAccessorTable = new
       com.google.protobuf.GeneratedMessage.FieldAccessorTable(
         internal_static_com_strongkey_skfs_messaging_KeepAlive_descriptor,
         new java.lang.String[] { "Dummy", });
     internal_static_com_strongkey_skfs_messaging_Servers_descriptor =
-      getDescriptor().getMessageTypes().get(5);
+      getDescriptor().getMessageTypes().get(7);
     internal_static_com_strongkey_skfs_messaging_Servers_fieldAccessorTable = new
       com.google.protobuf.GeneratedMessage.FieldAccessorTable(
         internal_static_com_strongkey_skfs_messaging_Servers_descriptor,
         new java.lang.String[] { "Sid", "Fqdn", "Status", "ReplicationRole", "ReplicationStatus", "Mask", "Notes", });
     internal_static_com_strongkey_skfs_messaging_ServerDomains_descriptor =
-      getDescriptor().getMessageTypes().get(6);
+      getDescriptor().getMessageTypes().get(8);
     internal_static_com_strongkey_skfs_messaging_ServerDomains_fieldAccessorTable = new
       com.google.protobuf.GeneratedMessage.FieldAccessorTable(
         internal_static_com_strongkey_skfs_messaging_ServerDomains_descriptor,
         new java.lang.String[] { "Sid", "Did", "PseudoNumber", "Status", "MigratingKey", "Notes", });
     internal_static_com_strongkey_skfs_messaging_AttestationCertificates_descriptor =
-      getDescriptor().getMessageTypes().get(7);
+      getDescriptor().getMessageTypes().get(9);
     internal_static_com_strongkey_skfs_messaging_AttestationCertificates_fieldAccessorTable = new
       com.google.protobuf.GeneratedMessage.FieldAccessorTable(
         internal_static_com_strongkey_skfs_messaging_AttestationCertificates_descriptor,
         new java.lang.String[] { "Sid", "Did", "Attcid", "ParentSid", "ParentDid", "ParentAttcid", "Certificate", "IssuerDn", "SubjectDn", "SerialNumber", "Signature", });
     internal_static_com_strongkey_skfs_messaging_FidoPolicies_descriptor =
-      getDescriptor().getMessageTypes().get(8);
+      getDescriptor().getMessageTypes().get(10);
     internal_static_com_strongkey_skfs_messaging_FidoPolicies_fieldAccessorTable = new
       com.google.protobuf.GeneratedMessage.FieldAccessorTable(
         internal_static_com_strongkey_skfs_messaging_FidoPolicies_descriptor,
         new java.lang.String[] { "Sid", "Did", "Pid", "Policy", "Status", "Notes", "CreateDate", "ModifyDate", "Signature", });
     internal_static_com_strongkey_skfs_messaging_Configurations_descriptor =
-      getDescriptor().getMessageTypes().get(9);
+      getDescriptor().getMessageTypes().get(11);
     internal_static_com_strongkey_skfs_messaging_Configurations_fieldAccessorTable = new
       com.google.protobuf.GeneratedMessage.FieldAccessorTable(
         internal_static_com_strongkey_skfs_messaging_Configurations_descriptor,
@@ -14,6 +14,7 @@ import com.strongkey.appliance.utilities.applianceCommon;
 import com.strongkey.appliance.utilities.applianceConstants;
 import com.strongkey.appliance.utilities.applianceMaps;
 import com.strongkey.appliance.utilities.strongkeyLogger;
+import com.strongkey.skce.pojos.FidoKeysInfo;
 import com.strongkey.skce.pojos.MDSClient;
 import com.strongkey.skce.pojos.UserSessionInfo;
 import com.strongkey.skce.txbeans.persistSKCEObjectRemote;
@@ -30,17 +31,26 @@ import com.strongkey.skfs.entitybeans.FidoUsers;
 import com.strongkey.skfs.entitybeans.FidoUsersPK;
 import com.strongkey.skfs.fido.policyobjects.FidoPolicyObject;
 import com.strongkey.skfs.pojos.FidoPolicyMDSObject;
+import com.strongkey.skfs.txbeans.flushSignatureCountersLocal;
+import com.strongkey.skfs.utilities.AttestationCertificateIndex;
+import com.strongkey.skfs.utilities.CredentialDirectory;
+import com.strongkey.skfs.utilities.CredentialIdIndex;
+import com.strongkey.skfs.utilities.DomainCache;
+import com.strongkey.skfs.utilities.FidoPolicyCache;
 import com.strongkey.skfs.utilities.SKFEException;
 import com.strongkey.skfs.utilities.SKFSCommon;
 import com.strongkey.skfs.utilities.SKIllegalArgumentException;
 import java.util.Date;
+import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.annotation.Resource;
+import javax.ejb.EJB;
 import javax.ejb.SessionContext;
 import javax.ejb.Stateless;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import javax.transaction.TransactionSynchronizationRegistry;
 
 
 @Stateless
@@ -56,6 +66,8 @@ public class persistSKCEObject implements persistSKCEObjectLocal, persistSKCEObj
      **/
     @Resource private SessionContext            sc;         // For JTA management
     @PersistenceContext private EntityManager   em;         // For JPA management
+    @Resource private TransactionSynchronizationRegistry tsr; // For indexing on commit
+    @EJB private flushSignatureCountersLocal    flushcounterejb;
 
     private FidoKeys            fidokeys,           fkresult;
     private FidoUsers           fidousers,          furesult;
@@ -147,6 +159,7 @@ public class persistSKCEObject implements persistSKCEObjectLocal, persistSKCEObj
                     switch (objectop) {
                         case applianceConstants.REPLICATION_OPERATION_ADD:
                             em.persist(fidokeys);
+                            CredentialIdIndex.putOnCommit(tsr, fidokeys.getFidoKeysPK(), fidokeys.getKeyhandle());
                             strongkeyLogger.logp(skceConstants.SKEE_LOGGER,Level.INFO, classname, "execute", "SKCE-MSG-6036", "Constants.ENTITY_TYPE_FIDOKEYS [" + pkey + "]");
                             break;
                         case applianceConstants.REPLICATION_OPERATION_DELETE:
@@ -165,17 +178,58 @@ public class persistSKCEObject implements persistSKCEObjectLocal, persistSKCEObj
                             strongkeyLogger.logp(skceConstants.SKEE_LOGGER,Level.WARNING, classname, "execute", "SKCE-ERR-6011", "Constants.ENTITY_TYPE_FIDOKEYS [" + pkey + "]");
                             break;
                         case applianceConstants.REPLICATION_OPERATION_UPDATE:
+                            // Counter updates are replicated separately and may have overtaken this row
+                            if (fkresult.getCounter() > fidokeys.getCounter()) {
+                                fidokeys.setCounter(fkresult.getCounter());
+                            }
                             em.merge(fidokeys);
+                            SKFSCommon.removeVerifiedRowSignature(sid + "-" + did + "-" + fidouser + "-" + fkid);
                             strongkeyLogger.logp(skceConstants.SKEE_LOGGER,Level.INFO, classname, "execute", "SKCE-MSG-6037", "Constants.ENTITY_TYPE_FIDOKEYS [" + pkey + "]");
                             break;
                         case applianceConstants.REPLICATION_OPERATION_DELETE:
                             em.remove(fkresult);
+                            CredentialIdIndex.remove(did, fkresult.getKeyhandle());
+                            SKFSCommon.removeVerifiedRowSignature(sid + "-" + did + "-" + fidouser + "-" + fkid);
+                            SKFSCommon.removeUserPublicKey(sid + "-" + did + "-" + fkid);
                             strongkeyLogger.logp(skceConstants.SKEE_LOGGER,Level.INFO, classname, "execute", "SKCE-MSG-6038", "Constants.ENTITY_TYPE_FIDOKEYS [" + pkey + "]");
                             break;
                         default:
                             break;
                     }
                 }
+                CredentialDirectory.invalidateOnCommit(tsr, did, fidouser);
+                break;
+
+                /*
+             * Only UPDATE allowed for Fido Keys counters; the counter is
+             * written by flushSignatureCounters and only moves forward
+             */
+            case applianceConstants.ENTITY_TYPE_FIDO_KEYS_COUNTER:
+
+                strongkeyLogger.logp(skceConstants.SKEE_LOGGER,Level.FINE, classname, "execute", "SKCE-MSG-6034", repobjpk + " containing ENTITY_TYPE_FIDO_KEYS_COUNTER [" + objectpk + "]");
+
+                FidoKeysCounter fkcounter;
+                try {
+                    fkcounter = FidoKeysCounter.parseFrom(msg);
+                } catch (IllegalArgumentException | SKIllegalArgumentException | InvalidProtocolBufferException ex) {
+                    strongkeyLogger.logp(skceConstants.SKEE_LOGGER,Level.WARNING, classname, "execute", "SKCE-ERR-6009", "Constants.ENTITY_TYPE_FIDO_KEYS_COUNTER [" + objectpk  + "]");
+                    Logger.getLogger(persistSKCEObject.class.getName()).log(Level.SEVERE, null, ex);
+                    // Break from switch since we have an error in the proto message
+                    isValid = false;
+                    break;
+                }
+
+                if (objectop == applianceConstants.REPLICATION_OPERATION_UPDATE) {
+                    flushcounterejb.execute(fkcounter);
+                    CredentialDirectory.updateCounter(fkcounter);
+                    FidoKeysInfo fkinfo = (FidoKeysInfo) skceMaps.getMapObj().get(skceConstants.MAP_FIDO_KEYS, fkcounter.getMapkey());
+                    if (fkinfo != null && fkinfo.getFk() != null && fkinfo.getFk().getCounter() < fkcounter.getCounter()) {
+                        fkinfo.getFk().setCounter(fkcounter.getCounter());
+                        fkinfo.getFk().setModifyDate(fkcounter.getModifyDate());
+                        fkinfo.getFk().setModifyLocation(fkcounter.getModifyLocation());
+                    }
+                    strongkeyLogger.logp(skceConstants.SKEE_LOGGER,Level.INFO, classname, "execute", "SKCE-MSG-6037", "Constants.ENTITY_TYPE_FIDO_KEYS_COUNTER [" + fkcounter + "]");
+                }
                 break;
 
                 /*
@@ -260,26 +314,7 @@ public class persistSKCEObject implements persistSKCEObjectLocal, persistSKCEObj
                 ZMQSKCEReplicationProtos.UserSessionInfo usiproto;
                 try {
                     usiproto = ZMQSKCEReplicationProtos.UserSessionInfo.parseFrom(msg);
-                    usersessioninfo = new UserSessionInfo();
-                    usersessioninfo.setUsername(usiproto.getUsername());
-                    usersessioninfo.setNonce(usiproto.getNonce());
-                    usersessioninfo.setAppid(usiproto.getAppid());
-                    usersessioninfo.setSessiontype(usiproto.getSessiontype());
-                    usersessioninfo.setCreationdate(new Date());
-                    usersessioninfo.setUserPublicKey(usiproto.getUserPublicKey());
-                    usersessioninfo.setMapkey(usiproto.getMapkey());
-
-                    if(usiproto.hasDisplayName()) usersessioninfo.setDisplayName(usiproto.getDisplayName());
-                    if(usiproto.hasRpName()) usersessioninfo.setRpName(usiproto.getRpName());
-                    if(usiproto.hasFkid()) usersessioninfo.setFkid((int) usiproto.getFkid());
-                    if(usiproto.hasSkid()) usersessioninfo.setSkid((short) usiproto.getSkid());
-                    if(usiproto.hasSid()) usersessioninfo.setSid((short) usiproto.getSid());
-                    if(usiproto.hasSessionid()) usersessioninfo.setSessionid(usiproto.getSessionid());
-                    if(usiproto.hasUserid()) usersessioninfo.setUserId(usiproto.getUserid());
-                    if(usiproto.hasUsericon()) usersessioninfo.setUserIcon(usiproto.getUsericon());
-                    if(usiproto.hasFidopolicymapkey()) usersessioninfo.setPolicyMapKey(usiproto.getFidopolicymapkey());
-                    if(usiproto.hasAttestationPreferance()) usersessioninfo.setAttestationPreferance(usiproto.getAttestationPreferance());
-                    if(usiproto.hasUserVerificationReq()) usersessioninfo.setuserVerificationReq(usiproto.getUserVerificationReq());
+                    usersessioninfo = UserSessionInfoBatch.fromProto(usiproto);
                 } catch (IllegalArgumentException | SKIllegalArgumentException | InvalidProtocolBufferException ex) {
                     strongkeyLogger.logp(skceConstants.SKEE_LOGGER,Level.WARNING, classname, "execute", "SKCE-ERR-6009", "Constants.ENTITY_TYPE_MAP_USER_SESSION_INFO [" + objectpk  + "]");
                     Logger.getLogger(persistSKCEObject.class.getName()).log(Level.SEVERE, null, ex);
@@ -296,6 +331,32 @@ public class persistSKCEObject implements persistSKCEObjectLocal, persistSKCEObj
                 }
                 break;
 
+            /*
+             * All sessions of a batch are parsed before any of them is added
+             * to the map, so a batch is applied completely or not at all
+             */
+            case applianceConstants.ENTITY_TYPE_MAP_USER_SESSION_INFO_BATCH:
+
+                strongkeyLogger.logp(skceConstants.SKEE_LOGGER,Level.FINE, classname, "execute", "SKCE-MSG-6034", repobjpk + " containing ENTITY_TYPE_MAP_USER_SESSION_INFO_BATCH [" + objectpk + "]");
+
+                List<UserSessionInfo> sessions;
+                try {
+                    sessions = UserSessionInfoBatch.parseFrom(msg);
+                } catch (IllegalArgumentException | SKIllegalArgumentException | InvalidProtocolBufferException ex) {
+                    strongkeyLogger.logp(skceConstants.SKEE_LOGGER,Level.WARNING, classname, "execute", "SKCE-ERR-6009", "Constants.ENTITY_TYPE_MAP_USER_SESSION_INFO_BATCH [" + objectpk  + "]");
+                    Logger.getLogger(persistSKCEObject.class.getName()).log(Level.SEVERE, null, ex);
+                    // Break from switch since we have an error in the proto message
+                    isValid = false;
+                    break;
+                }
+
+                if (objectop == applianceConstants.REPLICATION_OPERATION_HASHMAP_ADD) {
+                    for (UserSessionInfo session : sessions) {
+                        skceMaps.getMapObj().put(skceConstants.MAP_USER_SESSION_INFO, session.getMapkey(), session);
+                    }
+                }
+                break;
+
                 /*
              * Only ADD and UPDATE allowed for Domains
              */
@@ -340,6 +401,7 @@ public class persistSKCEObject implements persistSKCEObjectLocal, persistSKCEObj
                         em.persist(domains);
                         strongkeyLogger.logp(skceConstants.SKEE_LOGGER,Level.INFO, classname, "execute", "SKCE-MSG-6036", "Constants.ENTITY_TYPE_DOMAINS [" + pkey + "]");
                         applianceMaps.putDomain(did, domains);
+                        DomainCache.putOnCommit(tsr, domains);
                     } else {
                         // Invalid operation
                         strongkeyLogger.logp(skceConstants.SKEE_LOGGER,Level.WARNING, classname, "execute", "SKCE-ERR-6012", "Constants.ENTITY_TYPE_DOMAINS [" + pkey + "]");
@@ -352,6 +414,7 @@ public class persistSKCEObject implements persistSKCEObjectLocal, persistSKCEObj
                         em.merge(domains);
                         strongkeyLogger.logp(skceConstants.SKEE_LOGGER,Level.INFO, classname, "execute", "SKCE-MSG-6037", "Constants.ENTITY_TYPE_DOMAINS [" + pkey + "]");
                         applianceMaps.putDomain(did, domains);
+                        DomainCache.putOnCommit(tsr, domains);
                     }
                 }
                 break;
@@ -420,7 +483,7 @@ public class persistSKCEObject implements persistSKCEObjectLocal, persistSKCEObj
                                     (long) fidopolicies.getFidoPoliciesPK().getPid());
                             MDSClient mds = null;
 
-                            skceMaps.getMapObj().put(skceConstants.MAP_FIDO_POLICIES, fpMapkey, new FidoPolicyMDSObject(fidoPolicyObject, mds));
+                            FidoPolicyCache.put(fpMapkey, new FidoPolicyMDSObject(fidoPolicyObject, mds));
                         } else {
                             // Invalid operation on a non-existent object
                             strongkeyLogger.logp(skceConstants.SKFE_LOGGER, Level.WARNING, classname, "execute", "SKCE-ERR-6010", "Constants.ENTITY_TYPE_FIDOPOLICY [" + pkey + "]");
@@ -443,12 +506,12 @@ public class persistSKCEObject implements persistSKCEObjectLocal, persistSKCEObj
                                         (long) fidopolicies.getFidoPoliciesPK().getPid());
                                 MDSClient mds = null;
 
-                                skceMaps.getMapObj().put(skceConstants.MAP_FIDO_POLICIES, fpMapkey, new FidoPolicyMDSObject(fidoPolicyObject, mds));
+                                FidoPolicyCache.put(fpMapkey, new FidoPolicyMDSObject(fidoPolicyObject, mds));
                                 break;
                             case applianceConstants.REPLICATION_OPERATION_DELETE:
                                 em.remove(fpresult);
                                 strongkeyLogger.logp(skceConstants.SKFE_LOGGER, Level.INFO, classname, "execute", "SKCE-MSG-6038", "Constants.ENTITY_TYPE_FIDOPOLICY [" + pkey + "]");
-                                skceMaps.getMapObj().remove(skceConstants.MAP_FIDO_POLICIES, fpMapkey);
+                                FidoPolicyCache.remove(fpMapkey);
                                 break;
                             default:
                                 break;
@@ -516,6 +579,7 @@ public class persistSKCEObject implements persistSKCEObjectLocal, persistSKCEObj
                     strongkeyLogger.logp(skceConstants.SKFE_LOGGER, Level.FINE, classname, "execute", "SKCE-MSG-6035", "Constants.ENTITY_TYPE_ATTESTATION_CERTIFICATES [" + pkey + "]");
                     if (objectop == applianceConstants.REPLICATION_OPERATION_ADD) {
                         em.persist(attestationcertificates);
+                        AttestationCertificateIndex.putOnCommit(tsr, attestationcertificates);
                         strongkeyLogger.logp(skceConstants.SKFE_LOGGER, Level.INFO, classname, "execute", "SKCE-MSG-6036", "Constants.ENTITY_TYPE_ATTESTATION_CERTIFICATES [" + pkey + "]");
                     } else {
                         // Invalid operation on a non-existent object
@@ -529,10 +593,13 @@ public class persistSKCEObject implements persistSKCEObjectLocal, persistSKCEObj
                             break;
                         case applianceConstants.REPLICATION_OPERATION_UPDATE:
                             em.merge(attestationcertificates);
+                            AttestationCertificateIndex.remove(acresult);
+                            AttestationCertificateIndex.putOnCommit(tsr, attestationcertificates);
                             strongkeyLogger.logp(skceConstants.SKFE_LOGGER, Level.INFO, classname, "execute", "SKCE-MSG-6037", "Constants.ENTITY_TYPE_ATTESTATION_CERTIFICATES [" + pkey + "]");
                             break;
                         case applianceConstants.REPLICATION_OPERATION_DELETE:
                             em.remove(acresult);
+                            AttestationCertificateIndex.remove(acresult);
                             strongkeyLogger.logp(skceConstants.SKFE_LOGGER, Level.INFO, classname, "execute", "SKCE-MSG-6038", "Constants.ENTITY_TYPE_ATTESTATION_CERTIFICATES [" + pkey + "]");
                             break;
                         default:
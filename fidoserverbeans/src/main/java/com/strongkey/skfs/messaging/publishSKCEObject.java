@@ -18,6 +18,7 @@ import com.strongkey.skfe.entitybeans.FidoKeys;
 import com.strongkey.skfs.entitybeans.AttestationCertificates;
 import com.strongkey.skfs.entitybeans.FidoPolicies;
 import com.strongkey.skfs.entitybeans.FidoUsers;
+import java.util.List;
 import java.util.logging.Level;
 import javax.ejb.Asynchronous;
 import javax.ejb.Stateless;
@@ -99,6 +100,12 @@ public class publishSKCEObject implements publishSKCEObjectLocal, publishSKCEObj
                 objectbytes = fkproto.toByteArray();
                 break;
 
+            case applianceConstants.ENTITY_TYPE_FIDO_KEYS_COUNTER:
+                FidoKeysCounter fkcbean = (FidoKeysCounter) obj;
+                strongkeyLogger.logp(skceConstants.SKEE_LOGGER,Level.FINE, classname, "run", "SKCE-MSG-6007", fkcbean.toString());
+                objectbytes = fkcbean.toByteArray();
+                break;
+
             case applianceConstants.ENTITY_TYPE_FIDO_USERS:
                 FidoUsers fubean = (FidoUsers) obj;
                 ZMQSKCEReplicationProtos.FidoUsers.Builder fubuilder = ZMQSKCEReplicationProtos.FidoUsers.newBuilder();
@@ -140,53 +147,18 @@ public class publishSKCEObject implements publishSKCEObjectLocal, publishSKCEObj
 
             case applianceConstants.ENTITY_TYPE_MAP_USER_SESSION_INFO:
                 UserSessionInfo usibean = (UserSessionInfo) obj;
-                ZMQSKCEReplicationProtos.UserSessionInfo.Builder usibuilder = ZMQSKCEReplicationProtos.UserSessionInfo.newBuilder();
-                // First deal with attributes that might be null
-                if (usibean.getSkid() != null) {
-                    usibuilder.setSkid(usibean.getSkid());
-                }
-                if (usibean.getDisplayName()!= null) {
-                    usibuilder.setDisplayName(usibean.getDisplayName());
-                }
-                if (usibean.getRpName()!= null) {
-                    usibuilder.setRpName(usibean.getRpName());
-                }
-                if (usibean.getSid() != null) {
-                    usibuilder.setSid(usibean.getSid());
-                }
-                if (usibean.getSessionid() != null) {
-                    usibuilder.setSessionid(usibean.getSessionid());
-                }
-                if (usibean.getUserId() != null){
-                    usibuilder.setUserid(usibean.getUserId());
-                }
-                if (usibean.getUserIcon() != null){
-                    usibuilder.setUsericon(usibean.getUserIcon());
-                }
-                if (usibean.getPolicyMapKey() != null){
-                    usibuilder.setFidopolicymapkey(usibean.getPolicyMapKey());
-                }
-                if (usibean.getAttestationPreferance()!= null){
-                    usibuilder.setAttestationPreferance(usibean.getAttestationPreferance());
-                }
-                if (usibean.getUserVerificationReq()!= null){
-                    usibuilder.setUserVerificationReq(usibean.getUserVerificationReq());
-                }
-                ZMQSKCEReplicationProtos.UserSessionInfo usiproto
-                        = usibuilder
-                        .setUsername(usibean.getUsername())
-                        .setNonce(usibean.getNonce())
-                        .setAppid(usibean.getAppid())
-                        .setSessiontype(usibean.getSessiontype())
-                        .setCreationdate(usibean.getCreationdate().getTime())
-                        .setUserPublicKey(usibean.getUserPublicKey())
-                        .setFkid(usibean.getFkid())
-                        .setMapkey(usibean.getMapkey())
-                        .build();
+                ZMQSKCEReplicationProtos.UserSessionInfo usiproto = UserSessionInfoBatch.toProto(usibean);
                 strongkeyLogger.logp(skceConstants.SKEE_LOGGER,Level.FINE, classname, "run", "SKCE-MSG-6007", usiproto.toString());
                 objectbytes = usiproto.toByteArray();
                 break;
 
+            case applianceConstants.ENTITY_TYPE_MAP_USER_SESSION_INFO_BATCH:
+                @SuppressWarnings("unchecked")
+                List<UserSessionInfo> usibeans = (List<UserSessionInfo>) obj;
+                objectbytes = UserSessionInfoBatch.toByteArray(usibeans);
+                strongkeyLogger.logp(skceConstants.SKEE_LOGGER,Level.FINE, classname, "run", "SKCE-MSG-6007", "UserSessionInfoBatch [" + usibeans.size() + " sessions]");
+                break;
+
                case applianceConstants.ENTITY_TYPE_DOMAINS:
                 Domains dbean = (Domains) obj;
                 // First deal with attributes that might be null
@@ -13,10 +13,12 @@ import com.strongkey.appliance.utilities.strongkeyLogger;
 import com.strongkey.skce.pojos.UserSessionInfo;
 import com.strongkey.skce.utilities.skceCommon;
 import com.strongkey.skce.utilities.skceConstants;
+import com.strongkey.skce.utilities.skceMetrics;
 import com.strongkey.skfe.entitybeans.FidoKeys;
 import com.strongkey.skfs.entitybeans.AttestationCertificates;
 import com.strongkey.skfs.entitybeans.FidoPolicies;
 import com.strongkey.skfs.entitybeans.FidoUsers;
+import java.util.List;
 import java.util.logging.Level;
 import javax.annotation.Resource;
 import javax.ejb.EJB;
@@ -46,6 +48,15 @@ public class replicateSKFEObjectBean implements replicateSKFEObjectBeanLocal {
 
     @Override
     public String execute(Integer entityType, Integer replicationOperation, String primarykey, Object obj) {
+        long start = System.nanoTime();
+        try {
+            return replicate(entityType, replicationOperation, primarykey, obj);
+        } finally {
+            skceMetrics.PHASE_REPLICATION.recordSince(start);
+        }
+    }
+
+    private String replicate(Integer entityType, Integer replicationOperation, String primarykey, Object obj) {
 
         //Json return object
         JsonObject retObj;
@@ -69,6 +80,10 @@ public class replicateSKFEObjectBean implements replicateSKFEObjectBeanLocal {
                     FidoKeys fk = (FidoKeys) obj;
                     publishSKCEObj.execute(replpk, entityType, replicationOperation, primarykey, fk);
                     break;
+                case applianceConstants.ENTITY_TYPE_FIDO_KEYS_COUNTER:
+                    FidoKeysCounter fkc = (FidoKeysCounter) obj;
+                    publishSKCEObj.execute(replpk, entityType, replicationOperation, primarykey, fkc);
+                    break;
                 case applianceConstants.ENTITY_TYPE_FIDO_POLICIES:
                     FidoPolicies fp = (FidoPolicies) obj;
                     publishSKCEObj.execute(replpk, entityType, replicationOperation, primarykey, fp);
@@ -89,6 +104,11 @@ public class replicateSKFEObjectBean implements replicateSKFEObjectBeanLocal {
                     UserSessionInfo session = (UserSessionInfo) obj;
                     publishSKCEObj.execute(replpk, entityType, replicationOperation, primarykey, session);
                     break;
+                case applianceConstants.ENTITY_TYPE_MAP_USER_SESSION_INFO_BATCH:
+                    @SuppressWarnings("unchecked")
+                    List<UserSessionInfo> sessions = (List<UserSessionInfo>) obj;
+                    publishSKCEObj.execute(replpk, entityType, replicationOperation, primarykey, sessions);
+                    break;
                 default:
                     break;
             }
@@ -0,0 +1,45 @@
+/**
+* Copyright StrongAuth, Inc. All Rights Reserved.
+*
+* Use of this source code is governed by the GNU Lesser General Public License v2.1
+* The license can be found at https://github.com/StrongKey/fido2/blob/master/LICENSE
+*/
+
+package com.strongkey.skfs.pojos;
+
+/**
+ * Status of an authenticator in the status reports of the FIDO MDS 3
+ * (AuthenticatorStatus of the FIDO Metadata Service specification).
+ */
+public enum AuthenticatorStatus {
+    NOT_FIDO_CERTIFIED,
+    FIDO_CERTIFIED,
+    USER_VERIFICATION_BYPASS,
+    ATTESTATION_KEY_COMPROMISE,
+    USER_KEY_REMOTE_COMPROMISE,
+    USER_KEY_PHYSICAL_COMPROMISE,
+    UPDATE_AVAILABLE,
+    REVOKED,
+    SELF_ASSERTION_SUBMITTED,
+    FIDO_CERTIFIED_L1,
+    FIDO_CERTIFIED_L1plus,
+    FIDO_CERTIFIED_L2,
+    FIDO_CERTIFIED_L2plus,
+    FIDO_CERTIFIED_L3,
+    FIDO_CERTIFIED_L3plus;
+
+    /**
+     * @param status - status as written in the MDS or a policy
+     * @return the status, or null if it is not a known status
+     */
+    public static AuthenticatorStatus parse(String status) {
+        if (status == null) {
+            return null;
+        }
+        try {
+            return valueOf(status);
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/**
+* Copyright StrongAuth, Inc. All Rights Reserved.
+*
+* Use of this source code is governed by the GNU Lesser General Public License v2.1
+* The license can be found at https://github.com/StrongKey/fido2/blob/master/LICENSE
+*/
+
+package com.strongkey.skfs.pojos;
+
+import com.strongkey.skfs.utilities.SKFSConstants;
+import javax.json.Json;
+import javax.json.JsonArray;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+
+/**
+ * POJO to hold the result of a FIDO2 authentication or authorization until it
+ * is sent back to the calling application.
+ */
+public class FIDO2AuthenticationResult {
+
+    /**
+     * Local variables
+     */
+    private String response = "";
+    private String jwt = "";
+    private JsonObject txdetail = null;
+    private JsonArray authenticatorReferences = null;
+    private String username = null;
+
+    /**
+     * Constructor for the result of an authentication.
+     *
+     * @param response
+     * @param jwt
+     */
+    public FIDO2AuthenticationResult(String response, String jwt) {
+        if (response != null) {
+            this.response = response;
+        }
+        if (jwt != null) {
+            this.jwt = jwt;
+        }
+    }
+
+    /**
+     * Constructor for the result of an authorization.
+     *
+     * @param response
+     * @param txdetail
+     * @param authenticatorReferences
+     */
+    public FIDO2AuthenticationResult(String response, JsonObject txdetail, JsonArray authenticatorReferences) {
+        if (response != null) {
+            this.response = response;
+        }
+        this.txdetail = txdetail;
+        this.authenticatorReferences = authenticatorReferences;
+    }
+
+    public String getResponse() {
+        return response;
+    }
+
+    public String getJwt() {
+        return jwt;
+    }
+
+    public JsonObject getTxdetail() {
+        return txdetail;
+    }
+
+    public JsonArray getAuthenticatorReferences() {
+        return authenticatorReferences;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    /**
+     * Sets the username of the key found from the credential ID, for
+     * authentications with a discoverable credential, so the calling
+     * application learns who authenticated.
+     *
+     * @param username
+     */
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public boolean isAuthorization() {
+        return txdetail != null;
+    }
+
+    /**
+     * Over-ridden toString method to print the object content in a readable
+     * manner
+     * @return  String with object content laid in a readable manner.
+     */
+    @Override
+    public String toString() {
+        return "\n\tresponse    = " + this.response
+                + "\n\tjwt         = " + this.jwt
+                + "\n\ttxdetail    = " + this.txdetail;
+    }
+
+    /**
+     * Constructs this class object as a Json to be passed back to the client.
+     *
+     * @return  - String object of the Json representation of this object
+     */
+    public String toJsonString() {
+        JsonObjectBuilder job = Json.createObjectBuilder();
+        job.add(SKFSConstants.JSON_KEY_SERVLET_RETURN_RESPONSE, response);
+        if (isAuthorization()) {
+            job.add(SKFSConstants.TX_DETAIL, txdetail);
+            job.add(SKFSConstants.FIDOAuthenticatorReferences, authenticatorReferences);
+        } else {
+            job.add("jwt", jwt);
+            if (username != null) {
+                job.add("username", username);
+            }
+        }
+        return job.build().toString();
+    }
+}
@@ -0,0 +1,126 @@
+/**
+* Copyright StrongAuth, Inc. All Rights Reserved.
+*
+* Use of this source code is governed by the GNU Lesser General Public License v2.1
+* The license can be found at https://github.com/StrongKey/fido2/blob/master/LICENSE
+*/
+
+package com.strongkey.skfs.pojos;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.TreeMap;
+import javax.json.JsonArray;
+import javax.json.JsonObject;
+
+/**
+ * An MDS entry compiled, when the MDS is cached, into what the registration
+ * policy checks need: the status reports as a timeline of epoch days.
+ * Instances are immutable.
+ */
+public final class MDSAuthenticator {
+
+    // No report of the status
+    private static final long NONE = Long.MAX_VALUE;
+
+    private static final AuthenticatorStatus[] STATUSES = AuthenticatorStatus.values();
+
+    // Status reports by effective date, ascending; a date with several
+    // reports has the status of the last one
+    private final long[] timelineDays;
+    private final AuthenticatorStatus[] timelineStatuses;
+
+    // Effective date of the last report of each status, by ordinal
+    private final long[] effectiveDays;
+
+    private MDSAuthenticator(long[] timelineDays, AuthenticatorStatus[] timelineStatuses, long[] effectiveDays) {
+        this.timelineDays = timelineDays;
+        this.timelineStatuses = timelineStatuses;
+        this.effectiveDays = effectiveDays;
+    }
+
+    /**
+     * Compiles an MDS entry. Status reports with an unknown status or no
+     * valid effective date are left out.
+     *
+     * @param entry - the MDS entry
+     * @return MDSAuthenticator
+     */
+    public static MDSAuthenticator compile(JsonObject entry) {
+        long[] effective = new long[STATUSES.length];
+        Arrays.fill(effective, NONE);
+        TreeMap<Long, AuthenticatorStatus> timeline = new TreeMap<>();
+        JsonArray reports = entry.getJsonArray("statusReports");
+        if (reports != null) {
+            for (JsonObject report : reports.getValuesAs(JsonObject.class)) {
+                AuthenticatorStatus status = AuthenticatorStatus.parse(report.getString("status", null));
+                long day = parseDay(report.getString("effectiveDate", null));
+                if (status == null || day == NONE) {
+                    continue;
+                }
+                effective[status.ordinal()] = day;
+                timeline.put(day, status);
+            }
+        }
+
+        long[] days = new long[timeline.size()];
+        AuthenticatorStatus[] statuses = new AuthenticatorStatus[timeline.size()];
+        int i = 0;
+        for (Long day : timeline.keySet()) {
+            days[i] = day;
+            statuses[i++] = timeline.get(day);
+        }
+
+        return new MDSAuthenticator(days, statuses, effective);
+    }
+
+    private static long parseDay(String date) {
+        if (date == null) {
+            return NONE;
+        }
+        try {
+            return LocalDate.parse(date).toEpochDay();
+        } catch (DateTimeParseException ex) {
+            return NONE;
+        }
+    }
+
+    /**
+     * @param status - a status
+     * @param today - the current epoch day
+     * @return true if the MDS reports the status with an effective date on
+     * or before today
+     */
+    public boolean isEffective(AuthenticatorStatus status, long today) {
+        return effectiveDays[status.ordinal()] <= today;
+    }
+
+    /**
+     * @return number of dates in the status timeline
+     */
+    public int getTimelineSize() {
+        return timelineDays.length;
+    }
+
+    /**
+     * @param i - index in the timeline, in ascending date order
+     * @return the status reported on the i-th date
+     */
+    public AuthenticatorStatus getTimelineStatus(int i) {
+        return timelineStatuses[i];
+    }
+
+    /**
+     * @param today - the current epoch day
+     * @return the status of the latest report effective on or before today,
+     * or null if there is none
+     */
+    public AuthenticatorStatus getCurrentStatus(long today) {
+        int i = Arrays.binarySearch(timelineDays, today);
+        if (i < 0) {
+            i = -i - 2;
+        }
+        return (i < 0) ? null : timelineStatuses[i];
+    }
+}
@@ -10,7 +10,6 @@ package com.strongkey.skfs.policybeans;
 import com.strongkey.appliance.utilities.applianceCommon;
 import com.strongkey.appliance.utilities.applianceConstants;
 import com.strongkey.skce.pojos.MDSClient;
-import com.strongkey.skce.utilities.skceMaps;
 import com.strongkey.skfs.entitybeans.FidoPolicies;
 import com.strongkey.skfs.entitybeans.FidoPoliciesPK;
 import com.strongkey.skfs.fido.policyobjects.FidoPolicyObject;
@@ -19,6 +18,7 @@ import com.strongkey.skfs.messaging.replicateSKFEObjectBeanLocal;
 import com.strongkey.skfs.pojos.FidoPolicyMDSObject;
 import com.strongkey.skfs.requests.CreateFidoPolicyRequest;
 import com.strongkey.skfs.txbeans.SequenceGeneratorBeanLocal;
+import com.strongkey.skfs.utilities.FidoPolicyCache;
 import com.strongkey.skfs.utilities.SKFEException;
 import com.strongkey.skfs.utilities.SKFSCommon;
 import com.strongkey.skfs.utilities.SKFSConstants;
@@ -92,7 +92,7 @@ public class addFidoPolicy implements addFidoPolicyLocal {
             MDSClient mds = null;
             
 
-            skceMaps.getMapObj().put(SKFSConstants.MAP_FIDO_POLICIES, fpMapkey, new FidoPolicyMDSObject(fidoPolicyObject, mds));
+            FidoPolicyCache.put(fpMapkey, new FidoPolicyMDSObject(fidoPolicyObject, mds));
 
             em.persist(fidopolicy);
             em.flush();
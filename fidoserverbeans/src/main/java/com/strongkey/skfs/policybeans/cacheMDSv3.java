@@ -38,13 +38,21 @@ import static com.strongkey.skfs.utilities.SKFSCommon.getConfigurationProperty;
 import com.strongkey.skfs.utilities.SKFSConstants;
 import com.strongkey.skfs.utilities.SKFSLogger;
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.security.Security;
 import java.security.Signature;
 import java.security.cert.CertPath;
 import java.security.cert.CertPathValidator;
 import java.security.cert.CertPathValidatorResult;
+import java.security.cert.CertificateException;
 import java.security.cert.CertificateFactory;
 import java.security.cert.PKIXParameters;
 import java.security.cert.TrustAnchor;
@@ -56,17 +64,40 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.logging.Level;
+import javax.ejb.Asynchronous;
 import javax.ejb.Schedule;
 import javax.ejb.Stateless;
 import javax.json.Json;
 import javax.json.JsonArray;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonException;
 import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import javax.json.stream.JsonParser;
+import javax.json.stream.JsonParser.Event;
 import javax.ws.rs.client.Client;
 import javax.ws.rs.client.ClientBuilder;
 import javax.ws.rs.client.WebTarget;
 import javax.ws.rs.core.Response;
 import org.bouncycastle.jcajce.provider.BouncyCastleFipsProvider;
 
+/**
+ * Caches the FIDO MDS 3 entries in SKFSCommon.
+ *
+ * Only blobs whose signature and certificate chain verify are cached. Every
+ * blob with a newer serial number ("no") is written, still signed, to
+ * skfs.cfg.property.mds.snapshot.file, so the server starts with the entries
+ * of the last blob without waiting for (or depending on) the MDS download;
+ * the snapshot is verified again, with the root CA saved in
+ * skfs.cfg.property.mds.rootca.file, before it is cached. The download then
+ * runs asynchronously and nightly.
+ *
+ * Payloads are read with a streaming parser one entry at a time instead of
+ * as a single JSON tree. The entries are applied to the cache only once the
+ * whole payload was read and its serial number is known to be newer; only
+ * entries that differ from the cached ones are replaced, and entries dropped
+ * from the MDS are removed.
+ */
 @Stateless
 public class cacheMDSv3 implements cacheMDSv3Local {
 
@@ -76,7 +107,6 @@ public class cacheMDSv3 implements cacheMDSv3Local {
     private final String classname = this.getClass().getName();
 
     @Override
-//    @Asynchronous
     @Schedule(minute = "0", hour = "0", dayOfMonth = "*", month = "*", dayOfWeek = "*", persistent = true)
     public void execute() {
 
@@ -84,180 +114,475 @@ public class cacheMDSv3 implements cacheMDSv3Local {
         if (mdsenabled.equalsIgnoreCase("true") || mdsenabled.equalsIgnoreCase("yes")) {
             SKFSLogger.logp(SKFSConstants.SKFE_LOGGER, Level.FINE, classname, "execute", "FIDO-MSG-3001", "");
 
-            if (SKFSCommon.getMdsrootca() == null) {
-                Client client = null;
-                WebTarget webTarget;
-                Response rs = null;
-                try {
-
-                    client = ClientBuilder.newClient();
-                    webTarget = client.target(getConfigurationProperty("skfs.cfg.property.mds.rootca.url"));
-
-                    // Execute the method.
-                    rs = webTarget.request().get();
-
-                    if (rs.getStatus() > 299) {
-                        System.err.println("Method failed: " + rs.readEntity(String.class));
-                    } else {
-
-                        CertificateFactory fac = CertificateFactory.getInstance("X509");
-                        SKFSCommon.setMdsrootca((X509Certificate) fac.generateCertificate(rs.readEntity(InputStream.class)));
-                    }
-                } catch (Exception e) {
-                    e.printStackTrace();
-                } finally {
-                    rs.close();
-                    client.close();
-                    // Release the connection.
+            // 1 - FETCH MDS BLOB
+            String MDSJWTBlob = download();
+
+            // 2 - VERIFY AND DECODE JWT BLOB
+            // Keep the entries cached from the snapshot or the last download
+            // if the blob is missing or not verified
+            String plaintext = decode(MDSJWTBlob, "MDS");
+            if (plaintext == null) {
+                return;
+            }
+
+            // 3 - CACHE ENTRIES
+            try {
+                if (index(new StringReader(plaintext), "MDS")) {
+                    persist(MDSJWTBlob);
                 }
+            } catch (JsonException | IllegalStateException ex) {
+                SKFSLogger.logp(SKFSConstants.SKFE_LOGGER, Level.SEVERE, classname, "execute", "FIDO-ERR-0043", "MDS " + ex.getLocalizedMessage());
             }
-            X509Certificate GSRootCert = SKFSCommon.getMdsrootca();
+        } else {
+            SKFSLogger.logp(SKFSConstants.SKFE_LOGGER, Level.INFO, classname, "execute", "FIDO-MSG-3001", "");
+        }
+
+    }
+
+    @Override
+    @Asynchronous
+    public void executeAsync() {
+        execute();
+    }
+
+    @Override
+    public void loadSnapshot() {
+        String mdsenabled = SKFSCommon.getConfigurationProperty("skfs.cfg.property.mds.enabled");
+        if (!(mdsenabled.equalsIgnoreCase("true") || mdsenabled.equalsIgnoreCase("yes"))) {
+            return;
+        }
+        Path snapshot = Paths.get(SKFSCommon.getConfigurationProperty("skfs.cfg.property.mds.snapshot.file"));
+        if (!Files.isReadable(snapshot)) {
+            return;
+        }
+        try {
+            // The root CA is not downloaded at bootup
+            if (SKFSCommon.getMdsrootca() == null) {
+                SKFSCommon.setMdsrootca(readRootCA());
+            }
+            String plaintext = decode(new String(Files.readAllBytes(snapshot), StandardCharsets.UTF_8).trim(), snapshot.toString());
+            if (plaintext != null) {
+                index(new StringReader(plaintext), snapshot.toString());
+            }
+        } catch (IOException | CertificateException | JsonException | IllegalStateException ex) {
+            SKFSLogger.logp(SKFSConstants.SKFE_LOGGER, Level.SEVERE, classname, "loadSnapshot", "FIDO-ERR-0043", snapshot + " " + ex.getLocalizedMessage());
+        }
+    }
+
+    /**
+     * Verifies an MDS blob and decodes its payload.
+     *
+     * @param blob - the JWT
+     * @param source - where the blob is from; used for logging
+     * @return the payload, or null if the blob is malformed or not verified
+     */
+    private String decode(String blob, String source) {
+        String[] jwtb64split = blob.split("\\.");
+        if (jwtb64split.length != 3) {
+            SKFSLogger.logp(SKFSConstants.SKFE_LOGGER, Level.SEVERE, classname, "decode", "FIDO-ERR-0043", source + " blob not retrieved");
+            return null;
+        }
+        if (SKFSCommon.getMdsrootca() == null || !verify(jwtb64split)) {
+            SKFSLogger.logp(SKFSConstants.SKFE_LOGGER, Level.SEVERE, classname, "decode", "FIDO-ERR-0043", source + " blob not verified");
+            return null;
+        }
+        try {
+            return new String(Base64.getUrlDecoder().decode(jwtb64split[1]), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException ex) {
+            SKFSLogger.logp(SKFSConstants.SKFE_LOGGER, Level.SEVERE, classname, "decode", "FIDO-ERR-0043", source + " " + ex.getLocalizedMessage());
+            return null;
+        }
+    }
+
+    /**
+     * @return the MDS root CA certificate saved in
+     * skfs.cfg.property.mds.rootca.file, or null if there is none
+     */
+    private static X509Certificate readRootCA() throws IOException, CertificateException {
+        Path rootca = Paths.get(SKFSCommon.getConfigurationProperty("skfs.cfg.property.mds.rootca.file"));
+        if (!Files.isReadable(rootca)) {
+            return null;
+        }
+        try (InputStream is = Files.newInputStream(rootca)) {
+            return (X509Certificate) CertificateFactory.getInstance("X509").generateCertificate(is);
+        }
+    }
 
-            X509Certificate EECERT = null;
+    /**
+     * Downloads the MDS blob, and the MDS root CA certificate if it was not
+     * read from skfs.cfg.property.mds.rootca.file or downloaded yet; a
+     * downloaded root CA is saved in that file.
+     *
+     * @return String with the blob; empty if it could not be downloaded
+     */
+    private String download() {
+        if (SKFSCommon.getMdsrootca() == null) {
+            try {
+                SKFSCommon.setMdsrootca(readRootCA());
+            } catch (IOException | CertificateException ex) {
+                SKFSLogger.logp(SKFSConstants.SKFE_LOGGER, Level.WARNING, classname, "download", "FIDO-ERR-0043", "MDS root CA " + ex.getLocalizedMessage());
+            }
+        }
+        if (SKFSCommon.getMdsrootca() == null) {
             Client client = null;
             WebTarget webTarget;
             Response rs = null;
-            String MDSJWTBlob = "", plaintext = "";
-            String jwtsigningalgo = "";
-            // 1 - FETCH MDS BLOB
             try {
+
                 client = ClientBuilder.newClient();
-                webTarget = client.target(SKFSCommon.getConfigurationProperty("skfs.cfg.property.mds.url"));
+                webTarget = client.target(getConfigurationProperty("skfs.cfg.property.mds.rootca.url"));
 
+                // Execute the method.
                 rs = webTarget.request().get();
 
                 if (rs.getStatus() > 299) {
                     System.err.println("Method failed: " + rs.readEntity(String.class));
                 } else {
-                    // Deal with the response.
-                    MDSJWTBlob = rs.readEntity(String.class);
+
+                    CertificateFactory fac = CertificateFactory.getInstance("X509");
+                    X509Certificate rootca = (X509Certificate) fac.generateCertificate(rs.readEntity(InputStream.class));
+                    SKFSCommon.setMdsrootca(rootca);
+                    write(Paths.get(SKFSCommon.getConfigurationProperty("skfs.cfg.property.mds.rootca.file")), rootca.getEncoded());
                 }
             } catch (Exception e) {
-                //throw error
-                System.err.println("Fatal protocol violation: " + e.getMessage());
                 e.printStackTrace();
             } finally {
+                if (rs != null) {
+                    rs.close();
+                }
+                if (client != null) {
+                    client.close();
+                }
+                // Release the connection.
+            }
+        }
+
+        Client client = null;
+        WebTarget webTarget;
+        Response rs = null;
+        String MDSJWTBlob = "";
+        try {
+            client = ClientBuilder.newClient();
+            webTarget = client.target(SKFSCommon.getConfigurationProperty("skfs.cfg.property.mds.url"));
+
+            rs = webTarget.request().get();
+
+            if (rs.getStatus() > 299) {
+                System.err.println("Method failed: " + rs.readEntity(String.class));
+            } else {
+                // Deal with the response.
+                MDSJWTBlob = rs.readEntity(String.class);
+            }
+        } catch (Exception e) {
+            //throw error
+            System.err.println("Fatal protocol violation: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            if (rs != null) {
                 rs.close();
+            }
+            if (client != null) {
                 client.close();
             }
+        }
+
+        return MDSJWTBlob;
+    }
 
-            // 2 - DECODE JWT BLOB
-            String[] jwtb64split = MDSJWTBlob.split("\\.");
-            Base64.Decoder decoder = Base64.getUrlDecoder();
+    /**
+     * Verifies the certificate chain and the signature of the MDS blob.
+     *
+     * @param jwtb64split - the three parts of the blob
+     * @return true if the blob was verified
+     */
+    private boolean verify(String[] jwtb64split) {
+        X509Certificate GSRootCert = SKFSCommon.getMdsrootca();
+        X509Certificate EECERT = null;
+        String jwtsigningalgo;
+        Base64.Decoder decoder = Base64.getUrlDecoder();
+        try {
             JsonObject jwt = Json.createObjectBuilder()
                     .add("protected", SKFSCommon.getJsonObjectFromString(new String(decoder.decode(jwtb64split[0]), StandardCharsets.UTF_8)))
                     .add("payload", jwtb64split[1])
                     .add("signature", jwtb64split[2])
                     .build();
 
-            try {
-
-                jwtsigningalgo = jwt.getJsonObject("protected").getString("alg");
-                if (jwtsigningalgo.equalsIgnoreCase("RS256")) {
-                    jwtsigningalgo = "SHA256withRSA";
-                }
-                // Setup FIPS Provider
-                Security.addProvider(new BouncyCastleFipsProvider());
-                plaintext = new String(decoder.decode(jwt.getString("payload")), StandardCharsets.UTF_8);
-                JsonArray x5carray = jwt.getJsonObject("protected").getJsonArray("x5c");
-                CertificateFactory cf = CertificateFactory.getInstance("X.509");
-                List<X509Certificate> certx = new ArrayList<>();
-                for (int i = 0; i < x5carray.size(); i++) {
-                    CertificateFactory fac = CertificateFactory.getInstance("X509");
-                    String currentCertb64 = x5carray.getString(i);
-                    InputStream is = new ByteArrayInputStream(Base64.getDecoder().decode(currentCertb64));
-                    X509Certificate currentCert = (X509Certificate) fac.generateCertificate(is);
-                    certx.add(currentCert);
-                    if (i == 0) {
-                        EECERT = currentCert;
-                    }
+            jwtsigningalgo = jwt.getJsonObject("protected").getString("alg");
+            if (jwtsigningalgo.equalsIgnoreCase("RS256")) {
+                jwtsigningalgo = "SHA256withRSA";
+            }
+            // Setup FIPS Provider
+            Security.addProvider(new BouncyCastleFipsProvider());
+            JsonArray x5carray = jwt.getJsonObject("protected").getJsonArray("x5c");
+            CertificateFactory cf = CertificateFactory.getInstance("X.509");
+            List<X509Certificate> certx = new ArrayList<>();
+            for (int i = 0; i < x5carray.size(); i++) {
+                CertificateFactory fac = CertificateFactory.getInstance("X509");
+                String currentCertb64 = x5carray.getString(i);
+                InputStream is = new ByteArrayInputStream(Base64.getDecoder().decode(currentCertb64));
+                X509Certificate currentCert = (X509Certificate) fac.generateCertificate(is);
+                certx.add(currentCert);
+                if (i == 0) {
+                    EECERT = currentCert;
                 }
-                certx.add(GSRootCert);
+            }
+            certx.add(GSRootCert);
 
-                CertPath path = cf.generateCertPath(certx);
-                Set<TrustAnchor> trustAnchor = new HashSet<>();
-                trustAnchor.add(new TrustAnchor(GSRootCert, null));
+            CertPath path = cf.generateCertPath(certx);
+            Set<TrustAnchor> trustAnchor = new HashSet<>();
+            trustAnchor.add(new TrustAnchor(GSRootCert, null));
 
-                CertPathValidator cpv = CertPathValidator.getInstance("PKIX");
+            CertPathValidator cpv = CertPathValidator.getInstance("PKIX");
 
-                PKIXParameters pkix = new PKIXParameters(trustAnchor);
+            PKIXParameters pkix = new PKIXParameters(trustAnchor);
 
-                pkix.setRevocationEnabled(false);
+            pkix.setRevocationEnabled(false);
 
-                pkix.setPolicyQualifiersRejected(true);
-                pkix.setDate(new Date());
-                CertPathValidatorResult cpvr = cpv.validate(path, pkix);
-                if (cpvr != null) {
-                    System.out.println("Certificate valid");
-                } else {
-                    //throw error
-                    System.out.println("Certificate not valid");
-                }
+            pkix.setPolicyQualifiersRejected(true);
+            pkix.setDate(new Date());
+            CertPathValidatorResult cpvr = cpv.validate(path, pkix);
+            if (cpvr != null) {
+                System.out.println("Certificate valid");
+            } else {
+                //throw error
+                System.out.println("Certificate not valid");
+            }
 //            //verify payload signature
-                byte[] rsbytes = decoder.decode(jwt.getString("signature"));
-                Signature s = Signature.getInstance(jwtsigningalgo);
-                s.initVerify(EECERT.getPublicKey());
-                s.update((jwtb64split[0].concat(".").concat(jwtb64split[1])).getBytes(StandardCharsets.UTF_8));
+            byte[] rsbytes = decoder.decode(jwt.getString("signature"));
+            Signature s = Signature.getInstance(jwtsigningalgo);
+            s.initVerify(EECERT.getPublicKey());
+            s.update((jwtb64split[0].concat(".").concat(jwtb64split[1])).getBytes(StandardCharsets.UTF_8));
 //
-                boolean verified = s.verify(rsbytes);
-                if (!verified) {
-                    System.out.println("Signature not valid");
-                } else {
-                    //throw error
-                    System.out.println("Signature Verified!!");
-                }
-            } catch (Exception ex) {
+            boolean sigverified = s.verify(rsbytes);
+            if (!sigverified) {
+                System.out.println("Signature not valid");
+            } else {
                 //throw error
-                ex.printStackTrace();
+                System.out.println("Signature Verified!!");
             }
+            return (cpvr != null) && sigverified;
+        } catch (Exception ex) {
+            //throw error
+            ex.printStackTrace();
+        }
+        return false;
+    }
 
-            // 4 - CONVERT TO JSON
-            JsonObject MDSBlob = SKFSCommon.getJsonObjectFromString(plaintext);
-
-            Boolean processMDSEntries = Boolean.FALSE;
-            // 5- PARSE JSON
-            FIDOMetadataService fidomds = new FIDOMetadataService();
-            fidomds.setLegalHeader(MDSBlob.getString("legalHeader"));
-            fidomds.setNo(MDSBlob.getInt("no"));
-            fidomds.setNextUpdate(MDSBlob.getString("nextUpdate"));
+    /**
+     * Caches the entries of an MDS payload if its serial number is newer
+     * than the one of the cached entries.
+     *
+     * @param reader - the payload
+     * @param source - where the payload is from; used for logging
+     * @return true if the entries were cached
+     */
+    private boolean index(Reader reader, String source) {
+        FIDOMetadataService fidomds = new FIDOMetadataService();
+        boolean serialread = false;
+        List<JsonObject> entries = null;
 
-            FIDOMetadataService fidomdsCommon = SKFSCommon.getMetadataservice();
-            if (fidomdsCommon != null) {
-                if (fidomds.getNo() > fidomdsCommon.getNo()) {
-                    processMDSEntries = Boolean.TRUE;
+        try (JsonParser parser = Json.createParser(reader)) {
+            if (!parser.hasNext() || parser.next() != Event.START_OBJECT) {
+                throw new JsonException("MDS payload is not a JSON object");
+            }
+            for (Event e = parser.next(); e != Event.END_OBJECT; e = parser.next()) {
+                String name = parser.getString();
+                Event value = parser.next();
+                switch (name) {
+                    case "legalHeader":
+                        fidomds.setLegalHeader(parser.getString());
+                        break;
+                    case "no":
+                        fidomds.setNo(parser.getInt());
+                        serialread = true;
+                        break;
+                    case "nextUpdate":
+                        fidomds.setNextUpdate(parser.getString());
+                        break;
+                    case "entries":
+                        // The serial number may come after the entries, so
+                        // they are only applied once the payload was read
+                        if (value != Event.START_ARRAY) {
+                            skip(parser, value);
+                            break;
+                        }
+                        entries = new ArrayList<>();
+                        for (Event ev = parser.next(); ev != Event.END_ARRAY; ev = parser.next()) {
+                            if (ev != Event.START_OBJECT) {
+                                skip(parser, ev);
+                                continue;
+                            }
+                            entries.add(readObject(parser));
+                        }
+                        break;
+                    default:
+                        skip(parser, value);
                 }
+            }
+        }
+
+        FIDOMetadataService fidomdsCommon = SKFSCommon.getMetadataservice();
+        if (!serialread || entries == null
+                || (fidomdsCommon != null && fidomds.getNo() <= fidomdsCommon.getNo())) {
+            return false;
+        }
+        int changed = 0, unchanged = 0;
+        Set<String> keys = new HashSet<>();
+        Set<String> pointers = new HashSet<>();
+        for (JsonObject entry : entries) {
+            if (cacheEntry(entry, keys, pointers)) {
+                changed++;
             } else {
-                processMDSEntries = Boolean.TRUE;
+                unchanged++;
+            }
+        }
+        SKFSCommon.setMetadataservice(fidomds);
+        int removed = SKFSCommon.retainMdsentries(keys, pointers);
+        SKFSLogger.logp(SKFSConstants.SKFE_LOGGER, Level.INFO, classname, "index", "FIDO-MSG-3003",
+                source + " no=" + fidomds.getNo() + " changed=" + changed + " unchanged=" + unchanged + " removed=" + removed);
+        return true;
+    }
+
+    /**
+     * Caches an MDS entry under its AAGUID and/or its attestation certificate
+     * key identifiers, unless the same entry is cached already.
+     *
+     * @return true if the entry was new or changed
+     */
+    private boolean cacheEntry(JsonObject entry, Set<String> keys, Set<String> pointers) {
+        boolean changed = false;
+        if (entry.containsKey("aaguid")) {
+            String aaguid = entry.getString("aaguid");
+            keys.add(aaguid);
+            if (!entry.equals(SKFSCommon.getMdsentryfromMap(aaguid))) {
+                SKFSLogger.logp(SKFSConstants.SKFE_LOGGER, Level.FINEST, classname, "cacheEntry", "FIDO-MSG-2001", "AAGUID added =" + aaguid);
+                SKFSCommon.setMdsentry(aaguid, entry);
+                changed = true;
+            }
+        }
+        if (entry.containsKey("attestationCertificateKeyIdentifiers")) {
+            JsonArray attcertarray = entry.getJsonArray("attestationCertificateKeyIdentifiers");
+            String attcertkey = Base64.getUrlEncoder().encodeToString(attcertarray.toString().getBytes());
+            keys.add(attcertkey);
+            for (int j = 0; j < attcertarray.size(); j++) {
+                String attcertentry = attcertarray.getString(j);
+                pointers.add(attcertentry);
+                SKFSCommon.setMdsentrypointer(attcertentry, attcertkey);
+            }
+            if (!entry.equals(SKFSCommon.getMdsentryfromMap(attcertkey))) {
+                SKFSLogger.logp(SKFSConstants.SKFE_LOGGER, Level.FINEST, classname, "cacheEntry", "FIDO-MSG-2001", "CERT KEY added =" + attcertkey);
+                SKFSCommon.setMdsentry(attcertkey, entry);
+                changed = true;
             }
+        }
+        return changed;
+    }
 
-            if (processMDSEntries) {
-                SKFSCommon.setMetadataservice(fidomds);
-
-                JsonArray MDSEntriesArray = MDSBlob.getJsonArray("entries");
-                int noofentries = MDSEntriesArray.size();
-                //print no of entries
-                for (int i = 0; i < noofentries; i++) {
-                    JsonObject entry = MDSEntriesArray.getJsonObject(i);
-                    if (entry.containsKey("aaguid")) {
-                        String aaguid = entry.getString("aaguid");
-                        SKFSLogger.logp(SKFSConstants.SKFE_LOGGER, Level.FINEST, classname, "execute", "FIDO-MSG-2001", "AAGUID added =" + aaguid);
-                        SKFSCommon.setMdsentry(aaguid, entry);
-                    }
-                    if (entry.containsKey("attestationCertificateKeyIdentifiers")) {
-                        JsonArray attcertarray = entry.getJsonArray("attestationCertificateKeyIdentifiers");
-                        String attcertkey = Base64.getUrlEncoder().encodeToString(attcertarray.toString().getBytes());
-                        for (int j = 0; j < attcertarray.size(); j++) {
-                            String attcertentry = attcertarray.getString(j);
-                            SKFSCommon.setMdsentrypointer(attcertentry, attcertkey);
-                            SKFSLogger.logp(SKFSConstants.SKFE_LOGGER, Level.FINEST, classname, "execute", "FIDO-MSG-2001", "CERT KEY added =" + attcertentry);
-                        }
-                        SKFSCommon.setMdsentry(attcertkey, entry);
-                    }
-                }
+    /**
+     * Writes a verified MDS blob, with its signature, to the snapshot file.
+     */
+    private void persist(String blob) {
+        write(Paths.get(SKFSCommon.getConfigurationProperty("skfs.cfg.property.mds.snapshot.file")),
+                blob.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Writes a file through a temporary file, so a crash never leaves a
+     * partial file behind.
+     */
+    private void write(Path file, byte[] content) {
+        Path tmp = Paths.get(file.toString() + ".tmp");
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
             }
-        } else {
-            SKFSLogger.logp(SKFSConstants.SKFE_LOGGER, Level.INFO, classname, "execute", "FIDO-MSG-3001", "");
+            Files.write(tmp, content);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            SKFSLogger.logp(SKFSConstants.SKFE_LOGGER, Level.WARNING, classname, "write", "FIDO-ERR-0043", file + " " + ex.getLocalizedMessage());
         }
+    }
+
+    /**
+     * Reads the members of an object whose START_OBJECT event was read.
+     */
+    private static JsonObject readObject(JsonParser parser) {
+        JsonObjectBuilder builder = Json.createObjectBuilder();
+        for (Event e = parser.next(); e != Event.END_OBJECT; e = parser.next()) {
+            String name = parser.getString();
+            switch (parser.next()) {
+                case START_OBJECT:
+                    builder.add(name, readObject(parser));
+                    break;
+                case START_ARRAY:
+                    builder.add(name, readArray(parser));
+                    break;
+                case VALUE_STRING:
+                    builder.add(name, parser.getString());
+                    break;
+                case VALUE_NUMBER:
+                    builder.add(name, parser.getBigDecimal());
+                    break;
+                case VALUE_TRUE:
+                    builder.add(name, true);
+                    break;
+                case VALUE_FALSE:
+                    builder.add(name, false);
+                    break;
+                default:
+                    builder.addNull(name);
+            }
+        }
+        return builder.build();
+    }
 
+    /**
+     * Reads the values of an array whose START_ARRAY event was read.
+     */
+    private static JsonArray readArray(JsonParser parser) {
+        JsonArrayBuilder builder = Json.createArrayBuilder();
+        for (Event e = parser.next(); e != Event.END_ARRAY; e = parser.next()) {
+            switch (e) {
+                case START_OBJECT:
+                    builder.add(readObject(parser));
+                    break;
+                case START_ARRAY:
+                    builder.add(readArray(parser));
+                    break;
+                case VALUE_STRING:
+                    builder.add(parser.getString());
+                    break;
+                case VALUE_NUMBER:
+                    builder.add(parser.getBigDecimal());
+                    break;
+                case VALUE_TRUE:
+                    builder.add(true);
+                    break;
+                case VALUE_FALSE:
+                    builder.add(false);
+                    break;
+                default:
+                    builder.addNull();
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Skips a value whose first event was read.
+     */
+    private static void skip(JsonParser parser, Event first) {
+        if (first != Event.START_OBJECT && first != Event.START_ARRAY) {
+            return;
+        }
+        int depth = 1;
+        while (depth > 0) {
+            Event e = parser.next();
+            if (e == Event.START_OBJECT || e == Event.START_ARRAY) {
+                depth++;
+            } else if (e == Event.END_OBJECT || e == Event.END_ARRAY) {
+                depth--;
+            }
+        }
     }
 }
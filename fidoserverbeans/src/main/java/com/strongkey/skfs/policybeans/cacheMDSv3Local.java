@@ -39,4 +39,15 @@ public interface cacheMDSv3Local {
 
 //    @Asynchronous
     public void execute();
+
+    /**
+     * Runs execute in the background, e.g. on bootup.
+     */
+    public void executeAsync();
+
+    /**
+     * Verifies the MDS blob saved by the last successful execute, if any,
+     * and caches its entries.
+     */
+    public void loadSnapshot();
 }
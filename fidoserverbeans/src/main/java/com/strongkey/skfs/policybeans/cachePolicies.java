@@ -8,11 +8,11 @@
 package com.strongkey.skfs.policybeans;
 
 import com.strongkey.skce.pojos.MDSClient;
-import com.strongkey.skce.utilities.skceMaps;
 import com.strongkey.skfs.entitybeans.FidoPolicies;
 import com.strongkey.skfs.entitybeans.FidoPoliciesPK;
 import com.strongkey.skfs.fido.policyobjects.FidoPolicyObject;
 import com.strongkey.skfs.pojos.FidoPolicyMDSObject;
+import com.strongkey.skfs.utilities.FidoPolicyCache;
 import com.strongkey.skfs.utilities.SKFEException;
 import com.strongkey.skfs.utilities.SKFSConstants;
 import com.strongkey.skfs.utilities.SKFSLogger;
@@ -45,7 +45,7 @@ public class cachePolicies {
                 MDSClient mds = null;
 
                 String mapkey = fpPK.getSid() + "-" + fpPK.getDid() + "-" + fpPK.getPid();
-                skceMaps.getMapObj().put(SKFSConstants.MAP_FIDO_POLICIES, mapkey, new FidoPolicyMDSObject(fidoPolicyObject, mds));
+                FidoPolicyCache.put(mapkey, new FidoPolicyMDSObject(fidoPolicyObject, mds));
             }
             catch(SKFEException ex){
                 SKFSLogger.log(SKFSConstants.SKFE_LOGGER, Level.SEVERE, "SKCE-ERR-1000", "Unable to cache policy: " + ex);
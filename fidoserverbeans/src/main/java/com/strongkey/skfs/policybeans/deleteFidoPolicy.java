@@ -8,9 +8,9 @@ package com.strongkey.skfs.policybeans;
 
 import com.strongkey.appliance.utilities.applianceCommon;
 import com.strongkey.appliance.utilities.applianceConstants;
-import com.strongkey.skce.utilities.skceMaps;
 import com.strongkey.skfs.entitybeans.FidoPolicies;
 import com.strongkey.skfs.messaging.replicateSKFEObjectBeanLocal;
+import com.strongkey.skfs.utilities.FidoPolicyCache;
 import com.strongkey.skfs.utilities.SKFSCommon;
 import com.strongkey.skfs.utilities.SKFSConstants;
 import com.strongkey.skfs.utilities.SKFSLogger;
@@ -69,7 +69,7 @@ public class deleteFidoPolicy implements deleteFidoPolicyLocal {
 
         //remove from local map
         String fpMapkey = sid + "-" + did + "-" + pid;
-        skceMaps.getMapObj().remove(SKFSConstants.MAP_FIDO_POLICIES, fpMapkey);
+        FidoPolicyCache.remove(fpMapkey);
         String response = Json.createObjectBuilder()
                 .add(SKFSConstants.JSON_KEY_SERVLET_RETURN_RESPONSE, "Successfully deleted policy " + sid + "-" + pid)
                 .build().toString();
@@ -23,6 +23,7 @@ import com.strongkey.skfs.fido.policyobjects.extensions.Fido2Extension;
 import com.strongkey.skfs.messaging.replicateSKFEObjectBeanLocal;
 import com.strongkey.skfs.pojos.RegistrationSettings;
 import com.strongkey.skfs.txbeans.getFidoKeysLocal;
+import com.strongkey.skfs.utilities.ChallengeGenerator;
 import com.strongkey.skfs.utilities.SKFEException;
 import com.strongkey.skfs.utilities.SKFSCommon;
 import com.strongkey.skfs.utilities.SKFSConstants;
@@ -31,7 +32,7 @@ import com.strongkey.skfs.utilities.SKIllegalArgumentException;
 import java.io.UnsupportedEncodingException;
 import java.security.NoSuchAlgorithmException;
 import java.security.NoSuchProviderException;
-import java.security.SecureRandom;
+import java.util.ArrayList;
 import java.util.Base64;
 import java.util.Collection;
 import java.util.Date;
@@ -49,6 +50,8 @@ import javax.json.JsonValue;
 @Stateless
 public class generateFido2PreauthenticateChallenge implements generateFido2PreauthenticateChallengeLocal {
 
+    private static final String ALPHANUMERIC = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz";
+
     @EJB
     replicateSKFEObjectBeanLocal replObj;
     @EJB
@@ -59,6 +62,9 @@ public class generateFido2PreauthenticateChallenge implements generateFido2Preau
     //TODO refactor method into smaller pieces.
     @Override
     public String execute(Long did, String username, JsonObject options, JsonObject extensions) {
+        if (username == null || username.isEmpty()) {
+            return executeDiscoverable(did, options, extensions);
+        }
         //If unable to get UserId, there are no Active keys registered under the username
         String sendfakekeys = SKFSCommon.getConfigurationProperty(did, "skfs.cfg.property.fido2.user.sendfakeKH");
         Boolean sendfakekeyhandles = Boolean.FALSE;
@@ -123,6 +129,7 @@ public class generateFido2PreauthenticateChallenge implements generateFido2Preau
 
             if (!sendfakekeyhandles) {
                 //Place challenge in map.
+                List<UserSessionInfo> sessions = new ArrayList<>(fks.size());
                 for (FidoKeys fk : fks) {
                     String KHHash = SKFSCommon.getDigest(fk.getKeyhandle(), "SHA-256");
                     UserSessionInfo session = new UserSessionInfo(username,
@@ -134,11 +141,13 @@ public class generateFido2PreauthenticateChallenge implements generateFido2Preau
                     session.setPolicyMapKey(fidoPolicy.getPolicyMapKey());
                     skceMaps.getMapObj().put(SKFSConstants.MAP_USER_SESSION_INFO, KHHash, session);
 
-                    //replicate map to other server
                     session.setMapkey(KHHash);
-                    if (applianceCommon.replicate()) {
-                        replObj.execute(applianceConstants.ENTITY_TYPE_MAP_USER_SESSION_INFO, applianceConstants.REPLICATION_OPERATION_HASHMAP_ADD, applianceCommon.getServerId().toString(), session);
-                    }
+                    sessions.add(session);
+                }
+
+                //replicate all sessions to other servers as one message
+                if (applianceCommon.replicate()) {
+                    replObj.execute(applianceConstants.ENTITY_TYPE_MAP_USER_SESSION_INFO_BATCH, applianceConstants.REPLICATION_OPERATION_HASHMAP_ADD, applianceCommon.getServerId().toString(), sessions);
                 }
             }
 
@@ -159,6 +168,62 @@ public class generateFido2PreauthenticateChallenge implements generateFido2Preau
 
     
     
+    /**
+     * Challenge for a discoverable (resident) credential, when the user is not
+     * known yet: no allowCredentials are returned and a single session is kept
+     * under the digest of the challenge. The key that signs the challenge is
+     * found from its credential ID when the response is authenticated.
+     */
+    private String executeDiscoverable(Long did, JsonObject options, JsonObject extensions) {
+        FidoPolicyObject fidoPolicy = getpolicybean.getPolicyByDidUsername(did, "", null);
+        if (fidoPolicy == null) {
+            SKFSLogger.log(SKFSConstants.SKFE_LOGGER, Level.SEVERE, "FIDO-ERR-0009", "No policy found");
+            throw new SKIllegalArgumentException(SKFSCommon.buildReturn(SKFSCommon.getMessageProperty("FIDO-ERR-0009") + "No policy found"));
+        }
+        String challenge = generateChallenge(fidoPolicy.getAlgorithmsOptions());
+
+        JsonObjectBuilder returnObjectBuilder = Json.createObjectBuilder()
+                .add(SKFSConstants.FIDO2_PREAUTH_ATTR_CHALLENGE, challenge);
+        String rpId = generateRpId(fidoPolicy.getRpOptions());
+        if (rpId != null) {
+            returnObjectBuilder.add(SKFSConstants.FIDO2_PREAUTH_ATTR_RPID, rpId);
+        }
+        String userVerificationPref = generateUserVerification(fidoPolicy, options);
+        if (userVerificationPref != null) {
+            returnObjectBuilder.add(SKFSConstants.FIDO2_PREAUTH_ATTR_UV, userVerificationPref);
+        }
+        JsonObject extensionsJson = generateExtensions(fidoPolicy.getExtensionsOptions(), extensions);
+        if (!extensionsJson.isEmpty()) {
+            returnObjectBuilder.add(SKFSConstants.FIDO2_PREAUTH_ATTR_EXTENSIONS, extensionsJson);
+        }
+
+        try {
+            String mapkey = SKFSCommon.getDigest(challenge, "SHA-256");
+            UserSessionInfo session = new UserSessionInfo("",
+                    challenge, "", SKFSConstants.FIDO_USERSESSION_AUTH, "", "");
+            session.setSid(applianceCommon.getServerId().shortValue());
+            session.setuserVerificationReq(userVerificationPref);
+            session.setPolicyMapKey(fidoPolicy.getPolicyMapKey());
+            session.setMapkey(mapkey);
+            skceMaps.getMapObj().put(SKFSConstants.MAP_USER_SESSION_INFO, mapkey, session);
+            if (applianceCommon.replicate()) {
+                List<UserSessionInfo> sessions = new ArrayList<>(1);
+                sessions.add(session);
+                replObj.execute(applianceConstants.ENTITY_TYPE_MAP_USER_SESSION_INFO_BATCH, applianceConstants.REPLICATION_OPERATION_HASHMAP_ADD, applianceCommon.getServerId().toString(), sessions);
+            }
+        } catch (NoSuchAlgorithmException | NoSuchProviderException | UnsupportedEncodingException ex) {
+            SKFSLogger.log(SKFSConstants.SKFE_LOGGER, Level.SEVERE, "FIDO-ERR-0009", ex.getLocalizedMessage());
+            throw new SKIllegalArgumentException(SKFSCommon.buildReturn(SKFSCommon.getMessageProperty("FIDO-ERR-0009") + ex.getLocalizedMessage()));
+        }
+
+        String response = Json.createObjectBuilder()
+                .add(SKFSConstants.JSON_KEY_SERVLET_RETURN_RESPONSE, returnObjectBuilder.build())
+                .build().toString();
+        SKFSLogger.log(SKFSConstants.SKFE_LOGGER, Level.FINE, "FIDO-MSG-2001",
+                "FIDO 2.0 Response : " + response);
+        return response;
+    }
+
     @Override
     public String executePreAuthorize(Long did, String username, String txid, String txpayload, JsonObject options, JsonObject extensions) {
         String sendfakekeys = SKFSCommon.getConfigurationProperty(did, "skfs.cfg.property.fido2.user.sendfakeKH");
@@ -228,6 +293,7 @@ public class generateFido2PreauthenticateChallenge implements generateFido2Preau
 
             if (!sendfakekeyhandles) {
                 //Place challenge in map.
+                List<UserSessionInfo> sessions = new ArrayList<>(fks.size());
                 for (FidoKeys fk : fks) {
                     String KHHash = SKFSCommon.getDigest(fk.getKeyhandle(), "SHA-256");
                     UserSessionInfo session = new UserSessionInfo(username,
@@ -243,11 +309,13 @@ public class generateFido2PreauthenticateChallenge implements generateFido2Preau
                     session.setTxtimestamp(txtime);
                     skceMaps.getMapObj().put(SKFSConstants.MAP_USER_SESSION_INFO, KHHash, session);
 
-                    //replicate map to other server
                     session.setMapkey(KHHash);
-                    if (applianceCommon.replicate()) {
-                        replObj.execute(applianceConstants.ENTITY_TYPE_MAP_USER_SESSION_INFO, applianceConstants.REPLICATION_OPERATION_HASHMAP_ADD, applianceCommon.getServerId().toString(), session);
-                    }
+                    sessions.add(session);
+                }
+
+                //replicate all sessions to other servers as one message
+                if (applianceCommon.replicate()) {
+                    replObj.execute(applianceConstants.ENTITY_TYPE_MAP_USER_SESSION_INFO_BATCH, applianceConstants.REPLICATION_OPERATION_HASHMAP_ADD, applianceCommon.getServerId().toString(), sessions);
                 }
             }
 
@@ -326,17 +394,17 @@ public class generateFido2PreauthenticateChallenge implements generateFido2Preau
     }
     
     public String generateRandomAlphanumericString(int length) {
-        int leftLimit = 48; // numeral '0'
-        int rightLimit = 122; // letter 'z'
-        SecureRandom random = new SecureRandom();
-
-        String generatedString = random.ints(leftLimit, rightLimit + 1)
-                .filter(i -> (i <= 57 || i >= 65) && (i <= 90 || i >= 97))
-                .limit(length)
-                .collect(StringBuilder::new, StringBuilder::appendCodePoint, StringBuilder::append)
-                .toString();
-
-        return generatedString;
+        StringBuilder sb = new StringBuilder(length);
+        while (sb.length() < length) {
+            for (byte b : ChallengeGenerator.getBytes(length - sb.length())) {
+                // Bytes from 248 up are skipped, so that every character is equally likely
+                int i = b & 0xff;
+                if (i < 248) {
+                    sb.append(ALPHANUMERIC.charAt(i % ALPHANUMERIC.length()));
+                }
+            }
+        }
+        return sb.toString();
     }
 
     private String generateUserVerification(FidoPolicyObject fidoPolicy, JsonObject options){
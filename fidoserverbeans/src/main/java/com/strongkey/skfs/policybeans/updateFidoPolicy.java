@@ -11,12 +11,12 @@ package com.strongkey.skfs.policybeans;
 import com.strongkey.appliance.utilities.applianceCommon;
 import com.strongkey.appliance.utilities.applianceConstants;
 import com.strongkey.skce.pojos.MDSClient;
-import com.strongkey.skce.utilities.skceMaps;
 import com.strongkey.skfs.entitybeans.FidoPolicies;
 import com.strongkey.skfs.fido.policyobjects.FidoPolicyObject;
 import com.strongkey.skfs.messaging.replicateSKFEObjectBeanLocal;
 import com.strongkey.skfs.pojos.FidoPolicyMDSObject;
 import com.strongkey.skfs.requests.PatchFidoPolicyRequest;
+import com.strongkey.skfs.utilities.FidoPolicyCache;
 import com.strongkey.skfs.utilities.SKFEException;
 import com.strongkey.skfs.utilities.SKFSCommon;
 import com.strongkey.skfs.utilities.SKFSConstants;
@@ -134,7 +134,7 @@ public class updateFidoPolicy implements updateFidoPolicyLocal {
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(SKFSCommon.getMessageProperty("FIDOJPA-ERR-1001") + ex.getLocalizedMessage()).build();
         }
         MDSClient mds = null;
-        skceMaps.getMapObj().put(SKFSConstants.MAP_FIDO_POLICIES, fpMapkey, new FidoPolicyMDSObject(fidoPolicyObject, mds));
+        FidoPolicyCache.put(fpMapkey, new FidoPolicyMDSObject(fidoPolicyObject, mds));
 
         String response = Json.createObjectBuilder()
                 .add(SKFSConstants.JSON_KEY_SERVLET_RETURN_RESPONSE, "Successfully patched policy " + sid + "-" + pid)
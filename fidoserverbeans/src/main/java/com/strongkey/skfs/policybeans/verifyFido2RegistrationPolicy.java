@@ -13,13 +13,14 @@ import com.strongkey.skfs.fido.policyobjects.AttestationPolicyOptions;
 import com.strongkey.skfs.fido.policyobjects.CounterPolicyOptions;
 import com.strongkey.skfs.fido.policyobjects.DefinedExtensionsPolicyOptions;
 import com.strongkey.skfs.fido.policyobjects.FidoPolicyObject;
-import com.strongkey.skfs.fido.policyobjects.MDSAuthenticatorStatusPolicy;
-import com.strongkey.skfs.fido.policyobjects.MDSPolicyOptions;
+import com.strongkey.skfs.fido.policyobjects.MDSStatusDecisions;
 import com.strongkey.skfs.fido.policyobjects.RpPolicyOptions;
 import com.strongkey.skfs.fido2.ECKeyObject;
 import com.strongkey.skfs.fido2.FIDO2AttestationObject;
 import com.strongkey.skfs.fido2.FIDO2Extensions;
+import com.strongkey.skfs.pojos.AuthenticatorStatus;
 import com.strongkey.skfs.pojos.FidoPolicyMDSObject;
+import com.strongkey.skfs.pojos.MDSAuthenticator;
 import com.strongkey.skfs.utilities.SKFEException;
 import com.strongkey.skfs.utilities.SKFSCommon;
 import com.strongkey.skfs.utilities.SKFSConstants;
@@ -35,14 +36,11 @@ import java.security.PublicKey;
 import java.security.cert.X509Certificate;
 import java.time.LocalDate;
 import java.util.ArrayList;
-import java.util.SortedMap;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.ejb.EJB;
 import javax.ejb.Stateless;
-import javax.json.JsonArray;
 import javax.json.JsonObject;
 import org.bouncycastle.asn1.ASN1ObjectIdentifier;
 import org.bouncycastle.asn1.ASN1Sequence;
@@ -82,11 +80,10 @@ public class verifyFido2RegistrationPolicy implements verifyFido2RegistrationPol
                 if (attformat.equalsIgnoreCase("packed")) {
                     //check MDS and policy for AAGUID!!!!
                     //if it doesnt exist then log and continue
-                    if (SKFSCommon.containsMdsentry(aaguid)) {
-                        JsonObject aaguidMDS = SKFSCommon.getMdsentryfromMap(aaguid);
-
-                        MDSPolicyOptions mdsPolicy = fidoPolicy.getMDS();
-                        ArrayList mdsarray = mdsPolicy.getStatusReports();
+                    MDSAuthenticator authenticator = SKFSCommon.getMdsauthenticator(aaguid);
+                    if (authenticator != null) {
+                        // Status reports of the policy, compiled when it was parsed
+                        MDSStatusDecisions decisions = fidoPolicy.getMdsStatusDecisions();
                         ArrayList<String> aaguidList = fidoPolicy.getSystemOptions().getAllowedAAGUIDs();
                         Boolean singleaaguid = Boolean.FALSE;
                         if (aaguidList.contains("all")) {
@@ -98,86 +95,37 @@ public class verifyFido2RegistrationPolicy implements verifyFido2RegistrationPol
                                 singleaaguid = Boolean.FALSE;
                             }
                         }
-                        //check to see if the aaguid is revoked or update available
-                        SortedMap<String, String> authstatusreportPolicymap = new ConcurrentSkipListMap<>();
-                        SKFSLogger.log(SKFSConstants.SKFE_LOGGER, Level.FINE, "FIDO-MSG-2001",
-                                "mdsarray: " + mdsarray);
-                        for (int i = 0; i < mdsarray.size(); i++) {
-                            MDSAuthenticatorStatusPolicy policyarrObj = (MDSAuthenticatorStatusPolicy) mdsarray.get(i);
-                            authstatusreportPolicymap.put(policyarrObj.getStatus(), policyarrObj.getDecision());
-                        }
-
-                        JsonArray statusReportArray = aaguidMDS.getJsonArray("statusReports");
-                        SortedMap<String, JsonObject> authstatusreportMDSmap = new ConcurrentSkipListMap<>();
-                        SortedMap<String, String> authstatusreportMDSDatemap = new ConcurrentSkipListMap<>();
-                        SKFSLogger.log(SKFSConstants.SKFE_LOGGER, Level.FINE, "FIDO-MSG-2001",
-                                "statusReportArray: " + statusReportArray);
-                        for (int i = 0; i < statusReportArray.size(); i++) {
-                            JsonObject mdsarrObj = statusReportArray.getJsonObject(i);
-                            authstatusreportMDSmap.put(mdsarrObj.getString("status"), mdsarrObj);
-                            authstatusreportMDSDatemap.put(mdsarrObj.getString("effectiveDate"), mdsarrObj.getString("status"));
 
+                        //get local date
+                        long today = LocalDate.now().toEpochDay();
+                        if (SKFSLogger.isLoggable(SKFSConstants.SKFE_LOGGER, Level.FINE)) {
+                            SKFSLogger.log(SKFSConstants.SKFE_LOGGER, Level.FINE, "FIDO-MSG-2001",
+                                    "policy statuses: " + decisions + " current status: " + authenticator.getCurrentStatus(today));
                         }
 
-                        //get local date
-                        LocalDate today = LocalDate.now();
-                        //check to see if revoked is one of the status in MDS
-                        if (authstatusreportMDSmap.containsKey("REVOKED")) {
-                            //get the effective date for revoked status
-                            String effectiverevokedDate = authstatusreportMDSmap.get("REVOKED").getString("effectiveDate");
-                            LocalDate effrevokedDate = LocalDate.parse(effectiverevokedDate);
-
-                            //Check to see if its revoked
-                            if (effrevokedDate.isBefore(today) || effrevokedDate.isEqual(today)) {
-                                //check to see if update is available
-                                if (authstatusreportMDSmap.containsKey("UPDATE_AVAILABLE")) {
-                                    String effectiveupdateDate = authstatusreportMDSmap.get("UPDATE_AVAILABLE").getString("effectiveDate");
-                                    LocalDate effupdateDate = LocalDate.parse(effectiveupdateDate);
-                                    //check if the update effective date is today or before today
-                                    if (effupdateDate.isBefore(today) || effupdateDate.isEqual(today)) {
-                                        if (authstatusreportPolicymap.containsKey("UPDATE_AVAILABLE")) {
-                                            if (authstatusreportPolicymap.get("UPDATE_AVAILABLE").equalsIgnoreCase("DENY")) {
-                                                throw new SKFEException(SKFSCommon.getMessageProperty("FIDO-ERR-3010"));
-                                            }
-                                        } else {
-                                            SKFSLogger.log(SKFSConstants.SKFE_LOGGER, Level.INFO, "FIDO-MSG-3011", "UPDATE_AVAILABLE");
-                                        }
-                                    } else {
-                                        if (authstatusreportPolicymap.containsKey("REVOKED")) {
-                                            if (authstatusreportPolicymap.get("REVOKED").equalsIgnoreCase("DENY")) {
-                                                throw new SKFEException(SKFSCommon.getMessageProperty("FIDO-ERR-3010"));
-                                            }
-                                        } else {
-                                            SKFSLogger.log(SKFSConstants.SKFE_LOGGER, Level.INFO, "FIDO-MSG-3011", "REVOKED");
-                                        }
-                                    }
-                                } else {
-                                    if (authstatusreportPolicymap.containsKey("REVOKED")) {
-                                        if (authstatusreportPolicymap.get("REVOKED").equalsIgnoreCase("DENY")) {
-                                            throw new SKFEException(SKFSCommon.getMessageProperty("FIDO-ERR-3010"));
-                                        }
-                                    } else {
-                                        SKFSLogger.log(SKFSConstants.SKFE_LOGGER, Level.INFO, "FIDO-MSG-3011", "REVOKED");
-                                    }
+                        //check to see if the aaguid is revoked; if an update is
+                        //available, the update status decides instead
+                        if (authenticator.isEffective(AuthenticatorStatus.REVOKED, today)) {
+                            AuthenticatorStatus status = authenticator.isEffective(AuthenticatorStatus.UPDATE_AVAILABLE, today)
+                                    ? AuthenticatorStatus.UPDATE_AVAILABLE : AuthenticatorStatus.REVOKED;
+                            if (decisions.isListed(status)) {
+                                if (decisions.isDenied(status)) {
+                                    throw new SKFEException(SKFSCommon.getMessageProperty("FIDO-ERR-3010"));
                                 }
+                            } else {
+                                SKFSLogger.log(SKFSConstants.SKFE_LOGGER, Level.INFO, "FIDO-MSG-3011", status.name());
                             }
                         }
                         //check status if multiple aaguids
                         if (!singleaaguid) {
-                            for (String currentDate : authstatusreportMDSDatemap.keySet()) {
-                                String currentStatus = authstatusreportMDSDatemap.get(currentDate);
-                                JsonObject currentstatusobject = authstatusreportMDSmap.get(currentStatus);
-
-                                if (authstatusreportPolicymap.containsKey(currentStatus)) {
-                                    //check for this effective date
-                                    String effectivestatusDate = currentstatusobject.getString("effectiveDate");
-                                    LocalDate effstatusDate = LocalDate.parse(effectivestatusDate);
-                                    if (effstatusDate.isBefore(today) || effstatusDate.isEqual(today)) {
-                                        if (authstatusreportPolicymap.get(currentStatus).equalsIgnoreCase("DENY")) {
-                                            throw new SKFEException(SKFSCommon.getMessageProperty("FIDO-ERR-3010"));
-                                        } else if (authstatusreportPolicymap.get(currentStatus).equalsIgnoreCase("ACCEPT")) {
-                                            break;
-                                        }
+                            for (int i = 0; i < authenticator.getTimelineSize(); i++) {
+                                AuthenticatorStatus currentStatus = authenticator.getTimelineStatus(i);
+                                //check for this effective date
+                                if (decisions.isListed(currentStatus) && authenticator.isEffective(currentStatus, today)) {
+                                    if (decisions.isDenied(currentStatus)) {
+                                        throw new SKFEException(SKFSCommon.getMessageProperty("FIDO-ERR-3010"));
+                                    } else if (decisions.isAccepted(currentStatus)) {
+                                        break;
                                     }
                                 }
                             }
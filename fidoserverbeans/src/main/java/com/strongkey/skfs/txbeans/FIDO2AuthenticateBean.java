@@ -6,14 +6,17 @@
  */
 package com.strongkey.skfs.txbeans;
 
-import com.strongkey.appliance.utilities.applianceCommon;
+import com.strongkey.appliance.utilities.applianceConstants;
 import com.strongkey.crypto.utility.cryptoCommon;
 import com.strongkey.skce.pojos.FidoKeysInfo;
 import com.strongkey.skce.pojos.UserSessionInfo;
 import com.strongkey.skce.utilities.skceMaps;
+import com.strongkey.skce.utilities.skceMetrics;
 import com.strongkey.skfe.entitybeans.FidoKeys;
 import com.strongkey.skfs.fido.policyobjects.FidoPolicyObject;
 import com.strongkey.skfs.fido2.FIDO2AuthenticatorData;
+import com.strongkey.skfs.fido2.FIDO2RequestContext;
+import com.strongkey.skfs.pojos.FIDO2AuthenticationResult;
 import com.strongkey.skfs.jwt.JWTCreateLocal;
 import com.strongkey.skfs.pojos.RegistrationSettings;
 import com.strongkey.skfs.policybeans.getCachedFidoPolicyMDSLocal;
@@ -23,17 +26,16 @@ import com.strongkey.skfs.utilities.SKFSCommon;
 import com.strongkey.skfs.utilities.SKFSConstants;
 import com.strongkey.skfs.utilities.SKFSLogger;
 import com.strongkey.skfs.utilities.SKIllegalArgumentException;
+import com.strongkey.skfs.utilities.SignatureCounterAuthority;
 import java.io.IOException;
 import java.io.StringReader;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.security.KeyFactory;
 import java.security.NoSuchAlgorithmException;
 import java.security.NoSuchProviderException;
 import java.security.PublicKey;
 import java.security.spec.InvalidKeySpecException;
 import java.security.spec.InvalidParameterSpecException;
-import java.security.spec.X509EncodedKeySpec;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.HashSet;
@@ -69,22 +71,24 @@ public class FIDO2AuthenticateBean implements FIDO2AuthenticateBeanLocal {
     JWTCreateLocal createJWT;
 
     @Override
-    public String execute(Long did, String authresponse, String authmetadata, String method, String txid, String txpayload, String agent, String cip) {
+    public FIDO2AuthenticationResult execute(Long did, FIDO2RequestContext authcontext, String method, String txid, String txpayload, String agent, String cip) {
 
         String userAgent, clientIP;
         String wsresponse = "", logs = "", errmsg = "";
         String userHandle ="", jwt = "";
         JsonObject txdetail = null;
         JsonArray FIDOAuthRefs = null;
-        SKFSLogger.logp(SKFSConstants.SKFE_LOGGER, Level.FINE, classname, "execute", "FIDO-MSG-2001", "AuthResponse : " + authresponse);
-        String id = (String) applianceCommon.getJsonValue(authresponse,
-                SKFSConstants.JSON_KEY_ID, "String");
-        String rawId = (String) applianceCommon.getJsonValue(authresponse,
-                SKFSConstants.JSON_KEY_RAW_ID, "String");
-        String credential_type = (String) applianceCommon.getJsonValue(authresponse,
-                SKFSConstants.JSON_KEY_REQUEST_TYPE, "String");
-        String responseObject = ((JsonObject) applianceCommon.getJsonValue(authresponse,
-                SKFSConstants.JSON_KEY_SERVLET_INPUT_RESPONSE, "JsonObject")).toString();
+        String discoveredUsername = null;
+        SKFSLogger.logp(SKFSConstants.SKFE_LOGGER, Level.FINE, classname, "execute", "FIDO-MSG-2001", "AuthResponse : " + authcontext.getCredential());
+        String id = authcontext.getId();
+        String rawId = authcontext.getRawId();
+        String credential_type = authcontext.getType();
+        JsonObject responseObject = authcontext.getResponse();
+        if (responseObject == null) {
+            SKFSLogger.log(SKFSConstants.SKFE_LOGGER, Level.SEVERE, "FIDO-ERR-0005", " Missing 'response'");
+            throw new SKIllegalArgumentException(SKFSCommon.buildReturn(SKFSCommon.getMessageProperty("FIDO-ERR-0005")
+                    + " Missing 'response'"));
+        }
 
         SKFSLogger.logp(SKFSConstants.SKFE_LOGGER, Level.FINE, classname, "execute", "FIDO-MSG-2001", "Extracted AuthResponse : " + "\nid : " + id
                 + "\nrawId : " + rawId + "\ncredential_type : " + credential_type + "\nresponseObject : " + responseObject);
@@ -139,8 +143,7 @@ public class FIDO2AuthenticateBean implements FIDO2AuthenticateBeanLocal {
                     + " Invalid 'credential_type'"));
         }
 
-        String browserdata = (String) applianceCommon.getJsonValue(responseObject,
-                SKFSConstants.JSON_KEY_CLIENTDATAJSON, "String");
+        String browserdata = authcontext.getClientDataJSON();
         if (browserdata == null || browserdata.isEmpty()) {
             SKFSLogger.log(SKFSConstants.SKFE_LOGGER, Level.SEVERE, "FIDO-ERR-0005", " Missing 'clientData'");
             throw new SKIllegalArgumentException(SKFSCommon.buildReturn(SKFSCommon.getMessageProperty("FIDO-ERR-0005")
@@ -151,12 +154,12 @@ public class FIDO2AuthenticateBean implements FIDO2AuthenticateBeanLocal {
         SKFSLogger.logp(SKFSConstants.SKFE_LOGGER, Level.FINE, classname, "execute", "FIDO-MSG-2001", "browserdata : " + browserdata);
 
         try {
-            String browserdataJson = new String(java.util.Base64.getDecoder().decode(browserdata), "UTF-8");
-            SKFSLogger.logp(SKFSConstants.SKFE_LOGGER, Level.FINE, classname, "execute", "FIDO-MSG-2001", "browserdataJson : " + browserdataJson);
-            String bdreqtype = (String) applianceCommon.getJsonValue(browserdataJson, SKFSConstants.JSON_KEY_REQUEST_TYPE, "String"); //jsonObject.getString(SKFSConstants.JSON_KEY_REQUEST_TYPE);
-            String bdnonce = (String) applianceCommon.getJsonValue(browserdataJson, SKFSConstants.JSON_KEY_NONCE, "String"); //jsonObject.getString(SKFSConstants.JSON_KEY_NONCE);
-            String bdorigin = (String) applianceCommon.getJsonValue(browserdataJson, SKFSConstants.JSON_KEY_SERVERORIGIN, "String"); //jsonObject.getString(SKFSConstants.JSON_KEY_SERVERORIGIN);
-            Boolean crossOrigin = (Boolean) applianceCommon.getJsonValue(browserdataJson, SKFSConstants.JSON_KEY_CROSSORIGIN, "Boolean"); //jsonObject.getString(SKFSConstants.JSON_KEY_SERVERORIGIN);
+            SKFSLogger.logp(SKFSConstants.SKFE_LOGGER, Level.FINE, classname, "execute", "FIDO-MSG-2001", "browserdataJson : " + authcontext.getClientDataString());
+            JsonObject clientJson = authcontext.getClientData();
+            String bdreqtype = FIDO2RequestContext.getString(clientJson, SKFSConstants.JSON_KEY_REQUEST_TYPE);
+            String bdnonce = FIDO2RequestContext.getString(clientJson, SKFSConstants.JSON_KEY_NONCE);
+            String bdorigin = FIDO2RequestContext.getString(clientJson, SKFSConstants.JSON_KEY_SERVERORIGIN);
+            Boolean crossOrigin = FIDO2RequestContext.getBoolean(clientJson, SKFSConstants.JSON_KEY_CROSSORIGIN);
             if(crossOrigin == null){
                 crossOrigin = Boolean.FALSE;
             }
@@ -182,21 +185,18 @@ public class FIDO2AuthenticateBean implements FIDO2AuthenticateBeanLocal {
                         + " Invalid 'bdorigin'"));
             }
 
-            clientIP = (String) applianceCommon.getJsonValue(authmetadata,
-                    SKFSConstants.FIDO_METADATA_KEY_CLIENT_IP, "String");
+            clientIP = authcontext.getMetadataValue(SKFSConstants.FIDO_METADATA_KEY_CLIENT_IP);
             if (clientIP == null) {
                 clientIP = cip;
             }
             
-            userAgent = (String) applianceCommon.getJsonValue(authmetadata,
-                    SKFSConstants.FIDO_METADATA_KEY_CLIENT_USERAGENT, "String");
+            userAgent = authcontext.getMetadataValue(SKFSConstants.FIDO_METADATA_KEY_CLIENT_USERAGENT);
             if (userAgent == null) {
                 userAgent = agent;
             }
               
               
-            String origin = (String) applianceCommon.getJsonValue(authmetadata,
-                    SKFSConstants.FIDO_METADATA_KEY_ORIGIN, "String");
+            String origin = authcontext.getMetadataValue(SKFSConstants.FIDO_METADATA_KEY_ORIGIN);
 
             if (origin == null) {
                 SKFSLogger.log(SKFSConstants.SKFE_LOGGER, Level.SEVERE,
@@ -219,8 +219,7 @@ public class FIDO2AuthenticateBean implements FIDO2AuthenticateBeanLocal {
                 }
             }
 
-            String authenticatorObject = (String) applianceCommon.getJsonValue(responseObject,
-                    SKFSConstants.JSON_KEY_AUTHENTICATORDATA, "String");
+            String authenticatorObject = FIDO2RequestContext.getString(responseObject, SKFSConstants.JSON_KEY_AUTHENTICATORDATA);
             if (authenticatorObject == null || authenticatorObject.isEmpty()) {
                 SKFSLogger.log(SKFSConstants.SKFE_LOGGER, Level.SEVERE, "FIDO-ERR-0005", " Missing 'authenticatorObject'");
                 throw new SKIllegalArgumentException(SKFSCommon.buildReturn(SKFSCommon.getMessageProperty("FIDO-ERR-0005")
@@ -228,13 +227,8 @@ public class FIDO2AuthenticateBean implements FIDO2AuthenticateBeanLocal {
             }
             SKFSLogger.logp(SKFSConstants.SKFE_LOGGER, Level.FINE, classname, "execute", "FIDO-MSG-2001", "authenticatorObject : " + authenticatorObject);
 
-            StringReader stringreader = new StringReader(responseObject);
-            JsonReader jsonreader = Json.createReader(stringreader);
-            JsonObject json = jsonreader.readObject();
-
-            if (json.containsKey(SKFSConstants.JSON_KEY_USERHANDLE) && !json.isNull(SKFSConstants.JSON_KEY_USERHANDLE)) {
-                userHandle = (String) applianceCommon.getJsonValue(responseObject,
-                        SKFSConstants.JSON_KEY_USERHANDLE, "String");
+            if (responseObject.containsKey(SKFSConstants.JSON_KEY_USERHANDLE) && !responseObject.isNull(SKFSConstants.JSON_KEY_USERHANDLE)) {
+                userHandle = FIDO2RequestContext.getString(responseObject, SKFSConstants.JSON_KEY_USERHANDLE);
                 if (userHandle == null) { //|| userHandle.isEmpty()
                     SKFSLogger.log(SKFSConstants.SKFE_LOGGER, Level.SEVERE, "FIDO-ERR-0005", " Missing 'userHandle'");
                     throw new SKIllegalArgumentException(SKFSCommon.buildReturn(SKFSCommon.getMessageProperty("FIDO-ERR-0005")
@@ -242,8 +236,7 @@ public class FIDO2AuthenticateBean implements FIDO2AuthenticateBeanLocal {
                 }
             }
 
-            String signature = (String) applianceCommon.getJsonValue(responseObject,
-                    SKFSConstants.JSON_KEY_SIGNATURE, "String");
+            String signature = FIDO2RequestContext.getString(responseObject, SKFSConstants.JSON_KEY_SIGNATURE);
             if (signature == null || signature.isEmpty()) {
                 SKFSLogger.log(SKFSConstants.SKFE_LOGGER, Level.SEVERE, "FIDO-ERR-0005", " Missing 'signature'");
                 throw new SKIllegalArgumentException(SKFSCommon.buildReturn(SKFSCommon.getMessageProperty("FIDO-ERR-0005")
@@ -255,22 +248,17 @@ public class FIDO2AuthenticateBean implements FIDO2AuthenticateBeanLocal {
             FIDO2AuthenticatorData authenticatorData = new FIDO2AuthenticatorData();
             authenticatorData.decodeAuthData(authData);
 
-            String username_received = (String) applianceCommon.getJsonValue(authmetadata,
-                    SKFSConstants.FIDO_METADATA_KEY_USERNAME, "String");
-            if (username_received == null || username_received.isEmpty()) {
-                SKFSLogger.log(SKFSConstants.SKFE_LOGGER, Level.SEVERE, "FIDO-ERR-0019", " Missing metadata - username");
-                throw new SKIllegalArgumentException(SKFSCommon.buildReturn(SKFSCommon.getMessageProperty("FIDO-ERR-0019")
-                        + " Missing metadata - username"));
-            }
+            // May be missing when a discoverable credential answers a
+            // challenge issued without a username
+            String username_received = authcontext.getMetadataValue(SKFSConstants.FIDO_METADATA_KEY_USERNAME);
 
             byte[] encodedauthdata = authData;
-            byte[] browserdatabytes = SKFSCommon.getDigestBytes(java.util.Base64.getDecoder().decode(browserdata), "SHA-256");
+            byte[] browserdatabytes = SKFSCommon.getDigestBytes(authcontext.getClientDataBytes(), "SHA-256");
             byte[] signedBytes = new byte[encodedauthdata.length + browserdatabytes.length];
             System.arraycopy(encodedauthdata, 0, signedBytes, 0, encodedauthdata.length);
             System.arraycopy(browserdatabytes, 0, signedBytes, encodedauthdata.length, browserdatabytes.length);
 
-            String modifyloc = (String) applianceCommon.getJsonValue(authmetadata,
-                    SKFSConstants.FIDO_METADATA_KEY_MODIFY_LOC, "String");
+            String modifyloc = authcontext.getMetadataValue(SKFSConstants.FIDO_METADATA_KEY_MODIFY_LOC);
             if (modifyloc == null || modifyloc.isEmpty()) {
                 SKFSLogger.log(SKFSConstants.SKFE_LOGGER, Level.SEVERE, "FIDO-ERR-0019", " Missing metadata - modifylocation");
                 throw new SKIllegalArgumentException(SKFSCommon.buildReturn(SKFSCommon.getMessageProperty("FIDO-ERR-0019") + " Missing metadata - modifylocation"));
@@ -278,7 +266,6 @@ public class FIDO2AuthenticateBean implements FIDO2AuthenticateBeanLocal {
 
             //TODO token binding verification (Currently only does basic formatting checks)
             try {
-                JsonObject clientJson = SKFSCommon.getJsonObjectFromString(browserdataJson);
                 JsonObject tokenBinding = clientJson.getJsonObject(SKFSConstants.JSON_KEY_TOKENBINDING);
                 if (tokenBinding != null) {
                     String tokenBindingStatus = tokenBinding.getString("status", null);
@@ -308,7 +295,19 @@ public class FIDO2AuthenticateBean implements FIDO2AuthenticateBeanLocal {
             KHhash = SKFSCommon.getDigest(kh, "SHA-256");
 
             //  Look for the sessionid in the sessionmap and retrieve the username
+            String sessionkey = KHhash;
             UserSessionInfo user = (UserSessionInfo) skceMaps.getMapObj().get(SKFSConstants.MAP_USER_SESSION_INFO, KHhash);
+            if (user != null && user.getUsername().isEmpty()) {
+                user = null;
+            }
+            boolean discoverable = false;
+            if (user == null) {
+                //  Challenges issued without a username are stored under the
+                //  digest of the challenge; the key is found from the credential ID
+                sessionkey = SKFSCommon.getDigest(bdnonce, "SHA-256");
+                user = getDiscoverableSession(did, id, userHandle, sessionkey);
+                discoverable = (user != null);
+            }
             if (user == null) {
                 SKFSLogger.log(SKFSConstants.SKFE_LOGGER, Level.SEVERE, "FIDO-ERR-0006", "");
                 throw new SKIllegalArgumentException(SKFSCommon.buildReturn(SKFSCommon.getMessageProperty("FIDO-ERR-0006")));
@@ -321,6 +320,18 @@ public class FIDO2AuthenticateBean implements FIDO2AuthenticateBeanLocal {
                 SKFSLogger.log(SKFSConstants.SKFE_LOGGER, Level.FINE, "FIDO-MSG-0042", " appid=" + appid_Received);
             }
 
+            if (discoverable) {
+                discoveredUsername = username;
+                if (username_received == null || username_received.isEmpty()) {
+                    username_received = username;
+                }
+            }
+            if (username_received == null || username_received.isEmpty()) {
+                SKFSLogger.log(SKFSConstants.SKFE_LOGGER, Level.SEVERE, "FIDO-ERR-0019", " Missing metadata - username");
+                throw new SKIllegalArgumentException(SKFSCommon.buildReturn(SKFSCommon.getMessageProperty("FIDO-ERR-0019")
+                        + " Missing metadata - username"));
+            }
+
             // Verify username received in metadata matches the username for the received challenge
             if (!username_received.equalsIgnoreCase(username)) {
                 throw new SKIllegalArgumentException(SKFSCommon.buildReturn(SKFSCommon.getMessageProperty("FIDO-ERR-0037")));
@@ -415,15 +426,14 @@ public class FIDO2AuthenticateBean implements FIDO2AuthenticateBeanLocal {
             if (key != null) {
                 RegistrationSettings rs = RegistrationSettings.parse(key.getRegistrationSettings(), key.getRegistrationSettingsVersion());
                 String signingKeyType = getKeyTypeFromRegSettings(rs);
-                byte[] publickeyBytes = java.util.Base64.getUrlDecoder().decode(userpublickey);
                 Boolean isSignatureValid;
-                KeyFactory kf = KeyFactory.getInstance(signingKeyType, "BCFIPS");
-                X509EncodedKeySpec pubKeySpec = new X509EncodedKeySpec(publickeyBytes);
-                PublicKey pub = kf.generatePublic(pubKeySpec);
+                long cryptostart = System.nanoTime();
+                PublicKey pub = SKFSCommon.getUserPublicKey(serverid + "-" + did + "-" + regkeyid, userpublickey, signingKeyType);
                 isSignatureValid = cryptoCommon.verifySignature(java.util.Base64.getUrlDecoder().decode(signature),
                         pub,
                         signedBytes,
                         SKFSCommon.getAlgFromIANACOSEAlg(rs.getAlg()));
+                skceMetrics.PHASE_CRYPTO.recordSince(cryptostart);
 
                 if (!isSignatureValid) {
                     SKFSLogger.logp(SKFSConstants.SKFE_LOGGER, Level.SEVERE, classname, "execute", "FIDO-MSG-2001", "Authentication Signature verification : " + isSignatureValid);
@@ -432,7 +442,13 @@ public class FIDO2AuthenticateBean implements FIDO2AuthenticateBeanLocal {
                 }
 
                 //Check authentication against policy
-                verifyPolicyBean.execute(user, did, json, authenticatorData, key, rs.getAttestationFormat());
+                verifyPolicyBean.execute(user, did, responseObject, authenticatorData, key, rs.getAttestationFormat());
+
+                //  Claim the counter; a concurrent assertion with the same counter is rejected
+                if (!SignatureCounterAuthority.advance(serverid + "-" + did + "-" + regkeyid, key.getCounter(), authenticatorData.getCounterValueAsInt())) {
+                    SKFSLogger.logp(SKFSConstants.SKFE_LOGGER, Level.SEVERE, classname, "execute", "FIDO-ERR-0030", " new value=" + authenticatorData.getCounterValueAsInt());
+                    throw new SKIllegalArgumentException(SKFSCommon.buildReturn(SKFSCommon.getMessageProperty("FIDO-ERR-0030")));
+                }
 
                 //  update the sign counter value in the database with the new counter value.
                 String jparesult = updatekeybean.execute(serverid, did, regkeyid, authenticatorData.getCounterValueAsInt(), modifyloc);
@@ -448,7 +464,7 @@ public class FIDO2AuthenticateBean implements FIDO2AuthenticateBeanLocal {
                 }
 
                 //  Remove the sessionid from the sessionmap
-                skceMaps.getMapObj().remove(SKFSConstants.MAP_USER_SESSION_INFO, KHhash);
+                skceMaps.getMapObj().remove(SKFSConstants.MAP_USER_SESSION_INFO, sessionkey);
                 SKFSLogger.log(SKFSConstants.SKFE_LOGGER, Level.FINE, "FIDO-MSG-0023", " username=" + username);
 
                 switch (method) {
@@ -504,23 +520,58 @@ public class FIDO2AuthenticateBean implements FIDO2AuthenticateBeanLocal {
             throw new SKIllegalArgumentException(SKFSCommon.buildReturn(SKFSCommon.getMessageProperty("FIDO-ERR-5011")
                     + ex.getLocalizedMessage()));
         }
-        String responseJSON;
         if(method.equalsIgnoreCase("authorization")){
-            
-            JsonObjectBuilder job = Json.createObjectBuilder();
-            job.add(SKFSConstants.JSON_KEY_SERVLET_RETURN_RESPONSE, wsresponse);
-            job.add(SKFSConstants.TX_DETAIL, txdetail);
-            job.add(SKFSConstants.FIDOAuthenticatorReferences, FIDOAuthRefs);
-            responseJSON = job.build().toString();
-        }else{
-            //call jwtcreate to generate a jwt
-            JsonObjectBuilder job = Json.createObjectBuilder();
-            job.add(SKFSConstants.JSON_KEY_SERVLET_RETURN_RESPONSE, wsresponse);
-            job.add("jwt", jwt);
-            responseJSON = job.build().toString();
+            return new FIDO2AuthenticationResult(wsresponse, txdetail, FIDOAuthRefs);
+        }
+        FIDO2AuthenticationResult result = new FIDO2AuthenticationResult(wsresponse, jwt);
+        if (discoveredUsername != null) {
+            result.setUsername(discoveredUsername);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the session of a challenge issued without a username for the
+     * key that answered it, or null if the challenge was not issued without a
+     * username or the credential ID is not that of an active key of the
+     * domain.
+     *
+     * @param did - domain of the request
+     * @param credentialId - id of the assertion
+     * @param userHandle - userHandle of the assertion, which is required
+     * @param sessionkey - digest of the challenge of the assertion
+     */
+    private UserSessionInfo getDiscoverableSession(Long did, String credentialId, String userHandle, String sessionkey) throws SKFEException {
+        UserSessionInfo challengesession = (UserSessionInfo) skceMaps.getMapObj().get(SKFSConstants.MAP_USER_SESSION_INFO, sessionkey);
+        if (challengesession == null || !challengesession.getUsername().isEmpty()) {
+            return null;
+        }
+        FidoKeys fk = getkeybean.getByCredentialId(did, credentialId);
+        if (fk == null || !fk.getStatus().equalsIgnoreCase(applianceConstants.ACTIVE_STATUS)) {
+            SKFSLogger.log(SKFSConstants.SKFE_LOGGER, Level.FINE, "FIDO-MSG-0070", " no active key for credential " + credentialId);
+            return null;
+        }
+        //  No user was identified before the ceremony, so the userHandle must
+        //  be the user ID the key was registered with (WebAuthn 7.2)
+        if (userHandle == null || userHandle.isEmpty()) {
+            SKFSLogger.log(SKFSConstants.SKFE_LOGGER, Level.SEVERE, "FIDO-ERR-0044", " credential " + credentialId);
+            throw new SKIllegalArgumentException(SKFSCommon.buildReturn(SKFSCommon.getMessageProperty("FIDO-ERR-0044")
+                    + " credential " + credentialId));
+        }
+        if (!userHandle.equals(fk.getUserid())) {
+            SKFSLogger.log(SKFSConstants.SKFE_LOGGER, Level.SEVERE, "FIDO-ERR-0005", " Invalid 'userHandle'");
+            throw new SKIllegalArgumentException(SKFSCommon.buildReturn(SKFSCommon.getMessageProperty("FIDO-ERR-0005")
+                    + " Invalid 'userHandle'"));
         }
-         
-        return responseJSON;
+        UserSessionInfo session = new UserSessionInfo(fk.getFidoKeysPK().getUsername(), challengesession.getNonce(),
+                fk.getAppid(), challengesession.getSessiontype(), fk.getPublickey(), "");
+        session.setFkid(fk.getFidoKeysPK().getFkid());
+        session.setSkid(fk.getFidoKeysPK().getSid());
+        session.setSid(challengesession.getSid());
+        session.setuserVerificationReq(challengesession.getUserVerificationReq());
+        session.setPolicyMapKey(challengesession.getPolicyMapKey());
+        session.setMapkey(sessionkey);
+        return session;
     }
 
     private String getKeyTypeFromRegSettings(RegistrationSettings rs) {
@@ -7,11 +7,13 @@
 
 package com.strongkey.skfs.txbeans;
 
+import com.strongkey.skfs.fido2.FIDO2RequestContext;
+import com.strongkey.skfs.pojos.FIDO2AuthenticationResult;
 import javax.ejb.Local;
 
 @Local
 public interface FIDO2AuthenticateBeanLocal {
 
-    public String execute(Long did, String authneticationresponse, String authenticationmetadata, String method, String txid, String txpayload, String agent, String cip);
+    public FIDO2AuthenticationResult execute(Long did, FIDO2RequestContext authcontext, String method, String txid, String txpayload, String agent, String cip);
 
 }
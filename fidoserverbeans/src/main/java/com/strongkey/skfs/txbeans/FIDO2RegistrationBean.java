@@ -9,12 +9,16 @@ package com.strongkey.skfs.txbeans;
 import com.strongkey.crypto.utility.cryptoCommon;
 import com.strongkey.skce.pojos.UserSessionInfo;
 import com.strongkey.skce.utilities.skceMaps;
+import com.strongkey.skce.utilities.skceMetrics;
 import com.strongkey.skfs.entitybeans.AttestationCertificates;
 import com.strongkey.skfs.entitybeans.AttestationCertificatesPK;
 import com.strongkey.skfs.fido2.FIDO2AttestationObject;
 import com.strongkey.skfs.fido2.FIDO2AttestationStatement;
 import com.strongkey.skfs.fido2.FIDO2AuthenticatorData;
+import com.strongkey.skfs.fido2.FIDO2RequestContext;
+import com.strongkey.skfs.pojos.FIDOReturnObject;
 import com.strongkey.skfs.policybeans.verifyFido2RegistrationPolicyLocal;
+import com.strongkey.skfs.utilities.AttestationCertificateIndex;
 import com.strongkey.skfs.utilities.SKFEException;
 import com.strongkey.skfs.utilities.SKFSCommon;
 import com.strongkey.skfs.utilities.SKFSConstants;
@@ -68,20 +72,20 @@ public class FIDO2RegistrationBean implements FIDO2RegistrationBeanLocal {
 //    verifyMDSCertificateChainBeanLocal verifyMDSCertificateChainBean;
 
     @Override
-    public String execute(Long did, String registrationresponse, String registrationmetadata) {
+    public FIDOReturnObject execute(Long did, FIDO2RequestContext regcontext) {
         try{
             //Verify fields in response from authenticator are valid
-            verifyRegistrationResponse(registrationresponse);
-            JsonObject response = retrieveResponseFromRegistrationResponse(registrationresponse);
+            verifyRegistrationResponse(regcontext.getCredential());
+            JsonObject response = retrieveResponseFromRegistrationResponse(regcontext);
             verifyFIDOResponseObject(response);
 
             //Verify fields in clientDataJson are valid
             String browserdataBase64 = response.getString(SKFSConstants.JSON_KEY_CLIENTDATAJSON);
-            JsonObject clientDataJson = retrieveBrowserdataJsonFromFIDOResponseObject(response);
+            JsonObject clientDataJson = retrieveBrowserdataJsonFromFIDOResponseObject(regcontext);
             verifyClientDataJsonObject(clientDataJson);
 
             //Verify fields in registrationmetatdata are valid
-            JsonObject metadataJson = retrieveMetadataJsonFromRegistrationMetadata(registrationmetadata);
+            JsonObject metadataJson = retrieveMetadataJsonFromRegistrationMetadata(regcontext);
             verifyRegistrationMetadata(metadataJson);
             String origin = metadataJson.getString(SKFSConstants.FIDO_METADATA_KEY_ORIGIN, "");
 
@@ -112,7 +116,9 @@ public class FIDO2RegistrationBean implements FIDO2RegistrationBeanLocal {
             verifyRegistrationPolicyBean.execute(userInfo, clientDataJson, attObject);
 
             //Verify Signature
+            long cryptostart = System.nanoTime();
             Boolean isSignatureValid = attObject.getAttStmt().verifySignature(browserdataBase64, attObject.getAuthData());
+            skceMetrics.PHASE_CRYPTO.recordSince(cryptostart);
             if (!isSignatureValid) {
                 SKFSLogger.logp(SKFSConstants.SKFE_LOGGER, Level.SEVERE, classname, "execute", "FIDO-MSG-2001", "Registration Signature verification : " + isSignatureValid);
                 throw new SKIllegalArgumentException(SKFSCommon.buildReturn(SKFSCommon.getMessageProperty("FIDO-ERR-2001")
@@ -154,8 +160,7 @@ public class FIDO2RegistrationBean implements FIDO2RegistrationBeanLocal {
                         + addkeyres.getString("message")));
             }
             SKFSLogger.log(SKFSConstants.SKFE_LOGGER, Level.FINE, "FIDO-MSG-0024", "");
-            String responseJSON = SKFSCommon.buildReturn("Successfully processed registration response");
-            return responseJSON;
+            return new FIDOReturnObject("Successfully processed registration response");
         }
         catch(RuntimeException | SKFEException | CertificateException | NoSuchProviderException ex){
             ex.printStackTrace();
@@ -166,9 +171,11 @@ public class FIDO2RegistrationBean implements FIDO2RegistrationBeanLocal {
         }
     }
 
-    private void verifyRegistrationResponse(String registrationResponse){
+    private void verifyRegistrationResponse(JsonObject registrationObject){
         try{
-            JsonObject registrationObject = SKFSCommon.getJsonObjectFromString(registrationResponse);
+            if (registrationObject == null) {
+                throw new JsonException("Json improperly formatted");
+            }
             String[] requiredFields = { SKFSConstants.JSON_KEY_ID, SKFSConstants.JSON_KEY_RAW_ID,
                 SKFSConstants.JSON_KEY_REQUEST_TYPE, SKFSConstants.JSON_KEY_SERVLET_INPUT_RESPONSE};
             String[] requiredBase64UrlFields = { SKFSConstants.JSON_KEY_ID, SKFSConstants.JSON_KEY_RAW_ID };
@@ -223,9 +230,8 @@ public class FIDO2RegistrationBean implements FIDO2RegistrationBeanLocal {
         }
     }
 
-    private JsonObject retrieveResponseFromRegistrationResponse(String registrationResponse){
-        JsonObject responseObject = SKFSCommon.getJsonObjectFromString(registrationResponse);
-        JsonObject response = responseObject.getJsonObject(SKFSConstants.JSON_KEY_SERVLET_INPUT_RESPONSE);
+    private JsonObject retrieveResponseFromRegistrationResponse(FIDO2RequestContext regcontext){
+        JsonObject response = regcontext.getResponse();
         if(response == null){
             SKFSLogger.log(SKFSConstants.SKFE_LOGGER,Level.FINE, "FIDO-ERR-5011", "Invalid response");
             throw new SKIllegalArgumentException("Invalid response");
@@ -240,15 +246,13 @@ public class FIDO2RegistrationBean implements FIDO2RegistrationBeanLocal {
         verifyFieldsBase64Url(response, requiredBase64UrlFields);
     }
 
-    private JsonObject retrieveBrowserdataJsonFromFIDOResponseObject(JsonObject response){
-        try {
-            String browserdataString = response.getString(SKFSConstants.JSON_KEY_CLIENTDATAJSON);
-            String browserdataJsonString = new String(Base64.getUrlDecoder().decode(browserdataString), "UTF-8");
-            return SKFSCommon.getJsonObjectFromString(browserdataJsonString);
-        } catch (UnsupportedEncodingException ex) {
+    private JsonObject retrieveBrowserdataJsonFromFIDOResponseObject(FIDO2RequestContext regcontext){
+        JsonObject clientDataJson = regcontext.getClientData();
+        if (clientDataJson == null) {
             SKFSLogger.log(SKFSConstants.SKFE_LOGGER,Level.FINE, "FIDO-ERR-5011", "Invalid clientDataJSON");
             throw new SKIllegalArgumentException("Invalid clientDataJSON");
         }
+        return clientDataJson;
     }
 
     private void verifyClientDataJsonObject(JsonObject clientDataJson){
@@ -261,13 +265,13 @@ public class FIDO2RegistrationBean implements FIDO2RegistrationBeanLocal {
         verifyTokenBinding(clientDataJson.getJsonObject(SKFSConstants.JSON_KEY_TOKENBINDING));
     }
 
-    private JsonObject retrieveMetadataJsonFromRegistrationMetadata(String registrationmetadata){
-        try {
-            return SKFSCommon.getJsonObjectFromString(registrationmetadata);
-        } catch (JsonException ex) {
+    private JsonObject retrieveMetadataJsonFromRegistrationMetadata(FIDO2RequestContext regcontext){
+        JsonObject metadataJson = regcontext.getMetadata();
+        if (metadataJson == null) {
             SKFSLogger.log(SKFSConstants.SKFE_LOGGER,Level.FINE, "FIDO-ERR-5011", "Metadata Json improperly formatted");
             throw new SKIllegalArgumentException("Metadata Json improperly formatted");
         }
+        return metadataJson;
     }
 
     private void verifyRegistrationMetadata(JsonObject metadataJson){
@@ -362,14 +366,22 @@ public class FIDO2RegistrationBean implements FIDO2RegistrationBeanLocal {
                 byte[] certBytes = (byte[]) attestationCerts.get(i);
                 X509Certificate attCert = cryptoCommon.generateX509FromBytes(certBytes);
 
+                String issuerDn = attCert.getIssuerDN().getName();
+                String serialNumber = attCert.getSerialNumber().toString();
+                AttestationCertificatesPK indexedPk = AttestationCertificateIndex.get(issuerDn, serialNumber);
+                if(indexedPk != null){
+                    parentPk = indexedPk;
+                    continue;
+                }
+
                 //Add if attestation certificate not already added
-                AttestationCertificates dbcert = getAttCertbean.getByIssuerDnSerialNumber(
-                        attCert.getIssuerDN().getName(), attCert.getSerialNumber().toString());
+                AttestationCertificates dbcert = getAttCertbean.getByIssuerDnSerialNumber(issuerDn, serialNumber);
                 if(dbcert == null){
                     parentPk = addAttCertBean.execute(did, attCert, parentPk);
                 }
                 //Otherwise save parent certificate information
                 else{
+                    AttestationCertificateIndex.put(dbcert);
                     parentPk = dbcert.getAttestationCertificatesPK();
                 }
             }
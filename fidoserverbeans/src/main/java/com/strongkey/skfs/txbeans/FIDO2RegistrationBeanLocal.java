@@ -6,10 +6,12 @@
 */
 package com.strongkey.skfs.txbeans;
 
+import com.strongkey.skfs.fido2.FIDO2RequestContext;
+import com.strongkey.skfs.pojos.FIDOReturnObject;
 import javax.ejb.Local;
 
 @Local
 public interface FIDO2RegistrationBeanLocal {
 
-    public String execute(Long did, String registrationresponse, String registrationmetadata);
+    public FIDOReturnObject execute(Long did, FIDO2RequestContext regcontext);
 }
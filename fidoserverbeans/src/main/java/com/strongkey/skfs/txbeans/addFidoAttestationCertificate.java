@@ -11,6 +11,7 @@ import com.strongkey.appliance.utilities.applianceConstants;
 import com.strongkey.skfs.entitybeans.AttestationCertificates;
 import com.strongkey.skfs.entitybeans.AttestationCertificatesPK;
 import com.strongkey.skfs.messaging.replicateSKFEObjectBeanLocal;
+import com.strongkey.skfs.utilities.AttestationCertificateIndex;
 import com.strongkey.skfs.utilities.SKFEException;
 import com.strongkey.skfs.utilities.SKFSCommon;
 import com.strongkey.skfs.utilities.SKFSConstants;
@@ -25,6 +26,7 @@ import javax.ejb.SessionContext;
 import javax.ejb.Stateless;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import javax.transaction.TransactionSynchronizationRegistry;
 import javax.validation.ConstraintViolationException;
 
 @Stateless
@@ -33,6 +35,8 @@ public class addFidoAttestationCertificate implements addFidoAttestationCertific
     private final String classname = this.getClass().getName();
     @Resource
     private SessionContext sc;
+    @Resource
+    private TransactionSynchronizationRegistry tsr;
     @PersistenceContext
     private EntityManager em;
 
@@ -107,6 +111,7 @@ public class addFidoAttestationCertificate implements addFidoAttestationCertific
             SKFSLogger.exiting(SKFSConstants.SKFE_LOGGER, classname, "execute");
             throw new RuntimeException(e.getLocalizedMessage());
         }
+        AttestationCertificateIndex.putOnCommit(tsr, attestationCertificate);
         SKFSLogger.exiting(SKFSConstants.SKFE_LOGGER, classname, "execute");
 
         return attestationCertificatePK;
@@ -11,9 +11,12 @@ import com.strongkey.appliance.utilities.applianceCommon;
 import com.strongkey.appliance.utilities.applianceConstants;
 import com.strongkey.crypto.interfaces.initCryptoModule;
 import com.strongkey.crypto.utility.CryptoException;
+import com.strongkey.skce.utilities.skceMetrics;
 import com.strongkey.skfe.entitybeans.FidoKeys;
 import com.strongkey.skfe.entitybeans.FidoKeysPK;
 import com.strongkey.skfs.messaging.replicateSKFEObjectBeanLocal;
+import com.strongkey.skfs.utilities.CredentialDirectory;
+import com.strongkey.skfs.utilities.CredentialIdIndex;
 import com.strongkey.skfs.utilities.SKFEException;
 import com.strongkey.skfs.utilities.SKFSCommon;
 import com.strongkey.skfs.utilities.SKFSConstants;
@@ -31,6 +34,7 @@ import javax.json.Json;
 import javax.json.JsonObject;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import javax.transaction.TransactionSynchronizationRegistry;
 
 @Stateless
 public class addFidoKeys implements addFidoKeysLocal {
@@ -58,6 +62,8 @@ public class addFidoKeys implements addFidoKeysLocal {
      */
     @Resource
     private SessionContext sc;
+    @Resource
+    private TransactionSynchronizationRegistry tsr;
     @PersistenceContext
     private EntityManager em;
 
@@ -358,10 +364,13 @@ public class addFidoKeys implements addFidoKeysLocal {
             Domains d = getdomain.byDid(did);
             //  get signature for the xml
             String signedxml = null;
+            long signstart = System.nanoTime();
             try {
                 signedxml = initCryptoModule.getCryptoModule().signDBRow(did.toString(), d.getSkceSigningdn(), efsXml, Boolean.valueOf(standalone), signingKeystorePassword);
             } catch (CryptoException ex) {
                 Logger.getLogger(addFidoKeys.class.getName()).log(Level.SEVERE, null, ex);
+            } finally {
+                skceMetrics.PHASE_CRYPTO.recordSince(signstart);
             }
 
             if (signedxml == null) {
@@ -406,9 +415,13 @@ public class addFidoKeys implements addFidoKeysLocal {
 //        System.out.println(newKey.getSignature());
 //        System.out.println("*********************");
 
+        long dbstart = System.nanoTime();
         em.persist(newKey);
         em.flush();
         em.clear();
+        skceMetrics.PHASE_DB.recordSince(dbstart);
+        CredentialDirectory.invalidateOnCommit(tsr, did, username);
+        CredentialIdIndex.putOnCommit(tsr, newKey.getFidoKeysPK(), newKey.getKeyhandle());
 
         //add fido keys transport - RFE
         try {
@@ -10,6 +10,8 @@ import com.strongkey.appliance.utilities.applianceCommon;
 import com.strongkey.appliance.utilities.applianceConstants;
 import com.strongkey.skfe.entitybeans.FidoKeys;
 import com.strongkey.skfs.messaging.replicateSKFEObjectBeanLocal;
+import com.strongkey.skfs.utilities.CredentialDirectory;
+import com.strongkey.skfs.utilities.CredentialIdIndex;
 import com.strongkey.skfs.utilities.SKFEException;
 import com.strongkey.skfs.utilities.SKFSCommon;
 import com.strongkey.skfs.utilities.SKFSConstants;
@@ -24,6 +26,7 @@ import javax.json.Json;
 import javax.json.JsonObject;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import javax.transaction.TransactionSynchronizationRegistry;
 
 
 @Stateless
@@ -47,6 +50,7 @@ public class deleteFidoKeys implements deleteFidoKeysLocal {
      * Persistence context for derby
      */
     @Resource private SessionContext            sc;
+    @Resource private TransactionSynchronizationRegistry tsr;
     @PersistenceContext private EntityManager   em;
 
     /**
@@ -124,6 +128,10 @@ public class deleteFidoKeys implements deleteFidoKeysLocal {
         //delete the key
         em.remove(rk);
         em.flush();
+        SKFSCommon.removeVerifiedRowSignature(primarykey);
+        CredentialDirectory.invalidateOnCommit(tsr, did, rk.getFidoKeysPK().getUsername());
+        CredentialIdIndex.remove(did, rk.getKeyhandle());
+        SKFSCommon.removeUserPublicKey(sid + "-" + did + "-" + fkid);
 
         try {
             if(applianceCommon.replicate()) {
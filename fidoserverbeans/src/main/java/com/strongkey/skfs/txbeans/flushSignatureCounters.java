@@ -0,0 +1,204 @@
+/**
+* Copyright StrongAuth, Inc. All Rights Reserved.
+*
+* Use of this source code is governed by the GNU Lesser General Public License v2.1
+* The license can be found at https://github.com/StrongKey/fido2/blob/master/LICENSE
+*/
+
+package com.strongkey.skfs.txbeans;
+
+import com.strongkey.skfe.entitybeans.FidoKeys;
+import com.strongkey.skfs.messaging.FidoKeysCounter;
+import com.strongkey.skfs.utilities.SKFSCommon;
+import com.strongkey.skfs.utilities.SKFSConstants;
+import com.strongkey.skfs.utilities.SKFSLogger;
+import com.strongkey.skfs.utilities.SignatureCounterAuthority;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import javax.ejb.Lock;
+import javax.ejb.LockType;
+import javax.ejb.SessionContext;
+import javax.ejb.Singleton;
+import javax.ejb.Startup;
+import javax.ejb.Timeout;
+import javax.ejb.TimerConfig;
+import javax.ejb.TransactionAttribute;
+import javax.ejb.TransactionAttributeType;
+import javax.ejb.TimerService;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.PersistenceException;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import javax.transaction.TransactionSynchronizationRegistry;
+
+/**
+ * Writes the signature counters of FIDO keys to the database.
+ *
+ * With skfs.cfg.property.fidokeys.counter.writemode=async, the counter
+ * updates of authentications are queued in the SignatureCounterAuthority and
+ * written by a timer every skfs.cfg.property.fidokeys.counter.flush.frequency.seconds,
+ * only the latest update of each key in one transaction. With sync, every
+ * update is written in the transaction of the authentication.
+ */
+@Singleton
+@Startup
+public class flushSignatureCounters implements flushSignatureCountersLocal {
+
+    /**
+     ** This class's name - used for logging & not persisted
+     *
+     */
+    private final String classname = this.getClass().getName();
+
+    @Resource
+    private SessionContext sc;
+    @Resource
+    private TimerService timerService;
+    @Resource
+    private TransactionSynchronizationRegistry tsr;
+    @PersistenceContext
+    private EntityManager em;
+
+    // Set from the start of a flush until its transaction completes
+    private final AtomicBoolean flushing = new AtomicBoolean();
+
+    private boolean async;
+    private long idletime;
+
+    @PostConstruct
+    public void initialize() {
+        async = !"sync".equalsIgnoreCase(SKFSCommon.getConfigurationProperty("skfs.cfg.property.fidokeys.counter.writemode"));
+
+        /**
+         * Same bounds as the other flush jobs: not more frequent than every
+         * second, and not less frequent than every 5 minutes since a crash
+         * loses the counters queued since the last run
+         */
+        long runfrequency;
+        try {
+            runfrequency = Long.parseLong(SKFSCommon.getConfigurationProperty("skfs.cfg.property.fidokeys.counter.flush.frequency.seconds"));
+            if (runfrequency < 1L || runfrequency > 300L) {
+                runfrequency = 5L;
+            }
+        } catch (NumberFormatException ex) {
+            runfrequency = 5L;  //  by default - in case of any error
+        }
+        try {
+            idletime = Long.parseLong(SKFSCommon.getConfigurationProperty("skfs.cfg.property.fidokeys.counter.idle.seconds")) * 1000L;
+        } catch (NumberFormatException ex) {
+            idletime = 300000L;
+        }
+
+        SKFSLogger.logp(SKFSConstants.SKFE_LOGGER, Level.FINE, classname, "initialize", "FIDO-MSG-0062", (async ? "async" : "sync") + " runfrequency=" + runfrequency);
+        timerService.createIntervalTimer(runfrequency * 1000L, runfrequency * 1000L, new TimerConfig(null, false));
+    }
+
+    /**
+     * Writes a counter update to the database, now or with the next flush
+     * depending on the write mode.
+     *
+     * @param fkc - the counter update
+     */
+    @Override
+    @Lock(LockType.READ)
+    public void execute(FidoKeysCounter fkc) {
+        if (async) {
+            SignatureCounterAuthority.record(fkc);
+        } else {
+            SignatureCounterAuthority.raise(fkc.getMapkey(), fkc.getCounter());
+            write(fkc);
+            em.flush();
+        }
+    }
+
+    /**
+     * Writes the queued counter updates to the database. With batch writing
+     * enabled in the persistence unit, the updates are sent as one JDBC batch.
+     *
+     * Runs under the READ lock so authentications queueing updates are not
+     * blocked while the updates are written; a run that starts while the
+     * previous one is still writing does nothing. Updates whose transaction
+     * does not commit are queued again for the next run.
+     */
+    @Override
+    @Timeout
+    @Lock(LockType.READ)
+    public void flush() {
+        if (!flushing.compareAndSet(false, true)) {
+            return;
+        }
+        boolean registered = false;
+        try {
+            if (tsr.getTransactionKey() == null) {
+                // Nothing can be written outside a transaction; the updates stay queued
+                SKFSLogger.logp(SKFSConstants.SKFE_LOGGER, Level.WARNING, classname, "flush", "FIDO-ERR-0041", "no transaction");
+                return;
+            }
+            // Counters drained by the previous run are committed by now
+            SignatureCounterAuthority.retire(idletime);
+
+            List<FidoKeysCounter> updates = SignatureCounterAuthority.drain();
+            if (updates.isEmpty()) {
+                return;
+            }
+            tsr.registerInterposedSynchronization(new Synchronization() {
+                @Override
+                public void beforeCompletion() {
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != Status.STATUS_COMMITTED) {
+                        // Queue the updates again for the next run
+                        for (FidoKeysCounter fkc : updates) {
+                            SignatureCounterAuthority.record(fkc);
+                        }
+                        SKFSLogger.logp(SKFSConstants.SKFE_LOGGER, Level.SEVERE, classname, "flush", "FIDO-ERR-0041", "status=" + status);
+                    }
+                    flushing.set(false);
+                }
+            });
+            registered = true;
+            try {
+                for (FidoKeysCounter fkc : updates) {
+                    write(fkc);
+                }
+                em.flush();
+                SKFSLogger.logp(SKFSConstants.SKFE_LOGGER, Level.FINE, classname, "flush", "FIDO-MSG-0063", updates.size());
+            } catch (PersistenceException ex) {
+                sc.setRollbackOnly();
+                SKFSLogger.logp(SKFSConstants.SKFE_LOGGER, Level.SEVERE, classname, "flush", "FIDO-ERR-0041", ex.getLocalizedMessage());
+            }
+        } finally {
+            if (!registered) {
+                flushing.set(false);
+            }
+        }
+    }
+
+    @PreDestroy
+    @TransactionAttribute(TransactionAttributeType.REQUIRES_NEW)
+    public void shutdown() {
+        flush();
+    }
+
+    /**
+     * Sets the counter columns of the key, unless the stored counter is
+     * already larger (an update that was replicated out of order).
+     */
+    private void write(FidoKeysCounter fkc) {
+        FidoKeys fk = em.find(FidoKeys.class, fkc.getFidoKeysPK());
+        if (fk == null || fk.getCounter() >= fkc.getCounter()) {
+            return;
+        }
+        fk.setCounter(fkc.getCounter());
+        fk.setModifyDate(fkc.getModifyDate());
+        fk.setModifyLocation(fkc.getModifyLocation());
+        SKFSCommon.removeVerifiedRowSignature(fkc.getPrimarykey());
+    }
+}
@@ -0,0 +1,19 @@
+/**
+* Copyright StrongAuth, Inc. All Rights Reserved.
+*
+* Use of this source code is governed by the GNU Lesser General Public License v2.1
+* The license can be found at https://github.com/StrongKey/fido2/blob/master/LICENSE
+*/
+
+package com.strongkey.skfs.txbeans;
+
+import com.strongkey.skfs.messaging.FidoKeysCounter;
+import javax.ejb.Local;
+
+@Local
+public interface flushSignatureCountersLocal {
+
+    public void execute(FidoKeysCounter fkc);
+
+    public void flush();
+}
@@ -7,6 +7,7 @@
 package com.strongkey.skfs.txbeans;
 
 import com.strongkey.appliance.entitybeans.Domains;
+import com.strongkey.skfs.utilities.DomainCache;
 import com.strongkey.skfs.utilities.SKFSLogger;
 import com.strongkey.skfs.utilities.SKFSCommon;
 import com.strongkey.skfs.utilities.SKFSConstants;
@@ -80,7 +81,9 @@ public class getDomainsBean implements getDomainsBeanLocal {
     /**
      * The method finds a single Domains entity based on the primary
      * key - the Domain ID.  It does not return any children objects
-     * in the Domain object.
+     * in the Domain object.  The domain is read from the DomainCache
+     * and only looked up in the database when it is not cached; the
+     * returned object is shared and must not be modified.
      *
      * @param did Short - the unique identifier of the Domain
      * @return Domains - the entity that identifies a Domain in SKCE
@@ -88,11 +91,19 @@ public class getDomainsBean implements getDomainsBeanLocal {
     @Override
     public Domains byDid(final Long did) {
         SKFSLogger.entering(SKFSConstants.SKFE_LOGGER,classname, "byDid");
+        Domains d = DomainCache.get(did);
+        if (d != null) {
+            return d;
+        }
         SKFSLogger.logp(SKFSConstants.SKFE_LOGGER,Level.FINE, classname, "byDid", SKFSCommon.getMessageProperty("SKCE-MSG-1023"),
                 "createNamedQuery(Domains.findByDid)");
         try {
-            return (Domains) em.createNamedQuery("Domains.findByDid")
+            d = (Domains) em.createNamedQuery("Domains.findByDid")
                     .setParameter("did", did).getSingleResult();
+            // Shared with other transactions from now on
+            em.detach(d);
+            DomainCache.putIfAbsent(d);
+            return d;
         } catch (NoResultException ex) {
             SKFSLogger.exiting(SKFSConstants.SKFE_LOGGER,classname, "byDid");
             return null;
@@ -108,6 +119,9 @@ public class getDomainsBean implements getDomainsBeanLocal {
     @Override
     public boolean domainExists(final Long did) {
         SKFSLogger.entering(SKFSConstants.SKFE_LOGGER,classname, "byDid");
+        if (DomainCache.get(did) != null) {
+            return true;
+        }
         SKFSLogger.logp(SKFSConstants.SKFE_LOGGER,Level.FINE, classname, "byDid", SKFSCommon.getMessageProperty("SKCE-MSG-1023"),
                 "createNamedQuery(Domains.findByDid)");
         try {
@@ -7,12 +7,14 @@
 package com.strongkey.skfs.txbeans;
 
 import com.strongkey.skfs.entitybeans.AttestationCertificates;
+import java.util.Collection;
 import java.util.List;
 import javax.ejb.Stateless;
 import javax.persistence.EntityManager;
 import javax.persistence.NoResultException;
 import javax.persistence.PersistenceContext;
 import javax.persistence.Query;
+import javax.persistence.TypedQuery;
 
 @Stateless
 public class getFidoAttestationCertificate implements getFidoAttestationCertificateLocal {
@@ -59,4 +61,12 @@ public class getFidoAttestationCertificate implements getFidoAttestationCertific
             return null;
         }
     }
+
+    @Override
+    public Collection<AttestationCertificates> getAll(int maxResults){
+        TypedQuery<AttestationCertificates> q = em.createNamedQuery("AttestationCertificates.findAll", AttestationCertificates.class);
+        q.setHint("javax.persistence.cache.storeMode", "REFRESH");
+        q.setMaxResults(maxResults);
+        return q.getResultList();
+    }
 }
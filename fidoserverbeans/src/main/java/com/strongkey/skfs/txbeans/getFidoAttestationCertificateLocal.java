@@ -8,6 +8,7 @@
 package com.strongkey.skfs.txbeans;
 
 import com.strongkey.skfs.entitybeans.AttestationCertificates;
+import java.util.Collection;
 import javax.ejb.Local;
 
 @Local
@@ -15,4 +16,5 @@ public interface getFidoAttestationCertificateLocal {
 
     public AttestationCertificates getByPK(Long did, Long sid, Long attcid);
     public AttestationCertificates getByIssuerDnSerialNumber(String issuerDn, String serialNumber);
+    public Collection<AttestationCertificates> getAll(int maxResults);
 }
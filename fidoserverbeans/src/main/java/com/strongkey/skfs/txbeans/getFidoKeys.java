@@ -10,25 +10,39 @@ package com.strongkey.skfs.txbeans;
 import com.strongkey.appliance.entitybeans.Domains;
 import com.strongkey.crypto.interfaces.initCryptoModule;
 import com.strongkey.crypto.utility.CryptoException;
+import com.strongkey.skce.utilities.skceCommon;
+import com.strongkey.skce.utilities.skceMetrics;
 import com.strongkey.skfe.entitybeans.FidoKeys;
-import com.strongkey.skfs.oldentitybean.FidoKeysPK;
+import com.strongkey.skfe.entitybeans.FidoKeysPK;
+import com.strongkey.skfs.utilities.CredentialDirectory;
+import com.strongkey.skfs.utilities.CredentialIdIndex;
 import com.strongkey.skfs.utilities.SKFEException;
 import com.strongkey.skfs.utilities.SKFSCommon;
 import com.strongkey.skfs.utilities.SKFSConstants;
 import com.strongkey.skfs.utilities.SKFSLogger;
 import java.io.StringWriter;
+import java.security.NoSuchAlgorithmException;
+import java.security.NoSuchProviderException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import javax.annotation.Resource;
 import javax.ejb.EJB;
+import javax.enterprise.concurrent.ManagedExecutorService;
 import javax.ejb.Stateless;
 import javax.persistence.EntityManager;
 import javax.persistence.NoResultException;
 import javax.persistence.PersistenceContext;
 import javax.persistence.Query;
 import javax.persistence.TypedQuery;
+import javax.transaction.TransactionSynchronizationRegistry;
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.Marshaller;
@@ -43,15 +57,30 @@ public class getFidoKeys implements getFidoKeysLocal {
     private final String classname = this.getClass().getName();
 
     final private String SIGN_SUFFIX = SKFSCommon.getConfigurationProperty("skfs.cfg.property.signsuffix");
+
+    // Shared JAXB context for the legacy (v1) XML form of FidoKeys rows
+    private static volatile JAXBContext jaxbcontext = null;
+
+    // Number of tasks verifying the row signatures of a multi-key result
+    private static final int VERIFY_THREADS = getVerifyThreads();
+
+    private static final Comparator<FidoKeys> NEWEST_FIRST = Comparator.comparing(FidoKeys::getCreateDate).reversed();
     /**
      * Persistence context for derby
      */
     @PersistenceContext
     private EntityManager em;
 
+    // Runs the row signature verifications of multi-key results in parallel
+    @Resource
+    private ManagedExecutorService verifypool;
+
     @EJB
     getDomainsBeanLocal getdomejb;
 
+    @Resource
+    private TransactionSynchronizationRegistry tsr;
+
     /**
      *
      * @param did
@@ -60,28 +89,7 @@ public class getFidoKeys implements getFidoKeysLocal {
      */
     @Override
     public Collection<FidoKeys> getByUsername(Long did, String username) throws SKFEException {
-        try {
-            TypedQuery<FidoKeys> q = em.createNamedQuery("FidoKeys.findByUsername", FidoKeys.class);
-            q.setHint("javax.persistence.cache.storeMode", "REFRESH");
-            q.setParameter("username", username);
-            q.setParameter("did", did);
-            Collection<FidoKeys> fidoKeysColl = q.getResultList();
-            Collection<FidoKeys> validFidoKeysColl = fidoKeysColl;
-            if (!fidoKeysColl.isEmpty()) {
-                for (FidoKeys fk : fidoKeysColl) {
-                    if (fk != null) {
-                        try {
-                            verifyDBRecordSignature(did, fk);
-                        } catch (SKFEException ex) {
-                            validFidoKeysColl.remove(fk);
-                        }
-                    }
-                }
-            }
-            return validFidoKeysColl;
-        } catch (NoResultException ex) {
-            return null;
-        }
+        return getUserKeys(did, username);
     }
 
     /**
@@ -95,20 +103,8 @@ public class getFidoKeys implements getFidoKeysLocal {
             TypedQuery<FidoKeys> q = em.createNamedQuery("FidoKeys.findAllbyDid", FidoKeys.class);
             q.setHint("javax.persistence.cache.storeMode", "REFRESH");
             q.setParameter("did", did);
-            Collection<FidoKeys> fidoKeysColl = q.getResultList();
-            Collection<FidoKeys> validFidoKeysColl = fidoKeysColl;
-            if (!fidoKeysColl.isEmpty()) {
-                for (FidoKeys fk : fidoKeysColl) {
-                    if (fk != null) {
-                        try {
-                            verifyDBRecordSignature(did, fk);
-                        } catch (SKFEException ex) {
-                            validFidoKeysColl.remove(fk);
-                        }
-                    }
-                }
-            }
-            return validFidoKeysColl;
+            Collection<FidoKeys> fidoKeysColl = getResultList(q);
+            return verifyDBRecordSignatures(did, fidoKeysColl);
         } catch (NoResultException ex) {
             return null;
         }
@@ -131,7 +127,7 @@ public class getFidoKeys implements getFidoKeysLocal {
             q.setParameter("username", username);
             q.setParameter("did", did);
             q.setParameter("keyhandle", KH);
-            FidoKeys rk = (FidoKeys) q.getSingleResult();
+            FidoKeys rk = (FidoKeys) getSingleResult(q);
             if (rk != null) {
                 verifyDBRecordSignature(did, rk);
             }
@@ -158,7 +154,7 @@ public class getFidoKeys implements getFidoKeysLocal {
             q.setParameter("did", did);
             q.setParameter("username", username);
             q.setParameter("sid", sid);
-            FidoKeys rk = (FidoKeys) q.getSingleResult();
+            FidoKeys rk = (FidoKeys) getSingleResult(q);
             if (rk != null) {
                 verifyDBRecordSignature(did, rk);
             }
@@ -176,7 +172,7 @@ public class getFidoKeys implements getFidoKeysLocal {
             q.setParameter("fkid", fkid);
             q.setParameter("did", did);
             q.setParameter("sid", sid);
-            FidoKeys rk = (FidoKeys) q.getSingleResult();
+            FidoKeys rk = (FidoKeys) getSingleResult(q);
             if (rk != null) {
                 verifyDBRecordSignature(did, rk);
             }
@@ -196,30 +192,12 @@ public class getFidoKeys implements getFidoKeysLocal {
      */
     @Override
     public Collection<FidoKeys> getByUsernameStatus(Long did, String username, String status) throws SKFEException {
-        try {
-            TypedQuery<FidoKeys> q = em.createNamedQuery("FidoKeys.findByUsernameStatus", FidoKeys.class);
-            q.setHint("javax.persistence.cache.storeMode", "REFRESH");
-            q.setParameter("username", username);
-            q.setParameter("did", did);
-            q.setParameter("status", status);
-            Collection<FidoKeys> fidoKeysColl = q.getResultList();
-            Collection<FidoKeys> validFidoKeysColl = new ArrayList<>();
-            validFidoKeysColl.addAll(fidoKeysColl);
-            if (!fidoKeysColl.isEmpty()) {
-                for (FidoKeys fk : fidoKeysColl) {
-                    if (fk != null) {
-                        try {
-                            verifyDBRecordSignature(did, fk);
-                        } catch (SKFEException ex) {
-                            validFidoKeysColl.remove(fk);
-                        }
-                    }
-                }
-            }
-            return validFidoKeysColl;
-        } catch (NoResultException ex) {
+        List<FidoKeys> fidoKeysColl = getUserKeys(did, username);
+        if (fidoKeysColl == null) {
             return null;
         }
+        fidoKeysColl.removeIf(fk -> !fk.getStatus().equalsIgnoreCase(status));
+        return fidoKeysColl;
     }
 
     /**
@@ -231,68 +209,163 @@ public class getFidoKeys implements getFidoKeysLocal {
      */
     @Override
     public FidoKeys getNewestKeyByUsernameStatus(Long did, String username, String status) throws SKFEException {
-        try {
-            Query q = em.createNamedQuery("FidoKeys.findNewestKeyByUsernameStatus", FidoKeys.class);
-            q.setHint("javax.persistence.cache.storeMode", "REFRESH");
-            q.setParameter("username", username);
-            q.setParameter("did", did);
-            q.setParameter("status", status);
+        List<FidoKeys> fkList = getKeysByUsernameStatus(did, username, status);
+        if (fkList == null || fkList.isEmpty()) {
+            return null;
+        }
+        return fkList.get(0);
+    }
+
+    /**
+     *
+     * @param did
+     * @param username - Name of the user whose keys need to be fetched.
+     * @param status - status of Fido key (Active vs Inactive)
+     * @return - List of keys for the supplied username, newest first
+     */
+    @Override
+    public List<FidoKeys> getKeysByUsernameStatus(Long did, String username, String status) throws SKFEException {
+        List<FidoKeys> fidoKeysColl = getUserKeys(did, username);
+        if (fidoKeysColl == null) {
+            return null;
+        }
+        fidoKeysColl.removeIf(fk -> !fk.getStatus().equalsIgnoreCase(status));
+        fidoKeysColl.sort(NEWEST_FIRST);
+        return fidoKeysColl;
+    }
 
-            List<FidoKeys> fkList = q.getResultList();
-            if (fkList == null || fkList.isEmpty()) {
-                return null;
+    /**
+     * Finds a key by its keyhandle alone, through the credential ID index or
+     * else the keyhandle_digest column.
+     *
+     * @param did
+     * @param credentialId - keyhandle of the key; the base64url credential
+     * ID for FIDO2 keys
+     * @return - the key, or null if there is none in the domain or the
+     * stored keyhandles are encrypted
+     */
+    @Override
+    public FidoKeys getByCredentialId(Long did, String credentialId) throws SKFEException {
+        // The keyhandle_digest column is then the digest of the ciphertext
+        if (skceCommon.getConfigurationProperty("skce.cfg.property.db.keyhandle.encrypt").equalsIgnoreCase("true")) {
+            return null;
+        }
+        String digest;
+        try {
+            digest = CredentialIdIndex.getDigest(credentialId);
+        } catch (NoSuchAlgorithmException | NoSuchProviderException ex) {
+            throw new SKFEException(ex);
+        }
+        FidoKeysPK pk = CredentialIdIndex.get(did, digest);
+        if (pk != null) {
+            FidoKeys fk = getByfkid(pk.getSid(), did, pk.getFkid());
+            // The fkid of a deleted key may have been given to another one
+            if (fk != null && credentialId.equals(fk.getKeyhandle())) {
+                return fk;
             }
-            FidoKeys rk = fkList.get(0);
-            if (rk != null) {
-                verifyDBRecordSignature(did, rk);
+        }
+        TypedQuery<FidoKeys> q = em.createNamedQuery("FidoKeys.findByKeyhandleDigest", FidoKeys.class);
+        q.setHint("javax.persistence.cache.storeMode", "REFRESH");
+        q.setParameter("did", did);
+        q.setParameter("keyhandleDigest", digest);
+        for (FidoKeys fk : getResultList(q)) {
+            if (credentialId.equals(fk.getKeyhandle())) {
+                verifyDBRecordSignature(did, fk);
+                CredentialIdIndex.put(fk.getFidoKeysPK(), digest);
+                return fk;
             }
-            return rk;
-        } catch (NoResultException ex) {
-            return null;
         }
+        return null;
     }
-    
+
+    /**
+     * Used to load the credential ID index at startup.
+     *
+     * @param maxresults - maximum number of keys returned
+     * @return - primary keys of the keys by the hex digest of their keyhandle
+     */
     @Override
-    public List<FidoKeys> getKeysByUsernameStatus(Long did, String username, String status) throws SKFEException {
+    public Map<String, FidoKeysPK> getKeyhandleDigests(int maxresults) {
+        TypedQuery<Object[]> q = em.createNamedQuery("FidoKeys.findAllKeyhandleDigests", Object[].class);
+        q.setMaxResults(maxresults);
+        Map<String, FidoKeysPK> digests = new HashMap<>();
+        for (Object[] row : getResultList(q)) {
+            if (row[1] != null) {
+                digests.put((String) row[1], (FidoKeysPK) row[0]);
+            }
+        }
+        return digests;
+    }
+
+    /**
+     * Returns all the keys of a user with verified signatures, from the
+     * credential directory or else from the database, and adds them to the
+     * credential directory.
+     *
+     * @param did
+     * @param username - Name of the user whose keys need to be fetched.
+     * @return - List of keys for the supplied username, that the caller may
+     * modify
+     */
+    private List<FidoKeys> getUserKeys(Long did, String username) throws SKFEException {
+        List<FidoKeys> fidoKeysColl = CredentialDirectory.get(tsr, did, username);
+        if (fidoKeysColl != null) {
+            return fidoKeysColl;
+        }
         try {
-            Query q = em.createNamedQuery("FidoKeys.findNewestKeyByUsernameStatus", FidoKeys.class);
+            long version = CredentialDirectory.getVersion(did, username);
+            TypedQuery<FidoKeys> q = em.createNamedQuery("FidoKeys.findByUsername", FidoKeys.class);
             q.setHint("javax.persistence.cache.storeMode", "REFRESH");
             q.setParameter("username", username);
             q.setParameter("did", did);
-            q.setParameter("status", status);
-
-            List<FidoKeys> fidoKeysColl = q.getResultList();
-//            if (!fidoKeysColl.isEmpty()) {
-//                for (FidoKeys fk : fidoKeysColl) {
-//                    if (fk != null) {
-//                        try {
-//                            verifyDBRecordSignature(did, fk);
-//                        } catch (SKFEException ex) {
-//                            fidoKeysColl.remove(fk);
-//                        }
-//                    }
-//                }
-//            }
-//            return fidoKeysColl;
-            List<FidoKeys> validFidoKeysColl = new ArrayList<>();
-            validFidoKeysColl.addAll(fidoKeysColl);
-            if (!fidoKeysColl.isEmpty()) {
-                for (FidoKeys fk : fidoKeysColl) {
-                    if (fk != null) {
-                        try {
-                            verifyDBRecordSignature(did, fk);
-                        } catch (SKFEException ex) {
-                            validFidoKeysColl.remove(fk);
-                        }
-                    }
-                }
-            }
-            return validFidoKeysColl;
+            fidoKeysColl = verifyDBRecordSignatures(did, getResultList(q));
+            CredentialDirectory.put(tsr, did, username, fidoKeysColl, version);
+            return fidoKeysColl;
         } catch (NoResultException ex) {
             return null;
         }
     }
 
+    // Query execution, timed as the db phase of the request
+    private static <T> List<T> getResultList(TypedQuery<T> q) {
+        long start = System.nanoTime();
+        try {
+            return q.getResultList();
+        } finally {
+            skceMetrics.PHASE_DB.recordSince(start);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<FidoKeys> getResultList(Query q) {
+        long start = System.nanoTime();
+        try {
+            return q.getResultList();
+        } finally {
+            skceMetrics.PHASE_DB.recordSince(start);
+        }
+    }
+
+    private static Object getSingleResult(Query q) {
+        long start = System.nanoTime();
+        try {
+            return q.getSingleResult();
+        } finally {
+            skceMetrics.PHASE_DB.recordSince(start);
+        }
+    }
+
+    // Row signature verification, timed as the crypto phase of the request
+    private static boolean verifyDBRow(Long did, String input, String signingDN, String standalone,
+            String signingKeystorePassword, FidoKeys fk) throws CryptoException {
+        long start = System.nanoTime();
+        try {
+            return initCryptoModule.getCryptoModule().verifyDBRow(did.toString(), input, signingDN, Boolean.valueOf(standalone), signingKeystorePassword, fk.getSignatureKeytype(), fk.getSignature());
+        } finally {
+            skceMetrics.PHASE_CRYPTO.recordSince(start);
+        }
+    }
+
     /**
      * Verifies the database row level signature of the given object and returns
      * successfully if verified and throws exception if not verified.
@@ -306,119 +379,237 @@ public class getFidoKeys implements getFidoKeysLocal {
         if (fk != null) {
             if (SKFSCommon.getConfigurationProperty("skfs.cfg.property.db.signature.rowlevel.verify")
                     .equalsIgnoreCase("true")) {
-                Domains d = getdomejb.byDid(did);
-                String standalone = SKFSCommon.getConfigurationProperty("skfs.cfg.property.standalone.fidoengine");
-                String signingKeystorePassword = "";
-                if (standalone.equalsIgnoreCase("true")) {
-                    signingKeystorePassword = SKFSCommon.getConfigurationProperty("skfs.cfg.property.standalone.signingkeystore.password");
-                }
+                verifySignature(did, fk, getdomejb.byDid(did));
+            }
+        } else {
+            SKFSLogger.logp(SKFSConstants.SKFE_LOGGER, Level.SEVERE, classname, "verifyDBRecordSignature",
+                    "FIDOJPA-ERR-1001", " er object");
+            throw new SKFEException(SKFSCommon.getMessageProperty("FIDOJPA-ERR-1001") + " fk object");
+        }
+    }
 
-                String rsainput = "", ecinput="";
-                String signingDN = "";
-                String signatureType = fk.getSignatureKeytype();
-                String documentid = fk.getFidoKeysPK().getSid()
-                            + "-" + fk.getFidoKeysPK().getDid()
-                            + "-" + fk.getFidoKeysPK().getUsername()
-                            + "-" + fk.getFidoKeysPK().getFkid();
-                    fk.setId(documentid);
-
-                    //convert fk to old fk v1
-                    com.strongkey.skfs.oldentitybean.FidoKeys fkv1 = new com.strongkey.skfs.oldentitybean.FidoKeys();
-                    FidoKeysPK fkpkv1 = new FidoKeysPK();
-                    fkpkv1.setSid(fk.getFidoKeysPK().getSid());
-                    fkpkv1.setDid(fk.getFidoKeysPK().getDid());
-                    fkpkv1.setFkid(fk.getFidoKeysPK().getFkid());
-                    fkpkv1.setUsername(fk.getFidoKeysPK().getUsername());
-                    fkv1.setFidoKeysPK(fkpkv1);
-                    
-                    fkv1.setUserid(fk.getUserid());
-                    fkv1.setKeyhandle(fk.getKeyhandle());
-                    fkv1.setPublickey(fk.getPublickey());
-                    fkv1.setAppid(fk.getAppid());
-                    fkv1.setTransports(fk.getTransports());
-                    fkv1.setAttsid(fk.getAttsid());
-                    fkv1.setAttdid(fk.getAttdid());
-                    fkv1.setAttcid(fk.getAttcid());
-                    fkv1.setCounter(fk.getCounter());
-                    fkv1.setFidoVersion(fk.getFidoVersion());
-                    fkv1.setFidoProtocol(fk.getFidoProtocol());
-                    if (fk.getAaguid() != null) {
-                        fkv1.setAaguid(fk.getAaguid());
-                    }
-                    if (fk.getRegistrationSettings() != null) {
-                        fkv1.setRegistrationSettings(fk.getRegistrationSettings());
-                    }
-                    if (fk.getRegistrationSettingsVersion()!= null) {
-                        fkv1.setRegistrationSettingsVersion(fk.getRegistrationSettingsVersion());
-                    }
-                    fkv1.setCreateLocation(fk.getCreateLocation());
-                    fkv1.setCreateDate(fk.getCreateDate());
-                    fkv1.setStatus(fk.getStatus());
-                    fkv1.setId(fk.getId());
-                   
-                    //jaxB conversion
-                    //converting the databean object to xml
-                    StringWriter writer = new StringWriter();
-                    JAXBContext jaxbContext;
-                    Marshaller marshaller;
-                    try {
-                        jaxbContext = JAXBContext.newInstance(com.strongkey.skfs.oldentitybean.FidoKeys.class);
-                        marshaller = jaxbContext.createMarshaller();
-                        marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
-                        marshaller.marshal(fkv1, writer);
-                        rsainput = writer.toString();
-                    } catch (JAXBException ex) {
-                        Logger.getLogger(getFidoKeys.class.getName()).log(Level.SEVERE, null, ex);
-                    }
-                    
-                    ecinput = fk.toJsonObject();
-                    String input ="";
-                if (signatureType.equalsIgnoreCase("RSA")) {
-                    input = rsainput;
-                    signingDN = "CN=SKFS Signing Key,OU=DID 1,OU=SKFS Signing Certificate 1,O=StrongKey";
-                } else {
-                    input = ecinput;
-                    signingDN = d.getSkceSigningdn();
+    /**
+     * Verifies the database row level signatures of a collection of keys and
+     * returns only those whose signatures verified. The domain is looked up
+     * once for the whole collection; rows whose signatures were not verified
+     * earlier are verified in parallel on the verifier pool.
+     *
+     * @param did CDA domain id
+     * @param fidoKeysColl Keys whose signatures have to be verified
+     * @return List of keys with valid signatures
+     */
+    private List<FidoKeys> verifyDBRecordSignatures(Long did, Collection<FidoKeys> fidoKeysColl) {
+        List<FidoKeys> validFidoKeysColl = new ArrayList<>();
+        if (fidoKeysColl == null || fidoKeysColl.isEmpty()) {
+            return validFidoKeysColl;
+        }
+        if (!SKFSCommon.getConfigurationProperty("skfs.cfg.property.db.signature.rowlevel.verify")
+                .equalsIgnoreCase("true")) {
+            for (FidoKeys fk : fidoKeysColl) {
+                if (fk != null) {
+                    validFidoKeysColl.add(fk);
                 }
+            }
+            return validFidoKeysColl;
+        }
 
-                
-                //  verify row level signature
-                boolean verified = false;
+        Domains d = getdomejb.byDid(did);
+        List<FidoKeys> pending = new ArrayList<>();
+        for (FidoKeys fk : fidoKeysColl) {
+            if (fk != null) {
+                pending.add(fk);
+            }
+        }
+        if (verifypool == null || VERIFY_THREADS <= 1 || pending.size() <= 1) {
+            return verifySignatures(did, pending, d);
+        }
+
+        // The keys are split among at most VERIFY_THREADS tasks; the caller
+        // verifies the first share itself
+        int tasks = Math.min(VERIFY_THREADS, pending.size());
+        List<Future<List<FidoKeys>>> results = new ArrayList<>();
+        for (int t = 1; t < tasks; t++) {
+            List<FidoKeys> share = getShare(pending, t, tasks);
+            results.add(verifypool.submit(() -> verifySignatures(did, share, d)));
+        }
+        validFidoKeysColl.addAll(verifySignatures(did, getShare(pending, 0, tasks), d));
+        for (Future<List<FidoKeys>> result : results) {
+            try {
+                validFidoKeysColl.addAll(result.get());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                Logger.getLogger(getFidoKeys.class.getName()).log(Level.SEVERE, null, ex);
+            } catch (ExecutionException ex) {
+                Logger.getLogger(getFidoKeys.class.getName()).log(Level.SEVERE, null, ex);
+            }
+        }
+        return validFidoKeysColl;
+    }
+
+    private static List<FidoKeys> getShare(List<FidoKeys> keys, int task, int tasks) {
+        return keys.subList(keys.size() * task / tasks, keys.size() * (task + 1) / tasks);
+    }
+
+    /**
+     * @return - the keys whose row signature is valid
+     */
+    private List<FidoKeys> verifySignatures(Long did, List<FidoKeys> keys, Domains d) {
+        List<FidoKeys> valid = new ArrayList<>(keys.size());
+        for (FidoKeys fk : keys) {
+            try {
+                verifySignature(did, fk, d);
+                valid.add(fk);
+            } catch (SKFEException ex) {
+                // Already logged; the key is left out of the result
+            }
+        }
+        return valid;
+    }
+
+    /**
+     * Verifies the row level signature of a single key against the signing
+     * key of the supplied domain. Signatures that were verified earlier for
+     * the exact same row content are not verified again; the legacy XML form
+     * of the row is only built when it is actually needed (RSA signatures
+     * and the EC fallback).
+     */
+    private void verifySignature(Long did, FidoKeys fk, Domains d)
+            throws SKFEException {
+        String standalone = SKFSCommon.getConfigurationProperty("skfs.cfg.property.standalone.fidoengine");
+        String signingKeystorePassword = "";
+        if (standalone.equalsIgnoreCase("true")) {
+            signingKeystorePassword = SKFSCommon.getConfigurationProperty("skfs.cfg.property.standalone.signingkeystore.password");
+        }
+
+        String signingDN;
+        String signatureType = fk.getSignatureKeytype();
+        String documentid = fk.getFidoKeysPK().getSid()
+                + "-" + fk.getFidoKeysPK().getDid()
+                + "-" + fk.getFidoKeysPK().getUsername()
+                + "-" + fk.getFidoKeysPK().getFkid();
+        fk.setId(documentid);
+
+        String ecinput = fk.toJsonObject();
+        String rowdigest = SKFSCommon.getRowDigest(fk, ecinput);
+        if (rowdigest != null && SKFSCommon.isVerifiedRowSignature(documentid, rowdigest)) {
+            return;
+        }
+
+        String input;
+        String rsainput = null;
+        if (signatureType.equalsIgnoreCase("RSA")) {
+            rsainput = toLegacyXml(fk);
+            input = rsainput;
+            signingDN = "CN=SKFS Signing Key,OU=DID 1,OU=SKFS Signing Certificate 1,O=StrongKey";
+        } else {
+            input = ecinput;
+            signingDN = d.getSkceSigningdn();
+        }
+
+        //  verify row level signature
+        boolean verified = false;
+        try {
+            verified = verifyDBRow(did, input, signingDN, standalone, signingKeystorePassword, fk);
+        } catch (CryptoException ex) {
+            Logger.getLogger(getFidoKeys.class.getName()).log(Level.SEVERE, null, ex);
+        }
+        if (!verified) {
+            if (signatureType.equalsIgnoreCase("EC")) {
+                input = toLegacyXml(fk);
                 try {
-//                    verified = initCryptoModule.getCryptoModule().verifyDBRow(did.toString(), writer.toString(), d.getSkceSigningdn(), Boolean.valueOf(standalone), signingKeystorePassword, fk.getSignature());
-                    verified = initCryptoModule.getCryptoModule().verifyDBRow(did.toString(), input, signingDN, Boolean.valueOf(standalone), signingKeystorePassword, fk.getSignatureKeytype(), fk.getSignature());
+                    verified = verifyDBRow(did, input, signingDN, standalone, signingKeystorePassword, fk);
                 } catch (CryptoException ex) {
                     Logger.getLogger(getFidoKeys.class.getName()).log(Level.SEVERE, null, ex);
                 }
-                if (!verified) {
-                    if (signatureType.equalsIgnoreCase("EC")) {
-                        input = rsainput;
-                        try {
-                            verified = initCryptoModule.getCryptoModule().verifyDBRow(did.toString(), input, signingDN, Boolean.valueOf(standalone), signingKeystorePassword, fk.getSignatureKeytype(), fk.getSignature());
-                        } catch (CryptoException ex) {
-                            Logger.getLogger(getFidoKeys.class.getName()).log(Level.SEVERE, null, ex);
-                        }
-                    }
-                    if (!verified) {
-                        SKFSLogger.logp(SKFSConstants.SKFE_LOGGER, Level.SEVERE, classname, "verifyDBRecordSignature",
-                                "SKCE-ERR-5001", "er sid-did-erqid="
-                                + fk.getFidoKeysPK().getSid()
-                                + "-" + fk.getFidoKeysPK().getDid()
-                                + "-" + fk.getFidoKeysPK().getUsername()
-                                + "-" + fk.getFidoKeysPK().getFkid());
-                        throw new SKFEException(SKFSCommon.getMessageProperty("SKCE-ERR-5001")
-                                + "fk sid-did-erqid="
-                                + fk.getFidoKeysPK().getSid()
-                                + "-" + fk.getFidoKeysPK().getDid()
-                                + "-" + fk.getFidoKeysPK().getUsername()
-                                + "-" + fk.getFidoKeysPK().getFkid());
-                    }
+            }
+            if (!verified) {
+                SKFSLogger.logp(SKFSConstants.SKFE_LOGGER, Level.SEVERE, classname, "verifyDBRecordSignature",
+                        "SKCE-ERR-5001", "er sid-did-erqid=" + documentid);
+                throw new SKFEException(SKFSCommon.getMessageProperty("SKCE-ERR-5001")
+                        + "fk sid-did-erqid=" + documentid);
+            }
+        }
+        if (rowdigest != null) {
+            SKFSCommon.setVerifiedRowSignature(documentid, rowdigest);
+        }
+    }
+
+    /**
+     * Converts the key to the v1 entity and marshals it to the XML form used
+     * by RSA (and older EC) row signatures.
+     */
+    private String toLegacyXml(FidoKeys fk) {
+        //convert fk to old fk v1
+        com.strongkey.skfs.oldentitybean.FidoKeys fkv1 = new com.strongkey.skfs.oldentitybean.FidoKeys();
+        com.strongkey.skfs.oldentitybean.FidoKeysPK fkpkv1 = new com.strongkey.skfs.oldentitybean.FidoKeysPK();
+        fkpkv1.setSid(fk.getFidoKeysPK().getSid());
+        fkpkv1.setDid(fk.getFidoKeysPK().getDid());
+        fkpkv1.setFkid(fk.getFidoKeysPK().getFkid());
+        fkpkv1.setUsername(fk.getFidoKeysPK().getUsername());
+        fkv1.setFidoKeysPK(fkpkv1);
+
+        fkv1.setUserid(fk.getUserid());
+        fkv1.setKeyhandle(fk.getKeyhandle());
+        fkv1.setPublickey(fk.getPublickey());
+        fkv1.setAppid(fk.getAppid());
+        fkv1.setTransports(fk.getTransports());
+        fkv1.setAttsid(fk.getAttsid());
+        fkv1.setAttdid(fk.getAttdid());
+        fkv1.setAttcid(fk.getAttcid());
+        fkv1.setCounter(fk.getCounter());
+        fkv1.setFidoVersion(fk.getFidoVersion());
+        fkv1.setFidoProtocol(fk.getFidoProtocol());
+        if (fk.getAaguid() != null) {
+            fkv1.setAaguid(fk.getAaguid());
+        }
+        if (fk.getRegistrationSettings() != null) {
+            fkv1.setRegistrationSettings(fk.getRegistrationSettings());
+        }
+        if (fk.getRegistrationSettingsVersion()!= null) {
+            fkv1.setRegistrationSettingsVersion(fk.getRegistrationSettingsVersion());
+        }
+        fkv1.setCreateLocation(fk.getCreateLocation());
+        fkv1.setCreateDate(fk.getCreateDate());
+        fkv1.setStatus(fk.getStatus());
+        fkv1.setId(fk.getId());
+
+        //jaxB conversion
+        //converting the databean object to xml
+        StringWriter writer = new StringWriter();
+        try {
+            Marshaller marshaller = getJaxbContext().createMarshaller();
+            marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
+            marshaller.marshal(fkv1, writer);
+        } catch (JAXBException ex) {
+            Logger.getLogger(getFidoKeys.class.getName()).log(Level.SEVERE, null, ex);
+        }
+        return writer.toString();
+    }
+
+    /**
+     * JAXBContext is thread-safe and expensive to create, so a single
+     * instance is shared; Marshallers are created per use.
+     */
+    private static JAXBContext getJaxbContext() throws JAXBException {
+        JAXBContext ctx = jaxbcontext;
+        if (ctx == null) {
+            synchronized (getFidoKeys.class) {
+                ctx = jaxbcontext;
+                if (ctx == null) {
+                    ctx = JAXBContext.newInstance(com.strongkey.skfs.oldentitybean.FidoKeys.class);
+                    jaxbcontext = ctx;
                 }
             }
-        } else {
-            SKFSLogger.logp(SKFSConstants.SKFE_LOGGER, Level.SEVERE, classname, "verifyDBRecordSignature",
-                    "FIDOJPA-ERR-1001", " er object");
-            throw new SKFEException(SKFSCommon.getMessageProperty("FIDOJPA-ERR-1001") + " fk object");
+        }
+        return ctx;
+    }
+
+    private static int getVerifyThreads() {
+        try {
+            return Integer.parseInt(SKFSCommon.getConfigurationProperty("skfs.cfg.property.db.signature.rowlevel.verify.threads"));
+        } catch (NumberFormatException ex) {
+            Logger.getLogger(getFidoKeys.class.getName()).log(Level.WARNING, null, ex);
+            return 1;
         }
     }
 }
@@ -8,9 +8,11 @@
 package com.strongkey.skfs.txbeans;
 
 import com.strongkey.skfe.entitybeans.FidoKeys;
+import com.strongkey.skfe.entitybeans.FidoKeysPK;
 import com.strongkey.skfs.utilities.SKFEException;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import javax.ejb.Local;
 
 @Local
@@ -23,4 +25,6 @@ public interface getFidoKeysLocal {
     FidoKeys getByUsernamefkid(Short sid, Long did, String username,Long fkid)throws SKFEException;
     FidoKeys getNewestKeyByUsernameStatus(Long did, String username, String status) throws SKFEException;
     List<FidoKeys> getKeysByUsernameStatus(Long did, String username, String status) throws SKFEException;
+    FidoKeys getByCredentialId(Long did, String credentialId) throws SKFEException;
+    Map<String, FidoKeysPK> getKeyhandleDigests(int maxresults);
 }
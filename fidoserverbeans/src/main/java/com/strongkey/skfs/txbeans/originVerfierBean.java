@@ -8,21 +8,20 @@
 package com.strongkey.skfs.txbeans;
 
 import com.strongkey.skfs.utilities.SKFSCommon;
-import java.io.IOException;
-import java.io.InputStream;
+import com.strongkey.skfs.utilities.TrustedFacetsCache;
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.util.ArrayList;
-import java.util.List;
+import javax.annotation.Resource;
 import javax.ejb.Stateless;
-import javax.json.Json;
-import javax.json.JsonArray;
-import javax.json.JsonObject;
-import javax.json.JsonReader;
+import javax.enterprise.concurrent.ManagedExecutorService;
 
 @Stateless
 public class originVerfierBean implements originVerfierBeanLocal {
 
+    // Revalidates expired trusted facets in the background
+    @Resource
+    private ManagedExecutorService refresher;
+
     @Override
     public boolean execute(String appid, String origin) {
         try {
@@ -48,45 +47,13 @@ public class originVerfierBean implements originVerfierBeanLocal {
 
                 allowedtld = SKFSCommon.getTLdplusone(domain);
 
-                JsonArray resJsonObj = null;
-                JsonReader rdr = null;
-                List<String> allowedfacets = new ArrayList<>();
-                try {
-                    InputStream is = appidUrl.openStream();
-                    rdr = Json.createReader(is);
-
-                    JsonObject obj = rdr.readObject();
-                    JsonArray results = obj.getJsonArray("trustedFacets");
-                    for (JsonObject result : results.getValuesAs(JsonObject.class)) {
-                        resJsonObj = result.getJsonArray("ids");
-                    }
-                } catch (Exception e) {
-                    InputStream is = appidUrl.openStream();
-                    rdr = Json.createReader(is);
-                    JsonArray results = rdr.readArray();
-                    resJsonObj = results;
-                }
-
-                //parsing facets ids and discarding invalid ones
-                for (int i = 0; i < resJsonObj.size(); i++) {
-                    String facet = resJsonObj.getString(i);
-                    if (facet.startsWith("https")) {
-                        URL u = new URL(facet);
-                        if (u.getHost().endsWith(allowedtld)) {
-                            allowedfacets.add(facet);
-                        }
-                    }
-
-                }
-                if (allowedfacets.contains(origin)) {
+                if (TrustedFacetsCache.isTrustedFacet(appid, allowedtld, origin, refresher)) {
                     return true;
                 }
             }
 
         } catch (MalformedURLException e) {
             e.printStackTrace();
-        } catch (IOException e) {
-            e.printStackTrace();
         }
         return false;
     }
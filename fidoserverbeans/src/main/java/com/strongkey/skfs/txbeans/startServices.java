@@ -15,6 +15,9 @@ import com.strongkey.crypto.utility.cryptoCommon;
 import com.strongkey.skce.utilities.skceCommon;
 import com.strongkey.skfs.messaging.SKCEBacklogProcessor;
 import com.strongkey.skfs.policybeans.cacheMDSv3Local;
+import com.strongkey.skfs.utilities.AttestationCertificateIndex;
+import com.strongkey.skfs.utilities.CredentialIdIndex;
+import com.strongkey.skfs.utilities.DomainCache;
 import com.strongkey.skfs.utilities.SKFSCommon;
 import com.strongkey.skfs.utilities.SKFSConstants;
 import com.strongkey.skfs.utilities.SKFSLogger;
@@ -40,6 +43,10 @@ public class startServices {
     getFIDOConfigurationLocal getfidoconfig;
     @EJB
     cacheMDSv3Local caceMDSejb;
+    @EJB
+    getFidoAttestationCertificateLocal getattcertejb;
+    @EJB
+    getFidoKeysLocal getkeysejb;
 
     @PostConstruct
     public void initialize() {
@@ -49,9 +56,17 @@ public class startServices {
         System.out.println("======Initializing domains and configurations======");
         skceCommon.getConfigurationProperty("skce.cfg.property.skcehome");
         Collection<Domains> domains = getdomejb.getAll();
+        if (domains != null) {
+            DomainCache.load(domains);
+        }
 
         SKFSLogger.logp(SKFSConstants.SKFE_LOGGER, Level.FINE, classname, "execute", "FIDO-MSG-3000", "");
-        caceMDSejb.execute();
+        caceMDSejb.loadSnapshot();
+        caceMDSejb.executeAsync();
+        AttestationCertificateIndex.load(getattcertejb.getAll(
+                Integer.parseInt(SKFSCommon.getConfigurationProperty("skfs.cfg.property.attestationcertificates.index.maxsize"))));
+        CredentialIdIndex.load(getkeysejb.getKeyhandleDigests(
+                Integer.parseInt(SKFSCommon.getConfigurationProperty("skfs.cfg.property.credentialidindex.maxsize"))));
         
         if (domains != null) {
             for (Domains d : domains) {
@@ -22,6 +22,7 @@ import com.strongkey.skfs.core.U2FAuthenticationChallenge;
 import com.strongkey.skfs.core.U2FAuthenticationResponse;
 import com.strongkey.skfs.core.U2FRegistrationChallenge;
 import com.strongkey.skfs.core.U2FUtility;
+import com.strongkey.skfs.fido2.FIDO2RequestContext;
 import com.strongkey.skfs.messaging.replicateSKFEObjectBeanLocal;
 import com.strongkey.skfs.policybeans.generateFido2PreauthenticateChallengeLocal;
 import com.strongkey.skfs.policybeans.generateFido2PreregisterChallengeLocal;
@@ -38,6 +39,7 @@ import com.strongkey.skfs.utilities.SKFSCommon;
 import com.strongkey.skfs.utilities.SKFSConstants;
 import com.strongkey.skfs.utilities.SKFSLogger;
 import com.strongkey.skfs.utilities.SKIllegalArgumentException;
+import com.strongkey.skfs.utilities.SignatureCounterAuthority;
 import java.io.StringReader;
 import java.io.UnsupportedEncodingException;
 import java.net.MalformedURLException;
@@ -417,7 +419,7 @@ public class u2fServletHelperBean implements u2fServletHelperBeanLocal {
             if (registration.getSVCInfo().getProtocol().equalsIgnoreCase(SKFSConstants.FIDO_PROTOCOL_VERSION_U2F_V2)) {
                 responseJSON = U2FRegejb.execute(did, registration.getPayload().getResponse().toString(), registration.getPayload().getMetadata().toString(), registration.getSVCInfo().getProtocol());
             } else {
-                responseJSON = FIDO2Regejb.execute(did, registration.getPayload().getResponse().toString(), registration.getPayload().getMetadata().toString());
+                responseJSON = FIDO2Regejb.execute(did, new FIDO2RequestContext(registration.getPayload().getResponse(), registration.getPayload().getMetadata())).toJsonString();
             }
         } catch (IllegalArgumentException | SKIllegalArgumentException ex) {
             return Response.status(Response.Status.BAD_REQUEST).entity(ex.getMessage()).build();
@@ -512,13 +514,16 @@ public class u2fServletHelperBean implements u2fServletHelperBeanLocal {
             jsonExtensions = jsonreader.readObject();
         }
 
+        // FIDO2 challenges without a username are for discoverable credentials
         if (preauthentication.getPayload().getUsername() == null || preauthentication.getPayload().getUsername().isEmpty()) {
-            SKFSLogger.log(SKFSConstants.SKFE_LOGGER, Level.SEVERE, "FIDO-ERR-0002", " username");
-            return Response.status(Response.Status.BAD_REQUEST).entity(SKFSCommon.buildReturn(SKFSCommon.getMessageProperty("FIDO-ERR-0002")
-                    + " username")).build();
-        }
-
-        if (preauthentication.getPayload().getUsername().trim().length() > applianceCommon.getMaxLenProperty("appliance.cfg.maxlen.256charstring")) {
+            // Stored keyhandles are encrypted, so keys cannot be found by credential ID
+            if (preauthentication.getSVCInfo().getProtocol().equalsIgnoreCase(SKFSConstants.FIDO_PROTOCOL_VERSION_U2F_V2)
+                    || skceCommon.getConfigurationProperty("skce.cfg.property.db.keyhandle.encrypt").equalsIgnoreCase("true")) {
+                SKFSLogger.log(SKFSConstants.SKFE_LOGGER, Level.SEVERE, "FIDO-ERR-0002", " username");
+                return Response.status(Response.Status.BAD_REQUEST).entity(SKFSCommon.buildReturn(SKFSCommon.getMessageProperty("FIDO-ERR-0002")
+                        + " username")).build();
+            }
+        } else if (preauthentication.getPayload().getUsername().trim().length() > applianceCommon.getMaxLenProperty("appliance.cfg.maxlen.256charstring")) {
             return Response.status(Response.Status.BAD_REQUEST).entity(SKFSCommon.getMessageProperty("FIDOJPA-ERR-1002") + " username").build();
         }
 
@@ -988,22 +993,20 @@ public class u2fServletHelperBean implements u2fServletHelperBeanLocal {
                             key = getkeybean.getByfkid(serverid, did, regkeyid);
                         }
                         if (key != null) {
-                            int oldCounter = key.getCounter();
-                            if (oldCounter != 0) {
-                                if (newCounter <= oldCounter) {
-                                    /**
-                                     * Ideally should not happen. Neither does
-                                     * U2F protocol specifies how to handle this
-                                     * issue. So, just throw a warning msg in
-                                     * the logs and proceed ahead.
-                                     */
-                                    //  Remove the user session from the sessionmap
-                                    skceMaps.getMapObj().remove(SKFSConstants.MAP_USER_SESSION_INFO, KHhash);
-                                    SKFSLogger.log(SKFSConstants.SKFE_LOGGER, Level.FINE, "FIDO-MSG-0023", "");
-
-                                    SKFSLogger.log(SKFSConstants.SKFE_LOGGER, Level.SEVERE, "FIDO-ERR-0030", "");
-                                    return Response.status(Response.Status.BAD_REQUEST).entity(SKFSCommon.buildReturn(SKFSCommon.getMessageProperty("FIDO-ERR-0030"))).build();
-                                }
+                            //  Claim the counter; a concurrent response with the same counter is rejected
+                            if (!SignatureCounterAuthority.advance(serverid + "-" + did + "-" + regkeyid, key.getCounter(), newCounter)) {
+                                /**
+                                 * Ideally should not happen. Neither does
+                                 * U2F protocol specifies how to handle this
+                                 * issue. So, just throw a warning msg in
+                                 * the logs and proceed ahead.
+                                 */
+                                //  Remove the user session from the sessionmap
+                                skceMaps.getMapObj().remove(SKFSConstants.MAP_USER_SESSION_INFO, KHhash);
+                                SKFSLogger.log(SKFSConstants.SKFE_LOGGER, Level.FINE, "FIDO-MSG-0023", "");
+
+                                SKFSLogger.log(SKFSConstants.SKFE_LOGGER, Level.SEVERE, "FIDO-ERR-0030", "");
+                                return Response.status(Response.Status.BAD_REQUEST).entity(SKFSCommon.buildReturn(SKFSCommon.getMessageProperty("FIDO-ERR-0030"))).build();
                             }
                             //  update the sign counter value in the database with the new counter value.
                             String jparesult = updatekeybean.execute(serverid, did, regkeyid, newCounter, modifyloc);
@@ -1036,7 +1039,7 @@ public class u2fServletHelperBean implements u2fServletHelperBeanLocal {
                 responseJSON = SKFSCommon.buildReturn("Successfully processed authorization response");
             } else {
                 try {
-                    responseJSON = FIDO2Authejb.execute(did, authentication.getPayload().getResponse().toString(), authentication.getPayload().getMetadata().toString(), "authentication", null ,null, agent, cip);
+                    responseJSON = FIDO2Authejb.execute(did, new FIDO2RequestContext(authentication.getPayload().getResponse(), authentication.getPayload().getMetadata()), "authentication", null ,null, agent, cip).toJsonString();
                 } catch (IllegalArgumentException | SKIllegalArgumentException ex) {
                     return Response.status(Response.Status.BAD_REQUEST).entity(ex.getMessage()).build();
                 }
@@ -1096,8 +1099,8 @@ public class u2fServletHelperBean implements u2fServletHelperBeanLocal {
                 return Response.status(Response.Status.NOT_IMPLEMENTED).entity("U2F not being implemeted").build();
             } else {
                 try {
-                    responseJSON = FIDO2Authejb.execute(did, authentication.getPayload().getResponse().toString(), authentication.getPayload().getMetadata().toString(), "authorization",
-                            authentication.getPayload().getTxid(), authentication.getPayload().getTxpayload(), "", "");
+                    responseJSON = FIDO2Authejb.execute(did, new FIDO2RequestContext(authentication.getPayload().getResponse(), authentication.getPayload().getMetadata()), "authorization",
+                            authentication.getPayload().getTxid(), authentication.getPayload().getTxpayload(), "", "").toJsonString();
                 } catch (IllegalArgumentException | SKIllegalArgumentException ex) {
                     return Response.status(Response.Status.BAD_REQUEST).entity(ex.getMessage()).build();
                 }
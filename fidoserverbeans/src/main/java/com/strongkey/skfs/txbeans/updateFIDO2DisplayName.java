@@ -29,6 +29,7 @@ import com.strongkey.skce.pojos.FidoKeysInfo;
 import com.strongkey.skce.utilities.skceMaps;
 import com.strongkey.skfe.entitybeans.FidoKeys;
 import com.strongkey.skfs.messaging.replicateSKFEObjectBeanLocal;
+import com.strongkey.skfs.utilities.CredentialDirectory;
 import com.strongkey.skfs.utilities.SKFEException;
 import com.strongkey.skfs.utilities.SKFSCommon;
 import com.strongkey.skfs.utilities.SKFSConstants;
@@ -49,6 +50,7 @@ import javax.json.JsonObject;
 import javax.json.JsonObjectBuilder;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import javax.transaction.TransactionSynchronizationRegistry;
 
 
 @Stateless
@@ -77,6 +79,8 @@ public class updateFIDO2DisplayName implements updateFIDO2DisplayNameLocal {
      */
     @Resource
     private SessionContext sc;
+    @Resource
+    private TransactionSynchronizationRegistry tsr;
     @PersistenceContext
     private EntityManager em;
 
@@ -314,6 +318,8 @@ public class updateFIDO2DisplayName implements updateFIDO2DisplayNameLocal {
         em.merge(rk);
         em.flush();
         em.clear();
+        SKFSCommon.removeVerifiedRowSignature(primarykey);
+        CredentialDirectory.invalidateOnCommit(tsr, did, rk.getFidoKeysPK().getUsername());
 
         try {
             if (applianceCommon.replicate()) {
@@ -12,7 +12,9 @@ import com.strongkey.appliance.utilities.applianceConstants;
 import com.strongkey.skce.pojos.FidoKeysInfo;
 import com.strongkey.skce.utilities.skceMaps;
 import com.strongkey.skfe.entitybeans.FidoKeys;
+import com.strongkey.skfs.messaging.FidoKeysCounter;
 import com.strongkey.skfs.messaging.replicateSKFEObjectBeanLocal;
+import com.strongkey.skfs.utilities.CredentialDirectory;
 import com.strongkey.skfs.utilities.SKFEException;
 import com.strongkey.skfs.utilities.SKFSCommon;
 import com.strongkey.skfs.utilities.SKFSConstants;
@@ -48,6 +50,8 @@ public class updateFidoKeys implements updateFidoKeysLocal {
     getFidoKeysLocal getregkeysejb;
     @EJB
     replicateSKFEObjectBeanLocal replObj;
+    @EJB
+    flushSignatureCountersLocal flushcounterejb;
 
     /**
      * Persistence context for derby
@@ -213,19 +217,27 @@ public class updateFidoKeys implements updateFidoKeysLocal {
         }
         String primarykey = sid + "-" + did + "-" + rk.getFidoKeysPK().getUsername() + "-" + fkid;
         String mapkey = sid + "-" + did + "-" + fkid;
-        rk.setCounter(newCounter);
+
+        // Only the counter columns are written, by flushSignatureCounters;
+        // the key must not be written back as a whole with this transaction
+        if (em.contains(rk)) {
+            em.detach(rk);
+        }
+        if (newCounter > rk.getCounter()) {
+            rk.setCounter(newCounter);
+        }
         rk.setModifyLocation(modify_location);
         rk.setModifyDate(modifyDateFormat);
         rk.setId(primarykey);
 
-        em.merge(rk);
-        em.flush();
-        em.clear();
+        FidoKeysCounter fkc = new FidoKeysCounter(sid, did.shortValue(), rk.getFidoKeysPK().getUsername(), fkid, newCounter, modifyDateFormat, modify_location);
+        flushcounterejb.execute(fkc);
+        CredentialDirectory.updateCounter(fkc);
 
         try {
             if (applianceCommon.replicate()) {
                 if (!Boolean.valueOf(SKFSCommon.getConfigurationProperty("skfs.cfg.property.replicate.hashmapsonly"))) {
-                    String response = replObj.execute(applianceConstants.ENTITY_TYPE_FIDO_KEYS, applianceConstants.REPLICATION_OPERATION_UPDATE, primarykey, rk);
+                    String response = replObj.execute(applianceConstants.ENTITY_TYPE_FIDO_KEYS_COUNTER, applianceConstants.REPLICATION_OPERATION_UPDATE, primarykey, fkc);
                     if (response != null) {
                         return response;
                     }
@@ -15,6 +15,7 @@ import com.strongkey.skce.pojos.FidoKeysInfo;
 import com.strongkey.skce.utilities.skceMaps;
 import com.strongkey.skfe.entitybeans.FidoKeys;
 import com.strongkey.skfs.messaging.replicateSKFEObjectBeanLocal;
+import com.strongkey.skfs.utilities.CredentialDirectory;
 import com.strongkey.skfs.utilities.SKFEException;
 import com.strongkey.skfs.utilities.SKFSCommon;
 import com.strongkey.skfs.utilities.SKFSConstants;
@@ -32,6 +33,7 @@ import javax.json.Json;
 import javax.json.JsonObject;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import javax.transaction.TransactionSynchronizationRegistry;
 
 @Stateless
 public class updateFidoKeysStatus implements updateFidoKeysStatusLocal {
@@ -59,6 +61,8 @@ public class updateFidoKeysStatus implements updateFidoKeysStatusLocal {
      */
     @Resource
     private SessionContext sc;
+    @Resource
+    private TransactionSynchronizationRegistry tsr;
     @PersistenceContext
     private EntityManager em;
 
@@ -281,6 +285,8 @@ public class updateFidoKeysStatus implements updateFidoKeysStatusLocal {
         em.merge(rk);
         em.flush();
         em.clear();
+        SKFSCommon.removeVerifiedRowSignature(primarykey);
+        CredentialDirectory.invalidateOnCommit(tsr, did, rk.getFidoKeysPK().getUsername());
 
         try {
             if (applianceCommon.replicate()) {
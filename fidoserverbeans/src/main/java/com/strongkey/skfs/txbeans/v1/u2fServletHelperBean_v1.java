@@ -83,6 +83,7 @@ import com.strongkey.skfs.core.U2FAuthenticationChallenge;
 import com.strongkey.skfs.core.U2FAuthenticationResponse;
 import com.strongkey.skfs.core.U2FRegistrationChallenge;
 import com.strongkey.skfs.core.U2FUtility;
+import com.strongkey.skfs.fido2.FIDO2RequestContext;
 import com.strongkey.skfs.messaging.replicateSKFEObjectBeanLocal;
 import com.strongkey.skfs.policybeans.generateFido2PreauthenticateChallengeLocal;
 import com.strongkey.skfs.txbeans.FIDO2AuthenticateBeanLocal;
@@ -107,6 +108,7 @@ import com.strongkey.skfs.utilities.SKFEException;
 import com.strongkey.skfs.utilities.SKFSCommon;
 import com.strongkey.skfs.utilities.SKFSConstants;
 import com.strongkey.skfs.utilities.SKFSLogger;
+import com.strongkey.skfs.utilities.SignatureCounterAuthority;
 import java.io.StringReader;
 import java.io.UnsupportedEncodingException;
 import java.net.MalformedURLException;
@@ -523,7 +525,7 @@ public class u2fServletHelperBean_v1 implements u2fServletHelperBeanLocal_v1 {
             if (protocol.equalsIgnoreCase(SKFSConstants.FIDO_PROTOCOL_VERSION_U2F_V2)) {
                 responseJSON = U2FRegejb.execute(Long.parseLong(did), registrationresponse, registrationmetadata, protocol);
             } else {
-                responseJSON = FIDO2Regejb.execute(Long.parseLong(did), registrationresponse, registrationmetadata);
+                responseJSON = FIDO2Regejb.execute(Long.parseLong(did), FIDO2RequestContext.parse(registrationresponse, registrationmetadata)).toJsonString();
             }
         } catch (Exception ex) {
             SKFSLogger.log(SKFSConstants.SKFE_LOGGER, Level.SEVERE, "FIDO-ERR-0001", ex.getMessage());
@@ -1086,22 +1088,20 @@ public class u2fServletHelperBean_v1 implements u2fServletHelperBeanLocal_v1 {
                         key = getkeybean.getByfkid(serverid, Long.parseLong(did), regkeyid);
                     }
                     if (key != null) {
-                        int oldCounter = key.getCounter();
-                        if (oldCounter != 0) {
-                            if (newCounter <= oldCounter) {
-                                /**
-                                 * Ideally should not happen. Neither does U2F
-                                 * protocol specifies how to handle this issue.
-                                 * So, just throw a warning msg in the logs and
-                                 * proceed ahead.
-                                 */
-                                //  Remove the user session from the sessionmap
-                                skceMaps.getMapObj().remove(SKFSConstants.MAP_USER_SESSION_INFO, KHhash);
-                                SKFSLogger.log(SKFSConstants.SKFE_LOGGER, Level.FINE, "FIDO-MSG-0023", "");
-
-                                SKFSLogger.log(SKFSConstants.SKFE_LOGGER, Level.SEVERE, "FIDO-ERR-0030", "");
-                                return SKFSCommon.buildAuthenticateResponse("", logs, SKFSCommon.getMessageProperty("FIDO-ERR-0030"));
-                            }
+                        //  Claim the counter; a concurrent response with the same counter is rejected
+                        if (!SignatureCounterAuthority.advance(serverid + "-" + Long.parseLong(did) + "-" + regkeyid, key.getCounter(), newCounter)) {
+                            /**
+                             * Ideally should not happen. Neither does U2F
+                             * protocol specifies how to handle this issue.
+                             * So, just throw a warning msg in the logs and
+                             * proceed ahead.
+                             */
+                            //  Remove the user session from the sessionmap
+                            skceMaps.getMapObj().remove(SKFSConstants.MAP_USER_SESSION_INFO, KHhash);
+                            SKFSLogger.log(SKFSConstants.SKFE_LOGGER, Level.FINE, "FIDO-MSG-0023", "");
+
+                            SKFSLogger.log(SKFSConstants.SKFE_LOGGER, Level.SEVERE, "FIDO-ERR-0030", "");
+                            return SKFSCommon.buildAuthenticateResponse("", logs, SKFSCommon.getMessageProperty("FIDO-ERR-0030"));
                         }
                         //  update the sign counter value in the database with the new counter value.
                         String jparesult = updatekeybean.execute(serverid, Long.parseLong(did), regkeyid, newCounter, modifyloc);
@@ -1153,7 +1153,7 @@ public class u2fServletHelperBean_v1 implements u2fServletHelperBeanLocal_v1 {
             }
             responseJSON = SKFSCommon.buildAuthenticateResponse(response, logs, errmsg);
         } else {
-            responseJSON = FIDO2Authejb.execute(Long.parseLong(did), authresponse, authmetadata, method, null,null, agent, cip);
+            responseJSON = FIDO2Authejb.execute(Long.parseLong(did), FIDO2RequestContext.parse(authresponse, authmetadata), method, null,null, agent, cip).toJsonString();
         }
 
         // Build the output json object
@@ -0,0 +1,121 @@
+/**
+* Copyright StrongAuth, Inc. All Rights Reserved.
+*
+* Use of this source code is governed by the GNU Lesser General Public License v2.1
+* The license can be found at https://github.com/StrongKey/fido2/blob/master/LICENSE
+*/
+
+package com.strongkey.skfs.utilities;
+
+import com.strongkey.skfs.entitybeans.AttestationCertificates;
+import com.strongkey.skfs.entitybeans.AttestationCertificatesPK;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import javax.transaction.TransactionSynchronizationRegistry;
+
+/**
+ * Node-local index of the attestation certificates in the database, by
+ * issuer DN and serial number, so registrations with an authenticator model
+ * already seen do not query the database to find out its certificates are
+ * stored.
+ *
+ * The index is loaded at startup and updated when certificates are found in
+ * the database, added on this node or replicated from another one. Only
+ * committed certificates are indexed: additions are indexed when their
+ * transaction commits. A certificate missing from the index is looked up in
+ * the database as before, so the index may be partial; when it is full it is
+ * cleared and fills up again from the lookups.
+ */
+public final class AttestationCertificateIndex {
+
+    private static final String classname = "AttestationCertificateIndex";
+
+    // issuer DN NUL serial number -> primary key
+    private static final Map<String, AttestationCertificatesPK> certificates = new ConcurrentHashMap<>();
+
+    private AttestationCertificateIndex() {
+    }
+
+    /**
+     * @param issuerDn - issuer DN of the certificate
+     * @param serialNumber - decimal serial number of the certificate
+     * @return the primary key of the stored certificate, or null if it is not
+     * indexed
+     */
+    public static AttestationCertificatesPK get(String issuerDn, String serialNumber) {
+        return certificates.get(getKey(issuerDn, serialNumber));
+    }
+
+    /**
+     * Indexes a certificate stored in the database.
+     *
+     * @param ac - the certificate
+     */
+    public static void put(AttestationCertificates ac) {
+        AttestationCertificatesPK pk = ac.getAttestationCertificatesPK();
+        if (ac.getIssuerDn() == null || ac.getSerialNumber() == null || pk == null) {
+            return;
+        }
+        int maxsize = Integer.parseInt(SKFSCommon.getConfigurationProperty("skfs.cfg.property.attestationcertificates.index.maxsize"));
+        if (certificates.size() >= maxsize) {
+            certificates.clear();
+            SKFSLogger.logp(SKFSConstants.SKFE_LOGGER, Level.FINE, classname, "put", "FIDO-MSG-0065", "cleared at " + maxsize);
+        }
+        certificates.put(getKey(ac.getIssuerDn(), ac.getSerialNumber()),
+                new AttestationCertificatesPK(pk.getSid(), pk.getDid(), pk.getAttcid()));
+    }
+
+    /**
+     * Indexes a certificate once the current transaction commits.
+     *
+     * @param tsr - registry of the current transaction
+     * @param ac - the certificate being added
+     */
+    public static void putOnCommit(TransactionSynchronizationRegistry tsr, AttestationCertificates ac) {
+        tsr.registerInterposedSynchronization(new Synchronization() {
+            @Override
+            public void beforeCompletion() {
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status == Status.STATUS_COMMITTED) {
+                    put(ac);
+                }
+            }
+        });
+    }
+
+    /**
+     * Loads the certificates stored in the database.
+     *
+     * @param stored - the certificates
+     */
+    public static void load(Collection<AttestationCertificates> stored) {
+        for (AttestationCertificates ac : stored) {
+            put(ac);
+        }
+        SKFSLogger.logp(SKFSConstants.SKFE_LOGGER, Level.INFO, classname, "load", "FIDO-MSG-0065", "loaded " + certificates.size());
+    }
+
+    /**
+     * @param ac - a certificate deleted from the database
+     */
+    public static void remove(AttestationCertificates ac) {
+        if (ac.getIssuerDn() != null && ac.getSerialNumber() != null) {
+            certificates.remove(getKey(ac.getIssuerDn(), ac.getSerialNumber()));
+        }
+    }
+
+    public static int size() {
+        return certificates.size();
+    }
+
+    private static String getKey(String issuerDn, String serialNumber) {
+        return issuerDn + '\u0000' + serialNumber;
+    }
+}
@@ -0,0 +1,137 @@
+/**
+* Copyright StrongAuth, Inc. All Rights Reserved.
+*
+* Use of this source code is governed by the GNU Lesser General Public License v2.1
+* The license can be found at https://github.com/StrongKey/fido2/blob/master/LICENSE
+*/
+
+package com.strongkey.skfs.utilities;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import org.bouncycastle.crypto.fips.FipsDRBG;
+import org.bouncycastle.crypto.fips.FipsSecureRandom;
+import org.bouncycastle.crypto.util.BasicEntropySourceProvider;
+
+/**
+ * Source of the random bytes of challenges, user IDs and other nonces.
+ *
+ * The bytes come from a few long-lived SHA-512 FIPS DRBGs instead of new
+ * SecureRandom objects seeded for every challenge. Each thread uses one of
+ * the DRBGs (skfs.cfg.property.challengegenerator.stripes) and takes its
+ * bytes from a buffer of buffersize bytes, so a challenge is usually a copy
+ * of a slice of the buffer. Bytes handed out are erased from the buffer. The
+ * buffer of a DRBG is refilled by the thread that finds it used up, which
+ * first reseeds the DRBG from the entropy source if it was last seeded more
+ * than reseed.seconds ago.
+ *
+ * The DRBGs are built when the first bytes are asked for; properties that
+ * are missing or invalid are replaced with their defaults.
+ */
+public final class ChallengeGenerator {
+
+    private static final String classname = "ChallengeGenerator";
+
+    private static final int SECURITY_STRENGTH = 256;
+
+    private ChallengeGenerator() {
+    }
+
+    /**
+     * @param size - number of bytes
+     * @return size random bytes
+     */
+    public static byte[] getBytes(int size) {
+        Stripe[] stripes = Stripes.stripes;
+        return stripes[(int) (Thread.currentThread().getId() % stripes.length)].take(size);
+    }
+
+    private static long getProperty(String key, long defaultvalue) {
+        try {
+            return Long.parseLong(SKFSCommon.getConfigurationProperty(key).trim());
+        } catch (RuntimeException ex) {
+            SKFSLogger.logp(SKFSConstants.SKFE_LOGGER, Level.WARNING, classname, "getProperty", "FIDO-MSG-0069", key + " defaults to " + defaultvalue);
+            return defaultvalue;
+        }
+    }
+
+    // Loaded on the first call to getBytes
+    private static final class Stripes {
+
+        private static final int BUFFER_SIZE =
+                (int) Math.max(64, getProperty("skfs.cfg.property.challengegenerator.buffersize", 8192));
+        private static final long RESEED_NANOS =
+                TimeUnit.SECONDS.toNanos(getProperty("skfs.cfg.property.challengegenerator.reseed.seconds", 600));
+
+        private static final Stripe[] stripes =
+                new Stripe[(int) Math.max(1, getProperty("skfs.cfg.property.challengegenerator.stripes", 4))];
+
+        static {
+            for (int i = 0; i < stripes.length; i++) {
+                stripes[i] = new Stripe(i);
+            }
+        }
+    }
+
+    private static final class Stripe {
+
+        private final FipsSecureRandom drbg;
+        private final byte[] buffer;
+        private int position;
+        private long reseeded;
+
+        private Stripe(int index) {
+            byte[] nonce = new byte[SECURITY_STRENGTH / 8];
+            SecureRandom entropy = new SecureRandom();
+            entropy.nextBytes(nonce);
+            byte[] personalization = ByteBuffer.allocate(64)
+                    .put(classname.getBytes(StandardCharsets.UTF_8))
+                    .putInt(index)
+                    .putLong(System.nanoTime())
+                    .putLong(System.currentTimeMillis())
+                    .array();
+            drbg = FipsDRBG.SHA512.fromEntropySource(new BasicEntropySourceProvider(entropy, true))
+                    .setSecurityStrength(SECURITY_STRENGTH)
+                    .setEntropyBitsRequired(SECURITY_STRENGTH)
+                    .setPersonalizationString(personalization)
+                    .build(nonce, false);
+            reseeded = System.nanoTime();
+            buffer = new byte[Stripes.BUFFER_SIZE];
+            drbg.nextBytes(buffer);
+        }
+
+        private synchronized byte[] take(int size) {
+            if (size > buffer.length) {
+                byte[] b = new byte[size];
+                drbg.nextBytes(b);
+                return b;
+            }
+            if (buffer.length - position < size) {
+                fill();
+            }
+            byte[] b = Arrays.copyOfRange(buffer, position, position + size);
+            Arrays.fill(buffer, position, position + size, (byte) 0);
+            position += size;
+            return b;
+        }
+
+        private void fill() {
+            if (System.nanoTime() - reseeded > Stripes.RESEED_NANOS) {
+                try {
+                    drbg.reseed();
+                    SKFSLogger.logp(SKFSConstants.SKFE_LOGGER, Level.FINE, classname, "fill", "FIDO-MSG-0069", "reseeded");
+                } catch (RuntimeException ex) {
+                    // The DRBG keeps generating from its current seed
+                    SKFSLogger.logp(SKFSConstants.SKFE_LOGGER, Level.WARNING, classname, "fill", "FIDO-MSG-0069", ex.getLocalizedMessage());
+                }
+                reseeded = System.nanoTime();
+            }
+            drbg.nextBytes(buffer);
+            position = 0;
+        }
+    }
+}
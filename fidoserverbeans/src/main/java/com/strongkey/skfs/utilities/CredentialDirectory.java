@@ -0,0 +1,227 @@
+/**
+* Copyright StrongAuth, Inc. All Rights Reserved.
+*
+* Use of this source code is governed by the GNU Lesser General Public License v2.1
+* The license can be found at https://github.com/StrongKey/fido2/blob/master/LICENSE
+*/
+
+package com.strongkey.skfs.utilities;
+
+import com.strongkey.skce.utilities.CacheStatistics;
+import com.strongkey.skce.utilities.skceMetrics;
+import com.strongkey.skfe.entitybeans.FidoKeys;
+import com.strongkey.skfs.messaging.FidoKeysCounter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.logging.Level;
+import javax.transaction.Synchronization;
+import javax.transaction.TransactionSynchronizationRegistry;
+
+/**
+ * Node-local directory of the keys of each user whose row signatures were
+ * verified, so the preauthentication, authentication and key listing web
+ * services of a user do not query the database and verify the signatures of
+ * all the keys of the user every time.
+ *
+ * The keys of a user are dropped from the directory when they are added,
+ * deleted or changed on this node or replicated from another one, both
+ * immediately and when the transaction completes; the transaction that
+ * changes them reads them from the database until then. Signature counter
+ * updates are applied to the keys in the directory instead, since the
+ * counters are written to the database in the background. The directory
+ * hands out copies of the keys; entries are also dropped after ttl.seconds,
+ * and the directory is cleared when it holds maxsize users.
+ *
+ * Usernames are compared ignoring case, as the database does.
+ */
+public final class CredentialDirectory {
+
+    private static final String classname = "CredentialDirectory";
+
+    // did | lowercase username -> keys of the user
+    private static final Map<String, Entry> directory = new ConcurrentHashMap<>();
+
+    // Incremented when the keys of a user hashing to the stripe change, so
+    // keys loaded from the database while they changed are not stored
+    private static final int STRIPES = 256;
+    private static final AtomicLongArray versions = new AtomicLongArray(STRIPES);
+
+    private static final CacheStatistics stats = skceMetrics.cache("credentialdirectory");
+
+    private CredentialDirectory() {
+    }
+
+    /**
+     * @param tsr - registry of the current transaction
+     * @param did - domain of the user
+     * @param username - name of the user
+     * @return copies of the keys of the user, or null if they are not in the
+     * directory or are being changed by the current transaction
+     */
+    public static List<FidoKeys> get(TransactionSynchronizationRegistry tsr, Long did, String username) {
+        String key = getKey(did, username);
+        if (isChanging(tsr, key)) {
+            return null;
+        }
+        Entry e = directory.get(key);
+        if (e == null || System.nanoTime() - e.loaded > getTtl()) {
+            stats.miss();
+            return null;
+        }
+        stats.hit();
+        List<FidoKeys> keys = new ArrayList<>(e.keys.size());
+        for (FidoKeys fk : e.keys) {
+            keys.add(copy(fk));
+        }
+        return keys;
+    }
+
+    /**
+     * To be read before the keys of the user are loaded from the database and
+     * passed to put.
+     *
+     * @return the version of the keys of the user
+     */
+    public static long getVersion(Long did, String username) {
+        return versions.get(getStripe(getKey(did, username)));
+    }
+
+    /**
+     * Stores the keys of a user loaded from the database, unless they changed
+     * since version was read or are being changed by the current transaction.
+     *
+     * @param tsr - registry of the current transaction
+     * @param did - domain of the user
+     * @param username - name of the user
+     * @param keys - all the keys of the user, with verified signatures
+     * @param version - value of getVersion before the keys were loaded
+     */
+    public static void put(TransactionSynchronizationRegistry tsr, Long did, String username, Collection<FidoKeys> keys, long version) {
+        String key = getKey(did, username);
+        if (isChanging(tsr, key)) {
+            return;
+        }
+        int maxsize = Integer.parseInt(SKFSCommon.getConfigurationProperty("skfs.cfg.property.credentialdirectory.maxsize"));
+        if (maxsize <= 0) {
+            return;
+        }
+        if (directory.size() >= maxsize) {
+            directory.clear();
+            SKFSLogger.logp(SKFSConstants.SKFE_LOGGER, Level.FINE, classname, "put", "FIDO-MSG-0066", "cleared at " + maxsize);
+        }
+        List<FidoKeys> copies = new ArrayList<>(keys.size());
+        for (FidoKeys fk : keys) {
+            copies.add(copy(fk));
+        }
+        int stripe = getStripe(key);
+        Entry e = new Entry(Collections.unmodifiableList(copies), System.nanoTime());
+        directory.compute(key, (k, v) -> versions.get(stripe) == version ? e : v);
+    }
+
+    /**
+     * Drops the keys of a user from the directory.
+     *
+     * @param did - domain of the user
+     * @param username - name of the user
+     */
+    public static void invalidate(Long did, String username) {
+        String key = getKey(did, username);
+        int stripe = getStripe(key);
+        directory.compute(key, (k, v) -> {
+            versions.incrementAndGet(stripe);
+            return null;
+        });
+    }
+
+    /**
+     * Drops the keys of a user from the directory now and again when the
+     * current transaction completes, whether it commits or not.
+     *
+     * @param tsr - registry of the current transaction
+     * @param did - domain of the user
+     * @param username - name of the user whose keys are being changed
+     */
+    public static void invalidateOnCommit(TransactionSynchronizationRegistry tsr, Long did, String username) {
+        invalidate(did, username);
+        tsr.putResource(classname + getKey(did, username), Boolean.TRUE);
+        tsr.registerInterposedSynchronization(new Synchronization() {
+            @Override
+            public void beforeCompletion() {
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                invalidate(did, username);
+            }
+        });
+    }
+
+    /**
+     * Applies a signature counter update to the key in the directory, if the
+     * keys of its user are there.
+     *
+     * @param fkc - the update
+     */
+    public static void updateCounter(FidoKeysCounter fkc) {
+        directory.computeIfPresent(getKey((long) fkc.getDid(), fkc.getUsername()), (k, v) -> {
+            List<FidoKeys> keys = new ArrayList<>(v.keys);
+            for (int i = 0; i < keys.size(); i++) {
+                FidoKeys fk = keys.get(i);
+                if (fk.getFidoKeysPK().getSid() == fkc.getSid() && fk.getFidoKeysPK().getFkid() == fkc.getFkid()) {
+                    FidoKeys updated = copy(fk);
+                    if (fkc.getCounter() > updated.getCounter()) {
+                        updated.setCounter(fkc.getCounter());
+                    }
+                    updated.setModifyDate(fkc.getModifyDate());
+                    updated.setModifyLocation(fkc.getModifyLocation());
+                    keys.set(i, updated);
+                    return new Entry(Collections.unmodifiableList(keys), v.loaded);
+                }
+            }
+            return v;
+        });
+    }
+
+    public static int size() {
+        return directory.size();
+    }
+
+    private static long getTtl() {
+        return TimeUnit.SECONDS.toNanos(Long.parseLong(SKFSCommon.getConfigurationProperty("skfs.cfg.property.credentialdirectory.ttl.seconds")));
+    }
+
+    private static boolean isChanging(TransactionSynchronizationRegistry tsr, String key) {
+        return tsr.getTransactionKey() != null && tsr.getResource(classname + key) != null;
+    }
+
+    private static String getKey(Long did, String username) {
+        return did + "|" + username.toLowerCase(Locale.ROOT);
+    }
+
+    private static int getStripe(String key) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & (STRIPES - 1);
+    }
+
+    private static FidoKeys copy(FidoKeys fk) {
+        return new FidoKeys(fk);
+    }
+
+    private static final class Entry {
+
+        private final List<FidoKeys> keys;
+        private final long loaded;
+
+        private Entry(List<FidoKeys> keys, long loaded) {
+            this.keys = keys;
+            this.loaded = loaded;
+        }
+    }
+}
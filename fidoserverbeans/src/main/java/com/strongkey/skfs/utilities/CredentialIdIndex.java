@@ -0,0 +1,152 @@
+/**
+* Copyright StrongAuth, Inc. All Rights Reserved.
+*
+* Use of this source code is governed by the GNU Lesser General Public License v2.1
+* The license can be found at https://github.com/StrongKey/fido2/blob/master/LICENSE
+*/
+
+package com.strongkey.skfs.utilities;
+
+import com.strongkey.skfe.entitybeans.FidoKeysPK;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.NoSuchProviderException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import javax.transaction.TransactionSynchronizationRegistry;
+import org.bouncycastle.util.encoders.Hex;
+
+/**
+ * Node-local index of the keys in the database by the SHA-256 digest of their
+ * keyhandle (the FIDO2 credential ID), so a key can be found from the
+ * credential ID of an assertion alone, without the username.
+ *
+ * The digest is the hex form of the keyhandle_digest column of fido_keys,
+ * which the database computes from the keyhandle. The index is loaded at
+ * startup and updated when keys are found in the database, added on this
+ * node or replicated from another one; additions are indexed when their
+ * transaction commits. A key missing from the index is looked up by the
+ * keyhandle_digest column, so the index may be partial; when it is full it
+ * is cleared and fills up again from the lookups. Keyhandles of deleted keys
+ * are removed; the status of the keys is not indexed.
+ */
+public final class CredentialIdIndex {
+
+    private static final String classname = "CredentialIdIndex";
+
+    // did NUL keyhandle digest -> primary key
+    private static final Map<String, FidoKeysPK> keys = new ConcurrentHashMap<>();
+
+    private CredentialIdIndex() {
+    }
+
+    /**
+     * @param keyhandle - keyhandle of a key, the base64url credential ID for
+     * FIDO2 keys
+     * @return the hex SHA-256 digest of the keyhandle, as stored in the
+     * keyhandle_digest column
+     */
+    public static String getDigest(String keyhandle) throws NoSuchAlgorithmException, NoSuchProviderException {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256", "BCFIPS");
+        return Hex.toHexString(digest.digest(keyhandle.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * @param did - domain of the key
+     * @param digest - hex digest of the keyhandle
+     * @return the primary key of the key, or null if it is not indexed
+     */
+    public static FidoKeysPK get(Long did, String digest) {
+        return keys.get(getKey(did, digest));
+    }
+
+    /**
+     * Indexes a key stored in the database.
+     *
+     * @param pk - primary key of the key
+     * @param digest - hex digest of its keyhandle
+     */
+    public static void put(FidoKeysPK pk, String digest) {
+        if (pk == null || digest == null) {
+            return;
+        }
+        int maxsize = Integer.parseInt(SKFSCommon.getConfigurationProperty("skfs.cfg.property.credentialidindex.maxsize"));
+        if (keys.size() >= maxsize) {
+            keys.clear();
+            SKFSLogger.logp(SKFSConstants.SKFE_LOGGER, Level.FINE, classname, "put", "FIDO-MSG-0067", "cleared at " + maxsize);
+        }
+        keys.put(getKey((long) pk.getDid(), digest),
+                new FidoKeysPK(pk.getSid(), pk.getDid(), pk.getUsername(), pk.getFkid()));
+    }
+
+    /**
+     * Indexes a key once the current transaction commits.
+     *
+     * @param tsr - registry of the current transaction
+     * @param pk - primary key of the key being added
+     * @param keyhandle - its keyhandle
+     */
+    public static void putOnCommit(TransactionSynchronizationRegistry tsr, FidoKeysPK pk, String keyhandle) {
+        String digest;
+        try {
+            digest = getDigest(keyhandle);
+        } catch (NoSuchAlgorithmException | NoSuchProviderException ex) {
+            SKFSLogger.logp(SKFSConstants.SKFE_LOGGER, Level.WARNING, classname, "putOnCommit", "FIDO-MSG-0067", ex.getLocalizedMessage());
+            return;
+        }
+        tsr.registerInterposedSynchronization(new Synchronization() {
+            @Override
+            public void beforeCompletion() {
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status == Status.STATUS_COMMITTED) {
+                    put(pk, digest);
+                }
+            }
+        });
+    }
+
+    /**
+     * Loads the keys stored in the database.
+     *
+     * @param stored - hex digests of the keyhandles and the primary keys of
+     * the keys
+     */
+    public static void load(Map<String, FidoKeysPK> stored) {
+        for (Map.Entry<String, FidoKeysPK> e : stored.entrySet()) {
+            put(e.getValue(), e.getKey());
+        }
+        SKFSLogger.logp(SKFSConstants.SKFE_LOGGER, Level.INFO, classname, "load", "FIDO-MSG-0067", "loaded " + keys.size());
+    }
+
+    /**
+     * @param did - domain of a key deleted from the database
+     * @param keyhandle - its keyhandle
+     */
+    public static void remove(Long did, String keyhandle) {
+        if (keyhandle == null) {
+            return;
+        }
+        try {
+            keys.remove(getKey(did, getDigest(keyhandle)));
+        } catch (NoSuchAlgorithmException | NoSuchProviderException ex) {
+            // Entries of deleted keys are ignored by the lookups; only the
+            // space they take is lost
+            SKFSLogger.logp(SKFSConstants.SKFE_LOGGER, Level.WARNING, classname, "remove", "FIDO-MSG-0067", ex.getLocalizedMessage());
+        }
+    }
+
+    public static int size() {
+        return keys.size();
+    }
+
+    private static String getKey(Long did, String digest) {
+        return did + "\u0000" + digest;
+    }
+}
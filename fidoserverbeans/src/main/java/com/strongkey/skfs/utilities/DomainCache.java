@@ -0,0 +1,105 @@
+/**
+* Copyright StrongAuth, Inc. All Rights Reserved.
+*
+* Use of this source code is governed by the GNU Lesser General Public License v2.1
+* The license can be found at https://github.com/StrongKey/fido2/blob/master/LICENSE
+*/
+
+package com.strongkey.skfs.utilities;
+
+import com.strongkey.appliance.entitybeans.Domains;
+import com.strongkey.skce.utilities.CacheStatistics;
+import com.strongkey.skce.utilities.skceMetrics;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import javax.transaction.TransactionSynchronizationRegistry;
+
+/**
+ * Node-local cache of the domains by DID, so looking up the signing key alias
+ * and status of a domain for every key row or request does not query the
+ * database.
+ *
+ * The cache is loaded at startup, filled with the domains found in the
+ * database and replaced when a replicated domain commits. The cached Domains
+ * are detached and shared by all callers; they must not be modified.
+ */
+public final class DomainCache {
+
+    private static final String classname = "DomainCache";
+
+    private static final Map<Long, Domains> domains = new ConcurrentHashMap<>();
+
+    private static final CacheStatistics stats = skceMetrics.cache("domains");
+
+    private DomainCache() {
+    }
+
+    /**
+     * @param did - the unique identifier of the domain
+     * @return the domain, or null if it is not cached
+     */
+    public static Domains get(Long did) {
+        Domains d = domains.get(did);
+        if (d == null) {
+            stats.miss();
+        } else {
+            stats.hit();
+        }
+        return d;
+    }
+
+    /**
+     * Caches a domain found in the database, unless it is already cached: a
+     * domain replicated in the meantime is newer than the one found.
+     *
+     * @param d - the detached domain
+     */
+    public static void putIfAbsent(Domains d) {
+        if (d != null) {
+            domains.putIfAbsent(d.getDid(), d);
+        }
+    }
+
+    /**
+     * Loads the domains stored in the database.
+     *
+     * @param stored - all the domains
+     */
+    public static void load(Collection<Domains> stored) {
+        for (Domains d : stored) {
+            domains.put(d.getDid(), d);
+        }
+        SKFSLogger.logp(SKFSConstants.SKFE_LOGGER, Level.INFO, classname, "load", "FIDO-MSG-0068", "loaded " + domains.size());
+    }
+
+    /**
+     * Caches a domain added or updated by the current transaction once it
+     * commits.
+     *
+     * @param tsr - registry of the current transaction
+     * @param d - the domain, which is not modified after this call
+     */
+    public static void putOnCommit(TransactionSynchronizationRegistry tsr, Domains d) {
+        tsr.registerInterposedSynchronization(new Synchronization() {
+            @Override
+            public void beforeCompletion() {
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status == Status.STATUS_COMMITTED) {
+                    domains.put(d.getDid(), d);
+                    SKFSLogger.logp(SKFSConstants.SKFE_LOGGER, Level.FINE, classname, "putOnCommit", "FIDO-MSG-0068", "DID=" + d.getDid());
+                }
+            }
+        });
+    }
+
+    public static int size() {
+        return domains.size();
+    }
+}
@@ -0,0 +1,186 @@
+/**
+* Copyright StrongAuth, Inc. All Rights Reserved.
+*
+* Use of this source code is governed by the GNU Lesser General Public License v2.1
+* The license can be found at https://github.com/StrongKey/fido2/blob/master/LICENSE
+*/
+
+package com.strongkey.skfs.utilities;
+
+import com.strongkey.skce.utilities.skceMaps;
+import com.strongkey.skfs.fido.policyobjects.FidoPolicyObject;
+import com.strongkey.skfs.pojos.FidoPolicyMDSObject;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Keeps the FIDO policy map (skceMaps.FPMap) and a per-domain index of the
+ * cached policies ordered by start date in step. All changes to the cached
+ * policies must go through put and remove so that the index stays current.
+ *
+ * The lookups walk the index of a single domain starting from the position of
+ * the requested instant, so the policy in effect is found without scanning or
+ * copying the policies of every domain.
+ */
+public final class FidoPolicyCache {
+
+    // did -> policies of the domain ordered by start date
+    private static final Map<Long, ConcurrentNavigableMap<PolicyKey, FidoPolicyObject>> domainindex = new ConcurrentHashMap<>();
+
+    // sid-did-pid -> position of the policy in its domain index
+    private static final Map<String, PolicyKey> mapkeyindex = new ConcurrentHashMap<>();
+
+    private FidoPolicyCache() {
+    }
+
+    /**
+     * Adds or replaces a policy in the policy map and the index.
+     *
+     * @param mapkey - sid-did-pid of the policy
+     * @param fpm - the policy
+     */
+    public static synchronized void put(String mapkey, FidoPolicyMDSObject fpm) {
+        skceMaps.getMapObj().put(SKFSConstants.MAP_FIDO_POLICIES, mapkey, fpm);
+        unindex(mapkey);
+
+        FidoPolicyObject fp = fpm.getFp();
+        if (fp == null || fp.getDid() == null || fp.getStartDate() == null) {
+            return;
+        }
+        PolicyKey pk = new PolicyKey(fp.getDid(), fp.getStartDate().getTime(), mapkey);
+        domainindex.computeIfAbsent(fp.getDid(), k -> new ConcurrentSkipListMap<>()).put(pk, fp);
+        mapkeyindex.put(mapkey, pk);
+    }
+
+    /**
+     * Removes a policy from the policy map and the index.
+     *
+     * @param mapkey - sid-did-pid of the policy
+     */
+    public static synchronized void remove(String mapkey) {
+        skceMaps.getMapObj().remove(SKFSConstants.MAP_FIDO_POLICIES, mapkey);
+        unindex(mapkey);
+    }
+
+    private static void unindex(String mapkey) {
+        PolicyKey old = mapkeyindex.remove(mapkey);
+        if (old != null) {
+            ConcurrentNavigableMap<PolicyKey, FidoPolicyObject> index = domainindex.get(old.did);
+            if (index != null) {
+                index.remove(old);
+            }
+        }
+    }
+
+    /**
+     * Returns the active policy of the domain with the latest start date.
+     *
+     * @param did - FIDO domain id
+     * @param now - current time
+     * @return FidoPolicyObject or null if the domain has no active policy
+     */
+    public static FidoPolicyObject getNewestActivePolicy(Long did, Date now) {
+        return getLatestActivePolicyStartedBefore(did, now.getTime(), now.getTime());
+    }
+
+    /**
+     * Returns the active policy with the latest start date that was already in
+     * effect at the given instant, i.e. started before and did not end before
+     * that instant.
+     *
+     * @param did - FIDO domain id
+     * @param instant - the instant the policy has to be in effect at
+     * @param now - current time
+     * @return FidoPolicyObject or null if no such policy exists
+     */
+    public static FidoPolicyObject getPolicyActiveAt(Long did, Date instant, Date now) {
+        return getLatestActivePolicyStartedBefore(did, instant.getTime(), now.getTime());
+    }
+
+    /**
+     * Returns the active policy with the earliest start date after the given
+     * instant.
+     *
+     * @param did - FIDO domain id
+     * @param instant - the instant after which the policy has to start
+     * @param now - current time
+     * @return FidoPolicyObject or null if no such policy exists
+     */
+    public static FidoPolicyObject getOldestActivePolicyAfter(Long did, Date instant, Date now) {
+        ConcurrentNavigableMap<PolicyKey, FidoPolicyObject> index = domainindex.get(did);
+        if (index == null) {
+            return null;
+        }
+        long nowms = now.getTime();
+        PolicyKey pk = index.ceilingKey(new PolicyKey(did, instant.getTime() + 1, ""));
+        while (pk != null && pk.start < nowms) {
+            FidoPolicyObject fp = index.get(pk);
+            if (fp != null && endsAfter(fp, nowms)) {
+                return fp;
+            }
+            pk = index.higherKey(pk);
+        }
+        return null;
+    }
+
+    private static FidoPolicyObject getLatestActivePolicyStartedBefore(Long did, long instant, long nowms) {
+        ConcurrentNavigableMap<PolicyKey, FidoPolicyObject> index = domainindex.get(did);
+        if (index == null) {
+            return null;
+        }
+        // Policies must have started before both the instant and now
+        PolicyKey pk = index.lowerKey(new PolicyKey(did, Math.min(instant, nowms), ""));
+        while (pk != null) {
+            FidoPolicyObject fp = index.get(pk);
+            if (fp != null && endsAfter(fp, nowms) && endsAfter(fp, instant)) {
+                return fp;
+            }
+            pk = index.lowerKey(pk);
+        }
+        return null;
+    }
+
+    private static boolean endsAfter(FidoPolicyObject fp, long time) {
+        return fp.getEndDate() == null || fp.getEndDate().getTime() > time;
+    }
+
+    /**
+     * Position of a policy in its domain index; ordered by start date and then
+     * by map key so that policies with the same start date can coexist.
+     */
+    private static final class PolicyKey implements Comparable<PolicyKey> {
+
+        private final long did;
+        private final long start;
+        private final String mapkey;
+
+        PolicyKey(long did, long start, String mapkey) {
+            this.did = did;
+            this.start = start;
+            this.mapkey = mapkey;
+        }
+
+        @Override
+        public int compareTo(PolicyKey o) {
+            int c = Long.compare(start, o.start);
+            return (c != 0) ? c : mapkey.compareTo(o.mapkey);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof PolicyKey)) {
+                return false;
+            }
+            PolicyKey pk = (PolicyKey) o;
+            return start == pk.start && mapkey.equals(pk.mapkey);
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(start) * 31 + mapkey.hashCode();
+        }
+    }
+}
@@ -12,28 +12,38 @@ import com.strongkey.appliance.utilities.applianceMaps;
 import static com.strongkey.cbor.jacob.CborConstants.*;
 import com.strongkey.cbor.jacob.CborDecoder;
 import com.strongkey.cbor.jacob.CborType;
+import com.strongkey.crypto.utility.cryptoCommon;
+import com.strongkey.skce.hashmaps.ExpiringSessionMap;
+import com.strongkey.skce.utilities.PublicSuffixList;
+import com.strongkey.skce.utilities.CacheStatistics;
 import com.strongkey.skce.utilities.TPMConstants;
+import com.strongkey.skce.utilities.skceCommon;
+import com.strongkey.skce.utilities.skceMetrics;
+import com.strongkey.skfe.entitybeans.FidoKeys;
 import com.strongkey.skfs.pojos.FIDOMetadataService;
 import com.strongkey.skfs.pojos.FIDOReturnObject;
 import com.strongkey.skfs.pojos.FIDOReturnObjectV1;
+import com.strongkey.skfs.pojos.MDSAuthenticator;
 import com.strongkey.skfs.requests.ServiceInfo;
 import java.io.BufferedReader;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.StringReader;
 import java.io.UnsupportedEncodingException;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.NoSuchProviderException;
+import java.security.PublicKey;
 import java.security.Security;
-import java.security.cert.CertificateFactory;
 import java.security.cert.X509Certificate;
+import java.security.spec.InvalidKeySpecException;
+import java.util.AbstractMap.SimpleImmutableEntry;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Enumeration;
@@ -46,6 +56,7 @@ import java.util.ResourceBundle;
 import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -55,9 +66,6 @@ import javax.json.JsonArrayBuilder;
 import javax.json.JsonObject;
 import javax.json.JsonReader;
 import javax.json.stream.JsonParsingException;
-import javax.ws.rs.client.Client;
-import javax.ws.rs.client.ClientBuilder;
-import javax.ws.rs.client.WebTarget;
 import javax.ws.rs.core.Response;
 import org.bouncycastle.asn1.ASN1ObjectIdentifier;
 import org.bouncycastle.asn1.x9.ECNamedCurveTable;
@@ -81,14 +89,15 @@ public class SKFSCommon {
     // Location where StrongKey CryproEngine  is installed on this machine
     private static String skfshome;
 
-    public static List<String> tldList = new ArrayList<>();
-
     public static final SKFSCron cron = new SKFSCron();
 
     private static SortedMap<String, String> mdsentryattcertpointer = new ConcurrentSkipListMap<>();
     
     private static SortedMap<String, JsonObject> mdsentryaaguidMap = new ConcurrentSkipListMap<>();
 
+    // MDS entries compiled for the registration policy checks; same keys as mdsentryaaguidMap
+    private static Map<String, MDSAuthenticator> mdsauthenticatorMap = new ConcurrentHashMap<>();
+
     private static FIDOMetadataService metadataservice = null;
 
     private static X509Certificate mdsrootca = null;
@@ -99,6 +108,19 @@ public class SKFSCommon {
 
     private static String updatefidousers = getConfigurationProperty("skfs.cfg.property.fido.usermetadata.enabled");
 
+    // sid-did-username-fkid of FIDO_KEYS rows mapped to the digest of the row content whose signature verified;
+    // the oldest rows are evicted when it is full
+    private static ExpiringSessionMap<String> verifiedrowsignaturemap =
+            new ExpiringSessionMap<>(Integer.parseInt(getConfigurationProperty("skfs.cfg.property.db.signature.rowlevel.verify.cache.maxsize")));
+
+    private static final CacheStatistics verifiedrowsignaturestats = skceMetrics.cache("rowsignature");
+
+    // sid-did-fkid of FIDO_KEYS rows mapped to the base64url public key of the row and its decoded form
+    private static ExpiringSessionMap<SimpleImmutableEntry<String, PublicKey>> userpublickeymap =
+            new ExpiringSessionMap<>(Integer.parseInt(getConfigurationProperty("skfs.cfg.property.publickey.cache.maxsize")));
+
+    private static final CacheStatistics userpublickeystats = skceMetrics.cache("publickey");
+
     static {
 
         /**
@@ -227,14 +249,14 @@ public class SKFSCommon {
                 } else {
                     // Deal with the response.
                     // Use caution: ensure correct character encoding and is not binary data
-                    BufferedReader in = new BufferedReader(new InputStreamReader(con.getInputStream()));
+                    BufferedReader in = new BufferedReader(new InputStreamReader(con.getInputStream(), StandardCharsets.UTF_8));
+                    PublicSuffixList psl = new PublicSuffixList();
                     String inputLine;
                     while ((inputLine = in.readLine()) != null) {
-                        if (!inputLine.startsWith("//") && !inputLine.isEmpty()) {
-                            tldList.add(inputLine);
-                        }
+                        psl.add(inputLine);
                     }
                     in.close();
+                    skceCommon.tldList = psl;
                 }
                 con.disconnect();
             } catch (Exception e) {
@@ -252,37 +274,6 @@ public class SKFSCommon {
         cron.flushFIDOKeysJob();
 
         putTransportsMap();
-        
-        String mdsenabled = SKFSCommon.getConfigurationProperty("skfs.cfg.property.mds.enabled");
-        if (mdsenabled.equalsIgnoreCase("true") || mdsenabled.equalsIgnoreCase("yes")) {
-            // Download global sign root cert
-            Client client = null;
-            WebTarget webTarget;
-            Response rs = null;
-            try {
-
-                client = ClientBuilder.newClient();
-                webTarget = client.target(getConfigurationProperty("skfs.cfg.property.mds.rootca.url"));
-
-                // Execute the method.
-                rs = webTarget.request().get();
-
-                if (rs.getStatus() > 299) {
-                    System.err.println("Method failed: " + rs.readEntity(String.class));
-                } else {
-
-                    CertificateFactory fac = CertificateFactory.getInstance("X509");
-                    SKFSCommon.setMdsrootca((X509Certificate) fac.generateCertificate(rs.readEntity(InputStream.class)));
-                }
-            } catch (Exception e) {
-                System.err.println("Fatal protocol violation: " + e.getMessage());
-                e.printStackTrace();
-            } finally {
-                rs.close();
-                client.close();
-                // Release the connection.
-            }
-        }
     }
 
     /**
@@ -677,13 +668,108 @@ Y88b  d88P Y88..88P 888  888 888    888 Y88b 888 Y88b 888 888     888  888 Y88b.
     }
 
     public static void setMdsentry(String key, JsonObject value) {
+        mdsauthenticatorMap.put(key, MDSAuthenticator.compile(value));
         mdsentryaaguidMap.put(key, value);
     }
+
+    public static MDSAuthenticator getMdsauthenticator(String key) {
+        return mdsauthenticatorMap.get(key);
+    }
     
     public static Boolean containsMdsentry(String key) {
         return mdsentryaaguidMap.containsKey(key);
     }
 
+    /**
+     * Removes the MDS entries and attestation certificate pointers that are
+     * not in the given sets, i.e. that were dropped from the latest MDS blob.
+     *
+     * @param keys - keys of the entries to keep
+     * @param pointers - attestation certificate key identifiers to keep
+     * @return number of entries removed
+     */
+    public static int retainMdsentries(Set<String> keys, Set<String> pointers) {
+        int removed = 0;
+        for (String key : mdsentryaaguidMap.keySet()) {
+            if (!keys.contains(key) && mdsentryaaguidMap.remove(key) != null) {
+                mdsauthenticatorMap.remove(key);
+                removed++;
+            }
+        }
+        mdsentryattcertpointer.keySet().retainAll(pointers);
+        return removed;
+    }
+
+    public static Boolean isVerifiedRowSignature(String key, String digest) {
+        if (digest.equals(verifiedrowsignaturemap.get(key))) {
+            verifiedrowsignaturestats.hit();
+            return true;
+        }
+        verifiedrowsignaturestats.miss();
+        return false;
+    }
+
+    /**
+     * Digest over everything a row signature of a FIDO key covers (both the
+     * JSON and the legacy XML forms) plus the signature itself, so that any
+     * change to the row results in a different digest.
+     *
+     * @param fk - the key
+     * @param json - the JSON form of the row, fk.toJsonObject()
+     * @return the digest, or null if it cannot be computed
+     */
+    public static String getRowDigest(FidoKeys fk, String json) {
+        StringBuilder sb = new StringBuilder(json)
+                .append('|').append(fk.getCounter())
+                .append('|').append(fk.getAttcid())
+                .append('|').append(fk.getCreateLocation())
+                .append('|').append(fk.getCreateDate() == null ? null : fk.getCreateDate().getTime())
+                .append('|').append(fk.getSignatureKeytype())
+                .append('|').append(fk.getSignature());
+        try {
+            return getDigest(sb.toString(), "SHA-256");
+        } catch (NoSuchAlgorithmException | NoSuchProviderException | UnsupportedEncodingException ex) {
+            Logger.getLogger(SKFSCommon.class.getName()).log(Level.SEVERE, null, ex);
+            return null;
+        }
+    }
+
+    public static void setVerifiedRowSignature(String key, String digest) {
+        verifiedrowsignaturemap.put(key, digest);
+    }
+
+    public static void removeVerifiedRowSignature(String key) {
+        verifiedrowsignaturemap.remove(key);
+    }
+
+    /**
+     * Returns the decoded public key of a FIDO key, decoding it only the first
+     * time the key is used. The encoded key is compared with the cached one,
+     * so a stale entry is never returned.
+     *
+     * @param key - sid-did-fkid of the FIDO key
+     * @param publickey - base64url encoded X.509 public key
+     * @param keytype - key algorithm: EC, RSA, ...
+     * @return PublicKey
+     * @throws NoSuchAlgorithmException
+     * @throws InvalidKeySpecException
+     */
+    public static PublicKey getUserPublicKey(String key, String publickey, String keytype) throws NoSuchAlgorithmException, InvalidKeySpecException {
+        SimpleImmutableEntry<String, PublicKey> entry = userpublickeymap.get(key);
+        if (entry != null && entry.getKey().equals(publickey)) {
+            userpublickeystats.hit();
+            return entry.getValue();
+        }
+        userpublickeystats.miss();
+        PublicKey pub = cryptoCommon.generatePublicKey(java.util.Base64.getUrlDecoder().decode(publickey), keytype);
+        userpublickeymap.put(key, new SimpleImmutableEntry<>(publickey, pub));
+        return pub;
+    }
+
+    public static void removeUserPublicKey(String key) {
+        userpublickeymap.remove(key);
+    }
+
     public static X509Certificate getMdsrootca() {
         return mdsrootca;
     }
@@ -726,19 +812,15 @@ Y88b  d88P Y88..88P 888  888 888    888 Y88b 888 Y88b 888 888     888  888 Y88b.
         }
     }
 
+    /**
+     * Returns the registrable domain (public suffix plus one label) of a
+     * domain, using the public suffix list shared with skceCommon.
+     *
+     * @param domain - a domain name
+     * @return String with the registrable domain
+     */
     public static String getTLdplusone(String domain) {
-        String allowedtld = domain;
-        if (tldList.contains(domain)) {
-            allowedtld = domain;
-        }
-        while (domain.contains(".")) {
-            allowedtld = domain;
-            domain = domain.substring(domain.indexOf(".") + 1);
-            if (tldList.contains(domain)) {
-                return allowedtld;
-            }
-        }
-        return allowedtld;
+        return skceCommon.tldList.getRegistrableDomain(domain);
     }
 
     /*
@@ -51,6 +51,18 @@ public class SKFSLogger {
         SKFS_LOGGER.exiting(sourceClass, sourceMethod);
     }
 
+    /**
+     * Checks if a message of the given level would be logged, so that its
+     * parameters are only built when they are needed
+     *
+     * @param logger
+     * @param level - the level of the message
+     * @return true if the message would be logged
+     */
+    public static boolean isLoggable(String logger, java.util.logging.Level level) {
+        return SKFS_LOGGER.isLoggable(level);
+    }
+
     public static void log(String logger, java.util.logging.Level level, String key, Object param) {
         SKFS_LOGGER.log(level, key, param);
     }
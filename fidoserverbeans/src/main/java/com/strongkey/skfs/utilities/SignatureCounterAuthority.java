@@ -0,0 +1,166 @@
+/**
+* Copyright StrongAuth, Inc. All Rights Reserved.
+*
+* Use of this source code is governed by the GNU Lesser General Public License v2.1
+* The license can be found at https://github.com/StrongKey/fido2/blob/master/LICENSE
+*/
+
+package com.strongkey.skfs.utilities;
+
+import com.strongkey.skfs.messaging.FidoKeysCounter;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-memory authority for the signature counters of the FIDO keys used on
+ * this server, and the queue of counter updates not written to the database
+ * yet.
+ *
+ * A counter is seeded from the stored key the first time the key is used and
+ * is only ever moved forward with compare-and-set, so two assertions carrying
+ * the same counter cannot both be accepted. Counters of keys that were not
+ * used for a while are dropped once their last update has been written, and
+ * are seeded from the database again on the next use.
+ *
+ * Counters are keyed by the MAP_FIDO_KEYS key of the FIDO key: sid-did-fkid.
+ */
+public final class SignatureCounterAuthority {
+
+    // Counter value of an entry that was dropped from the map
+    private static final int RETIRED = -1;
+
+    private static final Map<String, Entry> counters = new ConcurrentHashMap<>();
+
+    // mapkey -> latest counter update not written to the database yet
+    private static final Map<String, FidoKeysCounter> pending = new ConcurrentHashMap<>();
+
+    private SignatureCounterAuthority() {
+    }
+
+    /**
+     * Moves the counter of a key forward to the counter received in an
+     * assertion. The new counter must be larger than the current one, except
+     * for authenticators that do not implement a counter: both counters are
+     * then 0.
+     *
+     * @param mapkey - sid-did-fkid of the key
+     * @param storedCounter - counter of the key as read from the database or
+     * the MAP_FIDO_KEYS map; only used if the key has no counter here yet
+     * @param newCounter - counter received from the authenticator
+     * @return true if the counter was accepted, false if it is a replay or a
+     * cloned authenticator
+     */
+    public static boolean advance(String mapkey, int storedCounter, int newCounter) {
+        while (true) {
+            Entry entry = counters.computeIfAbsent(mapkey, k -> new Entry(storedCounter));
+            entry.used = System.currentTimeMillis();
+            int current = entry.counter.get();
+            if (current == RETIRED) {
+                counters.remove(mapkey, entry);
+            } else if (newCounter <= current) {
+                return current == 0 && newCounter == 0;
+            } else if (entry.counter.compareAndSet(current, newCounter)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Queues a counter update to be written to the database by the next
+     * flush. Updates of the same key are coalesced: only the one with the
+     * largest counter is kept. The in-memory counter of the key is moved
+     * forward to the update as well, so updates replicated from other servers
+     * are also enforced here.
+     *
+     * @param fkc - the counter update
+     */
+    public static void record(FidoKeysCounter fkc) {
+        // Queued first so that the counter cannot be retired in between
+        pending.merge(fkc.getMapkey(), fkc, (queued, update) -> (update.getCounter() >= queued.getCounter()) ? update : queued);
+        raise(fkc.getMapkey(), fkc.getCounter());
+    }
+
+    /**
+     * Moves the counter of a key forward if it is smaller than the given
+     * counter. Unlike advance, a counter that is not larger is ignored.
+     *
+     * @param mapkey - sid-did-fkid of the key
+     * @param counter - counter known to be used already
+     */
+    public static void raise(String mapkey, int counter) {
+        while (true) {
+            Entry entry = counters.computeIfAbsent(mapkey, k -> new Entry(counter));
+            int current = entry.counter.get();
+            if (current == RETIRED) {
+                counters.remove(mapkey, entry);
+            } else if (counter <= current || entry.counter.compareAndSet(current, counter)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Removes and returns the queued counter updates. Updates queued while
+     * the updates are being written are kept for the next flush.
+     *
+     * @return List of the counter updates, at most one per key
+     */
+    public static List<FidoKeysCounter> drain() {
+        List<FidoKeysCounter> updates = new ArrayList<>(pending.size());
+        for (String mapkey : pending.keySet()) {
+            FidoKeysCounter fkc = pending.remove(mapkey);
+            if (fkc != null) {
+                updates.add(fkc);
+            }
+        }
+        return updates;
+    }
+
+    /**
+     * Drops the counters of the keys not used for idletime milliseconds
+     * whose updates were all written to the database.
+     *
+     * @param idletime - milliseconds a key must have been unused for
+     * @return number of counters dropped
+     */
+    public static int retire(long idletime) {
+        long cutoff = System.currentTimeMillis() - idletime;
+        int retired = 0;
+        Iterator<Map.Entry<String, Entry>> it = counters.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Entry> e = it.next();
+            Entry entry = e.getValue();
+            if (entry.used > cutoff || pending.containsKey(e.getKey())) {
+                continue;
+            }
+            int current = entry.counter.get();
+            if (current != RETIRED && entry.counter.compareAndSet(current, RETIRED)) {
+                counters.remove(e.getKey(), entry);
+                retired++;
+            }
+        }
+        return retired;
+    }
+
+    public static int size() {
+        return counters.size();
+    }
+
+    public static int getPending() {
+        return pending.size();
+    }
+
+    private static final class Entry {
+
+        private final AtomicInteger counter;
+        private volatile long used = System.currentTimeMillis();
+
+        Entry(int counter) {
+            this.counter = new AtomicInteger(counter);
+        }
+    }
+}
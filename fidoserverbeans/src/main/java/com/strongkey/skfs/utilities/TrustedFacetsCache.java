@@ -0,0 +1,228 @@
+/**
+* Copyright StrongAuth, Inc. All Rights Reserved.
+*
+* Use of this source code is governed by the GNU Lesser General Public License v2.1
+* The license can be found at https://github.com/StrongKey/fido2/blob/master/LICENSE
+*/
+
+package com.strongkey.skfs.utilities;
+
+import com.strongkey.skce.hashmaps.ExpiringSessionMap;
+import com.strongkey.skce.utilities.CacheStatistics;
+import com.strongkey.skce.utilities.skceMetrics;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import javax.json.Json;
+import javax.json.JsonArray;
+import javax.json.JsonException;
+import javax.json.JsonObject;
+import javax.json.JsonReader;
+import javax.json.JsonStructure;
+import javax.json.JsonValue;
+
+/**
+ * Cache of the trusted facets of U2F AppIDs (FIDO AppID and Facet
+ * Specification, section 3.1.2).
+ *
+ * The facets of an AppID are downloaded once and kept, as the set of facets
+ * allowed for it, for as long as the Cache-Control max-age or Expires headers
+ * of the response allow (skfs.cfg.property.trustedfacets.cache.ttl.seconds
+ * if it has neither, never longer than maxttl.seconds). Once expired they
+ * keep being used for up to stale.seconds while they are revalidated in the
+ * background, with If-None-Match/If-Modified-Since when the response had an
+ * ETag or Last-Modified header; if revalidation fails, the stale facets are
+ * kept. Failed downloads are remembered for negative.ttl.seconds, so an
+ * unreachable facet host is not retried by every request. Facets that are
+ * too stale to be used are dropped when a request misses the cache.
+ */
+public final class TrustedFacetsCache {
+
+    private static final String classname = "TrustedFacetsCache";
+
+    private static final ExpiringSessionMap<Facets> facetsmap =
+            new ExpiringSessionMap<>(Integer.parseInt(SKFSCommon.getConfigurationProperty("skfs.cfg.property.trustedfacets.cache.maxsize")));
+
+    private static final CacheStatistics stats = skceMetrics.cache("trustedfacets");
+
+    private TrustedFacetsCache() {
+    }
+
+    /**
+     * Checks if an origin is one of the trusted facets of an AppID.
+     *
+     * @param appid - the https AppID
+     * @param allowedtld - registrable domain of the AppID; facets outside of
+     * it are ignored
+     * @param origin - the origin of the request
+     * @param refresher - the container's executor, which revalidates expired
+     * facets
+     * @return true if the origin is a trusted facet of the AppID
+     */
+    public static boolean isTrustedFacet(String appid, String allowedtld, String origin, Executor refresher) {
+        Facets f = getFacets(appid, allowedtld, refresher);
+        return f.facets != null && f.facets.contains(origin);
+    }
+
+    private static Facets getFacets(String appid, String allowedtld, Executor refresher) {
+        String key = appid + " " + allowedtld;
+        long now = System.currentTimeMillis();
+        Facets f = facetsmap.get(key);
+        if (f == null || now > f.expiry + getMillis("skfs.cfg.property.trustedfacets.cache.stale.seconds")) {
+            stats.miss();
+            // Facets put longer ago than this are too stale to be used
+            facetsmap.expire(getMillis("skfs.cfg.property.trustedfacets.cache.maxttl.seconds")
+                    + getMillis("skfs.cfg.property.trustedfacets.cache.stale.seconds"));
+            f = fetch(appid, allowedtld, f, false);
+            facetsmap.put(key, f);
+            return f;
+        }
+        stats.hit();
+        if (now > f.expiry
+                && now > f.checked + getMillis("skfs.cfg.property.trustedfacets.cache.negative.ttl.seconds")
+                && f.refreshing.compareAndSet(false, true)) {
+            Facets stale = f;
+            try {
+                refresher.execute(() -> facetsmap.put(key, fetch(appid, allowedtld, stale, true)));
+            } catch (RejectedExecutionException ex) {
+                // The next request retries
+                stale.refreshing.set(false);
+            }
+        }
+        return f;
+    }
+
+    /**
+     * Downloads the trusted facets of an AppID.
+     *
+     * @param previous - the cached facets, if any; used to revalidate them
+     * @param revalidating - true if the previous facets may still be used
+     * when the download fails
+     * @return the new facets; negative if the download failed
+     */
+    private static Facets fetch(String appid, String allowedtld, Facets previous, boolean revalidating) {
+        HttpURLConnection con = null;
+        try {
+            int timeout = Integer.parseInt(SKFSCommon.getConfigurationProperty("skfs.cfg.property.trustedfacets.fetch.timeout.millis"));
+            con = (HttpURLConnection) new URL(appid).openConnection();
+            con.setConnectTimeout(timeout);
+            con.setReadTimeout(timeout);
+            if (previous != null && previous.facets != null) {
+                if (previous.etag != null) {
+                    con.setRequestProperty("If-None-Match", previous.etag);
+                }
+                if (previous.lastmodified > 0) {
+                    con.setIfModifiedSince(previous.lastmodified);
+                }
+            }
+
+            int status = con.getResponseCode();
+            if (status == HttpURLConnection.HTTP_NOT_MODIFIED && previous != null && previous.facets != null) {
+                return new Facets(previous.facets, getExpiry(con), previous.etag, previous.lastmodified);
+            }
+            if (status != HttpURLConnection.HTTP_OK) {
+                throw new IOException("HTTP " + status);
+            }
+            Set<String> facets;
+            try (InputStream is = con.getInputStream(); JsonReader rdr = Json.createReader(is)) {
+                facets = parse(rdr.read(), allowedtld);
+            }
+            SKFSLogger.logp(SKFSConstants.SKFE_LOGGER, Level.FINE, classname, "fetch", "FIDO-MSG-0064", appid + " facets=" + facets.size());
+            return new Facets(facets, getExpiry(con), con.getHeaderField("ETag"), con.getLastModified());
+        } catch (IOException | JsonException | ClassCastException | NullPointerException | NumberFormatException ex) {
+            SKFSLogger.logp(SKFSConstants.SKFE_LOGGER, Level.WARNING, classname, "fetch", "FIDO-ERR-0042", appid + " " + ex.getLocalizedMessage());
+            if (revalidating && previous.facets != null) {
+                return new Facets(previous.facets, previous.expiry, previous.etag, previous.lastmodified);
+            }
+            return new Facets(null, System.currentTimeMillis() + getMillis("skfs.cfg.property.trustedfacets.cache.negative.ttl.seconds"), null, 0);
+        } finally {
+            if (con != null) {
+                con.disconnect();
+            }
+        }
+    }
+
+    /**
+     * The facets are either a TrustedFacetList object, whose last
+     * trustedFacets entry is used, or just the array of facet ids. Only https
+     * facets within the registrable domain of the AppID are allowed.
+     */
+    private static Set<String> parse(JsonStructure json, String allowedtld) throws IOException {
+        JsonArray ids = null;
+        if (json.getValueType() == JsonValue.ValueType.OBJECT) {
+            for (JsonObject result : ((JsonObject) json).getJsonArray("trustedFacets").getValuesAs(JsonObject.class)) {
+                ids = result.getJsonArray("ids");
+            }
+        } else {
+            ids = (JsonArray) json;
+        }
+        if (ids == null) {
+            return Collections.emptySet();
+        }
+        Set<String> facets = new HashSet<>(ids.size() * 2);
+        for (int i = 0; i < ids.size(); i++) {
+            String facet = ids.getString(i);
+            if (facet.startsWith("https") && new URL(facet).getHost().endsWith(allowedtld)) {
+                facets.add(facet);
+            }
+        }
+        return Collections.unmodifiableSet(facets);
+    }
+
+    private static long getExpiry(HttpURLConnection con) {
+        long now = System.currentTimeMillis();
+        long ttl = getMillis("skfs.cfg.property.trustedfacets.cache.ttl.seconds");
+        String cachecontrol = con.getHeaderField("Cache-Control");
+        if (cachecontrol != null) {
+            for (String directive : cachecontrol.toLowerCase(Locale.ROOT).split(",")) {
+                directive = directive.trim();
+                if (directive.equals("no-cache") || directive.equals("no-store")) {
+                    return now;
+                }
+                if (directive.startsWith("max-age=")) {
+                    try {
+                        ttl = Long.parseLong(directive.substring(8).trim()) * 1000;
+                    } catch (NumberFormatException ex) {
+                        // Ignore the directive
+                    }
+                }
+            }
+        } else if (con.getExpiration() > 0) {
+            ttl = con.getExpiration() - now;
+        }
+        return now + Math.max(0, Math.min(ttl, getMillis("skfs.cfg.property.trustedfacets.cache.maxttl.seconds")));
+    }
+
+    private static long getMillis(String key) {
+        return Long.parseLong(SKFSCommon.getConfigurationProperty(key)) * 1000;
+    }
+
+    private static final class Facets {
+
+        // null when the download failed
+        private final Set<String> facets;
+        private final long expiry;
+        private final String etag;
+        private final long lastmodified;
+        // Time of the download the facets are from, or of the last failed
+        // revalidation
+        private final long checked = System.currentTimeMillis();
+        private final AtomicBoolean refreshing = new AtomicBoolean(false);
+
+        Facets(Set<String> facets, long expiry, String etag, long lastmodified) {
+            this.facets = facets;
+            this.expiry = expiry;
+            this.etag = etag;
+            this.lastmodified = lastmodified;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+/**
+* Copyright StrongAuth, Inc. All Rights Reserved.
+*
+* Use of this source code is governed by the GNU Lesser General Public License v2.1
+* The license can be found at https://github.com/StrongKey/fido2/blob/master/LICENSE
+*/
+package com.strongkey.skfs.filters;
+
+import com.strongkey.skce.utilities.LatencyHistogram;
+import com.strongkey.skce.utilities.skceMetrics;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.ws.rs.Path;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.ext.Provider;
+
+/**
+ * Records the latency of every web service request in
+ * skfs_request_duration_seconds, labeled with the path of the web service
+ * and the class of the HTTP status returned (2xx, 4xx, ...).
+ */
+@Provider
+public class MetricsFilter implements ContainerRequestFilter, ContainerResponseFilter {
+
+    private static final String START = MetricsFilter.class.getName() + ".start";
+
+    // Resource method -> histograms indexed by the first digit of the status
+    private static final Map<Method, LatencyHistogram[]> histograms = new ConcurrentHashMap<>();
+
+    @Context
+    private ResourceInfo resourceinfo;
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) throws IOException {
+        requestContext.setProperty(START, System.nanoTime());
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) throws IOException {
+        Object start = requestContext.getProperty(START);
+        Method method = resourceinfo.getResourceMethod();
+        if (start == null || method == null) {
+            return;
+        }
+        int statusclass = Math.min(Math.max(responseContext.getStatus() / 100, 1), 5);
+        LatencyHistogram[] h = histograms.computeIfAbsent(method, k -> new LatencyHistogram[6]);
+        LatencyHistogram histogram = h[statusclass];
+        if (histogram == null) {
+            // The registry returns the same histogram to concurrent callers
+            histogram = skceMetrics.histogram("skfs_request_duration_seconds", "Latency of the web service requests",
+                    "operation", getOperation(method), "status", statusclass + "xx");
+            h[statusclass] = histogram;
+        }
+        histogram.recordSince((Long) start);
+    }
+
+    private static String getOperation(Method method) {
+        Path path = method.getAnnotation(Path.class);
+        if (path == null) {
+            return method.getName();
+        }
+        String operation = path.value();
+        return operation.startsWith("/") ? operation.substring(1) : operation;
+    }
+}
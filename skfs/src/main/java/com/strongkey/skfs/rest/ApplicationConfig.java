@@ -7,6 +7,7 @@
 package com.strongkey.skfs.rest;
 
 import com.strongkey.skfs.filters.CrossOriginResourceSharingFilter;
+import com.strongkey.skfs.filters.MetricsFilter;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
@@ -18,7 +19,7 @@ public class ApplicationConfig extends Application {
 
     @Override
     public Set<Class<?>> getClasses() {
-        return new HashSet<>(Arrays.asList(SKFSServlet.class,FidoAdminServlet.class,
-                CrossOriginResourceSharingFilter.class));
+        return new HashSet<>(Arrays.asList(SKFSServlet.class,FidoAdminServlet.class,MetricsServlet.class,
+                CrossOriginResourceSharingFilter.class,MetricsFilter.class));
     }
 }
@@ -10,6 +10,8 @@ package com.strongkey.skfs.rest;
 
 import com.strongkey.auth.txbeans.authenticateRestRequestBeanLocal;
 import com.strongkey.auth.txbeans.authorizeLdapUserBeanLocal;
+import com.strongkey.auth.utilities.LdapAuthorizationCache;
+import com.strongkey.crypto.interfaces.initCryptoModule;
 import com.strongkey.skce.utilities.SKCEException;
 import com.strongkey.skfs.entitybeans.FidoPolicies;
 import com.strongkey.skfs.jwt.JWTVerifyLocal;
@@ -899,6 +901,124 @@ Y88b  d88P Y88b. .d88P 888   Y8888 888          888   Y88b  d88P Y88b. .d88P 888
         }
         return updateFidoConfig.execute(did, configarray);
     }
+
+    /**
+     * Discards the HMAC secret-keys cached in memory so that they are reloaded
+     * from the hmac keystore on the next HMAC-authenticated request; used after
+     * access-keys were added or replaced in the keystore.
+     *
+     * @param input - the svcinfo of an administrator
+     * @return Response with the result of the operation
+     */
+    @POST
+    @Path("/reloadhmackeys")
+    @Consumes({"application/json"})
+    @Produces({"application/json"})
+    public Response reloadHmacKeys(String input) {
+        Response unauthorized = authorizeAdmin(input);
+        if (unauthorized != null) {
+            return unauthorized;
+        }
+
+        initCryptoModule.getCryptoModule().reloadHmacKeys();
+        String response = Json.createObjectBuilder()
+            .add(SKFSConstants.JSON_KEY_SERVLET_RETURN_RESPONSE, "Successfully invalidated cached hmac keys")
+            .build().toString();
+        return Response.ok().entity(response).build();
+    }
+
+    @POST
+    @Path("/invalidateldapauthorizations")
+    @Consumes({"application/json"})
+    @Produces({"application/json"})
+    public Response invalidateLdapAuthorizations(String input) {
+        Response unauthorized = authorizeAdmin(input);
+        if (unauthorized != null) {
+            return unauthorized;
+        }
+
+        JsonObject svcinfo = SKFSCommon.getJsonObjectFromString(input).getJsonObject("svcinfo");
+        LdapAuthorizationCache.invalidate(Long.valueOf(svcinfo.getInt("did")));
+        String response = Json.createObjectBuilder()
+            .add(SKFSConstants.JSON_KEY_SERVLET_RETURN_RESPONSE, "Successfully invalidated cached ldap authorizations")
+            .build().toString();
+        return Response.ok().entity(response).build();
+    }
+
+    /**
+     * Authorizes an administration request made with either a password or a
+     * JWT service credential.
+     *
+     * @param input - request body with the svcinfo
+     * @return Response to return if the request is not authorized, or null
+     */
+    private Response authorizeAdmin(String input) {
+        JsonObject inputJson =  SKFSCommon.getJsonObjectFromString(input);
+        if (inputJson == null) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(SKFSCommon.getMessageProperty("FIDO-ERR-0014") + " input").build();
+        }
+        JsonObject svcinfo = inputJson.getJsonObject("svcinfo");
+        Long did = Long.valueOf(svcinfo.getInt("did"));
+
+        String agent = request.getHeader("User-Agent");
+        String cip = request.getRemoteAddr();
+        String username = null;
+        String jwt = null;
+        String origin = null;
+        try {
+            URI requestURL = new URI(request.getRequestURL().toString());
+            origin = requestURL.getScheme() + "://" + requestURL.getAuthority();
+        } catch (URISyntaxException ex) {
+            Logger.getLogger(FidoAdminServlet.class.getName()).log(Level.SEVERE, null, ex);
+        }
+
+        Cookie[] cookies = request.getCookies();
+        if (cookies != null) {
+            for (Cookie cookie : cookies) {
+                if (cookie.getName().equalsIgnoreCase("username")) {
+                    try {
+                        username = URLDecoder.decode(cookie.getValue(), "UTF-8");
+                    } catch (UnsupportedEncodingException ex) {
+                        Logger.getLogger(FidoAdminServlet.class.getName()).log(Level.SEVERE, null, ex);
+                    }
+                }
+                if (cookie.getName().equalsIgnoreCase("jwt")) {
+                    jwt = cookie.getValue();
+                }
+            }
+        }
+
+        ServiceInfo svcinfoObj;
+        svcinfoObj = SKFSCommon.checkSvcInfo("REST", svcinfo.toString());
+        Response svcres = SKFSCommon.checksvcinfoerror(svcinfoObj);
+        if(svcres !=null){
+            return svcres;
+        }
+
+        boolean isAuthorized;
+        if (svcinfoObj.getAuthtype().equalsIgnoreCase("password")) {
+            try {
+                isAuthorized = authorizebean.execute(svcinfoObj.getDid(), svcinfoObj.getSvcusername(), svcinfoObj.getSvcpassword(), SKFSConstants.LDAP_ROLE_FIDO_ADMIN);
+            } catch (Exception ex) {
+                SKFSLogger.log(SKFSConstants.SKFE_LOGGER, Level.SEVERE, SKFSCommon.getMessageProperty("FIDO-ERR-0003"), ex.getMessage());
+                return Response.status(Response.Status.BAD_REQUEST).entity(SKFSCommon.getMessageProperty("FIDO-ERR-0003") + ex.getMessage()).build();
+            }
+            if (!isAuthorized) {
+                SKFSLogger.log(SKFSConstants.SKFE_LOGGER, Level.SEVERE, "FIDO-ERR-0033", "");
+                return Response.status(Response.Status.UNAUTHORIZED).build();
+            }
+        } else if (svcinfoObj.getAuthtype().equalsIgnoreCase("jwt")) {
+            if (!jwtverify.execute(String.valueOf(svcinfo.getInt("did")), jwt, username, agent, cip, origin)) {
+                return Response.status(Response.Status.UNAUTHORIZED).build();
+            }
+            if (!ldapoperations.isAdmin(did, username)) {
+                return Response.status(Response.Status.UNAUTHORIZED).build();
+            }
+        } else {
+            return Response.status(Response.Status.UNAUTHORIZED).build();
+        }
+        return null;
+    }
     
     @POST
     @Path("/adminpreregister")
@@ -0,0 +1,105 @@
+/**
+* Copyright StrongAuth, Inc. All Rights Reserved.
+*
+* Use of this source code is governed by the GNU Lesser General Public License v2.1
+* The license can be found at https://github.com/StrongKey/fido2/blob/master/LICENSE
+*/
+package com.strongkey.skfs.rest;
+
+import com.strongkey.skce.hashmaps.ExpiringSessionMap;
+import com.strongkey.skce.utilities.PKIXChainValidation;
+import com.strongkey.skce.utilities.skceMaps;
+import com.strongkey.skce.utilities.skceMetrics;
+import com.strongkey.skfs.messaging.BacklogProgress;
+import com.strongkey.skfs.messaging.SKCEBacklogProcessor;
+import com.strongkey.skfs.utilities.AttestationCertificateIndex;
+import com.strongkey.skfs.utilities.CredentialDirectory;
+import com.strongkey.skfs.utilities.CredentialIdIndex;
+import com.strongkey.skfs.utilities.DomainCache;
+import com.strongkey.skfs.utilities.SKFSCommon;
+import com.strongkey.skfs.utilities.SignatureCounterAuthority;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.Response;
+
+/**
+ * Metrics of the server in the Prometheus text format: latencies of the web
+ * services and of the phases of their processing, sizes and hit counts of
+ * the in-memory maps and caches, and the progress of the replication backlog
+ * towards each peer.
+ *
+ * The web service is not authenticated, so that it can be scraped; it is
+ * off unless skfs.cfg.property.metrics.enabled is true.
+ */
+@Path("")
+public class MetricsServlet {
+
+    private static final boolean ENABLED = Boolean.parseBoolean(SKFSCommon.getConfigurationProperty("skfs.cfg.property.metrics.enabled"));
+
+    static {
+        registerMap("sessionMap", skceMaps.sessionMap);
+        registerMap("FIDOkeysmap", skceMaps.FIDOkeysmap);
+        skceMetrics.gauge("skfs_map_entries", "Number of entries in the in-memory maps",
+                () -> skceMaps.FPMap.size(), "map", "FPMap");
+
+        skceMetrics.counter("skfs_cache_hits_total", "Lookups answered by an in-memory cache",
+                PKIXChainValidation::getCacheHits, "cache", "pkixpath");
+        skceMetrics.counter("skfs_cache_misses_total", "Lookups not answered by an in-memory cache",
+                PKIXChainValidation::getCacheMisses, "cache", "pkixpath");
+        skceMetrics.gauge("skfs_cache_entries", "Number of entries in the in-memory caches",
+                PKIXChainValidation::getCacheSize, "cache", "pkixpath");
+        skceMetrics.gauge("skfs_cache_entries", "Number of entries in the in-memory caches",
+                AttestationCertificateIndex::size, "cache", "attestationcertificate");
+        skceMetrics.gauge("skfs_cache_entries", "Number of entries in the in-memory caches",
+                CredentialDirectory::size, "cache", "credentialdirectory");
+        skceMetrics.gauge("skfs_cache_entries", "Number of entries in the in-memory caches",
+                CredentialIdIndex::size, "cache", "credentialid");
+        skceMetrics.gauge("skfs_cache_entries", "Number of entries in the in-memory caches",
+                DomainCache::size, "cache", "domains");
+        skceMetrics.gauge("skfs_cache_entries", "Number of entries in the in-memory caches",
+                SignatureCounterAuthority::size, "cache", "signaturecounter");
+        skceMetrics.gauge("skfs_signature_counter_updates_pending", "Signature counter updates not written to the database yet",
+                SignatureCounterAuthority::getPending);
+    }
+
+    @GET
+    @Path("/metrics")
+    @Produces({"text/plain; version=0.0.4"})
+    public Response metrics() {
+        if (!ENABLED) {
+            return Response.status(Response.Status.NOT_FOUND).build();
+        }
+        registerBacklogs();
+        return Response.ok().entity(skceMetrics.scrape()).build();
+    }
+
+    private static void registerMap(String name, ExpiringSessionMap<?> map) {
+        skceMetrics.gauge("skfs_map_entries", "Number of entries in the in-memory maps",
+                map::size, "map", name);
+        skceMetrics.counter("skfs_map_hits_total", "Lookups that found an entry in the in-memory maps",
+                map::getHits, "map", name);
+        skceMetrics.counter("skfs_map_misses_total", "Lookups that did not find an entry in the in-memory maps",
+                map::getMisses, "map", name);
+        skceMetrics.counter("skfs_map_expirations_total", "Entries of the in-memory maps removed when they expired",
+                map::getExpirations, "map", name);
+        skceMetrics.counter("skfs_map_evictions_total", "Entries of the in-memory maps removed when the map was full",
+                map::getEvictions, "map", name);
+    }
+
+    /**
+     * Registers the gauges of the servers that had a replication backlog
+     * since this server started; registering them again has no effect.
+     */
+    private static void registerBacklogs() {
+        for (BacklogProgress p : SKCEBacklogProcessor.getProgress()) {
+            String peer = String.valueOf(p.getTsid());
+            skceMetrics.gauge("skfs_replication_backlog_remaining", "Replication objects of the backlog not sent to the peer yet",
+                    p::getRemaining, "peer", peer);
+            skceMetrics.gauge("skfs_replication_backlog_lag_seconds", "Time between the scheduling and the sending of the last object sent from the backlog",
+                    () -> p.getLag() / 1000.0, "peer", peer);
+            skceMetrics.gauge("skfs_replication_backlog_draining", "1 while the backlog of the peer is being sent",
+                    () -> p.isRunning() ? 1 : 0, "peer", peer);
+        }
+    }
+}
@@ -15,6 +15,7 @@ import com.strongkey.skfsclient.impl.rest.RestFidoAuthorize;
 import com.strongkey.skfsclient.impl.rest.RestFidoGetConfiguration;
 import com.strongkey.skfsclient.impl.rest.RestFidoGetKeysInfo;
 import com.strongkey.skfsclient.impl.rest.RestFidoGetPolicyInfo;
+import com.strongkey.skfsclient.impl.rest.RestFidoLoadTest;
 import com.strongkey.skfsclient.impl.rest.RestFidoPing;
 import com.strongkey.skfsclient.impl.rest.RestFidoRegister;
 import com.strongkey.skfsclient.impl.soap.SoapFidoActionsOnKey;
@@ -36,7 +37,7 @@ public class FidoEngine {
         String usage =
                        "Command: R (registration) | A (authentication) | G (getkeysinfo) | U (updatekey) | D (deregister) | P (ping)\n"
                      + "| CP (createpolicy) | PP (updatepolicy) | DP (deletepolicy) | GP (getpolicy)\n"
-                     + "| GC (getconfiguration) | UC (updateconfiguration) | DC (deleteconfiguration)\n"
+                     + "| GC (getconfiguration) | UC (updateconfiguration) | DC (deleteconfiguration) | LT (loadtest)\n"
                      + "       java -jar skfsclient.jar R <hostport> <did> <wsprotocol> <authtype> [ <accesskey> <secretkey> | <svcusername> <svcpassword> ] <username> <origin> <crossorigin>\n"
                      + "       java -jar skfsclient.jar A <hostport> <did> <wsprotocol> <authtype> [ <accesskey> <secretkey> | <svcusername> <svcpassword> ] <username> <origin> <authcounter> <crossorigin>\n"
                      + "       java -jar skfsclient.jar AZ <hostport> <did> <wsprotocol> <authtype> [ <accesskey> <secretkey> | <svcusername> <svcpassword> ] <username> <txid> <txpayload> <origin> <authcounter> <crossorigin> <verify>\n"
@@ -51,7 +52,8 @@ public class FidoEngine {
                      + "       java -jar skfsclient.jar GC <hostport> <did> <wsprotocol> <authtype> [ <accesskey> <secretkey> | <svcusername> <svcpassword> ]\n"
                      + "       java -jar skfsclient.jar UC <hostport> <did> <wsprotocol> <authtype> [ <accesskey> <secretkey> | <svcusername> <svcpassword> ] <configkey> <configvalue> [<notes>]\n"
                      + "       java -jar skfsclient.jar DC <hostport> <did> <wsprotocol> <authtype> [ <accesskey> <secretkey> | <svcusername> <svcpassword> ] <configkey>\n"
-                     + "       java -jar skfsclient.jar UU <hostport> <did> <wsprotocol> <authtype> [ <accesskey> <secretkey> | <svcusername> <svcpassword> ] <oldusername> <newusername>\n\n"
+                     + "       java -jar skfsclient.jar UU <hostport> <did> <wsprotocol> <authtype> [ <accesskey> <secretkey> | <svcusername> <svcpassword> ] <oldusername> <newusername>\n"
+                     + "       java -jar skfsclient.jar LT <hostport> <did> <wsprotocol> <authtype> [ <accesskey> <secretkey> | <svcusername> <svcpassword> ] <origin> <users> <rate> <duration> <ramp> <mix>\n\n"
                      + "Acceptable Values:\n"
                      + "         hostport            : host and port to access the fido \n"
                      + "                                 SOAP & REST format : http://<FQDN>:<non-ssl-portnumber> or \n"
@@ -92,7 +94,12 @@ public class FidoEngine {
                      + "         configkey           : Configuration identifier of server setting.\n"
                      + "         configvalue         : Value connected to configuration identifier.\n"
                      + "         oldusername         : Existing username for a user.\n"
-                     + "         newusername         : New username for a user.\n";
+                     + "         newusername         : New username for a user.\n"
+                     + "         users               : Number of virtual users; each gets a key registered before the load test.\n"
+                     + "         rate                : Target rate of operations per second, kept regardless of the response times.\n"
+                     + "         duration            : Length of the load test in seconds, ramp included.\n"
+                     + "         ramp                : Seconds to ramp up linearly to the target rate; 0 for none.\n"
+                     + "         mix                 : Weights of the operations; example R=5,A=80,AZ=5,G=10\n";
 
         // Used for R, A, G, U, D, P commands only
         String command;
@@ -437,6 +444,20 @@ public class FidoEngine {
 
                     System.out.println("\nDone with Update Username!\n");
                     break;
+                case Constants.COMMANDS_LOADTEST:
+                    if (args.length != 13) {
+                        System.out.println("Missing arguments...\n" + usage);
+                        break;
+                    }
+
+                    if (wsprotocol.equalsIgnoreCase(Constants.PROTOCOL_REST)) {
+                        RestFidoLoadTest.loadtest(hostport, did, authtype, credential1, credential2, args[7],
+                                Integer.parseInt(args[8]), Double.parseDouble(args[9]), Integer.parseInt(args[10]),
+                                Integer.parseInt(args[11]), args[12]);
+                    } else {
+                        System.out.println("Not yet implemented");
+                    }
+                    break;
                 default:
                     System.out.println("Invalid Command...\n" + usage);
             }
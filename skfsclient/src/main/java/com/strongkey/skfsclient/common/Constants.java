@@ -56,6 +56,7 @@ public class Constants {
     public static final String COMMANDS_UPDATE_CONFIGURATION = "UC";
     public static final String COMMANDS_DELETE_CONFIGURATION = "DC";
     public static final String COMMANDS_UPDATE_USERNAME = "UU";
+    public static final String COMMANDS_LOADTEST = "LT";
 
     public static final String JSON_KEY_SERVLET_INPUT_USERNAME = "username";
     public static final String JSON_KEY_SERVLET_INPUT_REQUEST = "request";
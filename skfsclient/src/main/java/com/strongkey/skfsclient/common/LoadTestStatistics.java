@@ -0,0 +1,81 @@
+/**
+* Copyright StrongAuth, Inc. All Rights Reserved.
+*
+* Use of this source code is governed by the GNU Lesser General Public License v2.1
+* The license can be found at https://github.com/StrongKey/fido2/blob/master/LICENSE
+*/
+
+package com.strongkey.skfsclient.common;
+
+import java.io.PrintStream;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Latencies and errors of the operations of a load test. Latencies are
+ * recorded in microseconds, from the time the operation was scheduled to
+ * start, so that time spent waiting for a free virtual user counts.
+ */
+public class LoadTestStatistics {
+
+    private final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+    public void recordLatency(String operation, long micros) {
+        histograms.computeIfAbsent(operation, k -> new ConcurrentHistogram(3)).recordValue(Math.max(micros, 0));
+    }
+
+    /**
+     * @param operation - the operation that failed
+     * @param error - what went wrong: the step and HTTP status or exception
+     */
+    public void recordError(String operation, String error) {
+        errors.computeIfAbsent(operation + " " + error, k -> new LongAdder()).increment();
+    }
+
+    public long getCount() {
+        long count = 0;
+        for (Histogram h : histograms.values()) {
+            count += h.getTotalCount();
+        }
+        return count;
+    }
+
+    public long getErrorCount() {
+        long count = 0;
+        for (LongAdder e : errors.values()) {
+            count += e.sum();
+        }
+        return count;
+    }
+
+    /**
+     * Prints a summary and the latency distribution of each operation, in
+     * milliseconds, followed by the error breakdown.
+     */
+    public void print(PrintStream out, double seconds) {
+        Map<String, Histogram> sorted = new TreeMap<>(histograms);
+        out.println(String.format("%-4s %10s %10s %10s %10s %10s %10s %10s %10s",
+                "op", "count", "ops/s", "mean", "p50", "p90", "p99", "p99.9", "max"));
+        for (Map.Entry<String, Histogram> e : sorted.entrySet()) {
+            Histogram h = e.getValue();
+            out.println(String.format("%-4s %10d %10.1f %10.2f %10.2f %10.2f %10.2f %10.2f %10.2f",
+                    e.getKey(), h.getTotalCount(), h.getTotalCount() / seconds, h.getMean() / 1000,
+                    h.getValueAtPercentile(50) / 1000.0, h.getValueAtPercentile(90) / 1000.0,
+                    h.getValueAtPercentile(99) / 1000.0, h.getValueAtPercentile(99.9) / 1000.0,
+                    h.getMaxValue() / 1000.0));
+        }
+        for (Map.Entry<String, Histogram> e : sorted.entrySet()) {
+            out.println("\nLatency distribution (ms) of " + e.getKey() + ":");
+            e.getValue().outputPercentileDistribution(out, 1000.0);
+        }
+        out.println("\nErrors: " + getErrorCount());
+        for (Map.Entry<String, LongAdder> e : new TreeMap<>(errors).entrySet()) {
+            out.println(String.format("%10d  %s", e.getValue().sum(), e.getKey()));
+        }
+    }
+}
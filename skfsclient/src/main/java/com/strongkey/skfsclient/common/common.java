@@ -17,10 +17,13 @@ import org.bouncycastle.util.encoders.Hex;
 
 public final class common {
 
+    // Creating the provider runs the FIPS self-tests, so it is created once
+    private static final BouncyCastleFipsProvider BC_FIPS_PROVIDER = new BouncyCastleFipsProvider();
+
     public static String calculateHMAC(String secret, String data) {
         try {
             SecretKeySpec signingKey = new SecretKeySpec(Hex.decode(secret), "HmacSHA256");
-            Mac mac = Mac.getInstance("HmacSHA256", new BouncyCastleFipsProvider());
+            Mac mac = Mac.getInstance("HmacSHA256", BC_FIPS_PROVIDER);
             mac.init(signingKey);
             byte[] rawHmac = mac.doFinal(data.getBytes());
             return Base64.toBase64String(rawHmac);
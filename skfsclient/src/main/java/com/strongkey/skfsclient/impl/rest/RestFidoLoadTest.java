@@ -0,0 +1,460 @@
+/**
+* Copyright StrongAuth, Inc. All Rights Reserved.
+*
+* Use of this source code is governed by the GNU Lesser General Public License v2.1
+* The license can be found at https://github.com/StrongKey/fido2/blob/master/LICENSE
+*/
+
+package com.strongkey.skfsclient.impl.rest;
+
+import com.strongauth.skfs.fido2.simulator.FIDO2AuthenticatorSimulator;
+import com.strongkey.skfs.requests.AuthenticationRequest;
+import com.strongkey.skfs.requests.GetKeysInfoRequest;
+import com.strongkey.skfs.requests.PreauthenticationRequest;
+import com.strongkey.skfs.requests.PreauthorizeRequest;
+import com.strongkey.skfs.requests.PreregistrationRequest;
+import com.strongkey.skfs.requests.RegistrationRequest;
+import com.strongkey.skfsclient.common.Constants;
+import com.strongkey.skfsclient.common.LoadTestStatistics;
+import com.strongkey.skfsclient.common.SVCInfo;
+import com.strongkey.skfsclient.common.common;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import javax.json.Json;
+import javax.json.JsonObject;
+import javax.json.JsonReader;
+import org.apache.http.HttpEntity;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.util.EntityUtils;
+
+/**
+ * Open-loop load test of the REST webservices.
+ *
+ * Each virtual user is a FIDO user whose key is registered, with the
+ * simulator, before the test starts. During the test, operations are
+ * scheduled at the target rate (ramped up linearly over the ramp period)
+ * regardless of how fast the server answers, and run by the virtual users
+ * over a shared pool of keep-alive connections; an operation waits while its
+ * user is busy with a previous one. The latency of an operation is measured
+ * from the time it was scheduled, so a slow server shows as higher latency
+ * instead of a lower request rate.
+ *
+ * Operations: R registers another key for the user, A authenticates, AZ
+ * authorizes a transaction and G gets the keys info of the user; R, A and
+ * AZ include their pre-call.
+ */
+public class RestFidoLoadTest {
+
+    private static final String[] OPERATIONS = {
+        Constants.COMMANDS_REGISTER, Constants.COMMANDS_AUTHENTICATE,
+        Constants.COMMANDS_AUTHORIZE, Constants.COMMANDS_GETKEYSINFO
+    };
+
+    private static final long REPORT_INTERVAL = TimeUnit.SECONDS.toNanos(10);
+
+    private final String REST_URI;
+    private final int did;
+    private final String authtype;
+    private final String credential1;
+    private final String credential2;
+    private final String origin;
+    private final CloseableHttpClient httpclient;
+    private final List<VirtualUser> users = new ArrayList<>();
+    private final LoadTestStatistics stats = new LoadTestStatistics();
+
+    private RestFidoLoadTest(String REST_URI, int did, String authtype, String credential1, String credential2,
+            String origin, int users) {
+        this.REST_URI = REST_URI;
+        this.did = did;
+        this.authtype = authtype;
+        this.credential1 = credential1;
+        this.credential2 = credential2;
+        this.origin = origin;
+
+        PoolingHttpClientConnectionManager cm = new PoolingHttpClientConnectionManager();
+        cm.setMaxTotal(users);
+        cm.setDefaultMaxPerRoute(users);
+        this.httpclient = HttpClients.custom().setConnectionManager(cm).build();
+    }
+
+    /**
+     * @param users - number of virtual users
+     * @param rate - target rate, in operations per second
+     * @param duration - length of the test in seconds, ramp included
+     * @param ramp - seconds to ramp up to the target rate
+     * @param mix - weights of the operations, e.g. R=5,A=80,AZ=5,G=10
+     */
+    public static void loadtest(String REST_URI,
+                                int did,
+                                String authtype,
+                                String credential1,
+                                String credential2,
+                                String origin,
+                                int users,
+                                double rate,
+                                int duration,
+                                int ramp,
+                                String mix) throws Exception
+    {
+        /*
+        * authtype    -> |HMAC     |PASSWORD   |
+        *                |---------|-----------|
+        * credential1 -> |accesskey|svcusername|
+        * credential2 -> |secretkey|svcpassword|
+        */
+        if (!authtype.equalsIgnoreCase(Constants.AUTHORIZATION_HMAC) && !authtype.equalsIgnoreCase(Constants.AUTHORIZATION_PASSWORD)) {
+            System.out.println("Invalid Authentication Type...\n");
+            return;
+        }
+        int[] weights = parseMix(mix);
+        if (weights == null || users < 1 || rate <= 0 || duration < 1 || ramp < 0) {
+            System.out.println("Invalid load test parameters...\n");
+            return;
+        }
+
+        System.out.println("REST Load test with " + authtype);
+        System.out.println("*******************************");
+
+        RestFidoLoadTest test = new RestFidoLoadTest(REST_URI, did, authtype, credential1, credential2, origin, users);
+        try {
+            test.registerUsers(users);
+            test.run(weights, rate, duration, ramp, users);
+        } finally {
+            test.httpclient.close();
+        }
+    }
+
+    /**
+     * @return cumulative weights, in the order of OPERATIONS, or null if the
+     * mix is invalid
+     */
+    private static int[] parseMix(String mix) {
+        int[] weights = new int[OPERATIONS.length];
+        for (String entry : mix.split(",")) {
+            String[] kv = entry.trim().split("=");
+            int i = 0;
+            while (i < OPERATIONS.length && !OPERATIONS[i].equalsIgnoreCase(kv[0].trim())) {
+                i++;
+            }
+            if (kv.length != 2 || i == OPERATIONS.length) {
+                return null;
+            }
+            try {
+                weights[i] = Integer.parseInt(kv[1].trim());
+            } catch (NumberFormatException ex) {
+                return null;
+            }
+            if (weights[i] < 0) {
+                return null;
+            }
+        }
+        for (int i = 1; i < weights.length; i++) {
+            weights[i] += weights[i - 1];
+        }
+        return weights[weights.length - 1] > 0 ? weights : null;
+    }
+
+    /**
+     * Registers a key for each virtual user, in parallel, before the test.
+     */
+    private void registerUsers(int count) throws InterruptedException {
+        String prefix = "loadtest-" + Long.toString(System.currentTimeMillis(), 36) + "-";
+        for (int i = 0; i < count; i++) {
+            users.add(new VirtualUser(prefix + i));
+        }
+
+        System.out.println("\nRegistering " + count + " users (" + prefix + "*) ...");
+        long start = System.nanoTime();
+        AtomicInteger failed = new AtomicInteger();
+        ExecutorService setup = Executors.newFixedThreadPool(count);
+        for (VirtualUser user : users) {
+            setup.execute(() -> {
+                try {
+                    register(user);
+                } catch (Exception ex) {
+                    if (failed.getAndIncrement() == 0) {
+                        System.out.println("Error during user registration : " + ex.getMessage());
+                    }
+                }
+            });
+        }
+        setup.shutdown();
+        setup.awaitTermination(1, TimeUnit.HOURS);
+        System.out.println("Registered " + (count - failed.get()) + " of " + count + " users in "
+                + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+    }
+
+    private void run(int[] weights, double rate, int duration, int ramp, int threads) throws InterruptedException {
+        System.out.println("\nRunning for " + duration + " s at " + rate + " ops/s"
+                + (ramp > 0 ? " after a " + ramp + " s ramp" : "") + " ...");
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        AtomicLong completed = new AtomicLong();
+        long scheduled = 0;
+
+        long start = System.nanoTime();
+        long nextreport = start + REPORT_INTERVAL;
+        double t = 0;
+        while (t < duration) {
+            long intended = start + (long) (t * 1e9);
+            long now;
+            while ((now = System.nanoTime()) < intended) {
+                LockSupport.parkNanos(intended - now);
+            }
+            if (now >= nextreport) {
+                System.out.println(String.format("%5d s  scheduled %d  done %d  errors %d  outstanding %d",
+                        TimeUnit.NANOSECONDS.toSeconds(now - start), scheduled, completed.get(),
+                        stats.getErrorCount(), scheduled - completed.get()));
+                nextreport += REPORT_INTERVAL;
+            }
+
+            String operation = pickOperation(weights);
+            VirtualUser user = users.get(ThreadLocalRandom.current().nextInt(users.size()));
+            workers.execute(() -> {
+                execute(operation, user, intended);
+                completed.incrementAndGet();
+            });
+            scheduled++;
+
+            // Ramp up linearly, starting at no less than 1 op/s
+            double current = (t < ramp) ? Math.max(rate * t / ramp, Math.min(rate, 1.0)) : rate;
+            t += 1.0 / current;
+        }
+
+        workers.shutdown();
+        if (!workers.awaitTermination(60, TimeUnit.SECONDS)) {
+            System.out.println("Abandoning " + workers.shutdownNow().size() + " operations not started after 60 s");
+        }
+
+        System.out.println("\nScheduled " + scheduled + " operations; latencies in ms from the scheduled start:\n");
+        stats.print(System.out, duration);
+        System.out.println("\nDone with Load test!");
+    }
+
+    private static String pickOperation(int[] weights) {
+        int r = ThreadLocalRandom.current().nextInt(weights[weights.length - 1]);
+        int i = 0;
+        while (r >= weights[i]) {
+            i++;
+        }
+        return OPERATIONS[i];
+    }
+
+    private void execute(String operation, VirtualUser user, long intended) {
+        try {
+            synchronized (user) {
+                switch (operation) {
+                    case Constants.COMMANDS_REGISTER:
+                        register(user);
+                        break;
+                    case Constants.COMMANDS_AUTHENTICATE:
+                        authenticate(user, null, null);
+                        break;
+                    case Constants.COMMANDS_AUTHORIZE:
+                        byte[] txid = new byte[16];
+                        ThreadLocalRandom.current().nextBytes(txid);
+                        authenticate(user,
+                                Base64.getUrlEncoder().withoutPadding().encodeToString(txid),
+                                Base64.getUrlEncoder().withoutPadding().encodeToString(
+                                        ("Transfer 100.00 to account " + user.username).getBytes(StandardCharsets.UTF_8)));
+                        break;
+                    default:
+                        getKeysInfo(user);
+                }
+            }
+            stats.recordLatency(operation, TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intended));
+        } catch (RequestFailedException ex) {
+            stats.recordError(operation, ex.getMessage());
+        } catch (Exception ex) {
+            stats.recordError(operation, ex.getClass().getSimpleName());
+        }
+    }
+
+    private void register(VirtualUser user) throws Exception {
+        PreregistrationRequest prereg = new PreregistrationRequest();
+        setSVCInfo(prereg.getSVCInfo());
+        prereg.setUsername(user.username);
+        prereg.setDisplayName(user.username);
+        prereg.setOptions(Json.createObjectBuilder().build());
+        prereg.setExtensions(Constants.JSON_EMPTY);
+        JsonObject challenge = post(Constants.REST_PRE_REGISTER_ENDPOINT, prereg.toJsonObject(),
+                prereg.getPayload().toJsonObject()).getJsonObject("Response");
+
+        JsonObject input = FIDO2AuthenticatorSimulator.generateFIDO2RegistrationResponse(origin, challenge.toString(), origin, "packed", "Basic", true, false);
+
+        RegistrationRequest reg = new RegistrationRequest();
+        setSVCInfo(reg.getSVCInfo());
+        reg.setMetadata(Json.createObjectBuilder()
+                .add("version", "1.0")
+                .add("create_location", "Sunnyvale, CA")
+                .add(Constants.JSON_KEY_SERVLET_INPUT_USERNAME, user.username)
+                .add("origin", origin)
+                .build());
+        reg.setResponse(Json.createObjectBuilder()
+                .add("id", input.getString("id"))
+                .add("rawId", input.getString("rawId"))
+                .add("response", Json.createObjectBuilder()
+                        .add("attestationObject", input.getJsonObject("response").getString("attestationObject"))
+                        .add("clientDataJSON", input.getJsonObject("response").getString("clientDataJSON")))
+                .add("type", input.getString("type"))
+                .build());
+        post(Constants.REST_REGISTER_ENDPOINT, reg.toJsonObject(), reg.getPayload().toJsonObject());
+    }
+
+    /**
+     * Authenticates the user, or authorizes a transaction if txid is not
+     * null.
+     */
+    private void authenticate(VirtualUser user, String txid, String txpayload) throws Exception {
+        JsonObject challenge;
+        if (txid == null) {
+            PreauthenticationRequest preauth = new PreauthenticationRequest();
+            setSVCInfo(preauth.getSVCInfo());
+            preauth.setUsername(user.username);
+            preauth.setOptions(Constants.JSON_EMPTY_OPTIONS);
+            challenge = post(Constants.REST_PRE_AUTHENTICATE_ENDPOINT, preauth.toJsonObject(),
+                    preauth.getPayload().toJsonObject()).getJsonObject("Response");
+        } else {
+            PreauthorizeRequest preauth = new PreauthorizeRequest();
+            setSVCInfo(preauth.getSVCInfo());
+            preauth.setUsername(user.username);
+            preauth.setTxid(txid);
+            preauth.setTxpayload(txpayload);
+            preauth.setOptions(Constants.JSON_EMPTY_OPTIONS);
+            challenge = post(Constants.REST_PRE_AUTHORIZE_ENDPOINT, preauth.toJsonObject(),
+                    preauth.getPayload().toJsonObject()).getJsonObject("Response");
+        }
+
+        JsonObject input = FIDO2AuthenticatorSimulator.generateFIDO2AuthenticationResponse(
+                challenge.getJsonArray("allowCredentials").getJsonObject(0).getString("id"),
+                challenge.toString(), origin, "packed", user.counter.incrementAndGet(), true, false);
+
+        AuthenticationRequest auth = new AuthenticationRequest();
+        setSVCInfo(auth.getSVCInfo());
+        auth.setMetadata(Json.createObjectBuilder()
+                .add("version", "1.0")
+                .add("last_used_location", "Sunnyvale, CA")
+                .add(Constants.JSON_KEY_SERVLET_INPUT_USERNAME, user.username)
+                .add("origin", origin)
+                .build());
+        auth.setResponse(Json.createObjectBuilder()
+                .add("id", input.getString("id"))
+                .add("rawId", input.getString("rawId"))
+                .add("response", Json.createObjectBuilder()
+                        .add("authenticatorData", input.getJsonObject("response").getString("authenticatorData"))
+                        .add("signature", input.getJsonObject("response").getString("signature"))
+                        .add("userHandle", input.getJsonObject("response").getString("userHandle"))
+                        .add("clientDataJSON", input.getJsonObject("response").getString("clientDataJSON")))
+                .add("type", input.getString("type"))
+                .build());
+        if (txid == null) {
+            post(Constants.REST_AUTHENTICATE_ENDPOINT, auth.toJsonObject(), auth.getPayload().toJsonObject());
+        } else {
+            auth.setTxid(txid);
+            auth.setTxpayload(txpayload);
+            post(Constants.REST_AUTHOTIZE_ENDPOINT, auth.toJsonObject(), auth.getPayload().toJsonObject());
+        }
+    }
+
+    private void getKeysInfo(VirtualUser user) throws Exception {
+        GetKeysInfoRequest getkeysinfo = new GetKeysInfoRequest();
+        setSVCInfo(getkeysinfo.getSVCInfo());
+        getkeysinfo.setUsername(user.username);
+        post(Constants.REST_GETKEYSINFO_ENDPOINT, getkeysinfo.toJsonObject(), getkeysinfo.getPayload().toJsonObject());
+    }
+
+    private void setSVCInfo(SVCInfo svcinfo) {
+        svcinfo.setDid(did);
+        svcinfo.setProtocol(Constants.PROTOCOL_FIDO);
+        if (authtype.equalsIgnoreCase(Constants.AUTHORIZATION_HMAC)) {
+            svcinfo.setAuthtype(Constants.AUTHORIZATION_HMAC);
+        } else {
+            svcinfo.setAuthtype(Constants.AUTHORIZATION_PASSWORD);
+            svcinfo.setSVCUsername(credential1);
+            svcinfo.setSVCPassword(credential2);
+        }
+    }
+
+    /**
+     * POSTs a request over the shared connection pool.
+     *
+     * @param endpoint - the webservice
+     * @param request - the request
+     * @param payload - the payload of the request, to HMAC
+     * @return the response of the webservice
+     * @throws RequestFailedException if the status is not 200
+     */
+    private JsonObject post(String endpoint, JsonObject request, JsonObject payload) throws Exception {
+        ContentType mimetype = ContentType.APPLICATION_JSON;
+        HttpPost httpPost = new HttpPost(REST_URI + Constants.REST_SUFFIX + endpoint);
+        httpPost.setEntity(new StringEntity(request.toString(), mimetype));
+
+        // Build HMAC and add headers
+        if (authtype.equalsIgnoreCase(Constants.AUTHORIZATION_HMAC)) {
+            String payloadHash = common.calculateSha256(payload.toString());
+            String currentDate = new SimpleDateFormat("EEE, d MMM yyyy HH:mm:ss z").format(new Date());
+            String requestToHmac = httpPost.getMethod() + "\n"
+                    + payloadHash + "\n"
+                    + mimetype.getMimeType() + "\n"
+                    + currentDate + "\n"
+                    + Constants.API_VERSION + "\n"
+                    + httpPost.getURI().getPath();
+            String hmac = common.calculateHMAC(credential2, requestToHmac);
+            httpPost.addHeader("Authorization", "HMAC " + credential1 + ":" + hmac);
+            httpPost.addHeader("strongkey-content-sha256", payloadHash);
+            httpPost.addHeader("Date", currentDate);
+            httpPost.addHeader("strongkey-api-version", Constants.API_VERSION);
+        }
+        httpPost.addHeader("Content-Type", mimetype.getMimeType());
+
+        String result;
+        int status;
+        try (CloseableHttpResponse response = httpclient.execute(httpPost)) {
+            status = response.getStatusLine().getStatusCode();
+            HttpEntity entity = response.getEntity();
+            // Reading the whole entity releases the connection to the pool
+            result = EntityUtils.toString(entity);
+        }
+        if (status != 200) {
+            throw new RequestFailedException(endpoint.substring(1) + " HTTP " + status);
+        }
+        try (JsonReader jsonReader = Json.createReader(new StringReader(result))) {
+            return jsonReader.readObject();
+        }
+    }
+
+    private static class VirtualUser {
+
+        private final String username;
+        // Signature counter of the user's keys
+        private final AtomicInteger counter = new AtomicInteger();
+
+        VirtualUser(String username) {
+            this.username = username;
+        }
+    }
+
+    private static class RequestFailedException extends Exception {
+
+        RequestFailedException(String message) {
+            super(message);
+        }
+    }
+}